@@ -20,6 +20,10 @@ import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.phonepe.sentinelai.core.agent.Agent;
 import com.phonepe.sentinelai.core.agent.AgentExtension;
@@ -43,10 +47,12 @@ import com.phonepe.sentinelai.core.utils.JsonUtils;
 import com.phonepe.sentinelai.core.utils.ToolUtils;
 
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -55,6 +61,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * An extension for memory management.
@@ -62,8 +74,14 @@ import java.util.UUID;
  * If output has memory store it. No tools are needed.
  */
 @Slf4j
-public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements AgentExtension<R, T, A> {
+public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements AgentExtension<R, T, A>,
+        AutoCloseable {
     private static final String OUTPUT_KEY = "memoryOutput";
+    private static final int DEFAULT_EXTRACTION_CONCURRENCY = 2;
+    private static final int DEFAULT_EXTRACTION_QUEUE_SIZE = 64;
+    private static final Duration DEFAULT_USER_FACTS_CACHE_TTL = Duration.ofSeconds(30);
+    private static final int DEFAULT_USER_FACTS_CACHE_SIZE = 1_000;
+    private static final int USER_FACTS_COUNT = 5;
 
     /**
      * Whether to save memory after session ends.
@@ -87,13 +105,57 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
 
     private final Map<String, ExecutableTool> tools;
 
+    /**
+     * Bounded executor for out of band extraction. Extractions beyond the queue size are dropped rather than piling
+     * up model calls behind a slow model.
+     */
+    private final ThreadPoolExecutor extractionExecutor;
+
+    /**
+     * Queue depth, drop counts and latency of out of band extraction
+     */
+    @Getter
+    private final MemoryExtractionStats extractionStats = new MemoryExtractionStats();
+
+    /**
+     * Short lived cache of facts about a user, keyed on user id as facts about a user are shared by all agents. This
+     * avoids a store lookup on every turn of a conversation. Entries are invalidated whenever the store reports a
+     * change to memories about the user, by any agent or by compaction. Writes the store cannot report are picked up
+     * once the entry expires.
+     */
+    private final Cache<String, List<AgentMemory>> userFactsCache;
+    private final boolean userFactsCacheEnabled;
+    /**
+     * Bumped on every invalidation so that a lookup racing with a save does not leave stale facts in the cache
+     */
+    private final AtomicLong userFactsGeneration = new AtomicLong();
+    /**
+     * Registered with the store while the cache is enabled. Kept so that {@link #close()} can remove the same instance
+     */
+    private final Consumer<List<AgentMemory>> storeChangeListener = this::invalidateUserFacts;
+
     private A agent;
 
+    /**
+     * @param memoryExtractionMode        How memories are to be extracted. Defaults to {@link MemoryExtractionMode#INLINE}
+     * @param memoryStore                 Store to save and retrieve memories from
+     * @param objectMapper                Object mapper for memory objects
+     * @param minRelevantReusabilityScore Minimum reusability score for memories to be saved or retrieved
+     * @param extractionConcurrency       Maximum number of out of band extractions to run in parallel. Defaults to 2
+     * @param extractionQueueSize         Maximum number of out of band extractions waiting to be run. Defaults to 64
+     * @param userFactsCacheTtl           How long facts about a user are cached. Defaults to 30 seconds. Set to
+     *                                    {@link Duration#ZERO} to disable caching
+     * @param userFactsCacheSize          Maximum number of users for whom facts are cached. Defaults to 1000
+     */
     @Builder
     public AgentMemoryExtension(MemoryExtractionMode memoryExtractionMode,
                                 @NonNull AgentMemoryStore memoryStore,
                                 ObjectMapper objectMapper,
-                                int minRelevantReusabilityScore) {
+                                int minRelevantReusabilityScore,
+                                int extractionConcurrency,
+                                int extractionQueueSize,
+                                Duration userFactsCacheTtl,
+                                int userFactsCacheSize) {
         this.memoryExtractionMode = Objects.requireNonNullElse(
                                                                memoryExtractionMode,
                                                                MemoryExtractionMode.INLINE);
@@ -102,6 +164,29 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
                                                           JsonUtils::createMapper);
         this.minRelevantReusabilityScore = minRelevantReusabilityScore;
         this.tools = Map.copyOf(ToolUtils.readTools(this));
+        final var concurrency = extractionConcurrency > 0 ? extractionConcurrency : DEFAULT_EXTRACTION_CONCURRENCY;
+        this.extractionExecutor = new ThreadPoolExecutor(concurrency,
+                                                         concurrency,
+                                                         1,
+                                                         TimeUnit.MINUTES,
+                                                         new ArrayBlockingQueue<>(extractionQueueSize > 0
+                                                                 ? extractionQueueSize
+                                                                 : DEFAULT_EXTRACTION_QUEUE_SIZE),
+                                                         new ThreadFactoryBuilder()
+                                                                 .setNameFormat("memory-extraction-%d")
+                                                                 .setDaemon(true)
+                                                                 .build());
+        this.extractionExecutor.allowCoreThreadTimeOut(true);
+        final var cacheTtl = Objects.requireNonNullElse(userFactsCacheTtl, DEFAULT_USER_FACTS_CACHE_TTL);
+        this.userFactsCacheEnabled = !cacheTtl.isZero();
+        this.userFactsCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(userFactsCacheSize > 0 ? userFactsCacheSize : DEFAULT_USER_FACTS_CACHE_SIZE)
+                .recordStats()
+                .build();
+        if (userFactsCacheEnabled) {
+            memoryStore.addChangeListener(storeChangeListener);
+        }
     }
 
 
@@ -172,18 +257,18 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
             final var memoryOutput = objectMapper.treeToValue(output,
                                                               AgentMemoryOutput.class);
             final var memories = Objects.requireNonNullElseGet(memoryOutput
-                    .getGeneratedMemory(), List::<GeneratedMemoryUnit>of);
-            memories.stream()
+                    .getGeneratedMemory(), List::<GeneratedMemoryUnit>of)
+                    .stream()
                     .filter(memoryUnit -> memoryUnit
                             .getReusabilityScore() >= minRelevantReusabilityScore)
-                    .forEach(memoryUnit -> {
+                    .map(memoryUnit -> {
                         log.debug("Saving memory: {} of type: {} for scope: {} and scopeId: {}. Content: {}",
                                   memoryUnit.getName(),
                                   memoryUnit.getType(),
                                   memoryUnit.getScope(),
                                   memoryUnit.getScopeId(),
                                   memoryUnit.getContent());
-                        memoryStore.save(AgentMemory.builder()
+                        return AgentMemory.builder()
                                 .scope(memoryUnit.getScope())
                                 .scopeId(memoryUnit.getScopeId())
                                 .agentName(agent.name())
@@ -193,8 +278,15 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
                                 .topics(memoryUnit.getTopics())
                                 .reusabilityScore(memoryUnit
                                         .getReusabilityScore())
-                                .build());
-                    });
+                                .build();
+                    })
+                    .toList();
+            if (!memories.isEmpty()) {
+                //Saved as a batch so that the store can embed and persist all memories in one go
+                extractionStats.recordSaved(memoryStore.saveAll(memories).size());
+                //Facts about these users are stale now. Done here as well for stores that do not report changes
+                invalidateUserFacts(memories);
+            }
         }
         catch (Exception e) {
             log.error("Error converting json node to memory output. Error: %s Json: %s"
@@ -204,6 +296,17 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
 
     }
 
+    /**
+     * Stops listening for changes in the memory store and stops accepting out of band extractions. Extractions that
+     * are already queued are allowed to finish. Call this when the extension is discarded but the store is still in
+     * use, otherwise the store keeps the extension reachable.
+     */
+    @Override
+    public void close() {
+        memoryStore.removeChangeListener(storeChangeListener);
+        extractionExecutor.shutdown();
+    }
+
     @Override
     public List<FactList> facts(R request,
                                 AgentRunContext<R> context,
@@ -214,10 +317,7 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
         final var userId = AgentUtils.userId(context);
         if (!Strings.isNullOrEmpty(userId)) {
 
-            final var memoriesAboutUser = memoryStore.findMemoriesAboutUser(
-                                                                            userId,
-                                                                            null,
-                                                                            5);
+            final var memoriesAboutUser = userFacts(userId);
             if (!memoriesAboutUser.isEmpty()) {
                 final var factList = new FactList("Memories about user",
                                                   memoriesAboutUser.stream()
@@ -252,6 +352,13 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
         return facts;
     }
 
+    /**
+     * @return Hit, miss, load and eviction counts for the user facts cache
+     */
+    public CacheStats getUserFactsCacheStats() {
+        return userFactsCache.stats();
+    }
+
     @Override
     public String name() {
         return "agent-memory-extension";
@@ -284,26 +391,13 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
         return this.tools;
     }
 
+    /**
+     * Runs the extraction model call and saves the extracted memories
+     *
+     * @return true if the model call succeeded
+     */
     @SneakyThrows
-    private void extractMemory(Agent.ProcessingCompletedData<R, T, A> data) {
-        if (memoryExtractionMode.equals(MemoryExtractionMode.DISABLED)) {
-            log.debug("Memory extraction is disabled");
-            return;
-        }
-        if (memoryExtractionMode.equals(MemoryExtractionMode.INLINE)) {
-            if (data.getProcessingMode().equals(ProcessingMode.DIRECT)) {
-                log.debug("Inline memory extraction is enabled, will extract memory from output. Out of band extraction"
-                        + " is not needed.");
-                return;
-            }
-            else {
-                log.debug("Inline memory extraction is enabled, but the request was processed in streaming mode, out of"
-                        + " band extraction being forced.");
-            }
-        }
-        else {
-            log.debug("Out of band memory extraction is enabled, will extract memory asynchronously");
-        }
+    private boolean extractAndSaveMemories(Agent.ProcessingCompletedData<R, T, A> data) {
         // Replace the system prompt with the extraction task prompt
         final var messages = new ArrayList<AgentMessage>();
         //Add system prompt to the messages
@@ -358,6 +452,7 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
                 .getErrorType()
                 .equals(ErrorType.SUCCESS)) {
             log.error("Error extracting memory: {}", output.getError());
+            return false;
         }
         else {
             final var extractedMemoryData = output.getData().get(OUTPUT_KEY);
@@ -371,5 +466,89 @@ public class AgentMemoryExtension<R, T, A extends Agent<R, T, A>> implements Age
         }
         log.info("Model usage stats for memory extraction run: {}",
                  output.getUsage());
+        return true;
+    }
+
+    private void extractMemory(Agent.ProcessingCompletedData<R, T, A> data) {
+        if (memoryExtractionMode.equals(MemoryExtractionMode.DISABLED)) {
+            log.debug("Memory extraction is disabled");
+            return;
+        }
+        if (memoryExtractionMode.equals(MemoryExtractionMode.INLINE)) {
+            if (data.getProcessingMode().equals(ProcessingMode.DIRECT)) {
+                log.debug("Inline memory extraction is enabled, will extract memory from output. Out of band extraction"
+                        + " is not needed.");
+                return;
+            }
+            else {
+                log.debug("Inline memory extraction is enabled, but the request was processed in streaming mode, out of"
+                        + " band extraction being forced.");
+            }
+        }
+        else {
+            log.debug("Out of band memory extraction is enabled, will extract memory asynchronously");
+        }
+        extractionStats.recordEnqueued();
+        try {
+            extractionExecutor.execute(() -> runExtraction(data));
+            extractionStats.recordSubmitted();
+        }
+        catch (RejectedExecutionException e) {
+            extractionStats.recordDropped();
+            log.warn("Memory extraction queue is full, dropping extraction for run {}. Stats: {}",
+                     data.getContext().getRunId(),
+                     extractionStats);
+        }
+    }
+
+    private void invalidateUserFacts(List<AgentMemory> memories) {
+        final var userIds = memories.stream()
+                .filter(memory -> memory.getScope() == MemoryScope.ENTITY && memory.getScopeId() != null)
+                .map(AgentMemory::getScopeId)
+                .distinct()
+                .toList();
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userFactsGeneration.incrementAndGet();
+        userFactsCache.invalidateAll(userIds);
+    }
+
+    private void runExtraction(Agent.ProcessingCompletedData<R, T, A> data) {
+        extractionStats.recordDequeued();
+        final var start = System.currentTimeMillis();
+        try {
+            if (extractAndSaveMemories(data)) {
+                extractionStats.recordCompleted(System.currentTimeMillis() - start);
+            }
+            else {
+                extractionStats.recordFailed(System.currentTimeMillis() - start);
+            }
+        }
+        catch (Exception e) {
+            extractionStats.recordFailed(System.currentTimeMillis() - start);
+            log.error("Memory extraction failed for run %s: %s"
+                    .formatted(data.getContext().getRunId(), AgentUtils.rootCause(e).getMessage()),
+                      e);
+        }
+        log.debug("Memory extraction stats: {}", extractionStats);
+    }
+
+    @SneakyThrows
+    private List<AgentMemory> userFacts(String userId) {
+        if (!userFactsCacheEnabled) {
+            return memoryStore.findMemoriesAboutUser(userId, null, USER_FACTS_COUNT);
+        }
+        final var generation = userFactsGeneration.get();
+        //Concurrent turns for the same user wait on a single store lookup
+        final var facts = userFactsCache.get(userId,
+                                             () -> memoryStore.findMemoriesAboutUser(userId,
+                                                                                     null,
+                                                                                     USER_FACTS_COUNT));
+        if (userFactsGeneration.get() != generation) {
+            //Memories changed while the lookup was running, so the cached facts may predate the change
+            userFactsCache.invalidate(userId);
+        }
+        return facts;
     }
 }
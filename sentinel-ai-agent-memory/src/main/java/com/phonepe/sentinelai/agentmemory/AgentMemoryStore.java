@@ -20,11 +20,24 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  *
  */
 public interface AgentMemoryStore {
+    /**
+     * Register a listener that is called after memories are saved to or deleted from this store, including deletions
+     * made by {@link com.phonepe.sentinelai.agentmemory.compaction.AgentMemoryCompactor}. Listeners are called on the
+     * writing thread and must not block. Stores that cannot track changes ignore the listener, so callers that cache
+     * reads must still expire their entries.
+     *
+     * @param listener Called with the memories that were changed
+     */
+    default void addChangeListener(Consumer<List<AgentMemory>> listener) {
+        //Change notification is optional
+    }
+
     List<AgentMemory> findMemories(String scopeId,
                                    MemoryScope scope,
                                    Set<MemoryType> memoryTypes,
@@ -55,6 +68,29 @@ public interface AgentMemoryStore {
                             10);
     }
 
+    /**
+     * Remove a listener registered with {@link #addChangeListener(Consumer)}
+     *
+     * @param listener The same instance that was registered
+     */
+    default void removeChangeListener(Consumer<List<AgentMemory>> listener) {
+        //Change notification is optional
+    }
+
     Optional<AgentMemory> save(AgentMemory agentMemory);
 
+    /**
+     * Save a batch of memories. Stores should override this to embed and persist the whole batch in one go. The
+     * default implementation saves the memories one by one.
+     *
+     * @param agentMemories Memories to be saved
+     * @return The memories that were saved successfully
+     */
+    default List<AgentMemory> saveAll(List<AgentMemory> agentMemories) {
+        return agentMemories.stream()
+                .map(this::save)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
 }
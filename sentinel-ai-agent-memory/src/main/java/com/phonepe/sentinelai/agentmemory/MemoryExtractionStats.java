@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.agentmemory;
+
+import lombok.ToString;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the out of band memory extraction queue maintained by {@link AgentMemoryExtension}.
+ */
+@ToString
+public class MemoryExtractionStats {
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong completed = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong memoriesSaved = new AtomicLong(0);
+    private final AtomicLong totalLatencyMs = new AtomicLong(0);
+    private final AtomicLong maxLatencyMs = new AtomicLong(0);
+
+    /**
+     * @return Average time taken by an extraction, from model call to memories being saved
+     */
+    public double getAverageLatencyMs() {
+        final var finished = completed.get() + failed.get();
+        return finished == 0 ? 0 : (double) totalLatencyMs.get() / finished;
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * @return Number of extractions that were rejected because the queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs.get();
+    }
+
+    public long getMemoriesSaved() {
+        return memoriesSaved.get();
+    }
+
+    /**
+     * @return Number of extractions waiting for an executor thread
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return Number of extractions accepted into the queue
+     */
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    void recordCompleted(long latencyMs) {
+        completed.incrementAndGet();
+        recordLatency(latencyMs);
+    }
+
+    void recordDequeued() {
+        queueDepth.decrementAndGet();
+    }
+
+    void recordDropped() {
+        queueDepth.decrementAndGet();
+        dropped.incrementAndGet();
+    }
+
+    void recordEnqueued() {
+        queueDepth.incrementAndGet();
+    }
+
+    void recordFailed(long latencyMs) {
+        failed.incrementAndGet();
+        recordLatency(latencyMs);
+    }
+
+    void recordSaved(int count) {
+        memoriesSaved.addAndGet(count);
+    }
+
+    void recordSubmitted() {
+        submitted.incrementAndGet();
+    }
+
+    private void recordLatency(long latencyMs) {
+        totalLatencyMs.addAndGet(latencyMs);
+        maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.agentmemory.compaction;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.phonepe.sentinelai.agentmemory.AgentMemory;
+import com.phonepe.sentinelai.agentmemory.compaction.CompactableAgentMemoryStore.ScopeKey;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Background job that finds near duplicate memories within each scope of a memory store and evicts or merges them as
+ * per the configured {@link MemoryCompactionPolicy}.
+ * <p>
+ * Work is done on a single background thread, a bounded number of scopes at a time, with a pause between scopes. The
+ * job remembers the last scope it compacted, so that stopping and starting it again (or calling {@link #runOnce()}
+ * repeatedly) resumes from where it left off. Compaction of a scope is idempotent, merged memories are saved before
+ * their duplicates are deleted, so a run interrupted midway leaves the store consistent and is simply redone.
+ */
+@Slf4j
+public class AgentMemoryCompactor implements AutoCloseable {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private record Candidate(
+            AgentMemory memory,
+            float[] vector,
+            double norm,
+            String normalizedContent
+    ) {
+    }
+
+    private final CompactableAgentMemoryStore store;
+    private final MemoryCompactionConfig config;
+    private final ScheduledExecutorService executor;
+    private final AtomicReference<ScopeKey> cursor = new AtomicReference<>();
+    @Getter
+    private final MemoryCompactionStats stats = new MemoryCompactionStats();
+    private ScheduledFuture<?> task;
+    /**
+     * Released by {@link #stop()} to end the background run after the scope being compacted. The run is never
+     * interrupted, as an interrupt during store I/O can leave a merged memory saved without its duplicates deleted.
+     */
+    private CountDownLatch taskStopSignal;
+
+    @Builder
+    public AgentMemoryCompactor(@NonNull CompactableAgentMemoryStore store, MemoryCompactionConfig config) {
+        this.store = store;
+        this.config = Objects.requireNonNullElse(config, MemoryCompactionConfig.DEFAULT);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("memory-compaction-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    private static double cosineSimilarity(Candidate lhs, Candidate rhs) {
+        final var a = lhs.vector();
+        final var b = rhs.vector();
+        if (a == null || b == null || a.length != b.length || lhs.norm() == 0.0 || rhs.norm() == 0.0) {
+            return 0.0;
+        }
+        double dot = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            dot += (double) a[i] * b[i];
+        }
+        return dot / (lhs.norm() * rhs.norm());
+    }
+
+    private static AgentMemory merge(AgentMemory keeper, List<AgentMemory> duplicates) {
+        final var topics = new LinkedHashSet<String>(Objects.requireNonNullElseGet(keeper.getTopics(), List::of));
+        var reusabilityScore = keeper.getReusabilityScore();
+        var createdAt = keeper.getCreatedAt();
+        for (final var duplicate : duplicates) {
+            topics.addAll(Objects.requireNonNullElseGet(duplicate.getTopics(), List::<String>of));
+            reusabilityScore = Math.max(reusabilityScore, duplicate.getReusabilityScore());
+            if (createdAt == null
+                    || (duplicate.getCreatedAt() != null && duplicate.getCreatedAt().isBefore(createdAt))) {
+                createdAt = duplicate.getCreatedAt();
+            }
+        }
+        return keeper.withTopics(List.copyOf(topics))
+                .withReusabilityScore(reusabilityScore)
+                .withCreatedAt(createdAt);
+    }
+
+    private static double norm(float[] vector) {
+        if (vector == null) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (final float x : vector) {
+            sum += (double) x * x;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static Comparator<Candidate> preference(MemoryCompactionPolicy policy) {
+        final Comparator<Candidate> latestFirst = Comparator.comparing(
+                                                                       (Candidate candidate) -> candidate.memory()
+                                                                               .getUpdatedAt(),
+                                                                       Comparator.nullsLast(Comparator
+                                                                               .<LocalDateTime>reverseOrder()));
+        return switch (policy) {
+            case KEEP_LATEST, MERGE -> latestFirst;
+            case KEEP_MOST_REUSABLE -> Comparator
+                    .comparingInt((Candidate candidate) -> candidate.memory().getReusabilityScore())
+                    .reversed()
+                    .thenComparing(latestFirst);
+        };
+    }
+
+    @Override
+    public void close() {
+        stop();
+        executor.shutdown();
+    }
+
+    /**
+     * Compact a single scope
+     *
+     * @param scopeKey Scope to compact
+     * @return Counts of memories scanned, evicted and merged
+     */
+    public MemoryCompactionResult compactScope(@NonNull ScopeKey scopeKey) {
+        final var candidates = new ArrayList<Candidate>();
+        for (final var embedded : store.memoriesInScope(scopeKey, config.getMaxMemoriesPerScope())) {
+            final var memory = embedded.getMemory();
+            candidates.add(new Candidate(memory,
+                                         embedded.getVector(),
+                                         norm(embedded.getVector()),
+                                         WHITESPACE.matcher(Objects.requireNonNullElse(memory.getContent(), ""))
+                                                 .replaceAll(" ")
+                                                 .trim()
+                                                 .toLowerCase()));
+        }
+        if (candidates.size() < 2) {
+            return new MemoryCompactionResult(candidates.size(), 0, 0);
+        }
+        //Greedy clustering: every memory either joins the first preferred memory it duplicates or starts a group
+        candidates.sort(preference(config.getPolicy()));
+        final var keepers = new ArrayList<Candidate>();
+        final var groups = new ArrayList<List<AgentMemory>>();
+        for (final var candidate : candidates) {
+            var matched = false;
+            for (int i = 0; i < keepers.size() && !matched; i++) {
+                final var keeper = keepers.get(i);
+                if (keeper.normalizedContent().equals(candidate.normalizedContent())
+                        || cosineSimilarity(keeper, candidate) >= config.getSimilarityThreshold()) {
+                    groups.get(i).add(candidate.memory());
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                keepers.add(candidate);
+                groups.add(new ArrayList<>());
+            }
+        }
+        final var merged = new ArrayList<AgentMemory>();
+        final var evicted = new ArrayList<AgentMemory>();
+        for (int i = 0; i < keepers.size(); i++) {
+            final var duplicates = groups.get(i);
+            if (duplicates.isEmpty()) {
+                continue;
+            }
+            final var keeper = keepers.get(i).memory();
+            if (config.getPolicy() == MemoryCompactionPolicy.MERGE) {
+                final var mergedMemory = merge(keeper, duplicates);
+                if (!mergedMemory.equals(keeper)) {
+                    merged.add(mergedMemory);
+                }
+            }
+            evicted.addAll(duplicates);
+        }
+        //Save before delete, so that an interruption in between never loses information
+        if (!merged.isEmpty()) {
+            store.saveAll(merged);
+        }
+        final var deleted = evicted.isEmpty() ? 0 : store.delete(evicted);
+        log.debug("Compacted scope {}: scanned {} evicted {} merged {}",
+                  scopeKey,
+                  candidates.size(),
+                  deleted,
+                  merged.size());
+        return new MemoryCompactionResult(candidates.size(), deleted, merged.size());
+    }
+
+    /**
+     * Run a single slice of compaction: up to {@link MemoryCompactionConfig#getMaxScopesPerRun()} scopes after the
+     * last compacted scope. Once all scopes have been covered, the next run starts from the beginning.
+     *
+     * @return Counts of memories scanned, evicted and merged in this run
+     */
+    public MemoryCompactionResult runOnce() {
+        return runOnce(new CountDownLatch(1));
+    }
+
+    /**
+     * Start running compaction periodically in the background. Calling this on a running compactor is a no-op.
+     */
+    public synchronized void start() {
+        if (task != null && !task.isDone()) {
+            return;
+        }
+        final var intervalMs = config.getRunInterval().toMillis();
+        final var stopSignal = new CountDownLatch(1);
+        taskStopSignal = stopSignal;
+        task = executor.scheduleWithFixedDelay(() -> runSafely(stopSignal),
+                                               intervalMs,
+                                               intervalMs,
+                                               TimeUnit.MILLISECONDS);
+        log.info("Memory compaction scheduled every {} ms", intervalMs);
+    }
+
+    /**
+     * Stop background compaction. An in-flight run stops after the scope being compacted and the next start resumes
+     * from the scope after it.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            taskStopSignal.countDown();
+            task.cancel(false);
+            task = null;
+            taskStopSignal = null;
+        }
+    }
+
+    private boolean pause(CountDownLatch stopSignal) {
+        final var pauseMs = config.getPauseBetweenScopes().toMillis();
+        if (pauseMs <= 0) {
+            return stopSignal.getCount() == 0;
+        }
+        try {
+            return stopSignal.await(pauseMs, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    private MemoryCompactionResult runOnce(CountDownLatch stopSignal) {
+        stats.recordRun();
+        final var after = cursor.get();
+        final var pending = store.scopes()
+                .stream()
+                .filter(scopeKey -> after == null || scopeKey.compareTo(after) > 0)
+                .sorted()
+                .limit(config.getMaxScopesPerRun())
+                .toList();
+        var scanned = 0;
+        var evicted = 0;
+        var merged = 0;
+        var stopped = false;
+        for (final var scopeKey : pending) {
+            if (stopSignal.getCount() == 0 || Thread.currentThread().isInterrupted()) {
+                log.info("Memory compaction stopped, will resume after scope {}", cursor.get());
+                stopped = true;
+                break;
+            }
+            try {
+                final var result = compactScope(scopeKey);
+                stats.recordScope(result);
+                scanned += result.getScanned();
+                evicted += result.getEvicted();
+                merged += result.getMerged();
+            }
+            catch (Exception e) {
+                stats.recordFailure();
+                log.error("Error compacting memories in scope {}", scopeKey, e);
+            }
+            cursor.set(scopeKey);
+            stopped = pause(stopSignal);
+        }
+        if (!stopped && pending.size() < config.getMaxScopesPerRun()) {
+            //Reached the end of the store, next run starts a fresh pass
+            cursor.set(null);
+            stats.recordPassCompleted();
+        }
+        return new MemoryCompactionResult(scanned, evicted, merged);
+    }
+
+    private void runSafely(CountDownLatch stopSignal) {
+        try {
+            final var result = runOnce(stopSignal);
+            log.info("Memory compaction run completed: {}. Stats: {}", result, stats);
+        }
+        catch (Exception e) {
+            stats.recordFailure();
+            log.error("Memory compaction run failed", e);
+        }
+    }
+}
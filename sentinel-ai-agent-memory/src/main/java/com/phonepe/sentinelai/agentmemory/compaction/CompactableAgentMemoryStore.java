@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.agentmemory.compaction;
+
+import com.phonepe.sentinelai.agentmemory.AgentMemory;
+import com.phonepe.sentinelai.agentmemory.AgentMemoryStore;
+import com.phonepe.sentinelai.agentmemory.MemoryScope;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A memory store that exposes enough of its internals for {@link AgentMemoryCompactor} to find and remove duplicate
+ * memories.
+ */
+public interface CompactableAgentMemoryStore extends AgentMemoryStore {
+    /**
+     * Identifies the set of memories that are compared against each other for duplicates
+     */
+    record ScopeKey(
+            MemoryScope scope,
+            String scopeId
+    ) implements Comparable<ScopeKey> {
+        private static final Comparator<ScopeKey> ORDER = Comparator
+                .comparing(ScopeKey::scope, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(ScopeKey::scopeId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        @Override
+        public int compareTo(ScopeKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * Delete memories from the store
+     *
+     * @param memories Memories to be deleted. Memories are identified the same way as in {@link #save(AgentMemory)}
+     * @return Number of memories actually deleted
+     */
+    int delete(List<AgentMemory> memories);
+
+    /**
+     * Get memories in a scope along with their embeddings
+     *
+     * @param scopeKey Scope to read
+     * @param limit    Maximum number of memories to return
+     * @return Memories in the scope
+     */
+    List<EmbeddedAgentMemory> memoriesInScope(ScopeKey scopeKey, int limit);
+
+    /**
+     * @return All scopes that have at least one memory
+     */
+    List<ScopeKey> scopes();
+}
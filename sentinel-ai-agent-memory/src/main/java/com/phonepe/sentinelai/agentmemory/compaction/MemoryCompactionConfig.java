@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.agentmemory.compaction;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Configuration for {@link AgentMemoryCompactor}
+ */
+@Value
+@Builder
+public class MemoryCompactionConfig {
+    public static final MemoryCompactionConfig DEFAULT = MemoryCompactionConfig.builder().build();
+
+    /**
+     * What to do with near duplicate memories
+     */
+    @Builder.Default
+    MemoryCompactionPolicy policy = MemoryCompactionPolicy.KEEP_LATEST;
+
+    /**
+     * Cosine similarity at or above which two memories in the same scope are considered duplicates. Memories with the
+     * same content (ignoring case and whitespace) are always considered duplicates.
+     */
+    @Builder.Default
+    double similarityThreshold = 0.95;
+
+    /**
+     * Maximum number of scopes processed in a single run. Remaining scopes are picked up in the next run.
+     */
+    @Builder.Default
+    int maxScopesPerRun = 100;
+
+    /**
+     * Maximum number of memories compared within a scope. Comparison is quadratic in the worst case, so this bounds
+     * the CPU spent on a single scope.
+     */
+    @Builder.Default
+    int maxMemoriesPerScope = 1_000;
+
+    /**
+     * Delay between the end of a run and the start of the next one
+     */
+    @Builder.Default
+    Duration runInterval = Duration.ofMinutes(5);
+
+    /**
+     * Pause between scopes within a run, so that compaction yields CPU to request processing
+     */
+    @Builder.Default
+    Duration pauseBetweenScopes = Duration.ofMillis(10);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.agentmemory.compaction;
+
+/**
+ * What to do with a group of near duplicate memories
+ */
+public enum MemoryCompactionPolicy {
+    /**
+     * Keep the most recently updated memory and evict the rest
+     */
+    KEEP_LATEST,
+    /**
+     * Keep the memory with the highest reusability score and evict the rest. Ties are broken by recency.
+     */
+    KEEP_MOST_REUSABLE,
+    /**
+     * Keep the most recently updated memory, fold the topics, highest reusability score and earliest creation time of
+     * the rest into it and evict the rest
+     */
+    MERGE,
+}
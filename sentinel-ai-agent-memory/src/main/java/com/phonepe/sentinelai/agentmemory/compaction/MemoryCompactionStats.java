@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.agentmemory.compaction;
+
+import lombok.ToString;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for {@link AgentMemoryCompactor}
+ */
+@ToString
+public class MemoryCompactionStats {
+    private final AtomicLong runs = new AtomicLong(0);
+    private final AtomicLong passesCompleted = new AtomicLong(0);
+    private final AtomicLong scopesProcessed = new AtomicLong(0);
+    private final AtomicLong memoriesScanned = new AtomicLong(0);
+    private final AtomicLong memoriesEvicted = new AtomicLong(0);
+    private final AtomicLong memoriesMerged = new AtomicLong(0);
+    private final AtomicLong failures = new AtomicLong(0);
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return Number of duplicate memories deleted from the store
+     */
+    public long getMemoriesEvicted() {
+        return memoriesEvicted.get();
+    }
+
+    /**
+     * @return Number of memories updated with data folded in from their duplicates
+     */
+    public long getMemoriesMerged() {
+        return memoriesMerged.get();
+    }
+
+    public long getMemoriesScanned() {
+        return memoriesScanned.get();
+    }
+
+    /**
+     * @return Number of times compaction went over every scope in the store
+     */
+    public long getPassesCompleted() {
+        return passesCompleted.get();
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getScopesProcessed() {
+        return scopesProcessed.get();
+    }
+
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    void recordPassCompleted() {
+        passesCompleted.incrementAndGet();
+    }
+
+    void recordRun() {
+        runs.incrementAndGet();
+    }
+
+    void recordScope(MemoryCompactionResult result) {
+        scopesProcessed.incrementAndGet();
+        memoriesScanned.addAndGet(result.getScanned());
+        memoriesEvicted.addAndGet(result.getEvicted());
+        memoriesMerged.addAndGet(result.getMerged());
+    }
+}
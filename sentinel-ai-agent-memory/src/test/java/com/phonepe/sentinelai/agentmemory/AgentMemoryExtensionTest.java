@@ -18,8 +18,11 @@ package com.phonepe.sentinelai.agentmemory;
 
 import com.fasterxml.jackson.annotation.JsonClassDescription;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import io.github.sashirestela.cleverclient.client.OkHttpClientAdapter;
 import io.github.sashirestela.openai.SimpleOpenAIAzure;
@@ -33,7 +36,9 @@ import com.phonepe.sentinelai.core.agent.AgentInput;
 import com.phonepe.sentinelai.core.agent.AgentRequestMetadata;
 import com.phonepe.sentinelai.core.agent.AgentRunContext;
 import com.phonepe.sentinelai.core.agent.AgentSetup;
+import com.phonepe.sentinelai.core.agent.ProcessingMode;
 import com.phonepe.sentinelai.core.model.ModelSettings;
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
 import com.phonepe.sentinelai.core.tools.ExecutableTool;
 import com.phonepe.sentinelai.core.tools.Tool;
 import com.phonepe.sentinelai.core.tools.ToolBox;
@@ -55,9 +60,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -126,6 +138,29 @@ class AgentMemoryExtensionTest {
     class InMemoryMemStore implements AgentMemoryStore {
 
         private final Map<Key, List<AgentMemory>> memories = new ConcurrentHashMap<>();
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final List<Consumer<List<AgentMemory>>> listeners = new CopyOnWriteArrayList<>();
+        private final long lookupDelayMs;
+        //Run after a lookup has read its results, to simulate a save racing with the lookup
+        private volatile Runnable afterLookup;
+
+        InMemoryMemStore() {
+            this(0);
+        }
+
+        InMemoryMemStore(long lookupDelayMs) {
+            this.lookupDelayMs = lookupDelayMs;
+        }
+
+        @Override
+        public void addChangeListener(Consumer<List<AgentMemory>> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeChangeListener(Consumer<List<AgentMemory>> listener) {
+            listeners.remove(listener);
+        }
 
         @Override
         public List<AgentMemory> findMemories(String scopeId,
@@ -135,7 +170,18 @@ class AgentMemoryExtensionTest {
                                               String query,
                                               int minReusabilityScore,
                                               int count) {
-            return memories.getOrDefault(new Key(scope, scopeId), List.of());
+            lookups.incrementAndGet();
+            if (lookupDelayMs > 0) {
+                //Simulates embedding + vector search latency
+                Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(lookupDelayMs));
+            }
+            final var found = List.copyOf(memories.getOrDefault(new Key(scope, scopeId), List.of()));
+            final var hook = afterLookup;
+            if (hook != null) {
+                afterLookup = null;
+                hook.run();
+            }
+            return found;
         }
 
         @Override
@@ -146,6 +192,7 @@ class AgentMemoryExtensionTest {
             final var memsInScope = memories.computeIfAbsent(key,
                                                              k -> new ArrayList<>());
             memsInScope.add(agentMemory);
+            listeners.forEach(listener -> listener.accept(List.of(agentMemory)));
             return Optional.of(agentMemory);
         }
 
@@ -281,6 +328,14 @@ class AgentMemoryExtensionTest {
                 .userId("ss")
                 .build();
         final var memoryStore = new InMemoryMemStore();
+        final var extension = AgentMemoryExtension
+                .<UserInput, OutputObject, SimpleAgent>builder()
+                .objectMapper(objectMapper)
+                .memoryStore(memoryStore)
+                .memoryExtractionMode(MemoryExtractionMode.OUT_OF_BAND)
+                .extractionConcurrency(1)
+                .extractionQueueSize(4)
+                .build();
         final var agent = SimpleAgent.builder()
                 .setup(AgentSetup.builder()
                         .mapper(objectMapper)
@@ -292,12 +347,7 @@ class AgentMemoryExtensionTest {
                                 .build())
                         .executorService(Executors.newFixedThreadPool(5))
                         .build())
-                .extensions(List.of(AgentMemoryExtension
-                        .<UserInput, OutputObject, SimpleAgent>builder()
-                        .objectMapper(objectMapper)
-                        .memoryStore(memoryStore)
-                        .memoryExtractionMode(MemoryExtractionMode.OUT_OF_BAND)
-                        .build()))
+                .extensions(List.of(extension))
                 .build()
                 .registerToolbox(toolbox);
         {
@@ -336,5 +386,191 @@ class AgentMemoryExtensionTest {
                 .atMost(Duration.ofSeconds(30))
                 .until(() -> memoryStore.memories.size() > currMemories);
         assertFalse(memoryStore.memories.isEmpty());
+        final var stats = extension.getExtractionStats();
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(30))
+                .until(() -> stats.getCompleted() + stats.getFailed() == stats.getSubmitted());
+        assertEquals(2, stats.getSubmitted());
+        assertEquals(0, stats.getDropped());
+        assertEquals(0, stats.getQueueDepth());
+        assertTrue(stats.getMemoriesSaved() > 0);
+    }
+
+    @Test
+    void testUserFactsCacheDoesNotKeepStaleLookups() {
+        final var objectMapper = JsonUtils.createMapper();
+        final var memoryStore = new InMemoryMemStore();
+        final var extension = factsExtension(memoryStore, objectMapper, Duration.ofMinutes(5));
+        final var agent = factsAgent(extension, objectMapper);
+        memoryStore.save(userMemory("u1", "UserName", "User's name is Santanu"));
+        memoryStore.afterLookup = () -> memoryStore.save(userMemory("u1", "UserCity", "User lives in Bangalore"));
+
+        //The lookup raced with the save, so its result must not be served from the cache afterwards
+        assertEquals(1, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(2, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(2, memoryStore.lookups.get());
+    }
+
+    @Test
+    void testUserFactsCacheIsInvalidatedOnSave() {
+        final var objectMapper = JsonUtils.createMapper();
+        final var memoryStore = new InMemoryMemStore();
+        final var extension = factsExtension(memoryStore, objectMapper, Duration.ofMinutes(5));
+        final var agent = factsAgent(extension, objectMapper);
+        memoryStore.save(userMemory("u1", "UserName", "User's name is Santanu"));
+
+        assertEquals(1, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(1, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(1, memoryStore.lookups.get());
+
+        //Saving a memory for another user must not touch the cached facts for this user
+        extension.consume(memoryOutput(objectMapper, "u2", "UserName", "User's name is Ravi"), agent);
+        extension.facts(null, factsContext(agent, "u1"), agent);
+        assertEquals(1, memoryStore.lookups.get());
+
+        extension.consume(memoryOutput(objectMapper, "u1", "UserCity", "User lives in Bangalore"), agent);
+        final var facts = extension.facts(null, factsContext(agent, "u1"), agent);
+        assertEquals(2, memoryStore.lookups.get());
+        assertEquals(2, facts.get(0).getFact().size());
+        assertEquals(2, extension.getUserFactsCacheStats().missCount());
+    }
+
+    @Test
+    void testUserFactsCacheIsInvalidatedOnStoreChange() {
+        final var objectMapper = JsonUtils.createMapper();
+        final var memoryStore = new InMemoryMemStore();
+        final var extension = factsExtension(memoryStore, objectMapper, Duration.ofMinutes(5));
+        final var agent = factsAgent(extension, objectMapper);
+        final var otherExtension = factsExtension(memoryStore, objectMapper, Duration.ofMinutes(5));
+        final var otherAgent = factsAgent(otherExtension, objectMapper);
+        memoryStore.save(userMemory("u1", "UserName", "User's name is Santanu"));
+
+        assertEquals(1, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(1, memoryStore.lookups.get());
+
+        //Memories saved by another extension are seen without waiting for the cache to expire
+        otherExtension.consume(memoryOutput(objectMapper, "u1", "UserCity", "User lives in Bangalore"), otherAgent);
+        assertEquals(2, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(2, memoryStore.lookups.get());
+
+        //As are memories written directly to the store, for example by compaction
+        memoryStore.save(userMemory("u1", "UserJob", "User is an engineer"));
+        assertEquals(3, extension.facts(null, factsContext(agent, "u1"), agent).get(0).getFact().size());
+        assertEquals(3, memoryStore.lookups.get());
+    }
+
+    @Test
+    void testUserFactsCacheStopsListeningOnClose() {
+        final var memoryStore = new InMemoryMemStore();
+        final var extension = factsExtension(memoryStore, JsonUtils.createMapper(), Duration.ofMinutes(5));
+        assertEquals(1, memoryStore.listeners.size());
+
+        extension.close();
+        assertTrue(memoryStore.listeners.isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void testUserFactsCacheUnderConcurrentTurns() {
+        final var objectMapper = JsonUtils.createMapper();
+        final int users = 4;
+        final int threads = 16;
+        final int turnsPerThread = 25;
+
+        // Baseline: caching disabled, every turn goes to the store
+        final var uncachedStore = new InMemoryMemStore(5);
+        final var uncached = factsExtension(uncachedStore, objectMapper, Duration.ZERO);
+        runTurns(uncached, factsAgent(uncached, objectMapper), users, threads, turnsPerThread);
+
+        final var cachedStore = new InMemoryMemStore(5);
+        final var cached = factsExtension(cachedStore, objectMapper, Duration.ofMinutes(5));
+        runTurns(cached, factsAgent(cached, objectMapper), users, threads, turnsPerThread);
+
+        assertEquals(threads * turnsPerThread, uncachedStore.lookups.get());
+        //Concurrent turns for the same user share a single lookup
+        assertEquals(users, cachedStore.lookups.get());
+    }
+
+    private static SimpleAgent factsAgent(AgentMemoryExtension<UserInput, OutputObject, SimpleAgent> extension,
+                                          ObjectMapper objectMapper) {
+        return SimpleAgent.builder()
+                .setup(AgentSetup.builder()
+                        .mapper(objectMapper)
+                        .build())
+                .extensions(List.of(extension))
+                .build();
+    }
+
+    private static AgentRunContext<UserInput> factsContext(SimpleAgent agent, String userId) {
+        return new AgentRunContext<>("run-" + userId,
+                                     new UserInput("Hi"),
+                                     AgentRequestMetadata.builder()
+                                             .sessionId("s-" + userId)
+                                             .userId(userId)
+                                             .build(),
+                                     agent.getSetup(),
+                                     List.of(),
+                                     new ModelUsageStats(),
+                                     ProcessingMode.DIRECT);
+    }
+
+    private static AgentMemoryExtension<UserInput, OutputObject, SimpleAgent> factsExtension(AgentMemoryStore store,
+                                                                                             ObjectMapper objectMapper,
+                                                                                             Duration cacheTtl) {
+        return AgentMemoryExtension.<UserInput, OutputObject, SimpleAgent>builder()
+                .objectMapper(objectMapper)
+                .memoryStore(store)
+                .memoryExtractionMode(MemoryExtractionMode.DISABLED)
+                .userFactsCacheTtl(cacheTtl)
+                .build();
+    }
+
+    private static JsonNode memoryOutput(ObjectMapper objectMapper, String userId, String name, String content) {
+        return objectMapper.valueToTree(AgentMemoryOutput.builder()
+                .generatedMemory(List.of(new GeneratedMemoryUnit(MemoryScope.ENTITY,
+                                                                 userId,
+                                                                 MemoryType.SEMANTIC,
+                                                                 name,
+                                                                 content,
+                                                                 List.of("info"),
+                                                                 10)))
+                .build());
+    }
+
+    private static void runTurns(AgentMemoryExtension<UserInput, OutputObject, SimpleAgent> extension,
+                                 SimpleAgent agent,
+                                 int users,
+                                 int threads,
+                                 int turnsPerThread) throws InterruptedException {
+        final var executor = Executors.newFixedThreadPool(threads);
+        try {
+            final var turns = IntStream.range(0, threads)
+                    .mapToObj(thread -> (Callable<Void>) () -> {
+                        for (int turn = 0; turn < turnsPerThread; turn++) {
+                            final var userId = "user-" + (turn % users);
+                            extension.facts(null, factsContext(agent, userId), agent);
+                        }
+                        return null;
+                    })
+                    .toList();
+            for (final var future : executor.invokeAll(turns)) {
+                assertDoesNotThrow(() -> future.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AgentMemory userMemory(String userId, String name, String content) {
+        return AgentMemory.builder()
+                .agentName("simple-agent")
+                .scope(MemoryScope.ENTITY)
+                .scopeId(userId)
+                .memoryType(MemoryType.SEMANTIC)
+                .name(name)
+                .content(content)
+                .reusabilityScore(10)
+                .build();
     }
 }
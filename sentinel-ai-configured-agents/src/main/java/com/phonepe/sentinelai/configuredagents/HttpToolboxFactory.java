@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolBox;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolSource;
+import com.phonepe.sentinelai.toolbox.remotehttp.UpstreamConfig;
 import com.phonepe.sentinelai.toolbox.remotehttp.UpstreamResolver;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.TemplatizedHttpTool;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.TemplatizedHttpToolSource;
@@ -50,39 +51,47 @@ public class HttpToolboxFactory {
     @NonNull
     private final Function<String, UpstreamResolver> upstreamResolver;
 
+    // Concurrency limits and connection settings per upstream. Null config means defaults for the upstream.
+    private final Function<String, UpstreamConfig> upstreamConfigProvider;
+
     @Builder(builderClassName = "ProvidingHttpToolboxFactoryBuilder", builderMethodName = "httpClientProvidingBuilder")
     public HttpToolboxFactory(@NonNull Function<String, OkHttpClient> okHttpClientProvider,
                               @NonNull ObjectMapper objectMapper,
                               @NonNull HttpToolSource<TemplatizedHttpTool, ?> toolConfigSource,
-                              @NonNull Function<String, UpstreamResolver> upstreamResolver) {
+                              @NonNull Function<String, UpstreamResolver> upstreamResolver,
+                              Function<String, UpstreamConfig> upstreamConfigProvider) {
         this.okHttpClientProvider = okHttpClientProvider;
         this.objectMapper = objectMapper;
         this.toolConfigSource = toolConfigSource;
         this.upstreamResolver = upstreamResolver;
+        this.upstreamConfigProvider = Objects.requireNonNullElse(upstreamConfigProvider, upstream -> null);
     }
 
     @Builder(builderClassName = "DefaultHttpToolboxFactoryBuilder")
     public HttpToolboxFactory(@NonNull OkHttpClient okHttpClient,
                               @NonNull ObjectMapper objectMapper,
                               @NonNull HttpToolSource<TemplatizedHttpTool, ?> toolConfigSource,
-                              @NonNull Function<String, UpstreamResolver> upstreamResolver) {
+                              @NonNull Function<String, UpstreamResolver> upstreamResolver,
+                              Function<String, UpstreamConfig> upstreamConfigProvider) {
         this(name -> okHttpClient,
              objectMapper,
              toolConfigSource,
-             upstreamResolver);
+             upstreamResolver,
+             upstreamConfigProvider);
     }
 
     public Optional<HttpToolBox> create(@NonNull final String upstream) {
         if (!toolConfigSource.upstreams().contains(upstream)) {
             return Optional.empty();
         }
-        return Optional.of(new HttpToolBox(upstream,
-                                           Objects.requireNonNull(okHttpClientProvider
-                                                   .apply(upstream),
-                                                                  "Could not resolve http client for upstream: "
-                                                                          + upstream),
-                                           toolConfigSource,
-                                           objectMapper,
-                                           upstreamResolver.apply(upstream)));
+        return Optional.of(HttpToolBox.builder()
+                .upstream(upstream)
+                .httpClient(Objects.requireNonNull(okHttpClientProvider.apply(upstream),
+                                                   "Could not resolve http client for upstream: " + upstream))
+                .httpToolSource(toolConfigSource)
+                .mapper(objectMapper)
+                .upstreamResolver(upstreamResolver.apply(upstream))
+                .upstreamConfig(upstreamConfigProvider.apply(upstream))
+                .build());
     }
 }
@@ -331,6 +331,7 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
         final var facts = input.getFacts();
         final var inputRequest = input.getRequest();
         final var modelUsageStats = new ModelUsageStats();
+        final var phaseTimings = PhaseTimings.forSetup(mergedAgentSetup);
         final var context = new AgentRunContext<>(runId,
                                                   inputRequest,
                                                   requestMetadata,
@@ -338,10 +339,13 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                   messages,
                                                   modelUsageStats,
                                                   ProcessingMode.DIRECT);
+        final var inputEventStarted = phaseTimings.start();
         EventUtils.raiseInputReceivedEvent(name(),
                                            context,
                                            inputRequest,
                                            mergedAgentSetup);
+        phaseTimings.record(RunPhase.EVENT_DISPATCH, inputEventStarted);
+        final var systemPromptStarted = phaseTimings.start();
         var finalSystemPrompt = "";
         try {
             finalSystemPrompt = systemPrompt(context);
@@ -356,6 +360,7 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
         }
         //Prepend the system prompt at the beginning of the messages so that it is the first thing the model sees
         assembleInitialMessages(context, messages, finalSystemPrompt, runId, facts, inputRequest);
+        phaseTimings.record(RunPhase.SYSTEM_PROMPT, systemPromptStarted);
         final var processingMode = ProcessingMode.DIRECT;
         final var modelRunContext = new ModelRunContext(name(),
                                                         runId,
@@ -365,7 +370,8 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                                           context),
                                                         mergedAgentSetup,
                                                         modelUsageStats,
-                                                        processingMode);
+                                                        processingMode,
+                                                        phaseTimings);
         final var outputDefinitions = populateOutputDefinitions(processingMode);
         final var retryPolicy = Agent.<T>buildRetryPolicy(mergedAgentSetup);
         return Failsafe.with(List.of(retryPolicy))
@@ -378,13 +384,16 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                           outputDefinitions,
                                                           messages,
                                                           context);
-                    return errorHandler.handle(context,
-                                               processModelOutput(new ModelOutputProcessingContext<>(context,
-                                                                                                     mergedAgentSetup,
-                                                                                                     messages),
-                                                                  modelOutput));
+                    final var outputValidationStarted = phaseTimings.start();
+                    final var agentOutput = processModelOutput(new ModelOutputProcessingContext<>(context,
+                                                                                                  mergedAgentSetup,
+                                                                                                  messages),
+                                                               modelOutput);
+                    phaseTimings.record(RunPhase.OUTPUT_VALIDATION, outputValidationStarted);
+                    return errorHandler.handle(context, agentOutput);
                 })
-                .thenApply(response -> {
+                .thenApply(output -> {
+                    final var response = withPhaseTimings(mergedAgentSetup, runId, phaseTimings, output);
                     if (null != response
                             .getUsage() && requestMetadata != null && requestMetadata
                                     .getUsageStats() != null) {
@@ -489,6 +498,7 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
         final var facts = input.getFacts();
         final var processingMode = ProcessingMode.STREAMING;
         final var modelUsageStats = new ModelUsageStats();
+        final var phaseTimings = PhaseTimings.forSetup(mergedAgentSetup);
         final var context = new AgentRunContext<>(runId,
                                                   inpuRequest,
                                                   requestMetadata,
@@ -496,10 +506,13 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                   messages,
                                                   modelUsageStats,
                                                   processingMode);
+        final var inputEventStarted = phaseTimings.start();
         EventUtils.raiseInputReceivedEvent(name(),
                                            context,
                                            inpuRequest,
                                            mergedAgentSetup);
+        phaseTimings.record(RunPhase.EVENT_DISPATCH, inputEventStarted);
+        final var systemPromptStarted = phaseTimings.start();
         var finalSystemPrompt = "";
         try {
             finalSystemPrompt = systemPrompt(context);
@@ -513,6 +526,7 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                                                       e)));
         }
         assembleInitialMessages(context, messages, finalSystemPrompt, runId, facts, input.getRequest());
+        phaseTimings.record(RunPhase.SYSTEM_PROMPT, systemPromptStarted);
         final var modelRunContext = new ModelRunContext(name(),
                                                         runId,
                                                         AgentUtils.sessionId(
@@ -521,7 +535,8 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                                           context),
                                                         mergedAgentSetup,
                                                         modelUsageStats,
-                                                        processingMode);
+                                                        processingMode,
+                                                        phaseTimings);
         final var outputDefinitions = isTextStreaming
                 ? List.<ModelOutputDefinition>of()
                 : populateOutputDefinitions(processingMode);
@@ -539,14 +554,16 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
                                                                earlyTerminationStrategy,
                                                                isTextStreaming,
                                                                streamHandler);
-                    return errorHandler.handle(context,
-                                               outputProcessor.apply(
-                                                                     new ModelOutputProcessingContext<>(context,
-                                                                                                        mergedAgentSetup,
-                                                                                                        messages),
-                                                                     modelOutput));
+                    final var outputValidationStarted = phaseTimings.start();
+                    final var agentOutput = outputProcessor.apply(new ModelOutputProcessingContext<>(context,
+                                                                                                     mergedAgentSetup,
+                                                                                                     messages),
+                                                                  modelOutput);
+                    phaseTimings.record(RunPhase.OUTPUT_VALIDATION, outputValidationStarted);
+                    return errorHandler.handle(context, agentOutput);
                 })
-                .thenApply(response -> {
+                .thenApply(output -> {
+                    final var response = withPhaseTimings(mergedAgentSetup, runId, phaseTimings, output);
                     if (null != response
                             .getUsage() && requestMetadata != null && requestMetadata
                                     .getUsageStats() != null) {
@@ -831,6 +848,32 @@ public abstract class Agent<R, T, A extends Agent<R, T, A>> {
         return modelOutput;
     }
 
+    /**
+     * Attaches the phase timings of the run to the output and publishes them to the listener, if enabled.
+     */
+    private <U> AgentOutput<U> withPhaseTimings(AgentSetup mergedAgentSetup,
+                                                String runId,
+                                                PhaseTimings phaseTimings,
+                                                AgentOutput<U> output) {
+        if (!phaseTimings.isEnabled() || null == output) {
+            return output;
+        }
+        final var timings = phaseTimings.snapshot();
+        final var listener = mergedAgentSetup.getPhaseTimingsListener();
+        if (null != listener) {
+            try {
+                listener.onRunCompleted(name(), runId, timings);
+            }
+            catch (Exception e) {
+                log.error("Error publishing phase timings for agent: {}, runId: {}. Error: {}",
+                          name(),
+                          runId,
+                          AgentUtils.rootCause(e).getMessage());
+            }
+        }
+        return output.withPhaseTimings(timings);
+    }
+
     private static void logEmptyData() {
         log.warn("No output data found in model output. Returning empty agent output.");
     }
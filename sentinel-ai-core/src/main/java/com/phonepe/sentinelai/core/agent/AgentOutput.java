@@ -21,8 +21,11 @@ import com.phonepe.sentinelai.core.errors.SentinelError;
 import com.phonepe.sentinelai.core.model.ModelUsageStats;
 
 import lombok.Value;
+import lombok.With;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -54,6 +57,34 @@ public class AgentOutput<T> {
      */
     SentinelError error;
 
+    /**
+     * Time spent in each phase of the run. Null unless phase timings are enabled on the {@link AgentSetup}.
+     */
+    @With
+    Map<RunPhase, Duration> phaseTimings;
+
+    public AgentOutput(T data,
+                       List<AgentMessage> newMessages,
+                       List<AgentMessage> allMessages,
+                       ModelUsageStats usage,
+                       SentinelError error) {
+        this(data, newMessages, allMessages, usage, error, null);
+    }
+
+    public AgentOutput(T data,
+                       List<AgentMessage> newMessages,
+                       List<AgentMessage> allMessages,
+                       ModelUsageStats usage,
+                       SentinelError error,
+                       Map<RunPhase, Duration> phaseTimings) {
+        this.data = data;
+        this.newMessages = newMessages;
+        this.allMessages = allMessages;
+        this.usage = usage;
+        this.error = error;
+        this.phaseTimings = phaseTimings;
+    }
+
     public static <T> AgentOutput<T> error(List<AgentMessage> newMessages,
                                            List<AgentMessage> allMessages,
                                            ModelUsageStats stats,
@@ -101,4 +101,15 @@ public class AgentSetup {
      */
     @Builder.Default
     int maxToolResponsePercentage = DEFAULT_MAX_TOOL_RESPONSE_PERCENTAGE;
+
+    /**
+     * Record the time spent in each {@link RunPhase} of a run and return it in {@link AgentOutput#getPhaseTimings()}.
+     * This is enabled automatically if a {@link #phaseTimingsListener} is set.
+     */
+    boolean recordPhaseTimings;
+
+    /**
+     * Listener that receives the phase timings of every run, for example to publish them as metrics.
+     */
+    PhaseTimingsListener phaseTimingsListener;
 }
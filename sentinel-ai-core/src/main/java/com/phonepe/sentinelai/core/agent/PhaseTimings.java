@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.core.agent;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates the time spent in each {@link RunPhase} of a run. Usage:
+ * <pre>
+ * final var started = phaseTimings.start();
+ * ... do work ...
+ * phaseTimings.record(RunPhase.MODEL_CALL, started);
+ * </pre>
+ * The {@link #DISABLED} instance does not read the clock, so timing code costs a field read and a branch when phase
+ * timings are not enabled.
+ */
+public final class PhaseTimings {
+    public static final PhaseTimings DISABLED = new PhaseTimings(false);
+
+    private static final RunPhase[] PHASES = RunPhase.values();
+
+    private final boolean enabled;
+    private final AtomicLongArray nanos;
+
+    private PhaseTimings(boolean enabled) {
+        this.enabled = enabled;
+        this.nanos = enabled ? new AtomicLongArray(PHASES.length) : null;
+    }
+
+    /**
+     * @param setup Merged agent setup for the run
+     * @return A new accumulator if phase timings are enabled for the setup, {@link #DISABLED} otherwise
+     */
+    public static PhaseTimings forSetup(AgentSetup setup) {
+        if (setup != null && (setup.isRecordPhaseTimings() || setup.getPhaseTimingsListener() != null)) {
+            return new PhaseTimings(true);
+        }
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds the time since start to the phase.
+     *
+     * @param phase        The phase the time was spent in
+     * @param startedNanos Value returned by {@link #start()}
+     */
+    public void record(RunPhase phase, long startedNanos) {
+        if (enabled) {
+            nanos.addAndGet(phase.ordinal(), System.nanoTime() - startedNanos);
+        }
+    }
+
+    /**
+     * @return Time spent in each phase so far. Phases that were not entered are present with zero duration.
+     */
+    public Map<RunPhase, Duration> snapshot() {
+        if (!enabled) {
+            return Map.of();
+        }
+        final var timings = new EnumMap<RunPhase, Duration>(RunPhase.class);
+        for (final var phase : PHASES) {
+            timings.put(phase, Duration.ofNanos(nanos.get(phase.ordinal())));
+        }
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * @return Start time to be passed to {@link #record(RunPhase, long)}, or 0 if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+}
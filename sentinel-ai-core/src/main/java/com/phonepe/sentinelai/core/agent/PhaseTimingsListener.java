@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.core.agent;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Receives the phase timings of every agent run. Set on {@link AgentSetup#getPhaseTimingsListener()} to push the
+ * timings to a metrics system.
+ */
+@FunctionalInterface
+public interface PhaseTimingsListener {
+    /**
+     * Called once a run is complete, successful or not. This is called on the thread completing the run, so
+     * implementations should be quick and must not block.
+     *
+     * @param agentName    Name of the agent
+     * @param runId        Run id
+     * @param phaseTimings Time spent in each phase of the run
+     */
+    void onRunCompleted(String agentName, String runId, Map<RunPhase, Duration> phaseTimings);
+}
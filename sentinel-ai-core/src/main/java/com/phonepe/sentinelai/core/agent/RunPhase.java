@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.core.agent;
+
+/**
+ * Phases of an agent run that are timed when phase timings are enabled on the {@link AgentSetup}
+ */
+public enum RunPhase {
+    /**
+     * Building the system prompt and the initial messages for the run
+     */
+    SYSTEM_PROMPT,
+    /**
+     * Running message pre-processors (including auto compaction) before model calls
+     */
+    PRE_PROCESSING,
+    /**
+     * Waiting for the model to respond, summed over all model calls of the run
+     */
+    MODEL_CALL,
+    /**
+     * Executing tools requested by the model. Tools called in parallel are counted once for the whole batch.
+     */
+    TOOL_EXECUTION,
+    /**
+     * Converting and validating the model output and passing extension outputs to extensions
+     */
+    OUTPUT_VALIDATION,
+    /**
+     * Raising events on the event bus, including time spent in blocking event handlers
+     */
+    EVENT_DISPATCH,
+}
@@ -253,8 +253,9 @@ public class MessageCompactor {
                 .content(userPrompt)
                 .timestamp(AgentUtils.epochMicro())
                 .build());
-        final var usageStats = Objects.requireNonNullElseGet(stats,
-                                                             ModelUsageStats::new);
+        // Compaction usage is tracked separately so that the completion event reports only what compaction used. It
+        // is added to the caller's stats once compaction is done, whether it succeeded or not.
+        final var usageStats = new ModelUsageStats();
         final var settingsForCompaction = agentSetup
                 .withOutputGenerationMode(OutputGenerationMode.TOOL_BASED)
                 .withModelSettings(agentSetup
@@ -289,6 +290,12 @@ public class MessageCompactor {
                          toolRunner,
                          new NeverTerminateEarlyStrategy(),
                          List.of())
+                .whenComplete((output, error) -> {
+                    //Usage accrued by the compaction run is counted in the run totals even if the run failed
+                    if (null != stats) {
+                        stats.merge(usageStats);
+                    }
+                })
                 .thenApply(output -> {
                     var extractedSummary = Optional.<ExtractedSummary>empty();
                     final var error = Objects.requireNonNullElse(output.getError(),
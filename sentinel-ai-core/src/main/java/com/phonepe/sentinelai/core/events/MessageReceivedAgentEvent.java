@@ -17,6 +17,7 @@
 package com.phonepe.sentinelai.core.events;
 
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
 
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -38,20 +39,38 @@ public class MessageReceivedAgentEvent extends AgentEvent {
     List<AgentMessage> allMessages;
     List<AgentMessage> newMessages;
     Duration elapsedTime;
+    /**
+     * Snapshot of the usage for the run so far, taken when the message was received. Null if the model does not
+     * report it.
+     */
+    ModelUsageStats usage;
+
+    public MessageReceivedAgentEvent(@NonNull String agentName,
+                                     @NonNull String runId,
+                                     String sessionId,
+                                     String userId,
+                                     @NonNull List<AgentMessage> allMessages,
+                                     @NonNull List<AgentMessage> newMessages,
+                                     @NonNull Duration elapsedTime) {
+        this(agentName, runId, sessionId, userId, allMessages, newMessages, elapsedTime, null);
+    }
 
     @Builder
     @Jacksonized
+    @SuppressWarnings("java:S107")
     public MessageReceivedAgentEvent(@NonNull String agentName,
                                      @NonNull String runId,
                                      String sessionId,
                                      String userId,
                                      @NonNull List<AgentMessage> allMessages,
                                      @NonNull List<AgentMessage> newMessages,
-                                     @NonNull Duration elapsedTime) {
+                                     @NonNull Duration elapsedTime,
+                                     ModelUsageStats usage) {
         super(EventType.MESSAGE_RECEIVED, agentName, runId, sessionId, userId);
         this.allMessages = allMessages;
         this.newMessages = newMessages;
         this.elapsedTime = elapsedTime;
+        this.usage = usage;
     }
 
     @Override
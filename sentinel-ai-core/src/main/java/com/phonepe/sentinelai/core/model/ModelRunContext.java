@@ -17,14 +17,17 @@
 package com.phonepe.sentinelai.core.model;
 
 import com.phonepe.sentinelai.core.agent.AgentSetup;
+import com.phonepe.sentinelai.core.agent.PhaseTimings;
 import com.phonepe.sentinelai.core.agent.ProcessingMode;
 
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
 /**
  * A context object passed to the model at runtime.
  */
 @Value
+@AllArgsConstructor
 public class ModelRunContext {
     /**
      * Name of the agent that is running this model
@@ -59,4 +62,19 @@ public class ModelRunContext {
      * Processing mode for this run
      */
     ProcessingMode processingMode;
+
+    /**
+     * Phase timings for this run. {@link PhaseTimings#DISABLED} if phase timings are not enabled.
+     */
+    PhaseTimings phaseTimings;
+
+    public ModelRunContext(String agentName,
+                           String runId,
+                           String sessionId,
+                           String userId,
+                           AgentSetup agentSetup,
+                           ModelUsageStats modelUsageStats,
+                           ProcessingMode processingMode) {
+        this(agentName, runId, sessionId, userId, agentSetup, modelUsageStats, processingMode, PhaseTimings.DISABLED);
+    }
 }
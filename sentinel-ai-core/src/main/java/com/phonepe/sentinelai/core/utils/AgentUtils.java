@@ -179,7 +179,12 @@ public class AgentUtils {
                                                                             rhs,
                                                                             AgentSetup::getMaxToolResponsePercentage),
                                                                       AgentSetup.DEFAULT_MAX_TOOL_RESPONSE_PERCENTAGE))
-
+                .recordPhaseTimings(Boolean.TRUE.equals(value(lhs,
+                                                              rhs,
+                                                              AgentSetup::isRecordPhaseTimings)))
+                .phaseTimingsListener(value(lhs,
+                                            rhs,
+                                            AgentSetup::getPhaseTimingsListener))
                 .build();
     }
 
@@ -23,6 +23,7 @@ import org.apache.commons.lang3.ClassUtils;
 import com.phonepe.sentinelai.core.agent.Agent;
 import com.phonepe.sentinelai.core.agent.AgentRunContext;
 import com.phonepe.sentinelai.core.agent.AgentSetup;
+import com.phonepe.sentinelai.core.agent.RunPhase;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
 import com.phonepe.sentinelai.core.agentmessages.AgentRequest;
 import com.phonepe.sentinelai.core.compaction.ExtractedSummary;
@@ -129,6 +130,7 @@ public class EventUtils {
                                                  List<AgentMessage> newMessages,
                                                  List<AgentMessage> allMessages,
                                                  Stopwatch stopwatch) {
+        final var started = modelRunContext.getPhaseTimings().start();
         raiseMessageReceivedEvent(modelRunContext.getAgentName(),
                                   modelRunContext.getRunId(),
                                   modelRunContext.getSessionId(),
@@ -136,7 +138,9 @@ public class EventUtils {
                                   modelRunContext.getAgentSetup(),
                                   newMessages,
                                   allMessages,
-                                  stopwatch);
+                                  stopwatch,
+                                  modelRunContext.getModelUsageStats());
+        modelRunContext.getPhaseTimings().record(RunPhase.EVENT_DISPATCH, started);
     }
 
     @SuppressWarnings("java:S107")
@@ -148,6 +152,31 @@ public class EventUtils {
                                                  List<AgentMessage> newMessages,
                                                  List<AgentMessage> allMessages,
                                                  Stopwatch stopwatch) {
+        raiseMessageReceivedEvent(agentName,
+                                  runId,
+                                  sessionId,
+                                  userId,
+                                  agentSetup,
+                                  newMessages,
+                                  allMessages,
+                                  stopwatch,
+                                  null);
+    }
+
+    /**
+     * Raises a message received event carrying a snapshot of the run usage, so that listeners can work out the usage
+     * of individual model calls even though events are dispatched asynchronously.
+     */
+    @SuppressWarnings("java:S107")
+    public static void raiseMessageReceivedEvent(String agentName,
+                                                 String runId,
+                                                 String sessionId,
+                                                 String userId,
+                                                 AgentSetup agentSetup,
+                                                 List<AgentMessage> newMessages,
+                                                 List<AgentMessage> allMessages,
+                                                 Stopwatch stopwatch,
+                                                 ModelUsageStats usage) {
         agentSetup.getEventBus()
                 .notify(new MessageReceivedAgentEvent(agentName,
                                                       runId,
@@ -156,7 +185,8 @@ public class EventUtils {
                                                       List.copyOf(allMessages),
                                                       List.copyOf(newMessages),
                                                       Duration.ofMillis(stopwatch
-                                                              .elapsed(TimeUnit.MILLISECONDS))));
+                                                              .elapsed(TimeUnit.MILLISECONDS)),
+                                                      null == usage ? null : new ModelUsageStats().merge(usage)));
     }
 
     public static <R, T, A extends Agent<R, T, A>> void raiseMessageSentEvent(ModelRunContext modelRunContext,
@@ -180,6 +210,7 @@ public class EventUtils {
             log.debug("No new messages");
             return;
         }
+        final var started = modelRunContext.getPhaseTimings().start();
         modelRunContext.getAgentSetup()
                 .getEventBus()
                 .notify(new MessageSentAgentEvent(modelRunContext.getAgentName(),
@@ -188,12 +219,13 @@ public class EventUtils {
                                                   modelRunContext.getUserId(),
                                                   List.copyOf(prevMessages),
                                                   List.copyOf(newMessages)));
-
+        modelRunContext.getPhaseTimings().record(RunPhase.EVENT_DISPATCH, started);
     }
 
     public static void raiseOutputEvent(ModelRunContext context,
                                         ModelOutput output,
                                         Stopwatch stopwatch) {
+        final var started = context.getPhaseTimings().start();
         AgentEvent event;
         try {
             if (output.getError() == null || output.getError()
@@ -232,5 +264,6 @@ public class EventUtils {
                       context.getRunId(),
                       AgentUtils.rootCause(e).getMessage());
         }
+        context.getPhaseTimings().record(RunPhase.EVENT_DISPATCH, started);
     }
 }
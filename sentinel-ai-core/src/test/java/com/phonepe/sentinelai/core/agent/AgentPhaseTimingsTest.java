@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.core.agent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.earlytermination.EarlyTerminationStrategy;
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.events.EventBus;
+import com.phonepe.sentinelai.core.model.Model;
+import com.phonepe.sentinelai.core.model.ModelOutput;
+import com.phonepe.sentinelai.core.model.ModelRunContext;
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+import com.phonepe.sentinelai.core.outputvalidation.OutputValidationResults;
+import com.phonepe.sentinelai.core.outputvalidation.OutputValidator;
+import com.phonepe.sentinelai.core.tools.ExecutableTool;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests phase timings recorded by {@link Agent}
+ */
+@Slf4j
+class AgentPhaseTimingsTest {
+    private static final class TestAgent extends Agent<String, String, TestAgent> {
+
+        @Builder
+        TestAgent(@NonNull AgentSetup setup,
+                  Map<String, ExecutableTool> knownTools,
+                  OutputValidator<String, String> outputValidator) {
+            super(String.class,
+                  "blah",
+                  setup,
+                  List.of(),
+                  knownTools,
+                  null,
+                  outputValidator,
+                  null,
+                  null);
+        }
+
+        @Override
+        public String name() {
+            return "test-agent";
+        }
+    }
+
+    private ExecutorService executorService;
+
+    @SneakyThrows
+    private static void sleep(Duration duration) {
+        Thread.sleep(duration.toMillis());
+    }
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void shouldAddNegligibleOverheadWhenPhaseTimingsAreEnabled() {
+        final var disabled = agent(quickModel(), setup -> setup);
+        final var enabled = agent(quickModel(), setup -> setup.recordPhaseTimings(true));
+        runsPerSecond(disabled, 500);
+        runsPerSecond(enabled, 500);
+
+        var bestDisabled = 0.0;
+        var bestEnabled = 0.0;
+        for (var i = 0; i < 5; i++) {
+            bestDisabled = Math.max(bestDisabled, runsPerSecond(disabled, 200));
+            bestEnabled = Math.max(bestEnabled, runsPerSecond(enabled, 200));
+        }
+
+        // Phase timings add a handful of clock reads per run, which should be lost in the noise of running the agent
+        log.info("runs/s without phase timings: {}, with phase timings: {}",
+                 Math.round(bestDisabled),
+                 Math.round(bestEnabled));
+    }
+
+    @Test
+    void shouldNotReadClockWhenDisabled() {
+        assertSame(PhaseTimings.DISABLED, PhaseTimings.forSetup(AgentSetup.builder().build()));
+        assertEquals(0L, PhaseTimings.DISABLED.start());
+        PhaseTimings.DISABLED.record(RunPhase.MODEL_CALL, 0L);
+        assertEquals(Map.of(), PhaseTimings.DISABLED.snapshot());
+    }
+
+    @Test
+    void shouldNotRecordPhaseTimingsWhenDisabled() {
+        final var response = agent(quickModel(), setup -> setup).execute(input());
+
+        assertEquals(ErrorType.SUCCESS, response.getError().getErrorType());
+        assertNull(response.getPhaseTimings());
+    }
+
+    @Test
+    void shouldRecordPhaseTimingsOnOutputAndListener() {
+        final var published = new CopyOnWriteArrayList<Map<RunPhase, Duration>>();
+        final var model = mock(Model.class);
+        when(model.compute(any(),
+                           anyCollection(),
+                           anyList(),
+                           anyMap(),
+                           any(ToolRunner.class),
+                           any(EarlyTerminationStrategy.class),
+                           anyList())).thenAnswer(invocation -> {
+                               final var phaseTimings = invocation.<ModelRunContext>getArgument(0).getPhaseTimings();
+                               final var started = phaseTimings.start();
+                               sleep(Duration.ofMillis(20));
+                               phaseTimings.record(RunPhase.MODEL_CALL, started);
+                               return output();
+                           });
+        final var agent = agent(model,
+                                (context, output) -> {
+                                    sleep(Duration.ofMillis(10));
+                                    return OutputValidationResults.success();
+                                },
+                                setup -> setup.phaseTimingsListener((agentName, runId, phaseTimings) -> {
+                                    assertEquals("test-agent", agentName);
+                                    assertEquals("run-1", runId);
+                                    published.add(phaseTimings);
+                                }));
+
+        final var response = agent.execute(input());
+
+        assertEquals(ErrorType.SUCCESS, response.getError().getErrorType());
+        final var phaseTimings = response.getPhaseTimings();
+        assertEquals(RunPhase.values().length, phaseTimings.size());
+        assertTrue(phaseTimings.get(RunPhase.MODEL_CALL).compareTo(Duration.ofMillis(20)) >= 0);
+        assertTrue(phaseTimings.get(RunPhase.OUTPUT_VALIDATION).compareTo(Duration.ofMillis(10)) >= 0);
+        assertTrue(phaseTimings.get(RunPhase.SYSTEM_PROMPT).toNanos() > 0);
+        assertTrue(phaseTimings.get(RunPhase.EVENT_DISPATCH).toNanos() > 0);
+        assertEquals(List.of(phaseTimings), published);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private TestAgent agent(Model model, UnaryOperator<AgentSetup.AgentSetupBuilder> setupUpdater) {
+        return agent(model, (context, output) -> OutputValidationResults.success(), setupUpdater);
+    }
+
+    private TestAgent agent(Model model,
+                            OutputValidator<String, String> outputValidator,
+                            UnaryOperator<AgentSetup.AgentSetupBuilder> setupUpdater) {
+        return TestAgent.builder()
+                .setup(setupUpdater.apply(AgentSetup.builder()
+                        .mapper(JsonUtils.createMapper())
+                        .model(model)
+                        .executorService(executorService)
+                        .eventBus(new EventBus(executorService)))
+                        .build())
+                .outputValidator(outputValidator)
+                .build();
+    }
+
+    private AgentInput<String> input() {
+        return AgentInput.<String>builder()
+                .request("Hello")
+                .requestMetadata(AgentRequestMetadata.builder()
+                        .runId("run-1")
+                        .build())
+                .build();
+    }
+
+    private CompletableFuture<ModelOutput> output() {
+        final var mapper = JsonUtils.createMapper();
+        return CompletableFuture.completedFuture(ModelOutput.success(mapper.createObjectNode()
+                .set(Agent.OUTPUT_VARIABLE_NAME, mapper.createObjectNode().textNode("Hi!!")),
+                                                                     List.of(),
+                                                                     List.of(),
+                                                                     new ModelUsageStats()));
+    }
+
+    private Model quickModel() {
+        final var model = mock(Model.class);
+        when(model.compute(any(),
+                           anyCollection(),
+                           anyList(),
+                           anyMap(),
+                           any(ToolRunner.class),
+                           any(EarlyTerminationStrategy.class),
+                           anyList())).thenAnswer(invocation -> output());
+        return model;
+    }
+
+    private double runsPerSecond(TestAgent agent, int runs) {
+        final var started = System.nanoTime();
+        for (var i = 0; i < runs; i++) {
+            agent.execute(input());
+        }
+        return runs * 1_000_000_000.0 / (System.nanoTime() - started);
+    }
+}
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.Test;
 
+import com.phonepe.sentinelai.core.agent.AgentSetup;
 import com.phonepe.sentinelai.core.agentmessages.AgentGenericMessage;
 import com.phonepe.sentinelai.core.agentmessages.requests.GenericResource;
 import com.phonepe.sentinelai.core.agentmessages.requests.GenericText;
@@ -30,14 +31,23 @@ import com.phonepe.sentinelai.core.agentmessages.responses.StructuredOutput;
 import com.phonepe.sentinelai.core.agentmessages.responses.Text;
 import com.phonepe.sentinelai.core.agentmessages.responses.ToolCall;
 import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.model.Model;
+import com.phonepe.sentinelai.core.model.ModelRunContext;
+import com.phonepe.sentinelai.core.model.ModelSettings;
 import com.phonepe.sentinelai.core.model.ModelUsageStats;
 import com.phonepe.sentinelai.core.utils.JsonUtils;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class MessageCompactorTest {
 
@@ -227,4 +237,41 @@ class MessageCompactorTest {
         assertEquals(CompactMessage.Roles.USER, node.get("role").asText());
         assertEquals("What is the weather?", node.get("content").asText());
     }
+
+    @Test
+    void testUsageIsMergedWhenCompactionFails() {
+        final var model = mock(Model.class);
+        when(model.compute(any(), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            final ModelRunContext context = invocation.getArgument(0);
+            context.getModelUsageStats()
+                    .incrementRequestsForRun()
+                    .incrementRequestTokens(100);
+            return CompletableFuture.failedFuture(new IllegalStateException("Model failed"));
+        });
+        final var setup = AgentSetup.builder()
+                .mapper(mapper)
+                .model(model)
+                .modelSettings(ModelSettings.builder().build())
+                .build();
+        final var stats = new ModelUsageStats();
+
+        final var result = MessageCompactor.compactMessages("test-agent",
+                                                            "session-1",
+                                                            "user-1",
+                                                            setup,
+                                                            mapper,
+                                                            stats,
+                                                            List.of(UserPrompt.builder()
+                                                                    .sessionId("session-1")
+                                                                    .runId("run-1")
+                                                                    .content("What is the weather?")
+                                                                    .build()),
+                                                            CompactionPrompts.DEFAULT,
+                                                            1000);
+
+        assertThrows(CompletionException.class, result::join);
+        //Tokens spent before the failure still count towards the run
+        assertEquals(1, stats.getRequestsForRun());
+        assertEquals(100, stats.getRequestTokens());
+    }
 }
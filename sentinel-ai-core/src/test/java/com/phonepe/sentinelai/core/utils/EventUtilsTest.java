@@ -276,6 +276,27 @@ class EventUtilsTest {
         assertNotNull(event.getElapsedTime());
     }
 
+    @Test
+    void raiseMessageReceivedEventWithModelRunContextSnapshotsUsage() {
+        final var msg = new UserPrompt(SESSION_ID, RUN_ID, "hello", LocalDateTime.now());
+        usageStats.incrementRequestsForRun().incrementRequestTokens(100).incrementResponseTokens(20);
+
+        EventUtils.raiseMessageReceivedEvent(modelRunContext,
+                                             List.<AgentMessage>of(msg),
+                                             List.<AgentMessage>of(msg),
+                                             Stopwatch.createStarted());
+        usageStats.incrementRequestsForRun().incrementRequestTokens(50);
+
+        final var captor = ArgumentCaptor.forClass(AgentEvent.class);
+        verify(eventBus).notify(captor.capture());
+
+        final var event = assertInstanceOf(MessageReceivedAgentEvent.class, captor.getValue());
+        assertNotNull(event.getUsage());
+        assertEquals(1, event.getUsage().getRequestsForRun());
+        assertEquals(100, event.getUsage().getRequestTokens());
+        assertEquals(20, event.getUsage().getResponseTokens());
+    }
+
     @Test
     void raiseMessageSentEventAllMessagesAreNewRaisesEventWithAll() {
         final var msg1 = new UserPrompt(SESSION_ID, RUN_ID, "first", LocalDateTime.now());
@@ -16,6 +16,8 @@
 
 package com.phonepe.sentinelai.embedding;
 
+import java.util.List;
+
 /**
  * A representation for an embedding model
  */
@@ -34,4 +36,17 @@ public interface EmbeddingModel extends AutoCloseable {
      * @return The embedding for the input
      */
     float[] getEmbedding(String input);
+
+    /**
+     * Get embeddings for a batch of inputs. Implementations that can run inference on multiple inputs in one go
+     * should override this. The default implementation embeds the inputs one by one.
+     *
+     * @param inputs The inputs to get the embeddings for
+     * @return The embeddings, in the same order as the inputs
+     */
+    default List<float[]> getEmbeddings(List<String> inputs) {
+        return inputs.stream()
+                .map(this::getEmbedding)
+                .toList();
+    }
 }
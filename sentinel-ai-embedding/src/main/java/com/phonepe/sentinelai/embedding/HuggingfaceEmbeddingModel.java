@@ -32,6 +32,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -120,4 +121,19 @@ public class HuggingfaceEmbeddingModel implements EmbeddingModel {
             predictors.returnObject(predictor);
         }
     }
+
+    @Override
+    @SneakyThrows
+    public List<float[]> getEmbeddings(List<String> inputs) {
+        if (inputs.isEmpty()) {
+            return List.of();
+        }
+        final var predictor = predictors.borrowObject();
+        try {
+            return predictor.batchPredict(inputs);
+        }
+        finally {
+            predictors.returnObject(predictor);
+        }
+    }
 }
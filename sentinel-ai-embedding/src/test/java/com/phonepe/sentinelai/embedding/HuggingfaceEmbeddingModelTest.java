@@ -18,6 +18,9 @@ package com.phonepe.sentinelai.embedding;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -26,6 +29,18 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
  */
 class HuggingfaceEmbeddingModelTest {
 
+    @Test
+    void testBatchEmbedding() {
+        try (final var model = HuggingfaceEmbeddingModel.builder().build()) {
+            final var inputs = List.of("Hello, how are you?", "User's location is bangalore");
+            final var embeddings = model.getEmbeddings(inputs);
+            assertEquals(2, embeddings.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                assertArrayEquals(model.getEmbedding(inputs.get(i)), embeddings.get(i), 1e-5f);
+            }
+        }
+    }
+
     @Test
     void testEmbedding() {
         try (final var model = HuggingfaceEmbeddingModel.builder().build()) {
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import com.google.common.base.Preconditions;
+
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request and token budgets shared by the agent runs and LLM judge calls of an eval run.
+ *
+ * <p>Both budgets are token buckets. A model run takes one request from the request bucket before it starts and waits
+ * while the token bucket is in deficit. Once the run completes, the tokens and any additional requests reported in its
+ * {@link ModelUsageStats} are debited, which may push the buckets into deficit and pace the calls that follow.
+ */
+public class EvalBudget {
+    private static final class Bucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefillNanos;
+
+        private Bucket(double capacity, double refillPerNano) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.available = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Debits the amount unconditionally.
+         */
+        synchronized void debit(double amount) {
+            refill();
+            available -= amount;
+        }
+
+        /**
+         * Reserves the amount and returns the time to wait before it can be used.
+         */
+        synchronized long reserve(double amount) {
+            refill();
+            available -= amount;
+            return available >= 0 ? 0 : (long) Math.ceil(-available / refillPerNano);
+        }
+
+        private void refill() {
+            final var now = System.nanoTime();
+            available = Math.min(capacity, available + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+
+    private final Bucket requests;
+    private final Bucket tokens;
+    private final AtomicLong requestsUsed = new AtomicLong();
+    private final AtomicLong tokensUsed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param requestsPerSecond Maximum model requests per second. {@code 0} disables the limit.
+     * @param tokensPerMinute   Maximum model tokens per minute. {@code 0} disables the limit.
+     */
+    public EvalBudget(double requestsPerSecond, long tokensPerMinute) {
+        Preconditions.checkArgument(requestsPerSecond >= 0, "requestsPerSecond cannot be negative");
+        Preconditions.checkArgument(tokensPerMinute >= 0, "tokensPerMinute cannot be negative");
+        this.requests = requestsPerSecond > 0
+                ? new Bucket(Math.max(1, requestsPerSecond), requestsPerSecond / TimeUnit.SECONDS.toNanos(1))
+                : null;
+        this.tokens = tokensPerMinute > 0
+                ? new Bucket(tokensPerMinute, (double) tokensPerMinute / TimeUnit.MINUTES.toNanos(1))
+                : null;
+    }
+
+    /**
+     * Creates a budget for the limits set in the config.
+     *
+     * @param config run configuration
+     * @return budget, or {@code null} if the config does not set any limit
+     */
+    public static EvalBudget from(EvalRunConfig config) {
+        if (config.getRequestsPerSecond() <= 0 && config.getTokensPerMinute() <= 0) {
+            return null;
+        }
+        return new EvalBudget(config.getRequestsPerSecond(), config.getTokensPerMinute());
+    }
+
+    /**
+     * Blocks until a model run can be started within the budget.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        requestsUsed.incrementAndGet();
+        var wait = null == requests ? 0L : requests.reserve(1);
+        if (null != tokens) {
+            wait = Math.max(wait, tokens.reserve(0));
+        }
+        if (wait <= 0) {
+            return;
+        }
+        throttled.incrementAndGet();
+        waitNanos.addAndGet(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /**
+     * Debits the usage of a completed model run started with {@link #acquire()}.
+     *
+     * @param usage usage reported for the run
+     */
+    public void record(ModelUsageStats usage) {
+        if (null == usage) {
+            return;
+        }
+        final var extraRequests = Math.max(0, usage.getRequestsForRun() - 1);
+        requestsUsed.addAndGet(extraRequests);
+        tokensUsed.addAndGet(usage.getTotalTokens());
+        if (null != requests && extraRequests > 0) {
+            requests.debit(extraRequests);
+        }
+        if (null != tokens) {
+            tokens.debit(usage.getTotalTokens());
+        }
+    }
+
+    /**
+     * @return Snapshot of requests, tokens and time spent waiting for the budget so far
+     */
+    public EvalBudgetStats stats() {
+        return EvalBudgetStats.builder()
+                .requests(requestsUsed.get())
+                .tokens(tokensUsed.get())
+                .throttledRequests(throttled.get())
+                .totalWaitMs(TimeUnit.NANOSECONDS.toMillis(waitNanos.get()))
+                .maxWaitMs(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()))
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Usage of the request and token budgets of an eval run, see {@link EvalBudget}.
+ */
+@Value
+@Builder
+public class EvalBudgetStats {
+    /** Model requests made by agent runs and LLM judges. */
+    long requests;
+    /** Tokens reported by agent runs and LLM judges. */
+    long tokens;
+    /** Number of model runs that had to wait because a budget was exhausted. */
+    long throttledRequests;
+    /** Total time spent waiting for the budgets in milliseconds. */
+    long totalWaitMs;
+    /** Longest single wait for the budgets in milliseconds. */
+    long maxWaitMs;
+}
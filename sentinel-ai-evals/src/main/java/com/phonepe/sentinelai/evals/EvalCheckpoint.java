@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only record of completed test case reports, used to resume an eval run that did not complete.
+ *
+ * <p>The first line of the file identifies the run by dataset name, sampling seed, sampling percentage and number of
+ * sampled cases. Every following line holds the report of one completed case, keyed on its position in sampled
+ * order and a hash of its input. Resuming with a different sampling configuration fails, while cases whose input
+ * has changed are run again. Lines are flushed as they are written, so reports of completed cases survive the
+ * process dying. A line torn by a crash is skipped on load.
+ */
+@Slf4j
+class EvalCheckpoint implements AutoCloseable {
+
+    private record Header(String datasetName, long sampleSeed, double samplePercentage, int sampledTestCases) {
+    }
+
+    private record ExpectationEntry(String expectation,
+                                    EvalStatus status,
+                                    String details,
+                                    Double score,
+                                    Double threshold) {
+    }
+
+    private record Entry(int index,
+                         String inputHash,
+                         EvalStatus status,
+                         JsonNode output,
+                         List<ExpectationEntry> expectationReports,
+                         String details,
+                         long durationMs,
+                         TestCaseMetrics metrics) {
+    }
+
+    private final Path filePath;
+    private final ObjectMapper mapper;
+    private final Map<Integer, Entry> completed = new ConcurrentHashMap<>();
+    private final AtomicInteger restored = new AtomicInteger();
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the checkpoint, loading completed cases if the file exists and creating it otherwise.
+     *
+     * @param filePath         checkpoint file
+     * @param mapper           mapper used to read and write reports
+     * @param datasetName      name of the dataset being run
+     * @param config           run configuration
+     * @param sampledTestCases number of sampled test cases
+     * @throws IllegalStateException if the file was written by a run with a different sampling configuration
+     */
+    @SneakyThrows
+    EvalCheckpoint(Path filePath,
+                   ObjectMapper mapper,
+                   String datasetName,
+                   EvalRunConfig config,
+                   int sampledTestCases) {
+        this.filePath = filePath;
+        this.mapper = mapper;
+        final var header = new Header(datasetName,
+                                      config.getSampleSeed(),
+                                      config.getSamplePercentage(),
+                                      sampledTestCases);
+        final var resumed = load(header);
+        final var parent = filePath.toAbsolutePath().getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        final var needsNewLine = resumed && !endsWithNewLine(filePath);
+        this.writer = Files.newBufferedWriter(filePath,
+                                              StandardCharsets.UTF_8,
+                                              StandardOpenOption.CREATE,
+                                              resumed ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING,
+                                              StandardOpenOption.WRITE);
+        if (needsNewLine) {
+            writer.newLine();
+        }
+        if (!resumed) {
+            writeLine(header);
+        }
+    }
+
+    /**
+     * Opens the checkpoint configured for the run.
+     *
+     * @param config           run configuration
+     * @param mapper           mapper used to read and write reports
+     * @param datasetName      name of the dataset being run
+     * @param sampledTestCases number of sampled test cases
+     * @return checkpoint, or {@code null} if the config does not set a checkpoint file
+     */
+    static EvalCheckpoint from(EvalRunConfig config, ObjectMapper mapper, String datasetName, int sampledTestCases) {
+        if (null == config.getCheckpointFile()) {
+            return null;
+        }
+        return new EvalCheckpoint(config.getCheckpointFile(), mapper, datasetName, config, sampledTestCases);
+    }
+
+    @SneakyThrows
+    private static boolean endsWithNewLine(Path filePath) {
+        try (final var channel = Files.newByteChannel(filePath, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            final var last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private static ExpectationEntry toEntry(ExpectationReport report) {
+        return new ExpectationEntry(report.getExpectation(),
+                                    report.getStatus(),
+                                    report.getDetails(),
+                                    report.getScore().orElse(null),
+                                    report.getThreshold().orElse(null));
+    }
+
+    private static ExpectationReport toReport(ExpectationEntry entry) {
+        return ExpectationReport.builder()
+                .expectation(entry.expectation())
+                .status(entry.status())
+                .details(entry.details())
+                .score(Optional.ofNullable(entry.score()))
+                .threshold(Optional.ofNullable(entry.threshold()))
+                .build();
+    }
+
+    @Override
+    @SneakyThrows
+    public synchronized void close() {
+        writer.close();
+    }
+
+    /**
+     * Appends the report of a completed test case.
+     *
+     * @param index  position of the test case in sampled order
+     * @param input  input of the test case
+     * @param report report of the test case
+     */
+    @SneakyThrows
+    synchronized void record(int index, Object input, TestCaseReport report) {
+        final var entry = new Entry(index,
+                                    hash(input),
+                                    report.getStatus(),
+                                    mapper.valueToTree(report.getOutput()),
+                                    Objects.requireNonNullElse(report.getExpectationReports(),
+                                                               List.<ExpectationReport>of())
+                                            .stream()
+                                            .map(EvalCheckpoint::toEntry)
+                                            .toList(),
+                                    report.getDetails(),
+                                    report.getDurationMs(),
+                                    report.getMetrics());
+        writeLine(entry);
+        completed.put(index, entry);
+    }
+
+    /**
+     * Looks up the report of a test case completed by an earlier run. The output of a restored report is a generic
+     * JSON value ({@link Map}, {@link List}, {@link String} etc.) rather than the agent output type.
+     *
+     * @param index position of the test case in sampled order
+     * @param input input of the test case
+     * @return restored report, empty if the case was not completed or its input has changed
+     */
+    @SneakyThrows
+    Optional<TestCaseReport> restore(int index, Object input) {
+        final var entry = completed.get(index);
+        if (null == entry || !entry.inputHash().equals(hash(input))) {
+            return Optional.empty();
+        }
+        restored.incrementAndGet();
+        return Optional.of(new TestCaseReport(input,
+                                              entry.status(),
+                                              null == entry.output() || entry.output().isNull()
+                                                      ? null
+                                                      : mapper.treeToValue(entry.output(), Object.class),
+                                              Objects.requireNonNullElse(entry.expectationReports(),
+                                                                         List.<ExpectationEntry>of())
+                                                      .stream()
+                                                      .map(EvalCheckpoint::toReport)
+                                                      .toList(),
+                                              entry.details(),
+                                              entry.durationMs(),
+                                              entry.metrics()));
+    }
+
+    /**
+     * @return Number of test case reports restored from the checkpoint so far
+     */
+    int restored() {
+        return restored.get();
+    }
+
+    @SneakyThrows
+    private String hash(Object input) {
+        return Hashing.sha256()
+                .hashBytes(mapper.writeValueAsBytes(input))
+                .toString();
+    }
+
+    /**
+     * Loads completed cases from an existing checkpoint file.
+     *
+     * @return true if the file belongs to this run and should be appended to, false if it should be started afresh
+     */
+    @SneakyThrows
+    private boolean load(Header header) {
+        if (!Files.exists(filePath)) {
+            return false;
+        }
+        try (final var lines = Files.lines(filePath, StandardCharsets.UTF_8)) {
+            final var iterator = lines.iterator();
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            final Header existing;
+            try {
+                existing = mapper.readValue(iterator.next(), Header.class);
+            }
+            catch (Exception e) {
+                log.warn("Ignoring checkpoint {} with unreadable header: {}", filePath.toAbsolutePath(), e.getMessage());
+                return false;
+            }
+            if (!header.equals(existing)) {
+                throw new IllegalStateException("Checkpoint " + filePath.toAbsolutePath()
+                                                        + " was written by a different run: " + existing
+                                                        + ". Expected: " + header);
+            }
+            while (iterator.hasNext()) {
+                final var line = iterator.next();
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    final var entry = mapper.readValue(line, Entry.class);
+                    completed.put(entry.index(), entry);
+                }
+                catch (Exception e) {
+                    log.warn("Skipping corrupted checkpoint line: {}", e.getMessage());
+                }
+            }
+        }
+        log.info("Resuming from checkpoint {} with {} completed test cases",
+                 filePath.toAbsolutePath(),
+                 completed.size());
+        return true;
+    }
+
+    @SneakyThrows
+    private void writeLine(Object value) {
+        writer.write(mapper.writeValueAsString(value));
+        writer.newLine();
+        writer.flush();
+    }
+}
@@ -18,9 +18,12 @@ package com.phonepe.sentinelai.evals;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.phonepe.sentinelai.core.agent.Agent;
 import com.phonepe.sentinelai.core.agent.AgentInput;
+import com.phonepe.sentinelai.core.agent.StreamConsumer;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
 import com.phonepe.sentinelai.core.errors.ErrorType;
 import com.phonepe.sentinelai.core.model.ModelUsageStats;
@@ -40,11 +43,18 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Executes evaluation datasets against Sentinel agents and produces aggregated reports.
@@ -52,11 +62,19 @@ import java.util.concurrent.TimeoutException;
  * <p>The engine runs each sampled {@link TestCase}, builds an {@link EvalExpectationContext}
  * from the agent execution output, delegates each expectation to the configured
  * {@link ExpectationExecutorFactory}, and aggregates the resulting expectation-level outcomes
- * into an {@link EvalReport}.
+ * into an {@link EvalReport}. Test cases are run one after another, or on executors dedicated to the run when
+ * {@link EvalRunConfig#getParallelism()} is more than one. When {@link EvalRunConfig#getCheckpointFile()} is set,
+ * reports of completed test cases are appended to it and a run that did not complete can be resumed from it.
  */
 @Slf4j
 public class EvalEngine {
 
+    /**
+     * Budget, judge verdict cache and checkpoint shared by all test cases of a run.
+     */
+    private record RunScope(EvalBudget budget, JudgeVerdictCache judgeCache, EvalCheckpoint checkpoint) {
+    }
+
     private final ObjectMapper objectMapper;
     private final ExecutorService executorService;
     private final ExpectationExecutorFactory executorFactory;
@@ -81,7 +99,7 @@ public class EvalEngine {
      * Creates an engine with the supplied mapper/executor and built-in expectation registry.
      *
      * @param objectMapper    mapper used for eval serialization and JSONPath evaluation
-     * @param executorService executor used by eval runtime and async metric evaluators
+     * @param executorService executor used for serial test case runs and async metric evaluators
      */
     public EvalEngine(ObjectMapper objectMapper,
                       ExecutorService executorService) {
@@ -92,7 +110,7 @@ public class EvalEngine {
      * Creates an engine with explicit runtime executor, serialization, and expectation execution strategies.
      *
      * @param objectMapper    mapper used to serialize structured outputs during evaluation
-     * @param executorService executor used by eval runtime and async metric evaluators
+     * @param executorService executor used for serial test case runs and async metric evaluators
      * @param executorFactory factory used to create executors for expectations in each test case
      */
     public EvalEngine(ObjectMapper objectMapper,
@@ -115,14 +133,22 @@ public class EvalEngine {
 
     private static <R, T> EvalExpectationContext<R> buildContext(TestCase<R, T> testCase,
                                                                  List<AgentMessage> allMessages,
-                                                                 ModelUsageStats usageStats) {
+                                                                 ModelUsageStats usageStats,
+                                                                 RunScope scope) {
         final var safeMessages = Objects.requireNonNullElse(allMessages, List.<AgentMessage>of());
         return new EvalExpectationContext<>("eval-run-" + UUID.randomUUID(),
                                             testCase.getInput(),
                                             safeMessages,
-                                            Objects.requireNonNullElseGet(usageStats, ModelUsageStats::new));
+                                            Objects.requireNonNullElseGet(usageStats, ModelUsageStats::new),
+                                            scope.budget(),
+                                            scope.judgeCache());
     }
 
+    private static void cancelFrom(List<? extends Future<?>> runs, int from) {
+        for (int i = from; i < runs.size(); i++) {
+            runs.get(i).cancel(true);
+        }
+    }
 
     private static List<MetricScore> collectRawMetricScores(List<TestCaseReport> reports) {
         final List<MetricScore> scores = new ArrayList<>();
@@ -143,6 +169,27 @@ public class EvalEngine {
         return stopwatch.elapsed(TimeUnit.MILLISECONDS);
     }
 
+    private static StreamConsumer firstTokenRecorder(Stopwatch stopwatch, AtomicLong firstTokenMs) {
+        return new StreamConsumer() {
+            @Override
+            public void consumeContent(String content) {
+                record(content);
+            }
+
+            @Override
+            public void consumeReasoningAndContent(String reasoningData, String content) {
+                record(reasoningData);
+                record(content);
+            }
+
+            private void record(String data) {
+                if (firstTokenMs.get() < 0 && !Strings.isNullOrEmpty(data)) {
+                    firstTokenMs.compareAndSet(-1, elapsedMs(stopwatch));
+                }
+            }
+        };
+    }
+
     @SuppressWarnings("java:S2245")
     private static <R, T> List<TestCase<R, T>> sampleTestCases(List<TestCase<R, T>> allCases,
                                                                EvalRunConfig config) {
@@ -159,6 +206,12 @@ public class EvalEngine {
         return List.copyOf(copy.subList(0, sampleSize));
     }
 
+    private static ThreadFactory threadFactory(String nameFormat) {
+        return new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(nameFormat)
+                .build();
+    }
 
     /**
      * Runs the supplied dataset with the default runtime configuration.
@@ -197,18 +250,33 @@ public class EvalEngine {
         final var stopwatch = Stopwatch.createStarted();
         final var allCases = Objects.requireNonNullElse(dataset.getTestCases(), List.<TestCase<R, T>>of());
         final var sampledCases = sampleTestCases(allCases, config);
-        final var reports = executeAndCollectReports(agent, sampledCases, config);
+        try (final var judgeCache = JudgeVerdictCache.from(config, objectMapper);
+             final var checkpoint = EvalCheckpoint.from(config, objectMapper, dataset.getName(), sampledCases.size())) {
+            final var scope = new RunScope(EvalBudget.from(config), judgeCache, checkpoint);
+            prepare(sampledCases);
+            final var reports = executeAndCollectReports(agent, sampledCases, config, scope);
 
-        return buildReport(dataset, allCases, sampledCases, reports, stopwatch);
+            return buildReport(dataset, allCases, sampledCases, reports, config, scope, stopwatch);
+        }
     }
 
     private <R, T> EvalReport buildReport(Dataset<R, T> dataset,
                                           List<TestCase<R, T>> allCases,
                                           List<TestCase<R, T>> sampledCases,
                                           List<TestCaseReport> reports,
+                                          EvalRunConfig config,
+                                          RunScope scope,
                                           Stopwatch stopwatch) {
         final var executedCount = reports.size();
         final var rawMetricScores = collectRawMetricScores(reports);
+        final var durationMs = elapsedMs(stopwatch);
+        final var performance = EvalPerformanceSummary.of(reports, durationMs);
+        final var regressions = null == config.getPerformanceBaseline()
+                ? List.<PerformanceRegression>of()
+                : performance.regressionsAgainst(config.getPerformanceBaseline(), config.getPerformanceTolerance());
+        if (!regressions.isEmpty()) {
+            log.warn("Performance regressions in dataset {}: {}", dataset.getName(), regressions);
+        }
 
         return EvalReport.builder()
                 .datasetName(dataset.getName())
@@ -218,10 +286,15 @@ public class EvalEngine {
                 .passedTestCases((int) reports.stream().filter(r -> r.getStatus() == EvalStatus.PASSED).count())
                 .failedTestCases((int) reports.stream().filter(r -> r.getStatus() == EvalStatus.FAILED).count())
                 .skippedTestCases((int) reports.stream().filter(r -> r.getStatus() == EvalStatus.SKIPPED).count())
-                .durationMs(elapsedMs(stopwatch))
+                .durationMs(durationMs)
                 .completedAllSampledCases(executedCount == sampledCases.size())
                 .testCaseReports(List.copyOf(reports))
                 .metricScores(rawMetricScores)
+                .budgetStats(null == scope.budget() ? null : scope.budget().stats())
+                .judgeCacheStats(null == scope.judgeCache() ? null : scope.judgeCache().stats())
+                .resumedTestCases(null == scope.checkpoint() ? 0 : scope.checkpoint().restored())
+                .performance(performance)
+                .performanceRegressions(regressions)
                 .build();
     }
 
@@ -238,10 +311,14 @@ public class EvalEngine {
 
     private <R, T> List<TestCaseReport> executeAndCollectReports(Agent<R, T, ?> agent,
                                                                  List<TestCase<R, T>> sampledCases,
-                                                                 EvalRunConfig config) {
+                                                                 EvalRunConfig config,
+                                                                 RunScope scope) {
+        if (config.getParallelism() > 1 && sampledCases.size() > 1) {
+            return executeInParallel(agent, sampledCases, config, scope);
+        }
         final var reports = new ArrayList<TestCaseReport>();
-        for (TestCase<R, T> testCase : sampledCases) {
-            final var report = executeTestCase(agent, testCase, config);
+        for (int i = 0; i < sampledCases.size(); i++) {
+            final var report = runTestCase(agent, i, sampledCases.get(i), config, scope, executorService);
             reports.add(report);
             if (config.isFailFast() && report.getStatus() == EvalStatus.FAILED) {
                 break;
@@ -250,15 +327,94 @@ public class EvalEngine {
         return reports;
     }
 
+    /**
+     * Runs up to {@link EvalRunConfig#getParallelism()} test cases at a time. Every running case holds a runner
+     * thread that enforces its timeout while the agent executes on a worker thread, so that timed out and cancelled
+     * cases can be interrupted. With fail-fast, cases after the first failed case in sampled order are cancelled and
+     * the ones before it are allowed to complete, so the reports match those of a serial run.
+     */
+    private <R, T> List<TestCaseReport> executeInParallel(Agent<R, T, ?> agent,
+                                                          List<TestCase<R, T>> sampledCases,
+                                                          EvalRunConfig config,
+                                                          RunScope scope) {
+        final var runners = Executors.newFixedThreadPool(Math.min(config.getParallelism(), sampledCases.size()),
+                                                         threadFactory("eval-runner-%d"));
+        final var workers = Executors.newCachedThreadPool(threadFactory("eval-worker-%d"));
+        final var firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        final var runs = new ArrayList<FutureTask<TestCaseReport>>(sampledCases.size());
+        for (int i = 0; i < sampledCases.size(); i++) {
+            final var index = i;
+            final var testCase = sampledCases.get(i);
+            runs.add(new FutureTask<>(() -> {
+                final var report = runTestCase(agent, index, testCase, config, scope, workers);
+                if (config.isFailFast()
+                        && report.getStatus() == EvalStatus.FAILED
+                        && firstFailure.accumulateAndGet(index, Math::min) == index) {
+                    cancelFrom(runs, index + 1);
+                }
+                return report;
+            }));
+        }
+        final var reports = new ArrayList<TestCaseReport>();
+        try {
+            runs.forEach(runners::execute);
+            for (int i = 0; i < runs.size() && i <= firstFailure.get(); i++) {
+                reports.add(runs.get(i).get());
+            }
+        }
+        catch (CancellationException e) {
+            log.debug("Remaining test cases cancelled after failure of test case {}", firstFailure.get());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for test cases. Returning {} completed reports", reports.size());
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Error running test case: " + e.getCause().getMessage(), e.getCause());
+        }
+        finally {
+            cancelFrom(runs, 0);
+            runners.shutdownNow();
+            workers.shutdownNow();
+        }
+        return reports;
+    }
+
     private <R, T, A extends Agent<R, T, A>> TestCaseReport executeTestCase(Agent<R, T, A> agent,
                                                                             TestCase<R, T> testCase,
-                                                                            EvalRunConfig config) {
+                                                                            EvalRunConfig config,
+                                                                            RunScope scope,
+                                                                            ExecutorService caseExecutor) {
+        final var budget = scope.budget();
+        if (null != budget) {
+            try {
+                budget.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new TestCaseReport(testCase.getInput(),
+                                          EvalStatus.SKIPPED,
+                                          null,
+                                          List.of(),
+                                          "Test case execution interrupted while waiting for model budget",
+                                          0);
+            }
+        }
         final var callerStopwatch = Stopwatch.createStarted();
-        final var execution = CompletableFuture.supplyAsync(() -> {
+        final var execution = caseExecutor.submit(() -> {
             final var supplierStopwatch = Stopwatch.createStarted();
-            final var output = agent.execute(AgentInput.<R>builder()
+            final var input = AgentInput.<R>builder()
                     .request(testCase.getInput())
-                    .build());
+                    .build();
+            final var firstTokenMs = new AtomicLong(-1);
+            final var output = config.isStreaming()
+                    ? agent.executeAsyncStreaming(input, firstTokenRecorder(supplierStopwatch, firstTokenMs)).get()
+                    : agent.execute(input);
+            if (null != budget) {
+                budget.record(output.getUsage());
+            }
+            final var metrics = TestCaseMetrics.from(output.getUsage(),
+                                                     firstTokenMs.get() < 0 ? null : firstTokenMs.get());
 
             final var expectationReports = new ArrayList<ExpectationReport>();
             if (output.getError() != null && output.getError().getErrorType() != ErrorType.SUCCESS) {
@@ -267,10 +423,11 @@ public class EvalEngine {
                                           output.getData(),
                                           expectationReports,
                                           "Agent execution failed: " + output.getError().getMessage(),
-                                          elapsedMs(supplierStopwatch));
+                                          elapsedMs(supplierStopwatch),
+                                          metrics);
             }
 
-            final var context = buildContext(testCase, output.getAllMessages(), output.getUsage());
+            final var context = buildContext(testCase, output.getAllMessages(), output.getUsage(), scope);
             var status = EvalStatus.PASSED;
             var details = "All expectations passed";
 
@@ -297,8 +454,9 @@ public class EvalEngine {
                                       output.getData(),
                                       expectationReports,
                                       details,
-                                      elapsedMs(supplierStopwatch));
-        }, executorService);
+                                      elapsedMs(supplierStopwatch),
+                                      metrics);
+        });
 
         final var timeout = Objects.requireNonNullElse(testCase.getTimeout(), config.getDefaultTestCaseTimeout());
 
@@ -315,6 +473,7 @@ public class EvalEngine {
                                       elapsedMs(callerStopwatch));
         }
         catch (InterruptedException e) {
+            execution.cancel(true);
             Thread.currentThread().interrupt();
             return new TestCaseReport(testCase.getInput(),
                                       EvalStatus.SKIPPED,
@@ -333,5 +492,41 @@ public class EvalEngine {
         }
     }
 
+    /**
+     * Lets the expectation executors do work shared by the sampled test cases in bulk, for example embedding their
+     * inputs in batches. Failures are logged, the work is then done per test case.
+     */
+    private <R, T> void prepare(List<TestCase<R, T>> sampledCases) {
+        try {
+            executorFactory.prepare(sampledCases);
+        }
+        catch (Exception e) {
+            log.warn("Error preparing {} test cases for evaluation: {}", sampledCases.size(), e.getMessage());
+        }
+    }
 
+    /**
+     * Restores the report of a test case from the checkpoint or executes it. Reports of executed cases are
+     * checkpointed unless the run was interrupted, so that cancelled cases are run again on resume.
+     */
+    private <R, T> TestCaseReport runTestCase(Agent<R, T, ?> agent,
+                                              int index,
+                                              TestCase<R, T> testCase,
+                                              EvalRunConfig config,
+                                              RunScope scope,
+                                              ExecutorService caseExecutor) {
+        final var checkpoint = scope.checkpoint();
+        if (null == checkpoint) {
+            return executeTestCase(agent, testCase, config, scope, caseExecutor);
+        }
+        final var restored = checkpoint.restore(index, testCase.getInput());
+        if (restored.isPresent()) {
+            return restored.get();
+        }
+        final var report = executeTestCase(agent, testCase, config, scope, caseExecutor);
+        if (!Thread.currentThread().isInterrupted()) {
+            checkpoint.record(index, testCase.getInput(), report);
+        }
+        return report;
+    }
 }
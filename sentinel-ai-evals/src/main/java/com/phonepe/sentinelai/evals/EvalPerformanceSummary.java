@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Latency, cost and throughput of an eval run, aggregated over its test case reports.
+ *
+ * <p>The summary of a known good run can be saved as JSON and set as {@link EvalRunConfig#getPerformanceBaseline()}
+ * for later runs. Percentiles that exceed the baseline by more than {@link EvalRunConfig#getPerformanceTolerance()}
+ * are reported in {@link EvalReport#getPerformanceRegressions()}.
+ */
+@Value
+@Builder
+@Jacksonized
+public class EvalPerformanceSummary {
+    /** Wall time of test cases in milliseconds. */
+    Percentiles wallTimeMs;
+    Percentiles modelCalls;
+    Percentiles toolCalls;
+    Percentiles totalTokens;
+    /** Time to first streamed content in milliseconds, {@code null} unless the run was streamed. */
+    Percentiles timeToFirstTokenMs;
+    /** Test cases completed per second of run time. */
+    double casesPerSecond;
+    /** Agent tokens used per second of run time. */
+    double tokensPerSecond;
+
+    /**
+     * Aggregates the reports of a run.
+     *
+     * @param reports    test case reports
+     * @param durationMs wall time of the run in milliseconds
+     * @return summary of the run
+     */
+    public static EvalPerformanceSummary of(List<TestCaseReport> reports, long durationMs) {
+        final var measured = reports.stream()
+                .map(TestCaseReport::getMetrics)
+                .filter(Objects::nonNull)
+                .toList();
+        final var seconds = Math.max(durationMs, 1) / 1000D;
+        return EvalPerformanceSummary.builder()
+                .wallTimeMs(Percentiles.of(reports.stream().mapToLong(TestCaseReport::getDurationMs).toArray()))
+                .modelCalls(Percentiles.of(measured.stream().mapToLong(TestCaseMetrics::getModelCalls).toArray()))
+                .toolCalls(Percentiles.of(measured.stream().mapToLong(TestCaseMetrics::getToolCalls).toArray()))
+                .totalTokens(Percentiles.of(measured.stream().mapToLong(TestCaseMetrics::getTotalTokens).toArray()))
+                .timeToFirstTokenMs(Percentiles.of(measured.stream()
+                                                           .map(TestCaseMetrics::getTimeToFirstTokenMs)
+                                                           .filter(Objects::nonNull)
+                                                           .mapToLong(Long::longValue)
+                                                           .toArray()))
+                .casesPerSecond(reports.size() / seconds)
+                .tokensPerSecond(measured.stream().mapToLong(TestCaseMetrics::getTotalTokens).sum() / seconds)
+                .build();
+    }
+
+    private static void compare(String name,
+                                Percentiles baseline,
+                                Percentiles actual,
+                                double tolerance,
+                                List<PerformanceRegression> regressions) {
+        if (null == baseline || null == actual) {
+            return;
+        }
+        compare(name + ".p50", baseline, actual, Percentiles::getP50, tolerance, regressions);
+        compare(name + ".p90", baseline, actual, Percentiles::getP90, tolerance, regressions);
+        compare(name + ".p99", baseline, actual, Percentiles::getP99, tolerance, regressions);
+    }
+
+    private static void compare(String name,
+                                Percentiles baseline,
+                                Percentiles actual,
+                                ToLongFunction<Percentiles> percentile,
+                                double tolerance,
+                                List<PerformanceRegression> regressions) {
+        final var expected = percentile.applyAsLong(baseline);
+        final var measured = percentile.applyAsLong(actual);
+        if (measured > expected * (1 + tolerance)) {
+            regressions.add(new PerformanceRegression(name, expected, measured));
+        }
+    }
+
+    /**
+     * Compares the p50, p90 and p99 of every measurement against a baseline. Measurements missing from either
+     * summary are not compared.
+     *
+     * @param baseline  summary of a known good run
+     * @param tolerance allowed increase over the baseline, for example {@code 0.1} for 10%
+     * @return percentiles that exceed the baseline by more than the tolerance
+     */
+    public List<PerformanceRegression> regressionsAgainst(EvalPerformanceSummary baseline, double tolerance) {
+        final var regressions = new ArrayList<PerformanceRegression>();
+        compare("wallTimeMs", baseline.getWallTimeMs(), wallTimeMs, tolerance, regressions);
+        compare("modelCalls", baseline.getModelCalls(), modelCalls, tolerance, regressions);
+        compare("toolCalls", baseline.getToolCalls(), toolCalls, tolerance, regressions);
+        compare("totalTokens", baseline.getTotalTokens(), totalTokens, tolerance, regressions);
+        compare("timeToFirstTokenMs", baseline.getTimeToFirstTokenMs(), timeToFirstTokenMs, tolerance, regressions);
+        return List.copyOf(regressions);
+    }
+}
@@ -53,5 +53,26 @@ public class EvalReport {
     /** Raw metric scores emitted while evaluating expectations. */
     @Builder.Default
     List<MetricScore> metricScores = List.of();
+    /** Usage of the request and token budgets, {@code null} if the run was not budgeted. */
+    EvalBudgetStats budgetStats;
+    /** Usage of the judge verdict cache, {@code null} if judge verdicts were not cached. */
+    JudgeVerdictCacheStats judgeCacheStats;
+
+    /** Number of test case reports restored from the checkpoint of an earlier run instead of being executed. */
+    int resumedTestCases;
+
+    /** Latency, cost and throughput percentiles of the executed test cases. */
+    EvalPerformanceSummary performance;
+
+    /** Percentiles that exceeded {@link EvalRunConfig#getPerformanceBaseline()} by more than the tolerance. */
+    @Builder.Default
+    List<PerformanceRegression> performanceRegressions = List.of();
+
+    /**
+     * @return true if the run was slower or more expensive than the configured baseline
+     */
+    public boolean hasPerformanceRegressions() {
+        return !performanceRegressions.isEmpty();
+    }
 
 }
@@ -22,13 +22,15 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.With;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 
 /**
  * Runtime options that control how an {@link EvalEngine} executes a dataset.
  *
- * <p>Supports fail-fast behaviour, deterministic sampling, and timeout configuration.
+ * <p>Supports fail-fast behaviour, deterministic sampling, parallel execution, model budgets, judge verdict caching,
+ * and timeout configuration.
  */
 @Builder
 @Getter
@@ -54,6 +56,44 @@ public class EvalRunConfig {
     @Builder.Default
     int minimumSampleSize = 1;
 
+    /**
+     * Maximum number of test cases executed concurrently. Test case reports are always returned in sampled order.
+     */
+    @Builder.Default
+    int parallelism = 1;
+
+    /** Maximum model requests per second across agent runs and LLM judges. {@code 0} disables the limit. */
+    @Builder.Default
+    double requestsPerSecond = 0D;
+
+    /** Maximum model tokens per minute across agent runs and LLM judges. {@code 0} disables the limit. */
+    @Builder.Default
+    long tokensPerMinute = 0L;
+
+    /** Directory for the persistent {@link JudgeVerdictCache}. LLM judge verdicts are not cached if null. */
+    Path judgeCacheDirectory;
+
+    /** Whether verdicts already in the judge cache should be dropped before the run. */
+    @Builder.Default
+    boolean invalidateJudgeCache = false;
+
+    /**
+     * Append-only file recording completed test case reports. If the file exists, a run with the same dataset and
+     * sampling configuration resumes from it and only runs the cases that have not completed. Disabled if null.
+     */
+    Path checkpointFile;
+
+    /** Whether agents are run in streaming mode, which records the time to first token of every test case. */
+    @Builder.Default
+    boolean streaming = false;
+
+    /** Performance of a known good run to compare against. Regressions are not checked if null. */
+    EvalPerformanceSummary performanceBaseline;
+
+    /** Allowed increase of a percentile over the {@link #performanceBaseline}, for example {@code 0.1} for 10%. */
+    @Builder.Default
+    double performanceTolerance = 0.1D;
+
     /**
      * Creates a validated runtime configuration.
      *
@@ -68,16 +108,77 @@ public class EvalRunConfig {
                          long sampleSeed,
                          Duration defaultTestCaseTimeout,
                          int minimumSampleSize) {
+        this(failFast,
+             samplePercentage,
+             sampleSeed,
+             defaultTestCaseTimeout,
+             minimumSampleSize,
+             1,
+             0D,
+             0L,
+             null,
+             false,
+             null,
+             false,
+             null,
+             0.1D);
+    }
+
+    /**
+     * Creates a validated runtime configuration.
+     *
+     * @param failFast               whether execution should stop after the first failed test case
+     * @param samplePercentage       percentage of dataset cases to sample for execution
+     * @param sampleSeed             deterministic seed used for sampling order
+     * @param defaultTestCaseTimeout default timeout for test cases without an explicit timeout
+     * @param minimumSampleSize      minimum number of sampled test cases to execute
+     * @param parallelism            maximum number of test cases executed concurrently
+     * @param requestsPerSecond      maximum model requests per second, {@code 0} for no limit
+     * @param tokensPerMinute        maximum model tokens per minute, {@code 0} for no limit
+     * @param judgeCacheDirectory    directory for the persistent judge verdict cache, {@code null} to disable it
+     * @param invalidateJudgeCache   whether cached judge verdicts should be dropped before the run
+     * @param checkpointFile         file recording completed test cases to resume from, {@code null} to disable it
+     * @param streaming              whether agents are run in streaming mode
+     * @param performanceBaseline    performance of a known good run, {@code null} to skip regression checks
+     * @param performanceTolerance   allowed increase of a percentile over the baseline
+     */
+    public EvalRunConfig(boolean failFast,
+                         double samplePercentage,
+                         long sampleSeed,
+                         Duration defaultTestCaseTimeout,
+                         int minimumSampleSize,
+                         int parallelism,
+                         double requestsPerSecond,
+                         long tokensPerMinute,
+                         Path judgeCacheDirectory,
+                         boolean invalidateJudgeCache,
+                         Path checkpointFile,
+                         boolean streaming,
+                         EvalPerformanceSummary performanceBaseline,
+                         double performanceTolerance) {
         Preconditions.checkArgument(samplePercentage > 0 && samplePercentage <= 100,
                                     "samplePercentage must be in (0, 100]");
         Preconditions.checkArgument(!defaultTestCaseTimeout.isNegative(), "defaultTestCaseTimeout must be positive");
         Preconditions.checkArgument(minimumSampleSize > 0, "minimumSampleSize must be positive");
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        Preconditions.checkArgument(requestsPerSecond >= 0, "requestsPerSecond cannot be negative");
+        Preconditions.checkArgument(tokensPerMinute >= 0, "tokensPerMinute cannot be negative");
+        Preconditions.checkArgument(performanceTolerance >= 0, "performanceTolerance cannot be negative");
 
         this.failFast = failFast;
         this.samplePercentage = samplePercentage;
         this.sampleSeed = sampleSeed;
         this.defaultTestCaseTimeout = defaultTestCaseTimeout;
         this.minimumSampleSize = minimumSampleSize;
+        this.parallelism = parallelism;
+        this.requestsPerSecond = requestsPerSecond;
+        this.tokensPerMinute = tokensPerMinute;
+        this.judgeCacheDirectory = judgeCacheDirectory;
+        this.invalidateJudgeCache = invalidateJudgeCache;
+        this.checkpointFile = checkpointFile;
+        this.streaming = streaming;
+        this.performanceBaseline = performanceBaseline;
+        this.performanceTolerance = performanceTolerance;
     }
 
     /**
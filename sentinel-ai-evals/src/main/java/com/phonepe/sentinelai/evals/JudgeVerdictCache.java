@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent cache of LLM judge verdicts, so that unchanged cases are not judged again when an eval suite is re-run.
+ *
+ * <p>Verdicts are keyed on a hash of the metric, the judge model, the judge prompt (which carries the metric prompt
+ * template, the input and the actual output) and are appended to a {@value #FILE_NAME} file in the cache directory.
+ * The file is loaded when the cache is opened. Later entries for the same key win and corrupted lines are skipped.
+ */
+@Slf4j
+public class JudgeVerdictCache implements AutoCloseable {
+    public static final String FILE_NAME = "judge-verdicts.jsonl";
+
+    private record Verdict(String key, String metric, double score, long createdAt) {
+    }
+
+    private final Path filePath;
+    private final ObjectMapper mapper;
+    private final Map<String, Double> verdicts = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private BufferedWriter writer;
+
+    /**
+     * Opens the cache in the given directory, creating the directory if needed.
+     *
+     * @param directory directory holding the cache file
+     * @param mapper    mapper used to read and write verdicts
+     */
+    @SneakyThrows
+    public JudgeVerdictCache(@NonNull Path directory, @NonNull ObjectMapper mapper) {
+        Files.createDirectories(directory);
+        this.filePath = directory.resolve(FILE_NAME);
+        this.mapper = mapper;
+        load();
+    }
+
+    /**
+     * Opens the cache configured for the run.
+     *
+     * @param config run configuration
+     * @param mapper mapper used to read and write verdicts
+     * @return cache, or {@code null} if the config does not set a cache directory
+     */
+    public static JudgeVerdictCache from(EvalRunConfig config, ObjectMapper mapper) {
+        if (null == config.getJudgeCacheDirectory()) {
+            return null;
+        }
+        final var cache = new JudgeVerdictCache(config.getJudgeCacheDirectory(), mapper);
+        if (config.isInvalidateJudgeCache()) {
+            cache.invalidate();
+        }
+        return cache;
+    }
+
+    /**
+     * Computes the cache key for a judge call.
+     *
+     * @param metric       name of the metric
+     * @param judgeModelId identifier of the judge model
+     * @param parts        judge inputs, for example the system instruction and the rendered prompt
+     * @return SHA-256 of all the parts
+     */
+    public static String key(String metric, String judgeModelId, String... parts) {
+        final var hasher = Hashing.sha256().newHasher();
+        putString(hasher, metric);
+        putString(hasher, judgeModelId);
+        hasher.putInt(parts.length);
+        for (final var part : parts) {
+            putString(hasher, part);
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        final var safeValue = Strings.nullToEmpty(value);
+        hasher.putInt(safeValue.length());
+        hasher.putString(safeValue, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    @SneakyThrows
+    public synchronized void close() {
+        if (null != writer) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Looks up a verdict.
+     *
+     * @param key key computed with {@link #key(String, String, String...)}
+     * @return cached score, empty on a miss
+     */
+    public OptionalDouble get(String key) {
+        final var score = verdicts.get(key);
+        if (null == score) {
+            misses.incrementAndGet();
+            return OptionalDouble.empty();
+        }
+        hits.incrementAndGet();
+        return OptionalDouble.of(score);
+    }
+
+    /**
+     * Drops all cached verdicts, both in memory and on disk.
+     */
+    @SneakyThrows
+    public synchronized void invalidate() {
+        close();
+        verdicts.clear();
+        Files.deleteIfExists(filePath);
+        log.info("Invalidated judge verdict cache at {}", filePath.toAbsolutePath());
+    }
+
+    /**
+     * Stores a verdict and appends it to the cache file.
+     *
+     * @param key    key computed with {@link #key(String, String, String...)}
+     * @param metric name of the metric, stored for diagnostics
+     * @param score  score returned by the judge
+     */
+    @SneakyThrows
+    public synchronized void put(String key, String metric, double score) {
+        if (null == writer) {
+            writer = Files.newBufferedWriter(filePath,
+                                             StandardCharsets.UTF_8,
+                                             StandardOpenOption.CREATE,
+                                             StandardOpenOption.APPEND);
+        }
+        writer.write(mapper.writeValueAsString(new Verdict(key, metric, score, System.currentTimeMillis())));
+        writer.newLine();
+        writer.flush();
+        verdicts.put(key, score);
+        stored.incrementAndGet();
+    }
+
+    /**
+     * @return Hits, misses and stores since the cache was opened, and the number of cached verdicts
+     */
+    public JudgeVerdictCacheStats stats() {
+        return JudgeVerdictCacheStats.builder()
+                .hits(hits.get())
+                .misses(misses.get())
+                .stored(stored.get())
+                .entries(verdicts.size())
+                .build();
+    }
+
+    private void load() {
+        if (!Files.exists(filePath, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (final var lines = Files.lines(filePath, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                if (line.isBlank()) {
+                    return;
+                }
+                try {
+                    final var verdict = mapper.readValue(line, Verdict.class);
+                    verdicts.put(verdict.key(), verdict.score());
+                }
+                catch (Exception e) {
+                    log.warn("Skipping corrupted judge verdict line: {}", e.getMessage());
+                }
+            });
+        }
+        catch (Exception e) {
+            log.error("Error reading judge verdicts from file: {}", filePath.toAbsolutePath(), e);
+        }
+        log.info("Loaded {} judge verdicts from {}", verdicts.size(), filePath.toAbsolutePath());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Usage of the {@link JudgeVerdictCache} during an eval run.
+ */
+@Value
+@Builder
+public class JudgeVerdictCacheStats {
+    /** Judge calls answered from the cache. */
+    long hits;
+    /** Judge calls that had to call the judge model. */
+    long misses;
+    /** Verdicts added to the cache. */
+    long stored;
+    /** Verdicts in the cache at the end of the run. */
+    int entries;
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.Arrays;
+
+/**
+ * Nearest-rank percentiles of a measurement across the test cases of a run.
+ */
+@Value
+@Builder
+@Jacksonized
+public class Percentiles {
+    long p50;
+    long p90;
+    long p99;
+    long max;
+
+    /**
+     * Computes percentiles of the given values.
+     *
+     * @param values measured values, not modified
+     * @return percentiles, or {@code null} if there are no values
+     */
+    public static Percentiles of(long[] values) {
+        if (values.length == 0) {
+            return null;
+        }
+        final var sorted = values.clone();
+        Arrays.sort(sorted);
+        return Percentiles.builder()
+                .p50(rank(sorted, 50))
+                .p90(rank(sorted, 90))
+                .p99(rank(sorted, 99))
+                .max(sorted[sorted.length - 1])
+                .build();
+    }
+
+    private static long rank(long[] sorted, int percentile) {
+        final var index = (int) Math.ceil(percentile / 100D * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
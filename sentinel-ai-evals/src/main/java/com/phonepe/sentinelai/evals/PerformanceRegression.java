@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import lombok.Value;
+
+/**
+ * A percentile of an eval run that exceeded the baseline by more than the allowed tolerance.
+ */
+@Value
+public class PerformanceRegression {
+    /** Measurement and percentile, for example {@code wallTimeMs.p90}. */
+    String metric;
+    long baseline;
+    long actual;
+
+    @Override
+    public String toString() {
+        return "%s: %d -> %d".formatted(metric, baseline, actual);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Cost and latency of the agent run of a single test case. LLM judge calls are not included.
+ */
+@Value
+@Builder
+@Jacksonized
+public class TestCaseMetrics {
+    /** Model calls made by the agent, as reported in {@link ModelUsageStats#getRequestsForRun()}. */
+    int modelCalls;
+    /** Tool calls made by the agent. */
+    int toolCalls;
+    int requestTokens;
+    int responseTokens;
+    int totalTokens;
+    /** Time from the start of the run to the first streamed content, {@code null} unless run in streaming mode. */
+    Long timeToFirstTokenMs;
+
+    /**
+     * Builds metrics from the usage reported by the agent.
+     *
+     * @param usage              usage of the agent run, may be null
+     * @param timeToFirstTokenMs time to first streamed content, null if not streamed
+     * @return metrics for the run
+     */
+    public static TestCaseMetrics from(ModelUsageStats usage, Long timeToFirstTokenMs) {
+        final var safeUsage = null == usage ? new ModelUsageStats() : usage;
+        return TestCaseMetrics.builder()
+                .modelCalls(safeUsage.getRequestsForRun())
+                .toolCalls(safeUsage.getToolCallsForRun())
+                .requestTokens(safeUsage.getRequestTokens())
+                .responseTokens(safeUsage.getResponseTokens())
+                .totalTokens(safeUsage.getTotalTokens())
+                .timeToFirstTokenMs(timeToFirstTokenMs)
+                .build();
+    }
+}
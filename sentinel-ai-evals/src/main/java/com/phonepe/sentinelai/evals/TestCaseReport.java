@@ -16,6 +16,7 @@
 
 package com.phonepe.sentinelai.evals;
 
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.List;
  * Detailed outcome of executing a single test case.
  */
 @Value
+@AllArgsConstructor
 public class TestCaseReport {
     /** Input request used when invoking the agent. */
     Object input;
@@ -37,4 +39,25 @@ public class TestCaseReport {
     String details;
     /** Test-case execution duration in milliseconds. */
     long durationMs;
+    /** Cost and latency of the agent run, {@code null} if the agent did not complete. */
+    TestCaseMetrics metrics;
+
+    /**
+     * Creates a report without agent run metrics.
+     *
+     * @param input              input request used when invoking the agent
+     * @param status             final status for the test case
+     * @param output             output returned by the agent, if available
+     * @param expectationReports per-expectation evaluation results
+     * @param details            human-readable summary of the outcome
+     * @param durationMs         test-case execution duration in milliseconds
+     */
+    public TestCaseReport(Object input,
+                          EvalStatus status,
+                          Object output,
+                          List<ExpectationReport> expectationReports,
+                          String details,
+                          long durationMs) {
+        this(input, status, output, expectationReports, details, durationMs, null);
+    }
 }
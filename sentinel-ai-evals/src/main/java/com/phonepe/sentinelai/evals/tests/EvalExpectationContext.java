@@ -18,6 +18,8 @@ package com.phonepe.sentinelai.evals.tests;
 
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
 import com.phonepe.sentinelai.core.model.ModelUsageStats;
+import com.phonepe.sentinelai.evals.EvalBudget;
+import com.phonepe.sentinelai.evals.JudgeVerdictCache;
 
 import lombok.Value;
 
@@ -38,4 +40,37 @@ public class EvalExpectationContext<R> {
     List<AgentMessage> oldMessages;
     /** Model usage statistics associated with the run. */
     ModelUsageStats modelUsageStats;
+    /** Request and token budget shared with LLM judges, {@code null} if the run is not budgeted. */
+    EvalBudget budget;
+    /** Cache for LLM judge verdicts, {@code null} if verdicts are not cached. */
+    JudgeVerdictCache judgeCache;
+
+    public EvalExpectationContext(String runId,
+                                  R request,
+                                  List<AgentMessage> oldMessages,
+                                  ModelUsageStats modelUsageStats) {
+        this(runId, request, oldMessages, modelUsageStats, null);
+    }
+
+    public EvalExpectationContext(String runId,
+                                  R request,
+                                  List<AgentMessage> oldMessages,
+                                  ModelUsageStats modelUsageStats,
+                                  EvalBudget budget) {
+        this(runId, request, oldMessages, modelUsageStats, budget, null);
+    }
+
+    public EvalExpectationContext(String runId,
+                                  R request,
+                                  List<AgentMessage> oldMessages,
+                                  ModelUsageStats modelUsageStats,
+                                  EvalBudget budget,
+                                  JudgeVerdictCache judgeCache) {
+        this.runId = runId;
+        this.request = request;
+        this.oldMessages = oldMessages;
+        this.modelUsageStats = modelUsageStats;
+        this.budget = budget;
+        this.judgeCache = judgeCache;
+    }
 }
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.phonepe.sentinelai.core.agent.Agent;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -48,4 +49,14 @@ public interface ExpectationExecutorFactory {
                                                                       Expectation<R, T> expectation,
                                                                       ObjectMapper objectMapper,
                                                                       ExecutorService executorService);
+
+    /**
+     * Called by the eval engine with the sampled test cases before they are run, so that work shared across test
+     * cases can be done in bulk. Does nothing by default.
+     *
+     * @param testCases test cases that are going to be run
+     */
+    default void prepare(List<? extends TestCase<?, ?>> testCases) {
+        //Nothing to do by default
+    }
 }
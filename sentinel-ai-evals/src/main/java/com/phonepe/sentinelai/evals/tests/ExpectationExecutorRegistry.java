@@ -65,6 +65,7 @@ import java.util.concurrent.ExecutorService;
 public class ExpectationExecutorRegistry implements ExpectationExecutorFactory {
 
     private final Map<Class<?>, ExpectationExecutorFactory> registry = new ConcurrentHashMap<>();
+    private MetricExecutorFactory metricExecutorFactory;
 
 
     /**
@@ -102,6 +103,7 @@ public class ExpectationExecutorRegistry implements ExpectationExecutorFactory {
                                                                               mapper);
 
         final var registry = new ExpectationExecutorRegistry();
+        registry.metricExecutorFactory = metricsFactory;
 
         registry.registerExpectation(OutputEqualsExpectation.class, new ExpectationExecutorFactory() {
             @Override
@@ -206,6 +208,18 @@ public class ExpectationExecutorRegistry implements ExpectationExecutorFactory {
         return factory.create(agent, expectation, objectMapper, executorService);
     }
 
+    /**
+     * Lets the metric executor factory prepare for the metric expectations of the test cases.
+     *
+     * @param testCases test cases that are going to be run
+     */
+    @Override
+    public void prepare(List<? extends TestCase<?, ?>> testCases) {
+        if (null != metricExecutorFactory) {
+            metricExecutorFactory.prepare(testCases);
+        }
+    }
+
     /**
      * Registers an {@link ExpectationExecutorFactory} for a specific {@link Expectation} class.
      * Overwrites any previously registered factory for the same class.
@@ -35,6 +35,7 @@ import com.phonepe.sentinelai.core.model.ModelOutput;
 import com.phonepe.sentinelai.core.model.ModelRunContext;
 import com.phonepe.sentinelai.core.model.ModelUsageStats;
 import com.phonepe.sentinelai.core.model.OutputGenerationMode;
+import com.phonepe.sentinelai.evals.JudgeVerdictCache;
 import com.phonepe.sentinelai.evals.tests.EvalExpectationContext;
 
 import lombok.extern.slf4j.Slf4j;
@@ -67,20 +68,45 @@ public abstract class AbstractLlmJudgeMetricExecutor<M extends AbstractLlmJudgeM
     protected final M metric;
     protected final ObjectMapper objectMapper;
     private final Model evaluatorModel;
+    private final String judgeModelId;
     private final ExecutorService executorService;
 
     protected AbstractLlmJudgeMetricExecutor(M metric,
                                              Model evaluatorModel,
                                              ExecutorService executorService,
                                              ObjectMapper objectMapper) {
+        this(metric, evaluatorModel, null, executorService, objectMapper);
+    }
+
+    /**
+     * @param metric          metric definition
+     * @param evaluatorModel  model used as the judge
+     * @param judgeModelId    identifier of the judge model used to key cached verdicts. Verdicts are not cached when
+     *                        {@code null}, as they could not be told apart from those of other judge models.
+     * @param executorService executor used for judge model runtime
+     * @param objectMapper    mapper used to parse judge output
+     */
+    protected AbstractLlmJudgeMetricExecutor(M metric,
+                                             Model evaluatorModel,
+                                             String judgeModelId,
+                                             ExecutorService executorService,
+                                             ObjectMapper objectMapper) {
         this.metric = metric;
         this.evaluatorModel = evaluatorModel;
+        this.judgeModelId = judgeModelId;
         this.executorService = executorService;
         this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper cannot be null");
     }
 
+    private static boolean isSuccessful(ModelOutput output) {
+        return output != null && output.getError() != null
+                && output.getError().getErrorType() == ErrorType.SUCCESS;
+    }
+
     /**
-     * Calculates a score by rendering the judge prompt and invoking the evaluator model.
+     * Calculates a score by rendering the judge prompt and invoking the evaluator model. The call is paced by the
+     * budget of the eval run, if any. When the run caches judge verdicts and the judge model id is known, a verdict
+     * for an identical prompt is returned from the cache without calling the model.
      *
      * @param result  agent output being judged
      * @param context evaluation context containing the original request
@@ -96,9 +122,28 @@ public abstract class AbstractLlmJudgeMetricExecutor<M extends AbstractLlmJudgeM
             return 0.0;
         }
 
+        final var prompt = renderPrompt(requestText, result);
+        final var judgeCache = context.getJudgeCache();
+        if (null != judgeCache && null == judgeModelId) {
+            log.debug("Not caching verdict of metric {} as the judge model id is not known", metricName());
+        }
+        final var cacheKey = null == judgeCache || null == judgeModelId
+                ? null
+                : JudgeVerdictCache.key(metricName(), judgeModelId, DEFAULT_SYSTEM_INSTRUCTION, prompt);
+        if (null != cacheKey) {
+            final var cached = judgeCache.get(cacheKey);
+            if (cached.isPresent()) {
+                return cached.getAsDouble();
+            }
+        }
+        final var budget = context.getBudget();
+        final var usage = new ModelUsageStats();
         try {
+            if (null != budget) {
+                budget.acquire();
+            }
             final var modelOutput = evaluatorModel
-                    .compute(createModelRunContext(context),
+                    .compute(createModelRunContext(context, usage),
                              List.of(ModelOutputDefinition.builder()
                                      .name(Agent.OUTPUT_VARIABLE_NAME)
                                      .description("Strict JSON evaluator payload as text")
@@ -111,19 +156,32 @@ public abstract class AbstractLlmJudgeMetricExecutor<M extends AbstractLlmJudgeM
                                                       metricClassName()),
                                      new UserPrompt(DEFAULT_AGENT_SESSION,
                                                     context.getRunId(),
-                                                    renderPrompt(requestText, result),
+                                                    prompt,
                                                     LocalDateTime.now())),
                              Map.of(),
                              (tools, toolCall) -> null,
                              new NeverTerminateEarlyStrategy(),
                              List.of())
                     .join();
-            return parseScore(modelOutput);
+            final var score = parseScore(modelOutput);
+            if (null != cacheKey && isSuccessful(modelOutput)) {
+                judgeCache.put(cacheKey, metricName(), score);
+            }
+            return score;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model budget: " + metricName(), e);
         }
         catch (Exception e) {
             log.warn("Exception while calculating metric {}: {}", metricName(), e.getMessage());
             throw new IllegalStateException("Metric evaluation failed: " + metricName(), e);
         }
+        finally {
+            if (null != budget) {
+                budget.record(usage);
+            }
+        }
     }
 
     /**
@@ -160,8 +218,7 @@ public abstract class AbstractLlmJudgeMetricExecutor<M extends AbstractLlmJudgeM
     protected abstract double parseScore(ModelOutput output);
 
     protected final JsonNode readModelOutputPayload(ModelOutput output) {
-        if (output == null || output.getError() == null
-                || output.getError().getErrorType() != ErrorType.SUCCESS) {
+        if (!isSuccessful(output)) {
             return null;
         }
 
@@ -183,7 +240,7 @@ public abstract class AbstractLlmJudgeMetricExecutor<M extends AbstractLlmJudgeM
      */
     protected abstract String renderPrompt(String request, String answer);
 
-    private ModelRunContext createModelRunContext(EvalExpectationContext<T> context) {
+    private ModelRunContext createModelRunContext(EvalExpectationContext<T> context, ModelUsageStats usage) {
         final var runId = StringUtils.defaultIfBlank(context.getRunId(), "eval-run-" + UUID.randomUUID());
         return new ModelRunContext(metricClassName(),
                                    runId,
@@ -196,7 +253,7 @@ public abstract class AbstractLlmJudgeMetricExecutor<M extends AbstractLlmJudgeM
                                            .outputGenerationMode(OutputGenerationMode.STRUCTURED_OUTPUT)
                                            .executorService(executorService)
                                            .build(),
-                                   new ModelUsageStats(),
+                                   usage,
                                    ProcessingMode.DIRECT);
     }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals.tests.metrics;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import com.phonepe.sentinelai.embedding.EmbeddingModel;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EmbeddingModel} that caches unit length embeddings of a delegate model, so that similarity metrics can
+ * score with a single dot product and texts repeated across test cases are embedded once.
+ *
+ * <p>{@link #getEmbeddings(List)} embeds the texts that are not cached yet in batches of up to {@code batchSize}
+ * through {@link EmbeddingModel#getEmbeddings(List)} of the delegate. {@link MetricExecutorRegistry} uses this to
+ * embed the inputs and reference texts of all sampled test cases before a run. Vectors returned by this model are
+ * normalized, so they are not interchangeable with those of the delegate for anything other than cosine similarity.
+ */
+public class EmbeddingCache implements EmbeddingModel {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /**
+     * 64 MiB, which holds about 10,000 embeddings of 1536 dimensions
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final EmbeddingModel delegate;
+    private final int batchSize;
+    private final Cache<String, float[]> vectors;
+
+    /**
+     * Creates a cache with the default batch size and capacity.
+     *
+     * @param delegate model used to embed texts that are not cached
+     */
+    public EmbeddingCache(EmbeddingModel delegate) {
+        this(delegate, DEFAULT_BATCH_SIZE, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param delegate  model used to embed texts that are not cached
+     * @param batchSize maximum number of texts sent to the delegate in one call
+     * @param maxBytes  approximate heap used by cached texts and embeddings, beyond which embeddings are evicted
+     */
+    public EmbeddingCache(@NonNull EmbeddingModel delegate, int batchSize, long maxBytes) {
+        Preconditions.checkArgument(batchSize > 0, "batchSize must be positive");
+        Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive");
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.vectors = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String text, float[] vector) -> text.length() * Character.BYTES
+                        + vector.length * Float.BYTES)
+                .build();
+    }
+
+    /**
+     * Wraps a model in a cache, unless it already is one.
+     *
+     * @param model model to wrap
+     * @return cache backed by the model
+     */
+    public static EmbeddingCache of(EmbeddingModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException("embeddingModel cannot be null");
+        }
+        return model instanceof EmbeddingCache cache ? cache : new EmbeddingCache(model);
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * Returns the cached unit length embedding of the input, embedding it through the delegate on a miss.
+     *
+     * @param input text to embed
+     * @return normalized embedding
+     * @throws IllegalArgumentException if the delegate returns no embedding
+     */
+    @Override
+    public float[] getEmbedding(String input) {
+        final var cached = vectors.getIfPresent(input);
+        if (null != cached) {
+            return cached;
+        }
+        final var normalized = SimilarityUtils.normalize(delegate.getEmbedding(input));
+        vectors.put(input, normalized);
+        return normalized;
+    }
+
+    /**
+     * Returns unit length embeddings of the inputs. Inputs that are not cached are deduplicated and embedded in
+     * batches.
+     *
+     * @param inputs texts to embed
+     * @return normalized embeddings, in the same order as the inputs
+     * @throws IllegalArgumentException if the delegate returns no embedding for an input
+     */
+    @Override
+    public List<float[]> getEmbeddings(List<String> inputs) {
+        final var resolved = new HashMap<String, float[]>();
+        final var missing = new LinkedHashSet<String>();
+        for (final var input : inputs) {
+            final var cached = vectors.getIfPresent(input);
+            if (null != cached) {
+                resolved.put(input, cached);
+            }
+            else {
+                missing.add(input);
+            }
+        }
+        for (final var batch : Lists.partition(new ArrayList<>(missing), batchSize)) {
+            embedBatch(batch, resolved);
+        }
+        return inputs.stream()
+                .map(resolved::get)
+                .toList();
+    }
+
+    /**
+     * Embeds the texts that are not cached yet, in batches.
+     *
+     * @param inputs texts that are going to be scored, may contain duplicates
+     */
+    public void prefetch(Collection<String> inputs) {
+        getEmbeddings(List.copyOf(new LinkedHashSet<>(inputs)));
+    }
+
+    /**
+     * @return Number of cached embeddings
+     */
+    public long size() {
+        return vectors.size();
+    }
+
+    private void embedBatch(List<String> batch, Map<String, float[]> resolved) {
+        final var embeddings = delegate.getEmbeddings(batch);
+        Preconditions.checkArgument(null != embeddings && embeddings.size() == batch.size(),
+                                    "Embedding model returned %s embeddings for %s inputs",
+                                    null == embeddings ? 0 : embeddings.size(),
+                                    batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            final var normalized = SimilarityUtils.normalize(embeddings.get(i));
+            vectors.put(batch.get(i), normalized);
+            resolved.put(batch.get(i), normalized);
+        }
+    }
+}
@@ -18,6 +18,9 @@ package com.phonepe.sentinelai.evals.tests.metrics;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.phonepe.sentinelai.evals.tests.TestCase;
+
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -42,4 +45,14 @@ public interface MetricExecutorFactory {
     <R, T> MetricExecutor<R, T> create(Metric<R, T> metric,
                                        ObjectMapper objectMapper,
                                        ExecutorService executorService);
+
+    /**
+     * Called with the sampled test cases before a run, so that work shared across test cases, such as embedding
+     * reference texts, can be done in bulk. Does nothing by default.
+     *
+     * @param testCases test cases that are going to be run
+     */
+    default void prepare(List<? extends TestCase<?, ?>> testCases) {
+        //Nothing to do by default
+    }
 }
@@ -17,10 +17,12 @@
 package com.phonepe.sentinelai.evals.tests.metrics;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
 
 import com.phonepe.sentinelai.core.model.Model;
 import com.phonepe.sentinelai.core.utils.JsonUtils;
 import com.phonepe.sentinelai.embedding.EmbeddingModel;
+import com.phonepe.sentinelai.evals.tests.TestCase;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -56,6 +58,7 @@ import java.util.concurrent.ExecutorService;
 public class MetricExecutorRegistry implements MetricExecutorFactory {
 
     private final Map<Class<?>, MetricExecutorFactory> registry = new ConcurrentHashMap<>();
+    private EmbeddingCache embeddingCache;
 
     /**
      * Creates a registry pre-loaded with all built-in metric executors.
@@ -85,7 +88,25 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
     public static MetricExecutorRegistry withDefaults(EmbeddingModel embeddingModel,
                                                       Model answerRelevanceModel,
                                                       ObjectMapper objectMapper) {
-        return buildRegistry(embeddingModel, answerRelevanceModel, objectMapper);
+        return withDefaults(embeddingModel, answerRelevanceModel, null, objectMapper);
+    }
+
+    /**
+     * Creates a registry pre-loaded with all built-in metric executors.
+     *
+     * @param embeddingModel         {@link EmbeddingModel} for embedding-based metrics;
+     *                               {@code null} skips registering embedding-based metrics
+     * @param answerRelevanceModel   judge {@link Model} for answer relevance scoring;
+     *                               {@code null} skips registering LLM-judge metrics
+     * @param answerRelevanceModelId identifier of the judge model, used to key cached judge verdicts;
+     *                               {@code null} disables caching of judge verdicts
+     * @param objectMapper           mapper used by JSON-dependent metric executors
+     */
+    public static MetricExecutorRegistry withDefaults(EmbeddingModel embeddingModel,
+                                                      Model answerRelevanceModel,
+                                                      String answerRelevanceModelId,
+                                                      ObjectMapper objectMapper) {
+        return buildRegistry(embeddingModel, answerRelevanceModel, answerRelevanceModelId, objectMapper);
     }
 
     /**
@@ -140,17 +161,23 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
         final Model answerRelevanceModel = llmIdentifier != null
                 ? effectiveLlmFactory.create(llmIdentifier) : null;
 
-        return buildRegistry(embeddingModel, answerRelevanceModel, objectMapper);
+        return buildRegistry(embeddingModel,
+                             answerRelevanceModel,
+                             llmIdentifier != null ? llmIdentifier.modelId() : null,
+                             objectMapper);
     }
 
     private static MetricExecutorRegistry buildRegistry(EmbeddingModel embeddingModel,
                                                         Model answerRelevanceModel,
+                                                        String answerRelevanceModelId,
                                                         ObjectMapper objectMapper) {
         Objects.requireNonNull(objectMapper, "objectMapper cannot be null");
         final var registry = new MetricExecutorRegistry();
         final List<String> skippedMetrics = new ArrayList<>();
 
         if (embeddingModel != null) {
+            final var embeddings = EmbeddingCache.of(embeddingModel);
+            registry.embeddingCache = embeddings;
             registry.registerMetric(OutputSimilarityMetric.class, new MetricExecutorFactory() {
                 @Override
                 @SuppressWarnings("unchecked")
@@ -158,7 +185,7 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
                                                           ObjectMapper objectMapper,
                                                           ExecutorService executorService) {
                     final var typedMetric = (OutputSimilarityMetric<T>) metric;
-                    return (MetricExecutor<R, T>) new OutputSimilarityMetricExecutor<>(typedMetric, embeddingModel);
+                    return (MetricExecutor<R, T>) new OutputSimilarityMetricExecutor<>(typedMetric, embeddings);
                 }
             });
 
@@ -170,7 +197,7 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
                                                           ExecutorService executorService) {
                     final var typedMetric = (OutputRelevanceBySimilarityMetric<T>) metric;
                     return (MetricExecutor<R, T>) new OutputRelevanceBySimilarityMetricExecutor<>(typedMetric,
-                                                                                                  embeddingModel);
+                                                                                                  embeddings);
                 }
             });
         }
@@ -180,6 +207,10 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
         }
 
         if (answerRelevanceModel != null) {
+            if (null == answerRelevanceModelId) {
+                log.info("Judge model id not provided. Verdicts of {} will not be cached.",
+                         OutputRelevanceMetric.class.getSimpleName());
+            }
             registry.registerMetric(OutputRelevanceMetric.class, new MetricExecutorFactory() {
                 @Override
                 @SuppressWarnings("unchecked")
@@ -189,6 +220,7 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
                     final var typedMetric = (OutputRelevanceMetric<T>) metric;
                     return (MetricExecutor<R, T>) new OutputRelevanceMetricExecutor<>(typedMetric,
                                                                                       answerRelevanceModel,
+                                                                                      answerRelevanceModelId,
                                                                                       objectMapper,
                                                                                       executorService);
                 }
@@ -228,6 +260,40 @@ public class MetricExecutorRegistry implements MetricExecutorFactory {
         return factory.create(metric, objectMapper, executorService);
     }
 
+    /**
+     * Embeds the inputs and reference texts of all embedding-based metric expectations of the test cases in
+     * batches, so that they are not embedded one by one while the test cases run. Repeated texts are embedded once.
+     *
+     * @param testCases test cases that are going to be run
+     */
+    @Override
+    public void prepare(List<? extends TestCase<?, ?>> testCases) {
+        if (null == embeddingCache) {
+            return;
+        }
+        final var texts = new ArrayList<String>();
+        for (final var testCase : testCases) {
+            for (final var expectation : testCase.getExpectations()) {
+                if (expectation instanceof MetricExpectation<?, ?> metricExpectation) {
+                    final var metric = metricExpectation.getMetric();
+                    if (metric instanceof OutputSimilarityMetric<?> similarityMetric) {
+                        texts.add(similarityMetric.getReferenceText());
+                    }
+                    else if (metric instanceof OutputRelevanceBySimilarityMetric<?>
+                            && null != testCase.getInput()) {
+                        texts.add(String.valueOf(testCase.getInput()));
+                    }
+                }
+            }
+        }
+        texts.removeIf(String::isEmpty);
+        if (!texts.isEmpty()) {
+            final var stopwatch = Stopwatch.createStarted();
+            embeddingCache.prefetch(texts);
+            log.debug("Embedded {} texts for {} test cases in {}", texts.size(), testCases.size(), stopwatch);
+        }
+    }
+
     /**
      * Registers a {@link MetricExecutorFactory} for a specific {@link Metric} class.
      * Overwrites any previously registered factory for the same class.
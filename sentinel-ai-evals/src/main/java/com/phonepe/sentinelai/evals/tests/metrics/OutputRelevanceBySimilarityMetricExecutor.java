@@ -28,21 +28,19 @@ import com.phonepe.sentinelai.evals.tests.EvalExpectationContext;
 public class OutputRelevanceBySimilarityMetricExecutor<T> implements MetricExecutor<String, T> {
 
     private final OutputRelevanceBySimilarityMetric<T> metric;
-    private final EmbeddingModel embeddingModel;
+    private final EmbeddingCache embeddings;
 
     /**
      * Creates an executor for similarity-based relevance scoring.
      *
      * @param metric         metric definition to evaluate
-     * @param embeddingModel embedding model used to vectorize output and request text
+     * @param embeddingModel embedding model used to vectorize output and request text. An {@link EmbeddingCache} is used as is, so
+     *                       that embeddings are shared with other executors, other models are wrapped in a new one
      */
     public OutputRelevanceBySimilarityMetricExecutor(OutputRelevanceBySimilarityMetric<T> metric,
                                                      EmbeddingModel embeddingModel) {
-        if (embeddingModel == null) {
-            throw new IllegalArgumentException("embeddingModel cannot be null");
-        }
         this.metric = metric;
-        this.embeddingModel = embeddingModel;
+        this.embeddings = EmbeddingCache.of(embeddingModel);
     }
 
     /**
@@ -62,9 +60,9 @@ public class OutputRelevanceBySimilarityMetricExecutor<T> implements MetricExecu
             return 0.0;
         }
 
-        final float[] outputEmbedding = embeddingModel.getEmbedding(result);
-        final float[] inputEmbedding = embeddingModel.getEmbedding(inputText);
-        return SimilarityUtils.cosineSimilarity(outputEmbedding, inputEmbedding);
+        final float[] outputEmbedding = embeddings.getEmbedding(result);
+        final float[] inputEmbedding = embeddings.getEmbedding(inputText);
+        return SimilarityUtils.normalizedSimilarity(outputEmbedding, inputEmbedding);
     }
 
     /**
@@ -34,19 +34,37 @@ public class OutputRelevanceMetricExecutor<T>
         extends
         AbstractLlmJudgeMetricExecutor<OutputRelevanceMetric<T>, T> {
 
+    /**
+     * Creates an executor for LLM-judged answer relevance. Verdicts of this executor are not cached, as the judge
+     * model is not identified.
+     *
+     * @param metric          metric definition containing prompt configuration
+     * @param evaluatorModel  model used as the judge
+     * @param objectMapper    mapper used to parse judge output
+     * @param executorService executor used for judge model runtime
+     */
+    public OutputRelevanceMetricExecutor(OutputRelevanceMetric<T> metric,
+                                         com.phonepe.sentinelai.core.model.Model evaluatorModel,
+                                         ObjectMapper objectMapper,
+                                         ExecutorService executorService) {
+        this(metric, evaluatorModel, null, objectMapper, executorService);
+    }
+
     /**
      * Creates an executor for LLM-judged answer relevance.
      *
      * @param metric          metric definition containing prompt configuration
      * @param evaluatorModel  model used as the judge
+     * @param judgeModelId    identifier of the judge model, used to key cached verdicts; {@code null} disables caching
      * @param objectMapper    mapper used to parse judge output
      * @param executorService executor used for judge model runtime
      */
     public OutputRelevanceMetricExecutor(OutputRelevanceMetric<T> metric,
                                          com.phonepe.sentinelai.core.model.Model evaluatorModel,
+                                         String judgeModelId,
                                          ObjectMapper objectMapper,
                                          ExecutorService executorService) {
-        super(metric, evaluatorModel, executorService, objectMapper);
+        super(metric, evaluatorModel, judgeModelId, executorService, objectMapper);
     }
 
     @Override
@@ -28,21 +28,19 @@ import com.phonepe.sentinelai.evals.tests.EvalExpectationContext;
 public class OutputSimilarityMetricExecutor<T> implements MetricExecutor<String, T> {
 
     private final OutputSimilarityMetric<T> metric;
-    private final EmbeddingModel embeddingModel;
+    private final EmbeddingCache embeddings;
 
     /**
      * Creates an executor for output-similarity scoring.
      *
      * @param metric         metric definition to evaluate
-     * @param embeddingModel embedding model used to vectorize output and reference text
+     * @param embeddingModel embedding model used to vectorize output and reference text. An {@link EmbeddingCache} is used as is, so
+     *                       that embeddings are shared with other executors, other models are wrapped in a new one
      */
     public OutputSimilarityMetricExecutor(OutputSimilarityMetric<T> metric,
                                           EmbeddingModel embeddingModel) {
-        if (embeddingModel == null) {
-            throw new IllegalArgumentException("embeddingModel cannot be null");
-        }
         this.metric = metric;
-        this.embeddingModel = embeddingModel;
+        this.embeddings = EmbeddingCache.of(embeddingModel);
     }
 
     /**
@@ -58,10 +56,10 @@ public class OutputSimilarityMetricExecutor<T> implements MetricExecutor<String,
             return 0.0;
         }
 
-        final float[] outputEmbedding = embeddingModel.getEmbedding(result);
-        final float[] referenceEmbedding = embeddingModel.getEmbedding(metric.getReferenceText());
+        final float[] outputEmbedding = embeddings.getEmbedding(result);
+        final float[] referenceEmbedding = embeddings.getEmbedding(metric.getReferenceText());
 
-        return SimilarityUtils.cosineSimilarity(outputEmbedding, referenceEmbedding);
+        return SimilarityUtils.normalizedSimilarity(outputEmbedding, referenceEmbedding);
     }
 
     /**
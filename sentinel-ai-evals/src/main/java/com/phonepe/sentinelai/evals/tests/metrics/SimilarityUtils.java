@@ -45,6 +45,44 @@ final class SimilarityUtils {
         return Math.max(0.0, Math.min(1.0, similarity));
     }
 
+    /**
+     * Scales a vector to unit length, so that the cosine similarity of two such vectors is their dot product.
+     * Zero vectors are returned as is.
+     *
+     * @param vector vector to normalize, not modified
+     * @return normalized copy of the vector
+     */
+    static float[] normalize(float[] vector) {
+        if (vector == null) {
+            throw new IllegalArgumentException("Input vector cannot be null");
+        }
+        var magnitude = 0.0;
+        for (var v : vector) {
+            magnitude += v * v;
+        }
+        magnitude = Math.sqrt(magnitude);
+        final var normalized = new float[vector.length];
+        if (magnitude == 0.0) {
+            return normalized;
+        }
+        for (var i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / magnitude);
+        }
+        return normalized;
+    }
+
+    /**
+     * Cosine similarity of two vectors returned by {@link #normalize(float[])}, clamped to {@code [0, 1]}.
+     *
+     * @param lhs normalized vector
+     * @param rhs normalized vector
+     * @return similarity score
+     */
+    static double normalizedSimilarity(float[] lhs, float[] rhs) {
+        final var similarity = getDotProduct(lhs, rhs);
+        return Math.max(0.0, Math.min(1.0, similarity));
+    }
+
     private static double getDotProduct(float[] lhs, float[] rhs) {
         if (lhs == null || rhs == null) {
             throw new IllegalArgumentException(
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link EvalBudget}
+ */
+class EvalBudgetTest {
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Test
+    void testBudgetIsCreatedOnlyWhenLimited() {
+        assertNull(EvalBudget.from(EvalRunConfig.defaults()));
+        assertNotNull(EvalBudget.from(EvalRunConfig.defaults().withRequestsPerSecond(5)));
+        assertNotNull(EvalBudget.from(EvalRunConfig.defaults().withTokensPerMinute(1_000)));
+        assertThrows(IllegalArgumentException.class, () -> EvalRunConfig.defaults().withRequestsPerSecond(-1));
+    }
+
+    @Test
+    void testExtraRequestsOfARunAreDebited() throws InterruptedException {
+        final var budget = new EvalBudget(10, 0);
+        budget.acquire();
+        // The agent made 11 model calls in this run, which leaves the bucket in deficit
+        budget.record(new ModelUsageStats().incrementRequestsForRun(11));
+
+        final var start = System.nanoTime();
+        budget.acquire();
+        final var elapsed = elapsedMs(start);
+        assertTrue(elapsed >= 150, "Waited only " + elapsed + " ms");
+        assertEquals(12, budget.stats().getRequests());
+        assertEquals(1, budget.stats().getThrottledRequests());
+    }
+
+    @Test
+    void testRequestsArePaced() throws InterruptedException {
+        final var budget = new EvalBudget(20, 0);
+        final var start = System.nanoTime();
+        for (int i = 0; i < 30; i++) {
+            budget.acquire();
+        }
+        final var elapsed = elapsedMs(start);
+
+        // A second worth of requests goes through immediately, the rest are paced at 20 per second
+        assertTrue(elapsed >= 450, "Took only " + elapsed + " ms");
+        assertTrue(elapsed < 2_000, "Took " + elapsed + " ms");
+        final var stats = budget.stats();
+        assertEquals(30, stats.getRequests());
+        assertTrue(stats.getThrottledRequests() >= 9);
+        assertTrue(stats.getTotalWaitMs() >= stats.getMaxWaitMs());
+    }
+
+    @Test
+    void testTokenDeficitPacesNextRequest() throws InterruptedException {
+        // 100 tokens per second
+        final var budget = new EvalBudget(0, 6_000);
+        budget.acquire();
+        budget.record(new ModelUsageStats().incrementTotalTokens(6_100));
+
+        final var start = System.nanoTime();
+        budget.acquire();
+        final var elapsed = elapsedMs(start);
+        assertTrue(elapsed >= 900, "Waited only " + elapsed + " ms");
+        assertTrue(elapsed < 3_000, "Waited " + elapsed + " ms");
+        final var stats = budget.stats();
+        assertEquals(2, stats.getRequests());
+        assertEquals(6_100, stats.getTokens());
+        assertEquals(1, stats.getThrottledRequests());
+    }
+}
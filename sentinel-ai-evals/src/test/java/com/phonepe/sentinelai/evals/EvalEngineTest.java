@@ -21,11 +21,14 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.phonepe.sentinelai.core.agent.Agent;
 import com.phonepe.sentinelai.core.agent.ModelOutputDefinition;
+import com.phonepe.sentinelai.core.agent.StreamConsumer;
 import com.phonepe.sentinelai.core.agent.ToolRunner;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
+import com.phonepe.sentinelai.core.agentmessages.requests.UserPrompt;
 import com.phonepe.sentinelai.core.agentmessages.responses.Text;
 import com.phonepe.sentinelai.core.agentmessages.responses.ToolCall;
 import com.phonepe.sentinelai.core.earlytermination.EarlyTerminationStrategy;
@@ -35,10 +38,13 @@ import com.phonepe.sentinelai.core.model.ModelOutput;
 import com.phonepe.sentinelai.core.model.ModelRunContext;
 import com.phonepe.sentinelai.core.model.ModelUsageStats;
 import com.phonepe.sentinelai.core.tools.ExecutableTool;
+import com.phonepe.sentinelai.embedding.EmbeddingModel;
 import com.phonepe.sentinelai.evals.tests.Dataset;
 import com.phonepe.sentinelai.evals.tests.ExpectationExecutorRegistry;
 import com.phonepe.sentinelai.evals.tests.Expectations;
+import com.phonepe.sentinelai.evals.tests.Metrics;
 import com.phonepe.sentinelai.evals.tests.TestCase;
+import com.phonepe.sentinelai.evals.junit.assertions.EvalReportAssertions;
 import com.phonepe.sentinelai.evals.tests.TestFactory;
 import com.phonepe.sentinelai.evals.tests.expectations.ToolCalledExpectation;
 import com.phonepe.sentinelai.evals.tests.metrics.Metric;
@@ -49,6 +55,8 @@ import com.phonepe.sentinelai.evals.tests.metrics.MetricExpectation;
 
 import lombok.val;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -57,13 +65,97 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class EvalEngineTest {
+    private static final Pattern CASE_ID = Pattern.compile("case-\\d+");
+    private static final long FIRST_TOKEN_DELAY_MS = 20;
+
+    /**
+     * Echoes the prompt back after a per-prompt delay and tracks how many calls are in flight
+     */
+    static class DelayedEchoModel implements Model {
+        private final ToLongFunction<String> delayMs;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        DelayedEchoModel(ToLongFunction<String> delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public CompletableFuture<ModelOutput> compute(ModelRunContext context,
+                                                      Collection<ModelOutputDefinition> outputDefinitions,
+                                                      List<AgentMessage> oldMessages,
+                                                      Map<String, ExecutableTool> tools,
+                                                      ToolRunner toolRunner,
+                                                      EarlyTerminationStrategy earlyTerminationStrategy,
+                                                      List<AgentMessagesPreProcessor> agentMessagesPreProcessors) {
+            final var prompt = oldMessages.stream()
+                    .filter(UserPrompt.class::isInstance)
+                    .map(UserPrompt.class::cast)
+                    .reduce((first, second) -> second)
+                    .map(UserPrompt::getContent)
+                    .map(CASE_ID::matcher)
+                    .filter(Matcher::find)
+                    .map(Matcher::group)
+                    .orElse("");
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            final var executor = CompletableFuture.delayedExecutor(delayMs.applyAsLong(prompt), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                final var data = JsonNodeFactory.instance.objectNode();
+                data.put(Agent.OUTPUT_VARIABLE_NAME, "echo:" + prompt);
+                final var newMessages = List.<AgentMessage>of(new Text(context.getSessionId(),
+                                                                       context.getRunId(),
+                                                                       prompt,
+                                                                       new ModelUsageStats(),
+                                                                       0));
+                final var allMessages = new ArrayList<>(oldMessages);
+                allMessages.addAll(newMessages);
+                return ModelOutput.success(data,
+                                           newMessages,
+                                           allMessages,
+                                           new ModelUsageStats()
+                                                   .incrementRequestsForRun()
+                                                   .incrementTotalTokens(100));
+            }, executor);
+        }
+
+        @Override
+        public CompletableFuture<ModelOutput> stream(ModelRunContext context,
+                                                     Collection<ModelOutputDefinition> outputDefinitions,
+                                                     List<AgentMessage> oldMessages,
+                                                     Map<String, ExecutableTool> tools,
+                                                     ToolRunner toolRunner,
+                                                     EarlyTerminationStrategy earlyTerminationStrategy,
+                                                     StreamConsumer streamHandler,
+                                                     List<AgentMessagesPreProcessor> agentMessagesPreProcessors) {
+            final var firstToken = CompletableFuture.delayedExecutor(FIRST_TOKEN_DELAY_MS, TimeUnit.MILLISECONDS);
+            return CompletableFuture.runAsync(() -> streamHandler.consumeContent("echo:"), firstToken)
+                    .thenCompose(ignored -> compute(context,
+                                                    outputDefinitions,
+                                                    oldMessages,
+                                                    tools,
+                                                    toolRunner,
+                                                    earlyTerminationStrategy,
+                                                    agentMessagesPreProcessors));
+        }
+    }
 
     static class OrderedToolCallModel implements Model {
         private final List<String> encodedToolOrder;
@@ -122,6 +214,60 @@ class EvalEngineTest {
         return new EvalEngine(mapper, expectationExecutorFactory);
     }
 
+    private static Model budgetedJudgeModel() {
+        return (context,
+                outputDefinitions,
+                oldMessages,
+                tools,
+                toolRunner,
+                earlyTerminationStrategy,
+                agentMessagesPreProcessors) -> {
+            context.getModelUsageStats().incrementRequestsForRun().incrementTotalTokens(50);
+            final var data = JsonNodeFactory.instance.objectNode();
+            data.put(Agent.OUTPUT_VARIABLE_NAME, "{\"score\":1.0,\"reason\":\"mock\"}");
+            return CompletableFuture.completedFuture(ModelOutput.success(data,
+                                                                         List.of(),
+                                                                         oldMessages,
+                                                                         context.getModelUsageStats()));
+        };
+    }
+
+    private static Model countingJudgeModel(AtomicInteger calls, double score) {
+        return (context,
+                outputDefinitions,
+                oldMessages,
+                tools,
+                toolRunner,
+                earlyTerminationStrategy,
+                agentMessagesPreProcessors) -> {
+            calls.incrementAndGet();
+            final var data = JsonNodeFactory.instance.objectNode();
+            data.put(Agent.OUTPUT_VARIABLE_NAME, "{\"score\":" + score + ",\"reason\":\"relevant\"}");
+            return CompletableFuture.completedFuture(ModelOutput.success(data,
+                                                                         List.of(),
+                                                                         oldMessages,
+                                                                         new ModelUsageStats()));
+        };
+    }
+
+    private static int caseIndex(String input) {
+        return Integer.parseInt(input.substring(input.lastIndexOf('-') + 1));
+    }
+
+    private static Dataset<String, String> echoDataset(int count, int failingCase) {
+        final var tests = new ArrayList<TestCase<String, String>>();
+        for (int i = 0; i < count; i++) {
+            final var input = "case-" + i;
+            final var expected = i == failingCase ? "missing" : "echo:" + input;
+            tests.add(new TestCase<>(input, List.of(Expectations.outputEquals(expected))));
+        }
+        return new Dataset<>("echo-dataset", tests);
+    }
+
+    private static List<Object> inputs(EvalReport report) {
+        return report.getTestCaseReports().stream().map(TestCaseReport::getInput).toList();
+    }
+
     private static Model mockJudgeModel() {
         return (context,
                 outputDefinitions,
@@ -140,6 +286,84 @@ class EvalEngineTest {
         };
     }
 
+    @Test
+    void testBudgetIsSharedWithJudges() {
+        final var mapper = TestFactory.mapper();
+        final var metricExecutorFactory = MetricExecutorRegistry.withDefaults(null, budgetedJudgeModel(), mapper);
+        final var engine = new EvalEngine(mapper,
+                                          ExpectationExecutorRegistry.withDefaults(metricExecutorFactory, mapper));
+        final var tests = new ArrayList<TestCase<String, String>>();
+        for (int i = 0; i < 10; i++) {
+            tests.add(new TestCase<>("case-" + i, List.of(Expectations.answerRelevance(0.5))));
+        }
+        final var model = new DelayedEchoModel(input -> 0);
+
+        final var report = engine.run(new Dataset<>("budget-dataset", tests),
+                                      TestFactory.testAgent(model),
+                                      EvalRunConfig.defaults()
+                                              .withParallelism(4)
+                                              .withRequestsPerSecond(10));
+
+        // 10 agent runs and 10 judge calls at 10 requests per second, after an initial burst of 10
+        final var stats = report.getBudgetStats();
+        assertEquals(10, report.getPassedTestCases());
+        assertEquals(20, stats.getRequests());
+        assertEquals(10 * 100 + 10 * 50, stats.getTokens());
+        assertTrue(stats.getThrottledRequests() > 0);
+        assertTrue(report.getDurationMs() >= 900, "Took only " + report.getDurationMs() + " ms");
+        assertNull(engineWithMockJudgeModel().run(new Dataset<>("unbudgeted", tests.subList(0, 1)),
+                                                  TestFactory.testAgent(model))
+                .getBudgetStats());
+    }
+
+    @Test
+    void testEmbeddingsArePreparedInBatchesBeforeRunning() {
+        final var batches = new ArrayList<List<String>>();
+        final var singleCalls = new AtomicInteger();
+        final var embeddingModel = new EmbeddingModel() {
+            @Override
+            public void close() {
+                // no-op
+            }
+
+            @Override
+            public int dimensions() {
+                return 2;
+            }
+
+            @Override
+            public float[] getEmbedding(String input) {
+                singleCalls.incrementAndGet();
+                return new float[]{1f, 1f};
+            }
+
+            @Override
+            public List<float[]> getEmbeddings(List<String> inputs) {
+                batches.add(inputs);
+                return inputs.stream().map(input -> new float[]{1f, 0f}).toList();
+            }
+        };
+        final var mapper = TestFactory.mapper();
+        final var metricExecutorFactory = MetricExecutorRegistry.withDefaults(embeddingModel, null, mapper);
+        final var engine = new EvalEngine(mapper,
+                                          ExpectationExecutorRegistry.withDefaults(metricExecutorFactory, mapper));
+        final var tests = new ArrayList<TestCase<String, String>>();
+        for (int i = 0; i < 30; i++) {
+            tests.add(new TestCase<>("case-" + i % 10,
+                                     List.of(Expectations.outputSimilarity("reference"),
+                                             new MetricExpectation<>(Metrics.outputRelevanceBySimilarity(), 0.5))));
+        }
+
+        final var report = engine.run(new Dataset<>("similarity-dataset", tests),
+                                      TestFactory.testAgent(new DelayedEchoModel(input -> 0)));
+        assertEquals(30, report.getPassedTestCases());
+        assertEquals(1, batches.size());
+        assertEquals(11, batches.get(0).size());
+        assertTrue(batches.get(0).contains("reference"));
+        // Only the distinct outputs are embedded while running
+        assertEquals(10, singleCalls.get());
+    }
+
     @Test
     void testFailFast() {
         EvalEngine engine = engineWithMockJudgeModel();
@@ -158,6 +382,99 @@ class EvalEngineTest {
         assertFalse(report.isCompletedAllSampledCases());
     }
 
+    @Test
+    void testJudgeVerdictsAreCachedAcrossRuns(@TempDir Path cacheDir) {
+        final var judgeCalls = new AtomicInteger();
+        final var mapper = TestFactory.mapper();
+        final var metricExecutorFactory = MetricExecutorRegistry.withDefaults(null,
+                                                                              countingJudgeModel(judgeCalls, 0.9),
+                                                                              "judge",
+                                                                              mapper);
+        final var engine = new EvalEngine(mapper,
+                                          ExpectationExecutorRegistry.withDefaults(metricExecutorFactory, mapper));
+        final var tests = new ArrayList<TestCase<String, String>>();
+        for (int i = 0; i < 25; i++) {
+            tests.add(new TestCase<>("case-" + i, List.of(Expectations.answerRelevance(0.5))));
+        }
+        final var dataset = new Dataset<>("cached-dataset", tests);
+        final var config = EvalRunConfig.defaults().withJudgeCacheDirectory(cacheDir);
+
+        final var first = engine.run(dataset, TestFactory.testAgent(new DelayedEchoModel(input -> 0)), config);
+        assertEquals(25, first.getPassedTestCases());
+        assertEquals(25, judgeCalls.get());
+        assertEquals(0, first.getJudgeCacheStats().getHits());
+        assertEquals(25, first.getJudgeCacheStats().getStored());
+
+        // Unchanged cases are served from the cache, even by a new engine
+        final var second = engine.run(dataset, TestFactory.testAgent(new DelayedEchoModel(input -> 0)), config);
+        assertEquals(25, second.getPassedTestCases());
+        assertEquals(25, judgeCalls.get());
+        assertEquals(25, second.getJudgeCacheStats().getHits());
+        assertEquals(0, second.getJudgeCacheStats().getMisses());
+        assertEquals(first.getMetricScores(), second.getMetricScores());
+
+        // A changed output is judged again
+        final var changed = engine.run(dataset, TestFactory.testAgent("changed"), config);
+        assertEquals(50, judgeCalls.get());
+        assertEquals(25, changed.getJudgeCacheStats().getMisses());
+        assertEquals(50, changed.getJudgeCacheStats().getEntries());
+
+        final var invalidated = engine.run(dataset,
+                                           TestFactory.testAgent(new DelayedEchoModel(input -> 0)),
+                                           config.withInvalidateJudgeCache(true));
+        assertEquals(75, judgeCalls.get());
+        assertEquals(0, invalidated.getJudgeCacheStats().getHits());
+        assertEquals(25, invalidated.getJudgeCacheStats().getEntries());
+        assertNull(engine.run(dataset, TestFactory.testAgent("ok")).getJudgeCacheStats());
+    }
+
+    @Test
+    void testJudgeVerdictsAreKeyedOnJudgeModel(@TempDir Path cacheDir) {
+        final var mapper = TestFactory.mapper();
+        final var tests = new ArrayList<TestCase<String, String>>();
+        for (int i = 0; i < 25; i++) {
+            tests.add(new TestCase<>("case-" + i, List.of(Expectations.answerRelevance(0.5))));
+        }
+        final var dataset = new Dataset<>("shared-cache-dataset", tests);
+        final var config = EvalRunConfig.defaults().withJudgeCacheDirectory(cacheDir);
+
+        final var firstJudgeCalls = new AtomicInteger();
+        final var firstJudge = MetricExecutorRegistry.withDefaults(null,
+                                                                   countingJudgeModel(firstJudgeCalls, 0.9),
+                                                                   "first-judge",
+                                                                   mapper);
+        final var first = new EvalEngine(mapper, ExpectationExecutorRegistry.withDefaults(firstJudge, mapper))
+                .run(dataset, TestFactory.testAgent("ok"), config);
+        assertEquals(25, firstJudgeCalls.get());
+        assertEquals(25, first.getPassedTestCases());
+
+        // Another judge sharing the cache directory does not get the verdicts of the first one
+        final var secondJudgeCalls = new AtomicInteger();
+        final var secondJudge = MetricExecutorRegistry.withDefaults(null,
+                                                                    countingJudgeModel(secondJudgeCalls, 0.1),
+                                                                    "second-judge",
+                                                                    mapper);
+        final var second = new EvalEngine(mapper, ExpectationExecutorRegistry.withDefaults(secondJudge, mapper))
+                .run(dataset, TestFactory.testAgent("ok"), config);
+        assertEquals(25, secondJudgeCalls.get());
+        assertEquals(0, second.getJudgeCacheStats().getHits());
+        assertEquals(0, second.getPassedTestCases());
+        assertEquals(50, second.getJudgeCacheStats().getEntries());
+
+        // A judge without an id is neither served from nor stored in the cache
+        final var anonymousJudgeCalls = new AtomicInteger();
+        final var anonymousJudge = MetricExecutorRegistry.withDefaults(null,
+                                                                       countingJudgeModel(anonymousJudgeCalls, 0.1),
+                                                                       mapper);
+        final var anonymous = new EvalEngine(mapper,
+                                             ExpectationExecutorRegistry.withDefaults(anonymousJudge, mapper))
+                .run(dataset, TestFactory.testAgent("ok"), config);
+        assertEquals(25, anonymousJudgeCalls.get());
+        assertEquals(0, anonymous.getJudgeCacheStats().getHits());
+        assertEquals(0, anonymous.getJudgeCacheStats().getStored());
+        assertEquals(50, anonymous.getJudgeCacheStats().getEntries());
+    }
+
     @Test
     void testMetricExpectationSkipMarksTestCaseSkipped() {
         Metric<String, String> unavailableJudgeMetric = new Metric<>() {
@@ -209,6 +526,172 @@ class EvalEngineTest {
         assertEquals(EvalStatus.SKIPPED, report.getTestCaseReports().get(0).getStatus());
     }
 
+    @Test
+    void testParallelExecutionKeepsSampledOrder() {
+        final var engine = engineWithMockJudgeModel();
+        // Later cases finish first
+        final var dataset = echoDataset(20, -1);
+        final var serialModel = new DelayedEchoModel(input -> (20L - caseIndex(input)) * 10);
+        final var serial = engine.run(dataset, TestFactory.testAgent(serialModel), EvalRunConfig.defaults());
+        final var parallelModel = new DelayedEchoModel(input -> (20L - caseIndex(input)) * 10);
+        final var parallel = engine.run(dataset,
+                                        TestFactory.testAgent(parallelModel),
+                                        EvalRunConfig.defaults().withParallelism(8));
+
+        assertEquals(20, parallel.getPassedTestCases());
+        assertTrue(parallel.isCompletedAllSampledCases());
+        assertEquals(inputs(serial), inputs(parallel));
+        assertEquals(1, serialModel.maxInFlight.get());
+        assertTrue(parallelModel.maxInFlight.get() > 1);
+        assertTrue(parallelModel.maxInFlight.get() <= 8);
+    }
+
+    @Test
+    void testParallelFailFastCancelsLaterCases() {
+        final var engine = engineWithMockJudgeModel();
+        // Case 3 fails quickly, cases before it are still running and cases after it would take long
+        final var model = new DelayedEchoModel(input -> {
+            final var index = caseIndex(input);
+            if (index < 3) {
+                return 300;
+            }
+            return index == 3 ? 10 : 10_000;
+        });
+        final var report = engine.run(echoDataset(20, 3),
+                                      TestFactory.testAgent(model),
+                                      EvalRunConfig.defaults()
+                                              .withFailFast(true)
+                                              .withParallelism(4));
+
+        assertEquals(List.of("case-0", "case-1", "case-2", "case-3"), inputs(report));
+        assertEquals(3, report.getPassedTestCases());
+        assertEquals(1, report.getFailedTestCases());
+        assertEquals(4, report.getExecutedTestCases());
+        assertFalse(report.isCompletedAllSampledCases());
+        // Queued cases were cancelled before they could start
+        assertEquals(4, model.calls.get());
+        assertTrue(report.getDurationMs() < 5_000);
+    }
+
+    @Test
+    void testParallelSamplingIsReproducible() {
+        final var engine = engineWithMockJudgeModel();
+        final var dataset = echoDataset(50, -1);
+        final var config = EvalRunConfig.defaults()
+                .withSamplePercentage(20)
+                .withSampleSeed(42L);
+
+        final var serial = engine.run(dataset, TestFactory.testAgent(new DelayedEchoModel(input -> 0)), config);
+        final var parallel = engine.run(dataset,
+                                        TestFactory.testAgent(new DelayedEchoModel(input -> caseIndex(input) % 7)),
+                                        config.withParallelism(6));
+
+        assertEquals(10, parallel.getExecutedTestCases());
+        assertEquals(10, parallel.getPassedTestCases());
+        assertEquals(inputs(serial), inputs(parallel));
+    }
+
+    @Test
+    void testReportsLatencyAndCostPerTestCase() throws Exception {
+        final var engine = engineWithMockJudgeModel();
+        final var dataset = echoDataset(20, -1);
+        final var config = EvalRunConfig.defaults()
+                .withParallelism(4)
+                .withStreaming(true);
+
+        final var report = engine.run(dataset,
+                                      TestFactory.testAgent(new DelayedEchoModel(input -> caseIndex(input) * 5L)),
+                                      config);
+        assertEquals(20, report.getPassedTestCases());
+        for (final var testCase : report.getTestCaseReports()) {
+            final var metrics = testCase.getMetrics();
+            assertEquals(1, metrics.getModelCalls());
+            assertEquals(0, metrics.getToolCalls());
+            assertEquals(100, metrics.getTotalTokens());
+            assertTrue(metrics.getTimeToFirstTokenMs() >= FIRST_TOKEN_DELAY_MS - 5,
+                       "TTFT: " + metrics.getTimeToFirstTokenMs());
+            assertTrue(metrics.getTimeToFirstTokenMs() <= testCase.getDurationMs());
+        }
+        final var performance = report.getPerformance();
+        assertTrue(performance.getWallTimeMs().getP50() <= performance.getWallTimeMs().getP90());
+        assertTrue(performance.getWallTimeMs().getMax() >= 95 + FIRST_TOKEN_DELAY_MS);
+        assertEquals(100, performance.getTotalTokens().getP99());
+        assertEquals(1, performance.getModelCalls().getP50());
+        assertNotNull(performance.getTimeToFirstTokenMs());
+        assertTrue(performance.getCasesPerSecond() > 0);
+        assertEquals(20 * 100 / (report.getDurationMs() / 1000D), performance.getTokensPerSecond(), 1);
+        assertFalse(report.hasPerformanceRegressions());
+
+        // A slower agent fails against the saved baseline
+        final var mapper = TestFactory.mapper();
+        final var baseline = mapper.readValue(mapper.writeValueAsString(performance), EvalPerformanceSummary.class);
+        assertEquals(performance, baseline);
+        final var slower = engine.run(dataset,
+                                      TestFactory.testAgent(new DelayedEchoModel(input -> 300)),
+                                      config.withPerformanceBaseline(baseline).withPerformanceTolerance(0.2));
+        assertEquals(20, slower.getPassedTestCases());
+        assertTrue(slower.hasPerformanceRegressions());
+        assertTrue(slower.getPerformanceRegressions()
+                           .stream()
+                           .anyMatch(regression -> regression.getMetric().equals("wallTimeMs.p50")));
+        assertTrue(slower.getPerformanceRegressions()
+                           .stream()
+                           .noneMatch(regression -> regression.getMetric().startsWith("totalTokens")));
+        assertThrows(AssertionError.class, () -> EvalReportAssertions.assertNoFailures(slower));
+
+        // Without streaming, time to first token is not measured
+        final var unstreamed = engine.run(dataset, TestFactory.testAgent(new DelayedEchoModel(input -> 0)));
+        assertNull(unstreamed.getTestCaseReports().get(0).getMetrics().getTimeToFirstTokenMs());
+        assertNull(unstreamed.getPerformance().getTimeToFirstTokenMs());
+    }
+
+    @Test
+    void testResumeFromCheckpointRunsOnlyIncompleteCases(@TempDir Path dir) throws Exception {
+        final var engine = engineWithMockJudgeModel();
+        final var dataset = echoDataset(400, 7);
+        final var checkpointFile = dir.resolve("run").resolve("checkpoint.jsonl");
+        final var config = EvalRunConfig.defaults()
+                .withSamplePercentage(50)
+                .withSampleSeed(42)
+                .withParallelism(8)
+                .withCheckpointFile(checkpointFile);
+
+        final var complete = engine.run(dataset, TestFactory.testAgent(new DelayedEchoModel(input -> 0)), config);
+        assertEquals(200, complete.getExecutedTestCases());
+        assertEquals(0, complete.getResumedTestCases());
+
+        // Simulate the run dying at case 180, in the middle of writing the next report
+        final var lines = Files.readAllLines(checkpointFile);
+        assertEquals(201, lines.size());
+        Files.writeString(checkpointFile,
+                          String.join("\n", lines.subList(0, 181)) + "\n" + lines.get(181).substring(0, 20));
+
+        final var model = new DelayedEchoModel(input -> 0);
+        final var resumed = engine.run(dataset, TestFactory.testAgent(model), config);
+        assertEquals(20, model.calls.get());
+        assertEquals(180, resumed.getResumedTestCases());
+        assertEquals(200, resumed.getExecutedTestCases());
+        assertTrue(resumed.isCompletedAllSampledCases());
+        assertEquals(complete.getPassedTestCases(), resumed.getPassedTestCases());
+        assertEquals(complete.getFailedTestCases(), resumed.getFailedTestCases());
+        assertEquals(inputs(complete), inputs(resumed));
+        assertEquals(complete.getTestCaseReports().stream().map(TestCaseReport::getOutput).toList(),
+                     resumed.getTestCaseReports().stream().map(TestCaseReport::getOutput).toList());
+        assertEquals(complete.getTestCaseReports().stream().map(TestCaseReport::getStatus).toList(),
+                     resumed.getTestCaseReports().stream().map(TestCaseReport::getStatus).toList());
+
+        // Once complete, resuming again does not call the agent at all
+        final var idleModel = new DelayedEchoModel(input -> 0);
+        final var rerun = engine.run(dataset, TestFactory.testAgent(idleModel), config.withParallelism(1));
+        assertEquals(0, idleModel.calls.get());
+        assertEquals(200, rerun.getResumedTestCases());
+        assertEquals(inputs(complete), inputs(rerun));
+
+        final var otherSeed = config.withSampleSeed(7);
+        final var agent = TestFactory.testAgent(new DelayedEchoModel(input -> 0));
+        assertThrows(IllegalStateException.class, () -> engine.run(dataset, agent, otherSeed));
+    }
+
     @Test
     void testSampling() {
         EvalEngine engine = engineWithMockJudgeModel();
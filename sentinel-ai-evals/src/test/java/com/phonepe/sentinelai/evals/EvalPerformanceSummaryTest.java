@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link EvalPerformanceSummary} and {@link Percentiles}
+ */
+class EvalPerformanceSummaryTest {
+
+    private static TestCaseReport report(long durationMs, int tokens) {
+        return new TestCaseReport("input",
+                                  EvalStatus.PASSED,
+                                  "output",
+                                  List.of(),
+                                  "All expectations passed",
+                                  durationMs,
+                                  TestCaseMetrics.builder()
+                                          .modelCalls(1)
+                                          .totalTokens(tokens)
+                                          .build());
+    }
+
+    @Test
+    void testPercentilesUseNearestRank() {
+        final var percentiles = Percentiles.of(LongStream.rangeClosed(1, 200).map(i -> 201 - i).toArray());
+        assertEquals(100, percentiles.getP50());
+        assertEquals(180, percentiles.getP90());
+        assertEquals(198, percentiles.getP99());
+        assertEquals(200, percentiles.getMax());
+
+        final var single = Percentiles.of(new long[]{7});
+        assertEquals(7, single.getP50());
+        assertEquals(7, single.getP99());
+        assertNull(Percentiles.of(new long[0]));
+    }
+
+    @Test
+    void testRegressionsBeyondTolerance() {
+        final var baseline = EvalPerformanceSummary.of(List.of(report(100, 1000),
+                                                               report(100, 1000),
+                                                               new TestCaseReport("input",
+                                                                                  EvalStatus.SKIPPED,
+                                                                                  null,
+                                                                                  List.of(),
+                                                                                  "Timed out",
+                                                                                  400)),
+                                                       1000);
+        assertEquals(400, baseline.getWallTimeMs().getMax());
+        assertEquals(1000, baseline.getTotalTokens().getMax());
+        assertEquals(3, baseline.getCasesPerSecond());
+        assertEquals(2000, baseline.getTokensPerSecond());
+        assertTrue(baseline.regressionsAgainst(baseline, 0).isEmpty());
+
+        final var current = EvalPerformanceSummary.of(List.of(report(105, 1500),
+                                                              report(105, 1500),
+                                                              report(105, 1500)),
+                                                      1000);
+        assertEquals(List.of(new PerformanceRegression("totalTokens.p50", 1000, 1500),
+                             new PerformanceRegression("totalTokens.p90", 1000, 1500),
+                             new PerformanceRegression("totalTokens.p99", 1000, 1500)),
+                     current.regressionsAgainst(baseline, 0.1));
+        assertEquals(List.of(new PerformanceRegression("wallTimeMs.p50", 100, 105),
+                             new PerformanceRegression("totalTokens.p50", 1000, 1500),
+                             new PerformanceRegression("totalTokens.p90", 1000, 1500),
+                             new PerformanceRegression("totalTokens.p99", 1000, 1500)),
+                     current.regressionsAgainst(baseline, 0));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link JudgeVerdictCache}
+ */
+class JudgeVerdictCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCorruptedLinesAreSkipped() throws Exception {
+        final var key = JudgeVerdictCache.key("metric", "judge", "prompt");
+        try (final var cache = new JudgeVerdictCache(tempDir, JsonUtils.createMapper())) {
+            cache.put(key, "metric", 0.5);
+        }
+        Files.writeString(tempDir.resolve(JudgeVerdictCache.FILE_NAME),
+                          "{\"key\":\"trunc",
+                          StandardOpenOption.APPEND);
+
+        try (final var cache = new JudgeVerdictCache(tempDir, JsonUtils.createMapper())) {
+            assertEquals(1, cache.stats().getEntries());
+            assertEquals(0.5, cache.get(key).orElseThrow());
+        }
+    }
+
+    @Test
+    void testInvalidateDropsVerdicts() {
+        final var key = JudgeVerdictCache.key("metric", "judge", "prompt");
+        try (final var cache = new JudgeVerdictCache(tempDir, JsonUtils.createMapper())) {
+            cache.put(key, "metric", 0.5);
+        }
+        final var config = EvalRunConfig.defaults()
+                .withJudgeCacheDirectory(tempDir)
+                .withInvalidateJudgeCache(true);
+        try (final var cache = JudgeVerdictCache.from(config, JsonUtils.createMapper())) {
+            assertFalse(cache.get(key).isPresent());
+            assertEquals(0, cache.stats().getEntries());
+            cache.put(key, "metric", 0.7);
+        }
+        try (final var cache = new JudgeVerdictCache(tempDir, JsonUtils.createMapper())) {
+            assertEquals(0.7, cache.get(key).orElseThrow());
+        }
+        assertNull(JudgeVerdictCache.from(EvalRunConfig.defaults(), JsonUtils.createMapper()));
+    }
+
+    @Test
+    void testKeyCoversAllParts() {
+        final var key = JudgeVerdictCache.key("metric", "judge", "system", "prompt");
+        assertEquals(key, JudgeVerdictCache.key("metric", "judge", "system", "prompt"));
+        assertNotEquals(key, JudgeVerdictCache.key("other-metric", "judge", "system", "prompt"));
+        assertNotEquals(key, JudgeVerdictCache.key("metric", "other-judge", "system", "prompt"));
+        assertNotEquals(key, JudgeVerdictCache.key("metric", "judge", "system", "prompt "));
+        // Parts are length prefixed, so moving text between them changes the key
+        assertNotEquals(key, JudgeVerdictCache.key("metric", "judge", "systemp", "rompt"));
+    }
+
+    @Test
+    void testVerdictsSurviveReopen() {
+        final var key = JudgeVerdictCache.key("metric", "judge", "prompt");
+        try (final var cache = new JudgeVerdictCache(tempDir.resolve("nested"), JsonUtils.createMapper())) {
+            assertFalse(cache.get(key).isPresent());
+            cache.put(key, "metric", 0.25);
+            cache.put(key, "metric", 0.75);
+            assertEquals(0.75, cache.get(key).orElseThrow());
+        }
+        try (final var cache = new JudgeVerdictCache(tempDir.resolve("nested"), JsonUtils.createMapper())) {
+            assertEquals(0.75, cache.get(key).orElseThrow());
+            final var stats = cache.stats();
+            assertEquals(1, stats.getHits());
+            assertEquals(0, stats.getMisses());
+            assertEquals(0, stats.getStored());
+            assertEquals(1, stats.getEntries());
+        }
+        assertTrue(Files.exists(tempDir.resolve("nested").resolve(JudgeVerdictCache.FILE_NAME)));
+    }
+}
@@ -33,13 +33,26 @@ import java.util.stream.IntStream;
 @UtilityClass
 public final class EvalReportAssertions {
 
+    private static String renderRegressions(EvalReport report) {
+        if (!report.hasPerformanceRegressions()) {
+            return "";
+        }
+        return "performance regressions:%n".formatted()
+                + report.getPerformanceRegressions()
+                        .stream()
+                        .map(regression -> "  - " + regression)
+                        .collect(Collectors.joining(System.lineSeparator()))
+                + "%n%n".formatted();
+    }
+
     /**
-     * Asserts that there are no test failures. Skipped test cases are logged in diagnostics but do not
-     * cause the assertion to fail.
+     * Asserts that there are no test failures and no performance regressions against the configured baseline.
+     * Skipped test cases are logged in diagnostics but do not cause the assertion to fail.
      */
     public static void assertNoFailures(EvalReport report) {
         final var hasFailures = report.getFailedTestCases() > 0;
         if (!hasFailures) {
+            assertNoPerformanceRegressions(report);
             return;
         }
 
@@ -79,16 +92,18 @@ public final class EvalReportAssertions {
                                    report.getPassedTestCases(),
                                    report.getFailedTestCases(),
                                    report.getSkippedTestCases())
+                + renderRegressions(report)
                 + diagnostics);
     }
 
     /**
      * Asserts that there are no test failures and no test skips (strict mode). Both failed and skipped
-     * test cases will cause the assertion to fail.
+     * test cases will cause the assertion to fail, as will performance regressions against the configured baseline.
      */
     public static void assertNoFailuresStrict(EvalReport report) {
         final var hasFailuresOrSkips = report.getFailedTestCases() > 0 || report.getSkippedTestCases() > 0;
         if (!hasFailuresOrSkips) {
+            assertNoPerformanceRegressions(report);
             return;
         }
 
@@ -128,6 +143,19 @@ public final class EvalReportAssertions {
                                    report.getPassedTestCases(),
                                    report.getFailedTestCases(),
                                    report.getSkippedTestCases())
+                + renderRegressions(report)
                 + diagnostics);
     }
+
+    /**
+     * Asserts that no p50, p90 or p99 of the run exceeded the performance baseline by more than the tolerance.
+     */
+    public static void assertNoPerformanceRegressions(EvalReport report) {
+        if (!report.hasPerformanceRegressions()) {
+            return;
+        }
+        Assertions.fail("Eval run regressed against performance baseline%n".formatted()
+                + "dataset: %s%n".formatted(report.getDatasetName())
+                + renderRegressions(report));
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.evals.tests.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+import com.phonepe.sentinelai.embedding.EmbeddingModel;
+import com.phonepe.sentinelai.evals.tests.Expectations;
+import com.phonepe.sentinelai.evals.tests.Metrics;
+import com.phonepe.sentinelai.evals.tests.TestCase;
+import com.phonepe.sentinelai.evals.tests.TestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link EmbeddingCache} and batch embedding of similarity metrics
+ */
+class EmbeddingCacheTest {
+    private static final int DIMENSIONS = 256;
+
+    /**
+     * Deterministic embeddings that count the calls made to the model
+     */
+    private static class CountingEmbeddingModel implements EmbeddingModel {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger batchCalls = new AtomicInteger();
+        private final AtomicInteger embeddedTexts = new AtomicInteger();
+
+        @Override
+        public void close() {
+            // no-op
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        @Override
+        public float[] getEmbedding(String input) {
+            calls.incrementAndGet();
+            embeddedTexts.incrementAndGet();
+            return vector(input);
+        }
+
+        @Override
+        public List<float[]> getEmbeddings(List<String> inputs) {
+            batchCalls.incrementAndGet();
+            embeddedTexts.addAndGet(inputs.size());
+            return inputs.stream().map(CountingEmbeddingModel::vector).toList();
+        }
+
+        private static float[] vector(String text) {
+            final var rng = new Random(text.hashCode());
+            final var v = new float[DIMENSIONS];
+            for (int i = 0; i < DIMENSIONS; i++) {
+                v[i] = rng.nextFloat() * 2 - 1 + (i < 8 ? 2 : 0);
+            }
+            return v;
+        }
+    }
+
+    private static List<TestCase<String, String>> suite(int size) {
+        final var rng = new Random(42);
+        final var cases = new ArrayList<TestCase<String, String>>(size);
+        for (int i = 0; i < size; i++) {
+            cases.add(new TestCase<>("question-" + rng.nextInt(1_000),
+                                     List.of(Expectations.outputSimilarity("reference-" + rng.nextInt(20)),
+                                             new MetricExpectation<>(Metrics.outputRelevanceBySimilarity()))));
+        }
+        return cases;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double[] scoreSuite(List<TestCase<String, String>> suite,
+                                       MetricExecutorFactory factory,
+                                       String[] outputs) {
+        final var mapper = JsonUtils.createMapper();
+        final var scores = new double[suite.size() * 2];
+        for (int i = 0; i < suite.size(); i++) {
+            final var testCase = suite.get(i);
+            final var context = TestFactory.contextWith(testCase.getInput());
+            for (int j = 0; j < 2; j++) {
+                final var metric = ((MetricExpectation<String, String>) testCase.getExpectations().get(j)).getMetric();
+                scores[i * 2 + j] = factory.create(metric, mapper, null)
+                        .calculate(outputs[i], context);
+            }
+        }
+        return scores;
+    }
+
+    @Test
+    void testBatchEmbeddingMatchesPerCaseEmbeddingOnLargeSuite() {
+        final var suite = suite(5_000);
+        final var rng = new Random(7);
+        final var outputs = new String[suite.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = "answer-" + rng.nextInt(1_000);
+        }
+
+        // Before: every case embeds its texts one by one and recomputes both magnitudes
+        final var perCaseModel = new CountingEmbeddingModel();
+        final var before = new double[suite.size() * 2];
+        for (int i = 0; i < suite.size(); i++) {
+            final var testCase = suite.get(i);
+            final var output = perCaseModel.getEmbedding(outputs[i]);
+            final var reference = ((OutputSimilarityMetric<?>) ((MetricExpectation<?, ?>) testCase.getExpectations()
+                    .get(0)).getMetric()).getReferenceText();
+            before[i * 2] = SimilarityUtils.cosineSimilarity(output, perCaseModel.getEmbedding(reference));
+            before[i * 2 + 1] = SimilarityUtils.cosineSimilarity(perCaseModel.getEmbedding(outputs[i]),
+                                                                 perCaseModel.getEmbedding(testCase.getInput()));
+        }
+
+        // After: inputs and references are embedded in batches up front, everything is deduplicated and normalized
+        final var batchModel = new CountingEmbeddingModel();
+        final var registry = MetricExecutorRegistry.withDefaults(batchModel, null, JsonUtils.createMapper());
+        registry.prepare(suite);
+        final var after = scoreSuite(suite, registry, outputs);
+
+        for (int i = 0; i < before.length; i++) {
+            assertEquals(before[i], after[i], 1e-5);
+        }
+        assertEquals(20_000, perCaseModel.calls.get());
+        // 1000 questions and 20 references in 4 batches, the distinct answers one by one as they are produced
+        assertEquals(4, batchModel.batchCalls.get());
+        assertTrue(batchModel.embeddedTexts.get() <= 2_020);
+    }
+
+    @Test
+    void testCacheIsBoundedByEmbeddingSize() {
+        final var model = new CountingEmbeddingModel();
+        // Room for 100 embeddings along with their texts
+        final var cache = new EmbeddingCache(model, 128, 100L * ("text-000".length() * 2 + DIMENSIONS * Float.BYTES));
+        final var texts = new ArrayList<String>();
+        for (int i = 0; i < 1_000; i++) {
+            texts.add("text-%03d".formatted(i));
+        }
+
+        cache.prefetch(texts);
+        assertEquals(1_000, model.embeddedTexts.get());
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    void testEmbeddingsAreBatchedDeduplicatedAndNormalized() {
+        final var model = new CountingEmbeddingModel();
+        final var cache = new EmbeddingCache(model, 128, 1_000L * DIMENSIONS * Float.BYTES);
+        final var texts = new ArrayList<String>();
+        for (int i = 0; i < 1_000; i++) {
+            texts.add("text-" + i % 300);
+        }
+
+        cache.prefetch(texts);
+        assertEquals(3, model.batchCalls.get());
+        assertEquals(300, model.embeddedTexts.get());
+        assertEquals(300, cache.size());
+
+        final var embeddings = cache.getEmbeddings(List.of("text-1", "text-301", "text-1", "text-301"));
+        assertEquals(4, model.batchCalls.get());
+        assertEquals(301, model.embeddedTexts.get());
+        assertSame(embeddings.get(0), embeddings.get(2));
+        assertSame(embeddings.get(1), cache.getEmbedding("text-301"));
+        assertEquals(0, model.calls.get());
+
+        final var raw = CountingEmbeddingModel.vector("text-1");
+        var magnitude = 0.0;
+        for (final var v : embeddings.get(0)) {
+            magnitude += v * v;
+        }
+        assertEquals(1.0, magnitude, 1e-5);
+        assertEquals(SimilarityUtils.cosineSimilarity(raw, CountingEmbeddingModel.vector("text-301")),
+                     SimilarityUtils.normalizedSimilarity(embeddings.get(0), embeddings.get(1)),
+                     1e-6);
+        assertArrayEquals(new float[2], SimilarityUtils.normalize(new float[2]));
+        assertSame(cache, EmbeddingCache.of(cache));
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingCache.of(null));
+    }
+}
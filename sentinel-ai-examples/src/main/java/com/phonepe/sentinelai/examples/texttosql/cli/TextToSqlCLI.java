@@ -574,7 +574,8 @@ public class TextToSqlCLI implements Callable<Integer> {
         final var agentSetup = buildAgentSetup(config, model, mapper);
 
         final var skillsExtension = buildSkillsExtension();
-        final var agent = buildAgent(agentSetup, skillsExtension);
+        final var otelExtension = buildOpenTelemetryExtension();
+        final var agent = buildAgent(agentSetup, skillsExtension, otelExtension);
 
         registerLocalTools(agent, dbPath);
         registerAskUserTool(agent);
@@ -603,7 +604,12 @@ public class TextToSqlCLI implements Callable<Integer> {
         ConsoleUtils.printBanner();
         ConsoleUtils.printExamples();
 
-        return runInteractiveLoop(agent, config, effectiveSessionId, mapper);
+        try {
+            return runInteractiveLoop(agent, config, effectiveSessionId, mapper);
+        }
+        finally {
+            otelExtension.close();
+        }
     }
 
     /**
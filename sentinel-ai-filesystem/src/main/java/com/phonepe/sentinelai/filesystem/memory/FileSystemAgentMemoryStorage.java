@@ -18,9 +18,11 @@ package com.phonepe.sentinelai.filesystem.memory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.phonepe.sentinelai.agentmemory.AgentMemory;
-import com.phonepe.sentinelai.agentmemory.AgentMemoryStore;
+import com.phonepe.sentinelai.agentmemory.compaction.CompactableAgentMemoryStore;
+import com.phonepe.sentinelai.agentmemory.compaction.EmbeddedAgentMemory;
 import com.phonepe.sentinelai.agentmemory.MemoryScope;
 import com.phonepe.sentinelai.agentmemory.MemoryType;
 import com.phonepe.sentinelai.embedding.EmbeddingModel;
@@ -33,27 +35,85 @@ import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Filesystem based implementation of AgentMemoryStore.
  * This is not for serious production use.
+ * <p>
+ * Every memory lives in its own directory. In addition, a compact binary snapshot is maintained per scope under
+ * {@value #SNAPSHOT_DIR_NAME}, so startup reads one file per scope instead of two json files per memory. Saves and
+ * deletes are appended to a per scope journal next to the snapshot, which is folded back into the snapshot once it
+ * holds more records than the scope has memories. Every snapshot and journal entry carries the modification time of
+ * the memory directory it was taken from; directories modified after their entry was written (for example, because
+ * of a crash between writing the directory and the journal) are re-read on startup. Loading happens in the background on a pool of
+ * {@code loadParallelism} threads: queries for a scope are served as soon as that scope's snapshot is read (or it is
+ * read on demand by the querying thread), while queries that span scopes wait for the full load. Memory directories
+ * not covered by any snapshot (for example, stores written by older versions) are parsed in parallel and folded into
+ * the snapshots; until the first full load has completed and snapshots cover the whole store, all queries wait for the
+ * full load.
  */
 @Slf4j
-public class FileSystemAgentMemoryStorage implements AgentMemoryStore {
+public class FileSystemAgentMemoryStorage implements CompactableAgentMemoryStore, AutoCloseable {
 
     private static final String MEMORY_FILE_NAME = "memory.json";
     private static final String VECTOR_FILE_NAME = "vector.json";
+    private static final String SNAPSHOT_DIR_NAME = "_snapshots";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SNAPSHOT_COMPLETE_MARKER = "COMPLETE";
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final byte JOURNAL_UPSERT = 1;
+    private static final byte JOURNAL_DELETE = 0;
+    // Small scopes are not compacted on every other write
+    private static final int MIN_JOURNAL_RECORDS_BEFORE_COMPACTION = 64;
+
+    /**
+     * Natural ordering of search results: higher similarity first, ties (and all candidates in the no-query case)
+     * broken by recency. Memories without an update timestamp rank lowest.
+     */
+    private static final Comparator<ScoredMemory> SCORE_ORDER = Comparator
+            .comparingDouble(ScoredMemory::score)
+            .thenComparing(scored -> scored.memory().getUpdatedAt(),
+                           Comparator.nullsFirst(Comparator.naturalOrder()));
 
     @Data
     @NoArgsConstructor
@@ -61,22 +121,143 @@ public class FileSystemAgentMemoryStorage implements AgentMemoryStore {
         private AgentMemory memory;
         private float[] vector;
         private double vectorNorm;
+        // Latest modification time of the files in the memory directory, in nanoseconds
+        private long modifiedAt;
+    }
+
+    /**
+     * Normalized form of the filters passed to {@link #findMemories}. Null fields mean the filter is not applied.
+     */
+    private record MemoryFilter(
+            MemoryScope scope,
+            String scopeId,
+            Set<MemoryType> memoryTypes,
+            Set<String> topics,
+            int minReusabilityScore
+    ) {
+        boolean matches(AgentMemory memory) {
+            if (scope != null) {
+                if (memory.getScope() != scope) {
+                    return false;
+                }
+                if (scope == MemoryScope.ENTITY && !scopeId.equals(memory.getScopeId())) {
+                    return false;
+                }
+            }
+            if (memoryTypes != null && !memoryTypes.contains(memory.getMemoryType())) {
+                return false;
+            }
+            if (topics != null
+                    && (memory.getTopics() == null || memory.getTopics().stream().noneMatch(topics::contains))) {
+                return false;
+            }
+            return minReusabilityScore == 0 || memory.getReusabilityScore() >= minReusabilityScore;
+        }
+    }
+
+    private record ScoredMemory(
+            AgentMemory memory,
+            double score
+    ) {
+    }
+
+    /**
+     * Loading of a single scope snapshot. Run at most once, either by the background loader or by the first query
+     * that needs the scope, whichever gets there first.
+     */
+    private final class SnapshotLoad {
+        private final Path path;
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private SnapshotLoad(Path path) {
+            this.path = path;
+        }
+
+        void await() {
+            run();
+            done.join();
+        }
+
+        void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                readSnapshot(path);
+            }
+            catch (Exception e) {
+                // Memories missing from a broken snapshot are picked up from their directories during reconciliation
+                log.error("Failed to read memory snapshot: {}", path, e);
+            }
+            finally {
+                done.complete(null);
+            }
+        }
     }
 
     private final Path memoryRoot;
+    private final Path snapshotRoot;
     private final ObjectMapper mapper;
     private final EmbeddingModel embeddingModel;
     private final ConcurrentHashMap<String, StoredAgentMemory> cache = new ConcurrentHashMap<>();
     private final StampedLock lock = new StampedLock();
+    /*
+     * Inverted indices from scope and memory type to memory ids. These let filtered searches touch only the
+     * memories that can possibly match instead of scanning the whole cache. Memories are additionally indexed by
+     * scope and scope id, as that is the most selective filter used in practice (memories about a user) and the unit
+     * in which snapshots, journals and compaction work.
+     */
+    private final Map<MemoryScope, Set<String>> scopeIndex = new ConcurrentHashMap<>();
+    private final Map<ScopeKey, Set<String>> scopeKeyIndex = new ConcurrentHashMap<>();
+    private final Map<MemoryType, Set<String>> typeIndex = new ConcurrentHashMap<>();
+    private final Map<String, SnapshotLoad> snapshotLoads = new ConcurrentHashMap<>();
+    // Number of records in the journal of each scope, keyed by snapshot file name
+    private final Map<String, Integer> journalRecords = new ConcurrentHashMap<>();
+    private final List<Consumer<List<AgentMemory>>> changeListeners = new CopyOnWriteArrayList<>();
+    // Completes once all memories are in the cache, and then once snapshots have been brought up to date with disk
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    private final CompletableFuture<Void> snapshotsSynced = new CompletableFuture<>();
+    // Snapshots can be used to answer scoped queries only once a full load has verified they cover the whole store
+    private final boolean snapshotsComplete;
+    private final ExecutorService loader;
+    private final Thread loadCoordinator;
 
-    @Builder
     public FileSystemAgentMemoryStorage(@NonNull String baseDir,
                                         @NonNull ObjectMapper mapper,
                                         @NonNull EmbeddingModel embeddingModel) {
+        this(baseDir, mapper, embeddingModel, 0);
+    }
+
+    /**
+     * @param loadParallelism Number of threads used to load memories at startup. Defaults to the number of available
+     *                        processors if not positive
+     */
+    @Builder
+    @SneakyThrows
+    public FileSystemAgentMemoryStorage(@NonNull String baseDir,
+                                        @NonNull ObjectMapper mapper,
+                                        @NonNull EmbeddingModel embeddingModel,
+                                        int loadParallelism) {
         this.memoryRoot = FileUtils.ensurePath(baseDir, true, true);
+        this.snapshotRoot = FileUtils.ensurePath(memoryRoot.resolve(SNAPSHOT_DIR_NAME).toString(), true, true);
         this.mapper = mapper;
         this.embeddingModel = embeddingModel;
-        loadMemories();
+        this.snapshotsComplete = Files.exists(snapshotRoot.resolve(SNAPSHOT_COMPLETE_MARKER));
+        registerSnapshots();
+        this.loader = Executors.newFixedThreadPool(loadParallelism > 0
+                ? loadParallelism
+                : Runtime.getRuntime().availableProcessors(),
+                                                   new ThreadFactoryBuilder()
+                                                           .setDaemon(true)
+                                                           .setNameFormat("memory-loader-%d")
+                                                           .build());
+        this.loadCoordinator = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("memory-load-coordinator")
+                .build()
+                .newThread(this::runLoad);
+        loadCoordinator.start();
     }
 
     /**
@@ -93,6 +274,20 @@ public class FileSystemAgentMemoryStorage implements AgentMemoryStore {
         return Math.sqrt(norm);
     }
 
+    static String memoryId(AgentMemory memory) {
+        return UUID.nameUUIDFromBytes(("%s-%s-%s-%s").formatted(
+                                                                memory.getAgentName(),
+                                                                memory.getScope(),
+                                                                memory.getScopeId(),
+                                                                memory.getName()).getBytes()).toString();
+    }
+
+    static String snapshotFileName(MemoryScope scope, String scopeId) {
+        return "%s-%s%s".formatted(scope,
+                                   UUID.nameUUIDFromBytes(String.valueOf(scopeId).getBytes(StandardCharsets.UTF_8)),
+                                   SNAPSHOT_SUFFIX);
+    }
+
     /**
      * Compute cosine similarity between a stored memory's vector and a query vector using
      * pre-computed norms, avoiding redundant norm recomputation on repeated calls.
@@ -119,8 +314,122 @@ public class FileSystemAgentMemoryStorage implements AgentMemoryStore {
         return sum;
     }
 
+    private static Path journalPath(Path snapshotPath) {
+        final var name = snapshotPath.getFileName().toString();
+        return snapshotPath.resolveSibling(name.substring(0, name.length() - SNAPSHOT_SUFFIX.length())
+                + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Latest modification time of the files of a memory directory in nanoseconds, or -1 if they cannot be read
+     */
+    private static long modifiedAt(Path memoryDir) {
+        try {
+            return Math.max(Files.getLastModifiedTime(memoryDir.resolve(MEMORY_FILE_NAME)).to(TimeUnit.NANOSECONDS),
+                            Files.getLastModifiedTime(memoryDir.resolve(VECTOR_FILE_NAME)).to(TimeUnit.NANOSECONDS));
+        }
+        catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static ScopeKey scopeKey(AgentMemory memory) {
+        return new ScopeKey(memory.getScope(), memory.getScopeId());
+    }
+
+    private static StoredAgentMemory stored(AgentMemory memory, float[] vector, long modifiedAt) {
+        final var stored = new StoredAgentMemory();
+        stored.setMemory(memory);
+        stored.setVector(vector);
+        stored.setVectorNorm(vector == null ? 0.0 : vectorNorm(vector)); // pre-compute norm at load time
+        stored.setModifiedAt(modifiedAt);
+        return stored;
+    }
+
+    private static void writeEntry(DataOutputStream out, byte[] memoryBytes, StoredAgentMemory stored)
+            throws IOException {
+        final var vector = stored.getVector();
+        out.writeInt(memoryBytes.length);
+        out.write(memoryBytes);
+        out.writeLong(stored.getModifiedAt());
+        out.writeInt(vector == null ? -1 : vector.length);
+        if (vector != null) {
+            for (final var x : vector) {
+                out.writeFloat(x);
+            }
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<String>> index, K key, String id) {
+        final var ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    private static AgentMemory withTimestamps(AgentMemory agentMemory, LocalDateTime now) {
+        return agentMemory
+                .withCreatedAt(Objects.requireNonNullElse(agentMemory.getCreatedAt(), now))
+                .withUpdatedAt(now);
+    }
+
+    @Override
+    public void addChangeListener(Consumer<List<AgentMemory>> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Blocks till all memories have been loaded from disk and the startup snapshots are up to date
+     */
+    public void awaitLoaded() {
+        snapshotsSynced.join();
+    }
+
+    /**
+     * Waits for the background load to finish writing snapshots and stops the loader threads. The store must not be
+     * used after it has been closed.
+     */
+    @Override
+    @SneakyThrows
+    public void close() {
+        // The coordinator completes snapshotsSynced (normally or exceptionally) and shuts the loader pool down
+        loadCoordinator.join();
+        loader.shutdown();
+        if (!loader.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Memory loader threads did not stop in time for {}", memoryRoot);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public int delete(List<AgentMemory> memories) {
+        memories.forEach(memory -> awaitScope(memory.getScope(), memory.getScopeId()));
+        final var deleted = new ArrayList<AgentMemory>();
+        final var stamp = lock.writeLock();
+        try {
+            for (final var memory : memories) {
+                final var id = memoryId(memory);
+                final var removed = cache.remove(id);
+                if (removed == null) {
+                    continue;
+                }
+                unindex(id, removed.getMemory());
+                final var memoryDir = memoryRoot.resolve(id);
+                FileUtils.delete(memoryDir.resolve(MEMORY_FILE_NAME));
+                FileUtils.delete(memoryDir.resolve(VECTOR_FILE_NAME));
+                FileUtils.delete(memoryDir);
+                appendToJournal(scopeKey(removed.getMemory()), id, null);
+                deleted.add(removed.getMemory());
+            }
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+        notifyChanged(deleted);
+        return deleted.size();
+    }
+
     @Override
-    @SuppressWarnings("java:S3776")
     public List<AgentMemory> findMemories(String scopeId,
                                           MemoryScope scope,
                                           Set<MemoryType> memoryTypes,
@@ -128,122 +437,549 @@ public class FileSystemAgentMemoryStorage implements AgentMemoryStore {
                                           String query,
                                           int minReusabilityScore,
                                           int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        final var filter = new MemoryFilter(scope != null && !Strings.isNullOrEmpty(scopeId) ? scope : null,
+                                            scopeId,
+                                            memoryTypes == null || memoryTypes.isEmpty()
+                                                    ? null
+                                                    : EnumSet.copyOf(memoryTypes),
+                                            topics == null || topics.isEmpty() ? null : new HashSet<>(topics),
+                                            minReusabilityScore);
+        awaitScope(filter.scope(), filter.scopeId());
         final var queryVector = !Strings.isNullOrEmpty(query)
                 ? embeddingModel.getEmbedding(query)
                 : null;
+        final var queryNorm = queryVector != null ? vectorNorm(queryVector) : 0.0;
+        // Min-heap holding the best `count` candidates seen so far. The head is always the weakest match, so each
+        // candidate costs O(log k) instead of sorting every match.
+        final var heap = new PriorityQueue<ScoredMemory>(Math.min(count, 64) + 1, SCORE_ORDER);
+        for (final var id : candidateIds(filter)) {
+            final var stored = cache.get(id);
+            if (stored == null || !filter.matches(stored.getMemory())) {
+                continue;
+            }
+            final var scored = new ScoredMemory(stored.getMemory(),
+                                                queryVector == null
+                                                        ? 0.0
+                                                        : computeSimilarity(stored, queryVector, queryNorm));
+            if (heap.size() < count) {
+                heap.offer(scored);
+            }
+            else if (SCORE_ORDER.compare(scored, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(scored);
+            }
+        }
+        final var results = new ArrayList<>(heap);
+        results.sort(SCORE_ORDER.reversed());
+        return results.stream()
+                .map(ScoredMemory::memory)
+                .toList();
+    }
 
-        final var filtered = cache.values().stream()
-                .filter(stored -> {
-                    final var memory = stored.getMemory();
-                    if (scope != null && !Strings.isNullOrEmpty(scopeId)) {
-                        if (memory.getScope() != scope) {
-                            return false;
-                        }
-                        if (scope == MemoryScope.ENTITY && !scopeId.equals(memory.getScopeId())) {
-                            return false;
-                        }
-                    }
-                    if (memoryTypes != null && !memoryTypes.isEmpty()
-                            && !memoryTypes.contains(memory.getMemoryType())) {
-                        return false;
-                    }
-                    if (topics != null && !topics.isEmpty()) {
-                        if (memory.getTopics() == null
-                                || memory.getTopics().stream().noneMatch(topics::contains)) {
-                            return false;
-                        }
-                    }
-                    return minReusabilityScore == 0 || memory.getReusabilityScore() >= minReusabilityScore;
-                });
-
-        if (queryVector == null) {
-            // No semantic query: sort by recency (most-recently updated first).
-            return filtered
-                    .sorted((a, b) -> {
-                        final var lhs = a.getMemory().getUpdatedAt();
-                        final var rhs = b.getMemory().getUpdatedAt();
-                        if (lhs == null || rhs == null) {
-                            final var rhsValue = rhs == null ? 0 : 1;
-                            return lhs == null ? rhsValue : -1;
-                        }
-                        return rhs.compareTo(lhs);
-                    })
-                    .limit(count)
-                    .map(StoredAgentMemory::getMemory)
-                    .toList();
-        }
-
-        final double queryNorm = vectorNorm(queryVector);
-        return filtered
-                .map(stored -> Map.entry(stored, computeSimilarity(stored, queryVector, queryNorm)))
-                .sorted(Map.Entry.<StoredAgentMemory, Double>comparingByValue().reversed())
-                .limit(count)
-                .map(e -> e.getKey().getMemory())
+    @Override
+    public List<EmbeddedAgentMemory> memoriesInScope(ScopeKey scopeKey, int limit) {
+        awaitScope(scopeKey.scope(), scopeKey.scopeId());
+        return scopeIds(scopeKey).stream()
+                .map(cache::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .map(stored -> new EmbeddedAgentMemory(stored.getMemory(), stored.getVector()))
                 .toList();
     }
 
     @Override
-    @SneakyThrows
+    public void removeChangeListener(Consumer<List<AgentMemory>> listener) {
+        changeListeners.remove(listener);
+    }
+
+    @Override
     public Optional<AgentMemory> save(AgentMemory agentMemory) {
+        final var memoryToSave = withTimestamps(agentMemory, LocalDateTime.now());
+        final var vector = embeddingModel.getEmbedding(memoryToSave.getContent());
+        persist(List.of(memoryToSave), List.of(vector));
+        return Optional.of(memoryToSave);
+    }
+
+    /**
+     * Saves a batch of memories. All contents are embedded with a single batched embedding call and the files are
+     * written under a single acquisition of the write lock.
+     */
+    @Override
+    public List<AgentMemory> saveAll(List<AgentMemory> agentMemories) {
+        if (agentMemories.isEmpty()) {
+            return List.of();
+        }
         final var now = LocalDateTime.now();
-        final var memoryToSave = agentMemory
-                .withCreatedAt(Objects.requireNonNullElse(agentMemory.getCreatedAt(), now))
-                .withUpdatedAt(now);
-        final var id = UUID.nameUUIDFromBytes(("%s-%s-%s-%s").formatted(
-                                                                        memoryToSave.getAgentName(),
-                                                                        memoryToSave.getScope(),
-                                                                        memoryToSave.getScopeId(),
-                                                                        memoryToSave.getName()).getBytes()).toString();
+        final var memoriesToSave = agentMemories.stream()
+                .map(agentMemory -> withTimestamps(agentMemory, now))
+                .toList();
+        final var vectors = embeddingModel.getEmbeddings(memoriesToSave.stream()
+                .map(AgentMemory::getContent)
+                .toList());
+        persist(memoriesToSave, vectors);
+        return memoriesToSave;
+    }
 
-        final var vector = embeddingModel.getEmbedding(memoryToSave.getContent());
-        final var stored = new StoredAgentMemory();
-        stored.setMemory(memoryToSave);
-        stored.setVector(vector);
-        stored.setVectorNorm(vectorNorm(vector));
+    @Override
+    public List<ScopeKey> scopes() {
+        loaded.join();
+        return cache.values()
+                .stream()
+                .map(stored -> scopeKey(stored.getMemory()))
+                .distinct()
+                .toList();
+    }
+
+    /** Package-private accessor used only by unit tests to inspect the in-memory cache. */
+    ConcurrentHashMap<String, StoredAgentMemory> getCacheForTest() {
+        awaitLoaded();
+        return cache;
+    }
+
+    /** Package-private accessor used only by unit tests to inspect the journal of a scope. */
+    int getJournalRecordsForTest(MemoryScope scope, String scopeId) {
+        awaitLoaded();
+        return journalRecords.getOrDefault(snapshotFileName(scope, scopeId), 0);
+    }
+
+    /** Package-private accessor used only by unit tests to inspect the scope and scope id index. */
+    Map<ScopeKey, Set<String>> getScopeKeyIndexForTest() {
+        awaitLoaded();
+        return scopeKeyIndex;
+    }
+
+    /** Package-private accessor used only by unit tests to inspect the memory type index. */
+    Map<MemoryType, Set<String>> getTypeIndexForTest() {
+        awaitLoaded();
+        return typeIndex;
+    }
+
+    /**
+     * Adds a memory read from disk unless a newer version was saved while loading was in progress
+     */
+    private boolean addLoaded(String id, StoredAgentMemory stored) {
+        if (cache.putIfAbsent(id, stored) != null) {
+            return false;
+        }
+        index(id, stored.getMemory());
+        return true;
+    }
+
+    private void addToCache(String id, StoredAgentMemory stored) {
+        final var previous = cache.put(id, stored);
+        if (previous != null) {
+            unindex(id, previous.getMemory());
+        }
+        index(id, stored.getMemory());
+    }
+
+    /**
+     * Appends a save (or a delete if stored is null) to the journal of the scope and folds the journal into the scope
+     * snapshot once it has grown larger than the scope. Must be called with the write lock held, after the memory
+     * directory has been written.
+     */
+    @SneakyThrows
+    private void appendToJournal(ScopeKey scopeKey, String id, StoredAgentMemory stored) {
+        final var record = new ByteArrayOutputStream();
+        try (final var out = new DataOutputStream(record)) {
+            out.writeByte(stored == null ? JOURNAL_DELETE : JOURNAL_UPSERT);
+            out.writeUTF(id);
+            if (stored != null) {
+                writeEntry(out, mapper.writeValueAsBytes(stored.getMemory()), stored);
+            }
+        }
+        final var framed = new ByteArrayOutputStream(Integer.BYTES + record.size());
+        try (final var out = new DataOutputStream(framed)) {
+            out.writeInt(record.size());
+            record.writeTo(out);
+        }
+        final var snapshotName = snapshotFileName(scopeKey.scope(), scopeKey.scopeId());
+        FileUtils.write(journalPath(snapshotRoot.resolve(snapshotName)), framed.toByteArray(), true);
+        final var records = journalRecords.merge(snapshotName, 1, Integer::sum);
+        if (records > Math.max(MIN_JOURNAL_RECORDS_BEFORE_COMPACTION, scopeIds(scopeKey).size())) {
+            writeSnapshot(scopeKey);
+        }
+    }
 
+    /**
+     * Makes sure all memories that can match a query on the given scope are available in the cache. Once snapshots
+     * are known to cover the store, this only needs the relevant scope snapshots to be read, else the full load is
+     * waited for.
+     */
+    private void awaitScope(MemoryScope scope, String scopeId) {
+        if (loaded.isDone() || !snapshotsComplete || scope == null) {
+            loaded.join();
+            return;
+        }
+        if (scope == MemoryScope.ENTITY) {
+            final var load = snapshotLoads.get(snapshotFileName(scope, scopeId));
+            if (load != null) {
+                load.await();
+            }
+            return;
+        }
+        // Agent scoped queries are not filtered on scope id
+        final var prefix = scope.name() + "-";
+        snapshotLoads.entrySet()
+                .stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .forEach(entry -> entry.getValue().await());
+    }
+
+    /**
+     * Picks the smallest set of memory ids that is guaranteed to contain every match for the filter. Candidates still
+     * need to be checked against the full filter.
+     */
+    private Collection<String> candidateIds(MemoryFilter filter) {
+        Collection<String> best = cache.keySet();
+        if (filter.scope() != null) {
+            final var scoped = filter.scope() == MemoryScope.ENTITY
+                    ? scopeIds(new ScopeKey(MemoryScope.ENTITY, filter.scopeId()))
+                    : scopeIndex.getOrDefault(filter.scope(), Set.of());
+            if (scoped.size() < best.size()) {
+                best = scoped;
+            }
+        }
+        if (filter.memoryTypes() != null) {
+            // A memory has exactly one type, so the per-type postings are disjoint and can simply be concatenated
+            final var typed = new ArrayList<String>();
+            for (final var memoryType : filter.memoryTypes()) {
+                typed.addAll(typeIndex.getOrDefault(memoryType, Set.of()));
+                if (typed.size() >= best.size()) {
+                    return best;
+                }
+            }
+            best = typed;
+        }
+        return best;
+    }
+
+    private void index(String id, AgentMemory memory) {
+        if (memory.getScope() != null) {
+            scopeIndex.computeIfAbsent(memory.getScope(), key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        scopeKeyIndex.computeIfAbsent(scopeKey(memory), key -> ConcurrentHashMap.newKeySet()).add(id);
+        if (memory.getMemoryType() != null) {
+            typeIndex.computeIfAbsent(memory.getMemoryType(), key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * Reads the memory and vector files of a memory directory. Returns null if the directory is not a complete memory.
+     */
+    private StoredAgentMemory loadMemoryDir(Path path) {
+        try {
+            final var memoryFile = path.resolve(MEMORY_FILE_NAME);
+            final var vectorFile = path.resolve(VECTOR_FILE_NAME);
+            // Taken before reading, so that a write racing with the read is picked up again on the next start
+            final var modifiedAt = modifiedAt(path);
+            if (modifiedAt >= 0) {
+                return stored(mapper.readValue(memoryFile.toFile(), AgentMemory.class),
+                              mapper.readValue(vectorFile.toFile(), float[].class),
+                              modifiedAt);
+            }
+        }
+        catch (Exception e) {
+            log.error("Failed to load memory from path: {}", path, e);
+        }
+        return null;
+    }
+
+    /**
+     * Full load run on the coordinator thread: reads all scope snapshots in parallel, then reconciles them against the
+     * memory directories on disk. Queries are unblocked before snapshots of the reconciled scopes are rewritten.
+     */
+    private void loadAll() {
+        final var start = System.currentTimeMillis();
+        CompletableFuture.allOf(snapshotLoads.values()
+                                        .stream()
+                                        .map(load -> CompletableFuture.runAsync(load::run, loader))
+                                        .toArray(CompletableFuture[]::new))
+                .join();
+        snapshotLoads.values().forEach(SnapshotLoad::await);
+        final var fromSnapshots = cache.size();
+        final var loadedFromDirs = new AtomicInteger(0);
+        final var dirty = reconcile(loadedFromDirs);
+        loaded.complete(null);
+        log.info("Loaded {} memories ({} from {} snapshots, {} from memory directories) in {} ms",
+                 cache.size(),
+                 fromSnapshots,
+                 snapshotLoads.size(),
+                 loadedFromDirs.get(),
+                 System.currentTimeMillis() - start);
         final var stamp = lock.writeLock();
         try {
-            final var memoryDir = FileUtils.ensurePath(memoryRoot.resolve(id).toString(), true, true);
-            final var memoryFile = memoryDir.resolve(MEMORY_FILE_NAME);
-            final var vectorFile = memoryDir.resolve(VECTOR_FILE_NAME);
+            for (final var scopeKey : dirty) {
+                writeSnapshot(scopeKey);
+            }
+            FileUtils.write(snapshotRoot.resolve(SNAPSHOT_COMPLETE_MARKER), new byte[0], false);
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+        snapshotsSynced.complete(null);
+    }
 
-            FileUtils.write(memoryFile, mapper.writeValueAsBytes(memoryToSave), false);
-            FileUtils.write(vectorFile, mapper.writeValueAsBytes(vector), false);
+    private void notifyChanged(List<AgentMemory> memories) {
+        if (!memories.isEmpty()) {
+            changeListeners.forEach(listener -> listener.accept(memories));
+        }
+    }
 
-            cache.put(id, stored);
-            return Optional.of(memoryToSave);
+    @SneakyThrows
+    private void persist(List<AgentMemory> memories, List<float[]> vectors) {
+        memories.forEach(memory -> awaitScope(memory.getScope(), memory.getScopeId()));
+        final var stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < memories.size(); i++) {
+                final var memory = memories.get(i);
+                final var vector = vectors.get(i);
+                final var id = memoryId(memory);
+                final var memoryDir = FileUtils.ensurePath(memoryRoot.resolve(id).toString(), true, true);
+                FileUtils.write(memoryDir.resolve(MEMORY_FILE_NAME), mapper.writeValueAsBytes(memory), false);
+                FileUtils.write(memoryDir.resolve(VECTOR_FILE_NAME), mapper.writeValueAsBytes(vector), false);
+                final var stored = stored(memory, vector, modifiedAt(memoryDir));
+                addToCache(id, stored);
+                appendToJournal(scopeKey(memory), id, stored);
+            }
         }
         finally {
             lock.unlockWrite(stamp);
         }
+        notifyChanged(memories);
     }
 
-    /** Package-private accessor used only by unit tests to inspect the in-memory cache. */
-    ConcurrentHashMap<String, StoredAgentMemory> getCacheForTest() {
-        return cache;
+    /**
+     * Applies the journal of a scope on top of the entries read from its snapshot. A record left incomplete by a crash
+     * is cut off the journal so that later appends stay readable.
+     */
+    @SneakyThrows
+    private void readJournal(Path snapshotPath, Map<String, StoredAgentMemory> entries) {
+        final var path = journalPath(snapshotPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+        final var size = Files.size(path);
+        var valid = 0L;
+        var records = 0;
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (valid < size) {
+                final var record = new byte[in.readInt()];
+                in.readFully(record);
+                final var recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                final var upsert = recordIn.readByte() == JOURNAL_UPSERT;
+                final var id = recordIn.readUTF();
+                if (upsert) {
+                    entries.put(id, readEntry(recordIn));
+                }
+                else {
+                    entries.remove(id);
+                }
+                valid += Integer.BYTES + record.length;
+                records++;
+            }
+        }
+        catch (EOFException e) {
+            log.warn("Memory journal {} ends with an incomplete record, truncating it to {} bytes", path, valid);
+            try (final var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        journalRecords.put(snapshotPath.getFileName().toString(), records);
+    }
+
+    private StoredAgentMemory readEntry(DataInputStream in) throws IOException {
+        final var memoryBytes = new byte[in.readInt()];
+        in.readFully(memoryBytes);
+        final var modifiedAt = in.readLong();
+        final var dimensions = in.readInt();
+        float[] vector = null;
+        if (dimensions >= 0) {
+            vector = new float[dimensions];
+            for (int j = 0; j < dimensions; j++) {
+                vector[j] = in.readFloat();
+            }
+        }
+        return stored(mapper.readValue(memoryBytes, AgentMemory.class), vector, modifiedAt);
+    }
+
+    /**
+     * Reads the snapshot of a scope along with its journal into the cache
+     */
+    @SneakyThrows
+    private void readSnapshot(Path path) {
+        final var entries = new LinkedHashMap<String, StoredAgentMemory>();
+        if (Files.exists(path)) {
+            try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                final var version = in.readInt();
+                if (version != SNAPSHOT_VERSION) {
+                    // Memories are re-read from their directories and the journal is superseded by the new snapshot
+                    log.warn("Ignoring memory snapshot {} with unsupported version {}", path, version);
+                    return;
+                }
+                final var count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    entries.put(in.readUTF(), readEntry(in));
+                }
+            }
+            catch (EOFException e) {
+                log.warn("Memory snapshot {} is truncated, remaining memories will be read from their directories",
+                         path);
+            }
+        }
+        readJournal(path, entries);
+        entries.forEach(this::addLoaded);
     }
 
+    /**
+     * Brings the cache and the snapshots in line with the memory directories on disk. Directories not covered by a
+     * snapshot, or modified after their snapshot entry was written, are parsed in parallel and memories whose
+     * directory has been removed are dropped.
+     *
+     * @return Scopes whose snapshots are out of date
+     */
     @SneakyThrows
-    private void loadMemories() {
+    private Set<ScopeKey> reconcile(AtomicInteger loadedFromDirs) {
+        final Set<String> onDisk;
         try (final var paths = Files.list(memoryRoot)) {
-            paths.filter(Files::isDirectory).forEach(path -> {
-                try {
-                    final var memoryFile = path.resolve(MEMORY_FILE_NAME);
-                    final var vectorFile = path.resolve(VECTOR_FILE_NAME);
-                    if (Files.exists(memoryFile) && Files.exists(vectorFile)) {
-                        final var memory = mapper.readValue(memoryFile.toFile(), AgentMemory.class);
-                        final var vector = mapper.readValue(vectorFile.toFile(), float[].class);
-                        final var stored = new StoredAgentMemory();
-                        stored.setMemory(memory);
-                        stored.setVector(vector);
-                        stored.setVectorNorm(vectorNorm(vector)); // pre-compute norm at load time
-                        cache.put(path.getFileName().toString(), stored);
-                    }
+            onDisk = paths.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> !name.equals(SNAPSHOT_DIR_NAME))
+                    .collect(Collectors.toSet());
+        }
+        final var dirty = ConcurrentHashMap.<ScopeKey>newKeySet();
+        final var modified = ConcurrentHashMap.<String>newKeySet();
+        CompletableFuture.allOf(onDisk.stream()
+                                        .map(id -> CompletableFuture.runAsync(() -> {
+                                            final var memoryDir = memoryRoot.resolve(id);
+                                            final var cached = cache.get(id);
+                                            if (cached != null) {
+                                                if (cached.getModifiedAt() != modifiedAt(memoryDir)) {
+                                                    modified.add(id);
+                                                }
+                                                return;
+                                            }
+                                            final var stored = loadMemoryDir(memoryDir);
+                                            if (stored != null && addLoaded(id, stored)) {
+                                                dirty.add(scopeKey(stored.getMemory()));
+                                                loadedFromDirs.incrementAndGet();
+                                            }
+                                        }, loader))
+                                        .toArray(CompletableFuture[]::new))
+                .join();
+        final var stamp = lock.writeLock();
+        try {
+            // Checked again under the lock as the memory may have been saved again since it was looked at
+            for (final var id : modified) {
+                final var memoryDir = memoryRoot.resolve(id);
+                final var cached = cache.get(id);
+                final var stored = cached != null && cached.getModifiedAt() != modifiedAt(memoryDir)
+                        ? loadMemoryDir(memoryDir)
+                        : null;
+                if (stored != null) {
+                    addToCache(id, stored);
+                    dirty.add(scopeKey(stored.getMemory()));
+                    loadedFromDirs.incrementAndGet();
+                }
+            }
+            for (final var id : List.copyOf(cache.keySet())) {
+                // Directories created after the listing above belong to memories saved while loading
+                if (!onDisk.contains(id) && !Files.exists(memoryRoot.resolve(id))) {
+                    final var removed = cache.remove(id);
+                    unindex(id, removed.getMemory());
+                    dirty.add(scopeKey(removed.getMemory()));
                 }
-                catch (Exception e) {
-                    log.error("Failed to load memory from path: {}", path, e);
+            }
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+        return dirty;
+    }
+
+    /**
+     * Registers all scope snapshots and journals found on disk so that they can be read on demand
+     */
+    @SneakyThrows
+    private void registerSnapshots() {
+        try (final var paths = Files.list(snapshotRoot)) {
+            paths.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SNAPSHOT_SUFFIX) || name.endsWith(JOURNAL_SUFFIX))
+                    .map(name -> name.endsWith(JOURNAL_SUFFIX)
+                            ? name.substring(0, name.length() - JOURNAL_SUFFIX.length()) + SNAPSHOT_SUFFIX
+                            : name)
+                    .forEach(name -> snapshotLoads.computeIfAbsent(name,
+                                                                   key -> new SnapshotLoad(snapshotRoot.resolve(key))));
+        }
+    }
+
+    /**
+     * Runs the full load on the coordinator thread. The loader pool is shut down once the full load completes.
+     */
+    private void runLoad() {
+        try {
+            loadAll();
+        }
+        catch (Throwable t) {
+            log.error("Failed to load memories from {}", memoryRoot, t);
+            // No-op for the cache if the failure happened after loading, while writing snapshots
+            loaded.completeExceptionally(t);
+            snapshotsSynced.completeExceptionally(t);
+        }
+        finally {
+            loader.shutdown();
+        }
+    }
+
+    private Set<String> scopeIds(ScopeKey scopeKey) {
+        return scopeKeyIndex.getOrDefault(scopeKey, Set.of());
+    }
+
+    private void unindex(String id, AgentMemory memory) {
+        if (memory.getScope() != null) {
+            removeFromIndex(scopeIndex, memory.getScope(), id);
+        }
+        removeFromIndex(scopeKeyIndex, scopeKey(memory), id);
+        if (memory.getMemoryType() != null) {
+            removeFromIndex(typeIndex, memory.getMemoryType(), id);
+        }
+    }
+
+    /**
+     * Rewrites the snapshot of a single scope from the cache and drops its journal. Must be called with the write lock
+     * held.
+     */
+    @SneakyThrows
+    private void writeSnapshot(ScopeKey scopeKey) {
+        final var snapshotName = snapshotFileName(scopeKey.scope(), scopeKey.scopeId());
+        final var path = snapshotRoot.resolve(snapshotName);
+        final var entries = new ArrayList<Map.Entry<String, StoredAgentMemory>>();
+        for (final var id : scopeIds(scopeKey)) {
+            final var stored = cache.get(id);
+            if (stored != null) {
+                entries.add(Map.entry(id, stored));
+            }
+        }
+        if (entries.isEmpty()) {
+            FileUtils.delete(path);
+        }
+        else {
+            final var tempFile = Files.createTempFile(snapshotRoot, "snapshot", ".tmp");
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(entries.size());
+                for (final var entry : entries) {
+                    out.writeUTF(entry.getKey());
+                    writeEntry(out, mapper.writeValueAsBytes(entry.getValue().getMemory()), entry.getValue());
                 }
-            });
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         }
+        // Replaying the journal over the new snapshot is harmless, so a crash before this point loses nothing
+        FileUtils.delete(journalPath(path));
+        journalRecords.remove(snapshotName);
     }
 }
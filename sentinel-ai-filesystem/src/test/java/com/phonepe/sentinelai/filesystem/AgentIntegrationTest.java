@@ -282,5 +282,6 @@ class AgentIntegrationTest {
                         .map(SessionSummary::getUpdatedAt)
                         .orElse(0L) > updatedTime.get());
         updatedTime.set(sessionStorage.session("s1").get().getUpdatedAt());
+        memoryStorage.close();
     }
 }
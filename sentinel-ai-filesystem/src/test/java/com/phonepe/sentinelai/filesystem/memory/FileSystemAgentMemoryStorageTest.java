@@ -18,6 +18,7 @@ package com.phonepe.sentinelai.filesystem.memory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -26,17 +27,27 @@ import org.mockito.Mockito;
 import com.phonepe.sentinelai.agentmemory.AgentMemory;
 import com.phonepe.sentinelai.agentmemory.MemoryScope;
 import com.phonepe.sentinelai.agentmemory.MemoryType;
+import com.phonepe.sentinelai.agentmemory.compaction.CompactableAgentMemoryStore.ScopeKey;
 import com.phonepe.sentinelai.core.utils.JsonUtils;
 import com.phonepe.sentinelai.embedding.EmbeddingModel;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class FileSystemAgentMemoryStorageTest {
@@ -45,6 +56,7 @@ class FileSystemAgentMemoryStorageTest {
     Path tempDir;
 
     private EmbeddingModel embeddingModel;
+    private final List<FileSystemAgentMemoryStorage> storages = new ArrayList<>();
     private FileSystemAgentMemoryStorage memoryStorage;
     private ObjectMapper objectMapper;
 
@@ -57,7 +69,63 @@ class FileSystemAgentMemoryStorageTest {
                 0.1f, 0.2f, 0.3f
         });
 
-        memoryStorage = new FileSystemAgentMemoryStorage(tempDir.toString(), objectMapper, embeddingModel);
+        memoryStorage = newStorage();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storages.forEach(FileSystemAgentMemoryStorage::close);
+    }
+
+    @Test
+    void testAgentScopesAreIndexedPerAgent() {
+        for (int i = 0; i < 200; i++) {
+            saveMemory("m" + i, MemoryScope.AGENT, "agent2", MemoryType.PROCEDURAL, List.of("t1"), 5);
+        }
+        for (int i = 0; i < 100; i++) {
+            saveMemory("m1", MemoryScope.AGENT, "agent1", MemoryType.PROCEDURAL, List.of("t" + i), 5);
+        }
+
+        // The journal of an agent is folded into its snapshot based on its own memories, not those of all agents
+        final var records = memoryStorage.getJournalRecordsForTest(MemoryScope.AGENT, "agent1");
+        assertTrue(records > 0 && records < 64, "Unexpected journal size " + records);
+        final var agentOne = new ScopeKey(MemoryScope.AGENT, "agent1");
+        assertEquals(1, memoryStorage.getScopeKeyIndexForTest().get(agentOne).size());
+        assertEquals(1, memoryStorage.memoriesInScope(agentOne, 1_000).size());
+        assertEquals(200, memoryStorage.memoriesInScope(new ScopeKey(MemoryScope.AGENT, "agent2"), 1_000).size());
+        assertEquals(List.of("t99"),
+                     newStorage().findMemories("agent1", MemoryScope.AGENT, null, null, null, 0, 10)
+                             .stream()
+                             .filter(m -> m.getScopeId().equals("agent1"))
+                             .findFirst()
+                             .orElseThrow()
+                             .getTopics());
+    }
+
+    @Test
+    void testChangeListenersSeeSavesAndDeletes() {
+        final var changed = new ArrayList<String>();
+        final Consumer<List<AgentMemory>> listener = memories -> memories.forEach(memory -> changed.add(memory
+                .getName()));
+        memoryStorage.addChangeListener(listener);
+
+        final var m1 = saveMemory("m1", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+        assertEquals(List.of("m1"), changed);
+
+        // Deleting a memory that is not in the store is not a change
+        assertEquals(1, memoryStorage.delete(List.of(m1,
+                                                     memory("m2",
+                                                            MemoryScope.ENTITY,
+                                                            "user1",
+                                                            MemoryType.SEMANTIC,
+                                                            List.of("t1"),
+                                                            5))));
+        assertEquals(List.of("m1", "m1"), changed);
+
+        // Removed listeners are not called any more
+        memoryStorage.removeChangeListener(listener);
+        saveMemory("m3", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+        assertEquals(List.of("m1", "m1"), changed);
     }
 
     @Test
@@ -85,12 +153,71 @@ class FileSystemAgentMemoryStorageTest {
         assertEquals(2, memoryStorage.findMemories(null, null, null, null, null, 5, 10).size());
     }
 
+    @Test
+    void testIndexFollowsUpdatedMemory() {
+        saveMemory("m1", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+        saveMemory("m1", MemoryScope.ENTITY, "user1", MemoryType.EPISODIC, List.of("t1"), 5);
+
+        // Re-saving under the same key must move the memory between type postings, not duplicate it
+        final var semantic = Set.of(MemoryType.SEMANTIC);
+        final var episodic = Set.of(MemoryType.EPISODIC);
+        assertTrue(memoryStorage.findMemories("user1", MemoryScope.ENTITY, semantic, null, null, 0, 10).isEmpty());
+        assertEquals(1, memoryStorage.findMemories("user1", MemoryScope.ENTITY, episodic, null, null, 0, 10).size());
+        assertEquals(1,
+                     memoryStorage.getScopeKeyIndexForTest()
+                             .get(new ScopeKey(MemoryScope.ENTITY, "user1"))
+                             .size());
+        assertTrue(memoryStorage.getTypeIndexForTest().get(MemoryType.SEMANTIC).isEmpty());
+
+        // Indices are rebuilt on load
+        final var newStorage = newStorage();
+        assertEquals(1, newStorage.findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 10).size());
+        assertTrue(newStorage.findMemories("user2", MemoryScope.ENTITY, null, null, null, 0, 10).isEmpty());
+        assertTrue(newStorage.findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 0).isEmpty());
+    }
+
+    @Test
+    void testJournalIsCompactedIntoSnapshot() {
+        for (int i = 0; i < 100; i++) {
+            saveMemory("m1", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t" + i), 5);
+        }
+        saveMemory("m2", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+
+        // Re-saving the same memory must not grow the journal without bound
+        final var records = memoryStorage.getJournalRecordsForTest(MemoryScope.ENTITY, "user1");
+        assertTrue(records > 0 && records < 64, "Unexpected journal size " + records);
+        final var reloaded = newStorage().findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 10);
+        assertEquals(2, reloaded.size());
+        assertEquals(List.of("t99"),
+                     reloaded.stream().filter(m -> m.getName().equals("m1")).findFirst().orElseThrow().getTopics());
+    }
+
+    @Test
+    void testModifiedDirectoryWinsOverJournal() throws Exception {
+        final var saved = saveMemory("m1", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+
+        // Simulates a crash after the memory directory was rewritten but before the journal was appended to
+        final var memoryFile = tempDir.resolve(FileSystemAgentMemoryStorage.memoryId(saved)).resolve("memory.json");
+        Files.write(memoryFile, objectMapper.writeValueAsBytes(saved.withContent("updated content")));
+        final var reloaded = newStorage();
+        reloaded.awaitLoaded();
+        final var found = reloaded.findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 10);
+        assertEquals(1, found.size());
+        assertEquals("updated content", found.get(0).getContent());
+
+        // The snapshot is brought up to date, so the next start serves the new content from it
+        assertEquals("updated content",
+                     newStorage().findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 10)
+                             .get(0)
+                             .getContent());
+    }
+
     @Test
     void testPersistence() {
         saveMemory("m1", MemoryScope.AGENT, "agent1", MemoryType.SEMANTIC, List.of("t1"), 5);
 
         // Create a new storage instance pointing to the same directory
-        final var newStorage = new FileSystemAgentMemoryStorage(tempDir.toString(), objectMapper, embeddingModel);
+        final var newStorage = newStorage();
 
         final List<AgentMemory> memories = newStorage.findMemories(null, null, null, null, null, 0, 10);
         assertEquals(1, memories.size());
@@ -126,6 +253,35 @@ class FileSystemAgentMemoryStorageTest {
         assertEquals("test-memory", memories.get(0).getName());
     }
 
+    @Test
+    void testSaveAllEmbedsInSingleBatch() {
+        when(embeddingModel.getEmbeddings(anyList())).thenReturn(List.of(new float[]{
+                1.0f, 0.0f
+        }, new float[]{
+                0.0f, 1.0f
+        }));
+        when(embeddingModel.getEmbedding("query")).thenReturn(new float[]{
+                0.0f, 1.0f
+        });
+        final var memories = List.of(memory("m1", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of(), 5),
+                                     memory("m2", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of(), 5));
+
+        final var saved = memoryStorage.saveAll(memories);
+
+        assertEquals(2, saved.size());
+        verify(embeddingModel, times(1)).getEmbeddings(List.of("content for m1", "content for m2"));
+        verify(embeddingModel, never()).getEmbedding("content for m1");
+        // Vectors must be matched to the right memories
+        assertEquals("m2",
+                     memoryStorage.findMemories("user1", MemoryScope.ENTITY, null, null, "query", 0, 1)
+                             .get(0)
+                             .getName());
+        assertEquals(2,
+                     newStorage().findMemories(null, null, null, null, null, 0, 10)
+                             .size());
+        assertTrue(memoryStorage.saveAll(List.of()).isEmpty());
+    }
+
     @Test
     void testSemanticSearch() {
         // Mock embeddings for query and memories
@@ -148,13 +304,33 @@ class FileSystemAgentMemoryStorageTest {
         assertEquals("m2", results.get(1).getName());
     }
 
-    private AgentMemory saveMemory(String name,
-                                   MemoryScope scope,
-                                   String scopeId,
-                                   MemoryType type,
-                                   List<String> topics,
-                                   int score) {
-        final AgentMemory memory = AgentMemory.builder()
+    @Test
+    void testTruncatedJournalRecordIsDropped() throws Exception {
+        saveMemory("m1", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+        saveMemory("m2", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5);
+        memoryStorage.awaitLoaded();
+
+        // A crash in the middle of an append leaves a partial record at the end of the journal
+        final var journal = tempDir.resolve("_snapshots")
+                .resolve(FileSystemAgentMemoryStorage.snapshotFileName(MemoryScope.ENTITY, "user1")
+                                 .replace(".snapshot", ".journal"));
+        final var bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, bytes.length - 10));
+        final var reloaded = newStorage();
+        // Appends made once the scope has been read must stay readable
+        reloaded.save(memory("m3", MemoryScope.ENTITY, "user1", MemoryType.SEMANTIC, List.of("t1"), 5));
+        reloaded.awaitLoaded();
+        assertEquals(3, reloaded.findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 10).size());
+        assertEquals(3, newStorage().findMemories("user1", MemoryScope.ENTITY, null, null, null, 0, 10).size());
+    }
+
+    private AgentMemory memory(String name,
+                               MemoryScope scope,
+                               String scopeId,
+                               MemoryType type,
+                               List<String> topics,
+                               int score) {
+        return AgentMemory.builder()
                 .agentName("agent1")
                 .scope(scope)
                 .scopeId(scopeId)
@@ -166,6 +342,21 @@ class FileSystemAgentMemoryStorageTest {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+    }
+
+    private FileSystemAgentMemoryStorage newStorage() {
+        final var storage = new FileSystemAgentMemoryStorage(tempDir.toString(), objectMapper, embeddingModel);
+        storages.add(storage);
+        return storage;
+    }
+
+    private AgentMemory saveMemory(String name,
+                                   MemoryScope scope,
+                                   String scopeId,
+                                   MemoryType type,
+                                   List<String> topics,
+                                   int score) {
+        final AgentMemory memory = memory(name, scope, scopeId, type, topics, score);
         memoryStorage.save(memory);
         return memory;
     }
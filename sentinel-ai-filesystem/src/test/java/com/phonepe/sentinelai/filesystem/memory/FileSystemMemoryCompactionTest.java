@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.filesystem.memory;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.phonepe.sentinelai.agentmemory.AgentMemory;
+import com.phonepe.sentinelai.agentmemory.MemoryScope;
+import com.phonepe.sentinelai.agentmemory.MemoryType;
+import com.phonepe.sentinelai.agentmemory.compaction.AgentMemoryCompactor;
+import com.phonepe.sentinelai.agentmemory.compaction.MemoryCompactionConfig;
+import com.phonepe.sentinelai.agentmemory.compaction.MemoryCompactionPolicy;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+import com.phonepe.sentinelai.embedding.EmbeddingModel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link AgentMemoryCompactor} running against {@link FileSystemAgentMemoryStorage}
+ */
+@Slf4j
+class FileSystemMemoryCompactionTest {
+    private static final int DIMENSIONS = 64;
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, float[]> vectors = new HashMap<>();
+    private EmbeddingModel embeddingModel;
+    private FileSystemAgentMemoryStorage storage;
+
+    private static float[] noisy(float[] base, long seed) {
+        final var rng = new Random(seed);
+        final var v = base.clone();
+        for (int i = 0; i < v.length; i++) {
+            v[i] += (rng.nextFloat() - 0.5f) * 0.02f;
+        }
+        return v;
+    }
+
+    private static float[] randomVector(long seed) {
+        final var rng = new Random(seed);
+        final var v = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            v[i] = rng.nextFloat() * 2 - 1;
+        }
+        return v;
+    }
+
+    private static long time(int iterations, Runnable runnable) {
+        for (int i = 0; i < iterations; i++) {
+            runnable.run();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            runnable.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    void compactionIsResumableAcrossRuns() {
+        // 12 users, 2 facts each, every fact stored 3 times
+        populate(12, 2, 3);
+        final var compactor = AgentMemoryCompactor.builder()
+                .store(storage)
+                .config(MemoryCompactionConfig.builder()
+                        .maxScopesPerRun(5)
+                        .pauseBetweenScopes(Duration.ZERO)
+                        .build())
+                .build();
+
+        compactor.runOnce();
+        compactor.runOnce();
+        assertEquals(0, compactor.getStats().getPassesCompleted());
+        assertEquals(10, compactor.getStats().getScopesProcessed());
+        compactor.runOnce();
+        assertEquals(1, compactor.getStats().getPassesCompleted());
+        assertEquals(12, compactor.getStats().getScopesProcessed());
+        assertEquals(12 * 2, storage.getCacheForTest().size());
+
+        // A fresh pass over an already compacted store is a no-op
+        final var result = compactor.runOnce();
+        assertEquals(0, result.getEvicted());
+        compactor.close();
+    }
+
+    @Test
+    void compactionReducesIndexSize() {
+        // 50 users, 10 distinct facts each, every fact extracted 8 times with slightly different wording/vectors
+        populate(50, 10, 8);
+        assertEquals(4_000, storage.getCacheForTest().size());
+        assertEquals(4_000, countMemoryDirs());
+
+        final var result = newCompactor().runOnce();
+
+        assertEquals(500, storage.getCacheForTest().size());
+        assertEquals(3_500, result.getEvicted());
+        assertEquals(500, countMemoryDirs());
+        // Compaction survives a restart
+        try (final var restarted = new FileSystemAgentMemoryStorage(tempDir.toString(),
+                                                                     JsonUtils.createMapper(),
+                                                                     embeddingModel)) {
+            assertEquals(500, restarted.getCacheForTest().size());
+        }
+        // Every user still gets one memory per distinct fact
+        final var facts = storage.findMemories("user-42", MemoryScope.ENTITY, null, null, null, 0, 100);
+        assertEquals(10, facts.size());
+        assertEquals(10, facts.stream().map(m -> m.getContent().trim().toLowerCase()).distinct().count());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compactionReducesSearchLatency() {
+        populate(50, 10, 8);
+        final var sizeBefore = storage.getCacheForTest().size();
+        final var latencyBefore = time(200, this::searchAllUsers);
+
+        final long compactionStart = System.nanoTime();
+        final var result = newCompactor().runOnce();
+        final long compactionNs = System.nanoTime() - compactionStart;
+
+        final var latencyAfter = time(200, this::searchAllUsers);
+        log.info("users=50 facts/user=10 copies/fact=8 D={}: compaction scanned {} evicted {} in {} ms, "
+                         + "memories {} -> {}, search {} ms -> {} ms for 200 x 50 user queries",
+                 DIMENSIONS,
+                 result.getScanned(),
+                 result.getEvicted(),
+                 compactionNs / 1_000_000,
+                 sizeBefore,
+                 storage.getCacheForTest().size(),
+                 latencyBefore / 1_000_000,
+                 latencyAfter / 1_000_000);
+    }
+
+    @Test
+    void keepMostReusablePolicyKeepsHighestScoredMemory() {
+        save("u1", "NameA", "user's name is santanu", 3, List.of("a"), randomVector(1));
+        save("u1", "NameB", "User's  name is Santanu", 9, List.of("b"), randomVector(2));
+        save("u1", "NameC", "user's name is santanu ", 5, List.of("c"), randomVector(3));
+
+        AgentMemoryCompactor.builder()
+                .store(storage)
+                .config(MemoryCompactionConfig.builder()
+                        .policy(MemoryCompactionPolicy.KEEP_MOST_REUSABLE)
+                        .pauseBetweenScopes(Duration.ZERO)
+                        .build())
+                .build()
+                .runOnce();
+
+        final var remaining = storage.findMemories("u1", MemoryScope.ENTITY, null, null, null, 0, 10);
+        assertEquals(1, remaining.size());
+        assertEquals("NameB", remaining.get(0).getName());
+    }
+
+    @Test
+    void mergePolicyFoldsDuplicatesIntoLatest() {
+        final var base = randomVector(7);
+        save("u1", "Old", "User lives in Bangalore", 8, List.of("location"), base);
+        save("u1", "New", "User is based out of Bangalore", 4, List.of("city"), noisy(base, 1));
+        save("u1", "Other", "User likes cricket", 6, List.of("sports"), randomVector(8));
+        save("u2", "Same", "User lives in Bangalore", 8, List.of("location"), base);
+
+        final var compactor = AgentMemoryCompactor.builder()
+                .store(storage)
+                .config(MemoryCompactionConfig.builder()
+                        .policy(MemoryCompactionPolicy.MERGE)
+                        .pauseBetweenScopes(Duration.ZERO)
+                        .build())
+                .build();
+        compactor.runOnce();
+
+        final var remaining = storage.findMemories("u1", MemoryScope.ENTITY, null, null, null, 0, 10);
+        assertEquals(2, remaining.size());
+        final var merged = remaining.stream().filter(m -> m.getName().equals("New")).findFirst().orElseThrow();
+        assertEquals(Set.of("city", "location"), Set.copyOf(merged.getTopics()));
+        assertEquals(8, merged.getReusabilityScore());
+        // Other scopes are never compared against each other
+        assertEquals(1, storage.findMemories("u2", MemoryScope.ENTITY, null, null, null, 0, 10).size());
+        assertEquals(1, compactor.getStats().getMemoriesMerged());
+        assertEquals(1, compactor.getStats().getMemoriesEvicted());
+    }
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = Mockito.mock(EmbeddingModel.class);
+        when(embeddingModel.getEmbedding(anyString()))
+                .thenAnswer(invocation -> vectors.get(invocation.getArgument(0, String.class)));
+        when(embeddingModel.getEmbeddings(anyList()))
+                .thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                        .stream()
+                        .map(vectors::get)
+                        .toList());
+        storage = new FileSystemAgentMemoryStorage(tempDir.toString(), JsonUtils.createMapper(), embeddingModel);
+    }
+
+    @Test
+    void startAndStopRunInBackground() {
+        populate(5, 2, 2);
+        try (final var compactor = AgentMemoryCompactor.builder()
+                .store(storage)
+                .config(MemoryCompactionConfig.builder()
+                        .runInterval(Duration.ofMillis(50))
+                        .pauseBetweenScopes(Duration.ZERO)
+                        .build())
+                .build()) {
+            compactor.start();
+            compactor.start();
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(10))
+                    .until(() -> compactor.getStats().getPassesCompleted() > 0);
+            compactor.stop();
+            assertEquals(10, storage.getCacheForTest().size());
+        }
+    }
+
+    @Test
+    void stopLetsTheScopeBeingCompactedFinish() {
+        populate(3, 1, 2);
+        final var store = Mockito.spy(storage);
+        final var deleting = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var interrupted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            deleting.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            interrupted.set(Thread.currentThread().isInterrupted());
+            return invocation.callRealMethod();
+        }).when(store).delete(anyList());
+        try (final var compactor = AgentMemoryCompactor.builder()
+                .store(store)
+                .config(MemoryCompactionConfig.builder()
+                        .runInterval(Duration.ofMillis(10))
+                        .pauseBetweenScopes(Duration.ZERO)
+                        .build())
+                .build()) {
+            compactor.start();
+            Uninterruptibles.awaitUninterruptibly(deleting);
+            compactor.stop();
+            release.countDown();
+
+            // The store call is not interrupted and the run ends after the scope being compacted
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(10))
+                    .until(() -> compactor.getStats().getScopesProcessed() == 1);
+            Awaitility.await()
+                    .during(Duration.ofMillis(200))
+                    .atMost(Duration.ofSeconds(10))
+                    .until(() -> compactor.getStats().getScopesProcessed() == 1);
+            assertFalse(interrupted.get());
+            assertEquals(0, compactor.getStats().getFailures());
+            assertEquals(5, storage.getCacheForTest().size());
+        }
+    }
+
+    private long countMemoryDirs() {
+        try (final var paths = Files.list(tempDir)) {
+            return paths.filter(Files::isDirectory)
+                    .filter(path -> !path.getFileName().toString().equals("_snapshots"))
+                    .count();
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    private AgentMemoryCompactor newCompactor() {
+        return AgentMemoryCompactor.builder()
+                .store(storage)
+                .config(MemoryCompactionConfig.builder()
+                        .pauseBetweenScopes(Duration.ZERO)
+                        .build())
+                .build();
+    }
+
+    private void populate(int users, int factsPerUser, int copiesPerFact) {
+        final var now = LocalDateTime.now();
+        for (int user = 0; user < users; user++) {
+            for (int fact = 0; fact < factsPerUser; fact++) {
+                final var base = randomVector((long) user * factsPerUser + fact);
+                for (int copy = 0; copy < copiesPerFact; copy++) {
+                    final var content = (copy % 2 == 0 ? "User fact %d for user %d" : "user fact %d for user %d ")
+                            .formatted(fact, user) + " ".repeat(copy);
+                    final var memory = memory("user-" + user,
+                                              "Fact%d_%d".formatted(fact, copy),
+                                              content,
+                                              5,
+                                              List.of("facts"))
+                            .withCreatedAt(now)
+                            .withUpdatedAt(now);
+                    vectors.put(content, noisy(base, copy));
+                    storage.save(memory);
+                }
+            }
+        }
+    }
+
+    private void save(String userId, String name, String content, int score, List<String> topics, float[] vector) {
+        vectors.put(content, vector);
+        storage.save(memory(userId, name, content, score, topics));
+    }
+
+    private void searchAllUsers() {
+        for (int user = 0; user < 50; user++) {
+            storage.findMemories("user-" + user, MemoryScope.ENTITY, null, null, null, 0, 20);
+        }
+    }
+
+    private AgentMemory memory(String userId, String name, String content, int score, List<String> topics) {
+        return AgentMemory.builder()
+                .agentName("agent1")
+                .scope(MemoryScope.ENTITY)
+                .scopeId(userId)
+                .memoryType(MemoryType.SEMANTIC)
+                .name(name)
+                .content(content)
+                .topics(topics)
+                .reusabilityScore(score)
+                .build();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.filesystem.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.phonepe.sentinelai.agentmemory.AgentMemory;
+import com.phonepe.sentinelai.agentmemory.MemoryScope;
+import com.phonepe.sentinelai.agentmemory.MemoryType;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+import com.phonepe.sentinelai.embedding.EmbeddingModel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for startup loading of {@link FileSystemAgentMemoryStorage}. The time-to-first-query benchmark runs with
+ * -Pbenchmarks and the number of memories it uses can be raised with -Dsentinelai.memoryStartupCount=100000.
+ */
+@Slf4j
+class FileSystemMemoryStartupTest {
+    private static final int DIMENSIONS = 128;
+    private static final int MEMORIES_PER_USER = 10;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper mapper = JsonUtils.createMapper();
+    private final List<FileSystemAgentMemoryStorage> storages = new ArrayList<>();
+    private EmbeddingModel embeddingModel;
+
+    private static AgentMemory memory(String userId, String name, String content) {
+        final var now = LocalDateTime.now();
+        return AgentMemory.builder()
+                .agentName("agent")
+                .scope(MemoryScope.ENTITY)
+                .scopeId(userId)
+                .memoryType(MemoryType.SEMANTIC)
+                .name(name)
+                .content(content)
+                .topics(List.of("topic"))
+                .reusabilityScore(5)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static float[] randomVector(Random rng) {
+        final var v = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            v[i] = rng.nextFloat() * 2 - 1;
+        }
+        return v;
+    }
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = Mockito.mock(EmbeddingModel.class);
+        final var rng = new Random(42);
+        when(embeddingModel.getEmbedding(anyString())).thenAnswer(invocation -> randomVector(rng));
+        when(embeddingModel.getEmbeddings(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0))
+                .stream()
+                .map(input -> randomVector(rng))
+                .toList());
+    }
+
+    @Test
+    void legacyDirectoriesAreFoldedIntoSnapshots() throws Exception {
+        // Store written by a version without snapshots
+        writeMemoryDirs(100);
+        final var first = newStorage();
+        assertEquals(MEMORIES_PER_USER, findUserMemories(first, "user-3").size());
+        assertEquals(100, first.getCacheForTest().size());
+        assertTrue(Files.exists(tempDir.resolve("_snapshots").resolve("COMPLETE")));
+
+        // Saves and deletes are reflected in the snapshots that are read on the next start
+        first.save(memory("user-3", "new-fact", "user likes tea"));
+        first.delete(List.of(memory("user-4", "fact-4", "")));
+        final var second = newStorage();
+        final var userThree = findUserMemories(second, "user-3");
+        assertEquals(MEMORIES_PER_USER + 1, userThree.size());
+        assertTrue(userThree.stream().anyMatch(m -> m.getName().equals("new-fact")));
+        assertEquals(MEMORIES_PER_USER - 1, findUserMemories(second, "user-4").size());
+
+        // A memory directory that made it to disk without its snapshot is picked up during reconciliation
+        second.awaitLoaded();
+        Files.delete(tempDir.resolve("_snapshots")
+                             .resolve(FileSystemAgentMemoryStorage.snapshotFileName(MemoryScope.ENTITY, "user-5")));
+        final var third = newStorage();
+        third.awaitLoaded();
+        assertEquals(MEMORIES_PER_USER, findUserMemories(third, "user-5").size());
+        assertEquals(100, third.getCacheForTest().size());
+        final var fourth = newStorage();
+        assertEquals(MEMORIES_PER_USER, findUserMemories(fourth, "user-5").size());
+        fourth.awaitLoaded();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storages.forEach(FileSystemAgentMemoryStorage::close);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void timeToFirstQuery() throws Exception {
+        final int count = Integer.getInteger("sentinelai.memoryStartupCount", 20_000);
+        final long writeStart = System.nanoTime();
+        writeMemoryDirs(count);
+        final long writeNs = System.nanoTime() - writeStart;
+
+        // Old behaviour: both files of every memory parsed serially before the first query
+        final long serialStart = System.nanoTime();
+        var serialLoaded = 0;
+        try (final var paths = Files.list(tempDir)) {
+            for (final var path : paths.filter(Files::isDirectory).toList()) {
+                mapper.readValue(path.resolve("memory.json").toFile(), AgentMemory.class);
+                mapper.readValue(path.resolve("vector.json").toFile(), float[].class);
+                serialLoaded++;
+            }
+        }
+        final long serialNs = System.nanoTime() - serialStart;
+        assertEquals(count, serialLoaded);
+
+        // First start: no snapshots yet, memory directories are parsed in parallel
+        final long coldStart = System.nanoTime();
+        final var cold = newStorage();
+        final var coldResults = findUserMemories(cold, "user-7");
+        final long coldNs = System.nanoTime() - coldStart;
+        cold.awaitLoaded();
+        final long coldFullNs = System.nanoTime() - coldStart;
+
+        // Restart: the scope snapshot is read on demand while the rest load in the background
+        final long warmStart = System.nanoTime();
+        final var warm = newStorage();
+        final var warmResults = findUserMemories(warm, "user-7");
+        final long warmNs = System.nanoTime() - warmStart;
+        warm.awaitLoaded();
+        final long warmFullNs = System.nanoTime() - warmStart;
+
+        log.info("memories={} users={} D={} (written in {} ms): serial directory load {} ms, first query without "
+                         + "snapshots {} ms, snapshots written {} ms, first query from snapshots {} ms, full load from "
+                         + "snapshots {} ms",
+                 count,
+                 count / MEMORIES_PER_USER,
+                 DIMENSIONS,
+                 writeNs / 1_000_000,
+                 serialNs / 1_000_000,
+                 coldNs / 1_000_000,
+                 coldFullNs / 1_000_000,
+                 warmNs / 1_000_000,
+                 warmFullNs / 1_000_000);
+
+        assertEquals(MEMORIES_PER_USER, coldResults.size());
+        assertEquals(coldResults, warmResults);
+        assertEquals(count, warm.getCacheForTest().size());
+    }
+
+    private List<AgentMemory> findUserMemories(FileSystemAgentMemoryStorage storage, String userId) {
+        return storage.findMemories(userId, MemoryScope.ENTITY, null, null, null, 0, 100);
+    }
+
+    private FileSystemAgentMemoryStorage newStorage() {
+        final var storage = new FileSystemAgentMemoryStorage(tempDir.toString(), mapper, embeddingModel);
+        storages.add(storage);
+        return storage;
+    }
+
+    private void writeMemoryDirs(int count) throws Exception {
+        final var rng = new Random(7);
+        final var users = count / MEMORIES_PER_USER;
+        for (int i = 0; i < count; i++) {
+            final var memory = memory("user-" + (i % users),
+                                      "fact-" + (i / users),
+                                      "fact %d about user %d".formatted(i / users, i % users));
+            final var dir = Files.createDirectories(tempDir.resolve(FileSystemAgentMemoryStorage.memoryId(memory)));
+            Files.write(dir.resolve("memory.json"), mapper.writeValueAsBytes(memory));
+            Files.write(dir.resolve("vector.json"), mapper.writeValueAsBytes(randomVector(rng)));
+        }
+    }
+}
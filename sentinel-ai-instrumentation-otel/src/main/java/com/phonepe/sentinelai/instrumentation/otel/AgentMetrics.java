@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.instrumentation.otel;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+
+import java.time.Duration;
+
+/**
+ * Metric instruments for agent runs. Attributes are limited to agent, provider, model, operation, tool name and
+ * error type so that the number of series stays bounded; run, session and tool call ids are never recorded.
+ */
+final class AgentMetrics {
+
+    private final String providerName;
+    private final String requestModel;
+
+    private final LongHistogram runDuration;
+    private final LongHistogram modelCallDuration;
+    private final LongHistogram toolCallDuration;
+    private final LongHistogram tokenUsage;
+    private final LongCounter errors;
+    private final LongCounter compactions;
+
+    AgentMetrics(Meter meter, String providerName, String requestModel) {
+        final var actualMeter = meter == null
+                ? MeterProvider.noop().get(AgentMetrics.class.getName())
+                : meter;
+        this.providerName = providerName;
+        this.requestModel = requestModel == null || requestModel.isBlank() ? null : requestModel;
+        this.runDuration = actualMeter.histogramBuilder(Constants.METRIC_RUN_DURATION)
+                .setDescription("Duration of agent runs")
+                .setUnit("ms")
+                .ofLongs()
+                .build();
+        this.modelCallDuration = actualMeter.histogramBuilder(Constants.METRIC_MODEL_CALL_DURATION)
+                .setDescription("Duration of individual model calls made during agent runs")
+                .setUnit("ms")
+                .ofLongs()
+                .build();
+        this.toolCallDuration = actualMeter.histogramBuilder(Constants.METRIC_TOOL_CALL_DURATION)
+                .setDescription("Duration of tool calls made during agent runs")
+                .setUnit("ms")
+                .ofLongs()
+                .build();
+        this.tokenUsage = actualMeter.histogramBuilder(Constants.METRIC_TOKEN_USAGE)
+                .setDescription("Number of input and output tokens used")
+                .setUnit("{token}")
+                .ofLongs()
+                .build();
+        this.errors = actualMeter.counterBuilder(Constants.METRIC_ERRORS)
+                .setDescription("Number of failed agent runs, tool calls and compactions")
+                .setUnit("{error}")
+                .build();
+        this.compactions = actualMeter.counterBuilder(Constants.METRIC_COMPACTIONS)
+                .setDescription("Number of message compactions")
+                .setUnit("{compaction}")
+                .build();
+    }
+
+    private static boolean isError(ErrorType errorType) {
+        return errorType != null && !ErrorType.SUCCESS.equals(errorType);
+    }
+
+    void recordCompaction(String agentName, ErrorType errorType, ModelUsageStats usage) {
+        final var attributes = attributes(agentName, Constants.OPERATION_COMPACT);
+        if (isError(errorType)) {
+            compactions.add(1, attributes.put(Constants.ATTR_ERROR_TYPE, errorType.name()).build());
+            recordError(agentName, Constants.OPERATION_COMPACT, errorType.name());
+        }
+        else {
+            compactions.add(1, attributes.build());
+        }
+        if (usage != null) {
+            recordTokens(agentName, Constants.OPERATION_COMPACT, usage.getRequestTokens(), usage.getResponseTokens());
+        }
+    }
+
+    void recordError(String agentName, String operationName, String errorType) {
+        errors.add(1,
+                   attributes(agentName, operationName)
+                           .put(Constants.ATTR_ERROR_TYPE, errorType)
+                           .build());
+    }
+
+    void recordModelCall(String agentName, Duration elapsedTime) {
+        if (elapsedTime == null) {
+            return;
+        }
+        modelCallDuration.record(elapsedTime.toMillis(), attributes(agentName, Constants.OPERATION_CHAT).build());
+    }
+
+    /**
+     * @param runModelCalls Model calls tracked for the run, used to leave compaction usage out of the run's token
+     *                      usage as it is already recorded under the compact operation. Null if the run was not
+     *                      tracked.
+     */
+    void recordRun(String agentName,
+                   Duration elapsedTime,
+                   ErrorType errorType,
+                   ModelUsageStats usage,
+                   ModelCallState runModelCalls) {
+        final var attributes = attributes(agentName, Constants.OPERATION_INVOKE_AGENT);
+        if (isError(errorType)) {
+            attributes.put(Constants.ATTR_ERROR_TYPE, errorType.name());
+            recordError(agentName, Constants.OPERATION_INVOKE_AGENT, errorType.name());
+        }
+        if (elapsedTime != null) {
+            runDuration.record(elapsedTime.toMillis(), attributes.build());
+        }
+        if (usage == null) {
+            return;
+        }
+        if (runModelCalls == null) {
+            recordTokens(agentName,
+                         Constants.OPERATION_INVOKE_AGENT,
+                         usage.getRequestTokens(),
+                         usage.getResponseTokens());
+        }
+        else {
+            recordTokens(agentName,
+                         Constants.OPERATION_INVOKE_AGENT,
+                         runModelCalls.runInputTokens(usage),
+                         runModelCalls.runOutputTokens(usage));
+        }
+    }
+
+    void recordToolCall(String agentName, String toolName, Duration elapsedTime, ErrorType errorType) {
+        final var attributes = attributes(agentName, Constants.OPERATION_EXECUTE_TOOL);
+        if (toolName != null) {
+            attributes.put(Constants.ATTR_TOOL_NAME, toolName);
+        }
+        if (isError(errorType)) {
+            attributes.put(Constants.ATTR_ERROR_TYPE, errorType.name());
+            errors.add(1, attributes.build());
+        }
+        if (elapsedTime != null) {
+            toolCallDuration.record(elapsedTime.toMillis(), attributes.build());
+        }
+    }
+
+    private AttributesBuilder attributes(String agentName, String operationName) {
+        final var builder = Attributes.builder()
+                .put(Constants.ATTR_OPERATION_NAME, operationName)
+                .put(Constants.ATTR_PROVIDER_NAME, providerName);
+        if (agentName != null) {
+            builder.put(Constants.ATTR_AGENT_NAME, agentName);
+        }
+        if (requestModel != null) {
+            builder.put(Constants.ATTR_REQUEST_MODEL, requestModel);
+        }
+        return builder;
+    }
+
+    private void recordTokens(String agentName, String operationName, long inputTokens, long outputTokens) {
+        tokenUsage.record(inputTokens,
+                          attributes(agentName, operationName)
+                                  .put(Constants.ATTR_TOKEN_TYPE, Constants.TOKEN_TYPE_INPUT)
+                                  .build());
+        tokenUsage.record(outputTokens,
+                          attributes(agentName, operationName)
+                                  .put(Constants.ATTR_TOKEN_TYPE, Constants.TOKEN_TYPE_OUTPUT)
+                                  .build());
+    }
+}
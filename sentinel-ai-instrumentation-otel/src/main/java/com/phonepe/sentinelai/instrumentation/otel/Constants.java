@@ -18,6 +18,8 @@ package com.phonepe.sentinelai.instrumentation.otel;
 
 import io.opentelemetry.api.common.AttributeKey;
 
+import java.util.List;
+
 /**
  * Constants for OpenTelemetry agent instrumentation.
  */
@@ -25,6 +27,8 @@ final class Constants {
 
     static final String OPERATION_INVOKE_AGENT = "invoke_agent";
     static final String OPERATION_EXECUTE_TOOL = "execute_tool";
+    static final String OPERATION_CHAT = "chat";
+    static final String OPERATION_COMPACT = "compact";
 
     static final AttributeKey<String> ATTR_OPERATION_NAME = AttributeKey.stringKey("gen_ai.operation.name");
     static final AttributeKey<String> ATTR_PROVIDER_NAME = AttributeKey.stringKey("gen_ai.provider.name");
@@ -37,10 +41,32 @@ final class Constants {
     static final AttributeKey<String> ATTR_TOOL_CALL_ARGUMENTS = AttributeKey.stringKey("gen_ai.tool.call.arguments");
     static final AttributeKey<String> ATTR_TOOL_CALL_RESULT = AttributeKey.stringKey("gen_ai.tool.call.result");
     static final AttributeKey<String> ATTR_ERROR_TYPE = AttributeKey.stringKey("error.type");
+    static final AttributeKey<String> ATTR_REQUEST_MODEL = AttributeKey.stringKey("gen_ai.request.model");
+    static final AttributeKey<String> ATTR_TOKEN_TYPE = AttributeKey.stringKey("gen_ai.token.type");
+    static final AttributeKey<List<String>> ATTR_RESPONSE_FINISH_REASONS = AttributeKey
+            .stringArrayKey("gen_ai.response.finish_reasons");
+    static final AttributeKey<String> ATTR_INPUT_MESSAGES = AttributeKey.stringKey("gen_ai.input.messages");
+    static final AttributeKey<String> ATTR_OUTPUT_MESSAGES = AttributeKey.stringKey("gen_ai.output.messages");
+    static final AttributeKey<Long> ATTR_REQUEST_MESSAGE_COUNT = AttributeKey.longKey("sentinel.request.message_count");
+    static final AttributeKey<Long> ATTR_RETRY_COUNT = AttributeKey.longKey("sentinel.model.retry_count");
+
+    static final String METRIC_RUN_DURATION = "sentinel.agent.run.duration";
+    static final String METRIC_MODEL_CALL_DURATION = "sentinel.agent.model.call.duration";
+    static final String METRIC_TOOL_CALL_DURATION = "sentinel.agent.tool.call.duration";
+    static final String METRIC_TOKEN_USAGE = "gen_ai.client.token.usage";
+    static final String METRIC_ERRORS = "sentinel.agent.errors";
+    static final String METRIC_COMPACTIONS = "sentinel.agent.compactions";
+
+    static final String TOKEN_TYPE_INPUT = "input";
+    static final String TOKEN_TYPE_OUTPUT = "output";
 
     static final String TOOL_APPROVAL_DENIED_ERROR = "tool_call_approval_denied";
     static final String TOOL_INCOMPLETE_ERROR = "tool_call_incomplete";
     static final String RUN_INCOMPLETE_ERROR = "run_incomplete";
+    static final String COMPACTION_INCOMPLETE_ERROR = "compaction_incomplete";
+
+    static final String FINISH_REASON_STOP = "stop";
+    static final String FINISH_REASON_TOOL_CALLS = "tool_calls";
 
     private Constants() {
         // Utility class
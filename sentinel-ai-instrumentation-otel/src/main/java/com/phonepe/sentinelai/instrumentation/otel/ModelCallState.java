@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.instrumentation.otel;
+
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+
+/**
+ * Tracks the model round trips of a single run from its message events. Usage on message received events is a
+ * snapshot of the run's usage so far, so the usage of each call is the difference to the previous response. Requests
+ * that failed and were retried are counted in the usage but have no response, which gives the retry count of a call.
+ */
+final class ModelCallState {
+
+    /**
+     * A completed model round trip. Retries and token counts are -1 if the model does not report usage.
+     */
+    record ModelCall(
+            int retries,
+            int requestMessageCount,
+            long inputTokens,
+            long outputTokens,
+            String inputMessages
+    ) {
+    }
+
+    private int requestMessageCount = -1;
+    private String inputMessages;
+
+    private int requests;
+    private long inputTokens;
+    private long outputTokens;
+
+    private long compactionInputTokens;
+    private long compactionOutputTokens;
+
+    /**
+     * Moves the baseline past usage that was added to the run by compaction, so that it is not attributed to the next
+     * model call.
+     */
+    synchronized void compacted(ModelUsageStats usage) {
+        if (usage == null) {
+            return;
+        }
+        requests += usage.getRequestsForRun();
+        inputTokens += usage.getRequestTokens();
+        outputTokens += usage.getResponseTokens();
+        compactionInputTokens += usage.getRequestTokens();
+        compactionOutputTokens += usage.getResponseTokens();
+    }
+
+    synchronized void requestSent(int messageCount, String messages) {
+        requestMessageCount = messageCount;
+        inputMessages = messages;
+    }
+
+    /**
+     * @return The completed call, or null if the usage shows no new model request since the last response (for example
+     *         output generated by a tool call that was already recorded). Without usage every response is a new call.
+     */
+    synchronized ModelCall responseReceived(ModelUsageStats usage) {
+        if (usage != null && usage.getRequestsForRun() <= requests) {
+            return null;
+        }
+        var retries = -1;
+        var callInputTokens = -1L;
+        var callOutputTokens = -1L;
+        if (usage != null) {
+            retries = usage.getRequestsForRun() - requests - 1;
+            callInputTokens = Math.max(0, usage.getRequestTokens() - inputTokens);
+            callOutputTokens = Math.max(0, usage.getResponseTokens() - outputTokens);
+            requests = usage.getRequestsForRun();
+            inputTokens = usage.getRequestTokens();
+            outputTokens = usage.getResponseTokens();
+        }
+        final var call = new ModelCall(retries, requestMessageCount, callInputTokens, callOutputTokens, inputMessages);
+        requestMessageCount = -1;
+        inputMessages = null;
+        return call;
+    }
+
+    /**
+     * @return Input tokens used by the run's own model calls. Run usage includes compaction usage, which is recorded
+     *         separately.
+     */
+    synchronized long runInputTokens(ModelUsageStats usage) {
+        return Math.max(0, usage.getRequestTokens() - compactionInputTokens);
+    }
+
+    /**
+     * @return Output tokens used by the run's own model calls
+     */
+    synchronized long runOutputTokens(ModelUsageStats usage) {
+        return Math.max(0, usage.getResponseTokens() - compactionOutputTokens);
+    }
+}
@@ -19,14 +19,19 @@ package com.phonepe.sentinelai.instrumentation.otel;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
 import io.opentelemetry.context.Context;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.phonepe.sentinelai.core.agent.Agent;
 import com.phonepe.sentinelai.core.agent.AgentExtension;
 import com.phonepe.sentinelai.core.agent.AgentRunContext;
 import com.phonepe.sentinelai.core.agent.FactList;
 import com.phonepe.sentinelai.core.agent.ModelOutputDefinition;
 import com.phonepe.sentinelai.core.agent.ProcessingMode;
+import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
+import com.phonepe.sentinelai.core.agentmessages.responses.ToolCall;
 import com.phonepe.sentinelai.core.errors.ErrorType;
 import com.phonepe.sentinelai.core.events.AgentEvent;
 import com.phonepe.sentinelai.core.events.AgentEventVisitor;
@@ -40,34 +45,108 @@ import com.phonepe.sentinelai.core.events.OutputGeneratedAgentEvent;
 import com.phonepe.sentinelai.core.events.ToolCallApprovalDeniedAgentEvent;
 import com.phonepe.sentinelai.core.events.ToolCallCompletedAgentEvent;
 import com.phonepe.sentinelai.core.events.ToolCalledAgentEvent;
+import com.phonepe.sentinelai.core.model.ModelUsageStats;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
 
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.ref.WeakReference;
 import java.time.Duration;
 import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
- * OpenTelemetry tracing extension for Sentinel AI agents.
+ * OpenTelemetry tracing and metrics extension for Sentinel AI agents.
+ * <p>
+ * Active spans are indexed by start time and closed as incomplete by a background reaper once they exceed
+ * {@link OpenTelemetryAgentExtensionSetup#getMaxActiveSpanDuration()}, so event handling does not depend on the number
+ * of active runs. All extensions share a single reaper thread, which only holds weak references to them, so an
+ * extension that is no longer used does not stay reachable through it. Close the extension to stop reaping its spans
+ * right away.
  */
 @Slf4j
-public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> implements AgentExtension<R, T, A> {
+public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> implements AgentExtension<R, T, A>,
+        AutoCloseable {
+
+    private static final ScheduledThreadPoolExecutor STALE_SPAN_REAPER = staleSpanReaper();
 
     private final OpenTelemetryAgentExtensionSetup setup;
+    private final AgentMetrics metrics;
 
     private final ConcurrentMap<String, ActiveSpan> runSpans = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, ActiveSpan> toolSpans = new ConcurrentHashMap<>();
+    /**
+     * Tool spans by run id and then tool call id. Inner maps are only touched inside compute calls on the outer map.
+     */
+    private final ConcurrentMap<String, Map<String, ActiveSpan>> toolSpans = new ConcurrentHashMap<>();
+    /**
+     * Compaction spans by the run id of the compaction, which is different from the run id of the agent run.
+     */
+    private final ConcurrentMap<String, ActiveSpan> compactionSpans = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ModelCallState> modelCalls = new ConcurrentHashMap<>();
+    /**
+     * Active run per session, used to parent compaction spans which only share the session id with the run.
+     */
+    private final ConcurrentMap<String, String> runIdsBySession = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<ActiveSpan, Boolean> activeSpansByStartTime = new ConcurrentSkipListMap<>(
+            Comparator.comparingLong(ActiveSpan::startedAtEpochMillis).thenComparingLong(ActiveSpan::sequence));
+    private final AtomicLong spanSequence = new AtomicLong();
+    private final ScheduledFuture<?> staleSpanReapTask;
+    private final ObjectMapper mapper;
 
     @Builder
     public OpenTelemetryAgentExtension(OpenTelemetryAgentExtensionSetup setup) {
         this.setup = setup;
+        this.metrics = new AgentMetrics(setup == null ? null : setup.getMeter(),
+                                        providerName(),
+                                        setup == null ? null : setup.getRequestModel());
+        this.mapper = setup != null && setup.isCaptureMessageContent() ? JsonUtils.createMapper() : null;
+        this.staleSpanReapTask = scheduleStaleSpanReaping(this, Math.max(1, staleSpanReapInterval().toMillis()));
+    }
+
+    /**
+     * Schedules reaping of the stale spans of the extension on the shared reaper. The task only holds a weak reference
+     * to the extension and cancels itself once the extension has been garbage collected.
+     */
+    private static ScheduledFuture<?> scheduleStaleSpanReaping(OpenTelemetryAgentExtension<?, ?, ?> extension,
+                                                               long intervalMillis) {
+        final var extensionRef = new WeakReference<OpenTelemetryAgentExtension<?, ?, ?>>(extension);
+        final var task = new AtomicReference<ScheduledFuture<?>>();
+        task.set(STALE_SPAN_REAPER.scheduleWithFixedDelay(() -> {
+            final var target = extensionRef.get();
+            if (target != null) {
+                target.reapStaleSpans();
+            }
+            else if (task.get() != null) {
+                task.get().cancel(false);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+        return task.get();
+    }
+
+    private static ScheduledThreadPoolExecutor staleSpanReaper() {
+        final var reaper = new ScheduledThreadPoolExecutor(1,
+                                                           new ThreadFactoryBuilder()
+                                                                   .setDaemon(true)
+                                                                   .setNameFormat("otel-stale-span-reaper-%d")
+                                                                   .build());
+        reaper.setRemoveOnCancelPolicy(true);
+        return reaper;
     }
 
     private static String spanName(String operationName, String suffix) {
@@ -77,12 +156,19 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
         return operationName + " " + suffix;
     }
 
+    private static String finishReason(List<AgentMessage> newMessages) {
+        return newMessages.stream().anyMatch(ToolCall.class::isInstance)
+                ? Constants.FINISH_REASON_TOOL_CALLS
+                : Constants.FINISH_REASON_STOP;
+    }
+
     private static long toEpochMillis(@NonNull AgentEvent event) {
         return event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
-    private static String toolSpanKey(String runId, String toolCallId) {
-        return runId + "::" + toolCallId;
+    @Override
+    public void close() {
+        staleSpanReapTask.cancel(false);
     }
 
     @Override
@@ -118,15 +204,16 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
 
     void consumeEvent(AgentEvent event) {
         try {
-            closeStaleSpans();
             event.accept(new AgentEventVisitor<>() {
                 @Override
                 public Void visit(CompactionCompletedEvent compactionCompleted) {
+                    onCompactionCompleted(compactionCompleted);
                     return null;
                 }
 
                 @Override
                 public Void visit(CompactionStartedEvent compactionStarted) {
+                    onCompactionStarted(compactionStarted);
                     return null;
                 }
 
@@ -138,11 +225,13 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
 
                 @Override
                 public Void visit(MessageReceivedAgentEvent messageReceived) {
+                    onMessageReceived(messageReceived);
                     return null;
                 }
 
                 @Override
                 public Void visit(MessageSentAgentEvent messageSent) {
+                    onMessageSent(messageSent);
                     return null;
                 }
 
@@ -178,57 +267,106 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
             });
         }
         catch (Exception e) {
-            log.warn("Error while emitting OpenTelemetry spans for event {}: {}", event.getType(), e.getMessage());
+            log.warn("Error while emitting OpenTelemetry telemetry for event {}: {}", event.getType(), e.getMessage());
         }
     }
 
+    /**
+     * Closes spans that have been active for longer than the configured maximum, oldest first. Stops at the first
+     * span that is still within the limit, so the cost is proportional to the number of stale spans only.
+     */
+    void reapStaleSpans() {
+        try {
+            final var thresholdEpochMillis = System.currentTimeMillis() - maxActiveSpanDuration().toMillis();
+            while (true) {
+                final var oldest = activeSpansByStartTime.firstEntry();
+                if (oldest == null || oldest.getKey().startedAtEpochMillis() > thresholdEpochMillis) {
+                    return;
+                }
+                final var activeSpan = oldest.getKey();
+                activeSpansByStartTime.remove(activeSpan);
+                switch (activeSpan.type()) {
+                    case RUN -> closeStaleRunSpan(activeSpan);
+                    case TOOL -> closeStaleToolSpan(activeSpan);
+                    case COMPACTION -> closeStaleCompactionSpan(activeSpan);
+                }
+            }
+        }
+        catch (Exception e) {
+            log.warn("Error while closing stale OpenTelemetry spans: {}", e.getMessage());
+        }
+    }
+
+    private enum SpanType {
+        RUN,
+        TOOL,
+        COMPACTION,
+    }
+
     private record ActiveSpan(
+            SpanType type,
+            String runId,
+            String sessionId,
+            String toolCallId,
             Span span,
-            long startedAtEpochMillis
+            long startedAtEpochMillis,
+            long sequence
     ) {
     }
 
+    private ActiveSpan activeSpan(SpanType type,
+                                  AgentEvent event,
+                                  String toolCallId,
+                                  Span span) {
+        return new ActiveSpan(type,
+                              event.getRunId(),
+                              event.getSessionId(),
+                              toolCallId,
+                              span,
+                              toEpochMillis(event),
+                              spanSequence.incrementAndGet());
+    }
+
     private void closeDanglingToolSpans(String runId) {
-        final var toolKeyPrefix = runId + "::";
-        toolSpans.forEach((toolKey, activeSpan) -> {
-            if (!toolKey.startsWith(toolKeyPrefix)) {
-                return;
-            }
-            if (!toolSpans.remove(toolKey, activeSpan)) {
-                return;
-            }
+        final var danglingSpans = toolSpans.remove(runId);
+        if (danglingSpans == null) {
+            return;
+        }
+        danglingSpans.values().forEach(activeSpan -> {
+            untrack(activeSpan);
             activeSpan.span().setStatus(StatusCode.ERROR, "Tool call did not finish before run completed");
             activeSpan.span().setAttribute(Constants.ATTR_ERROR_TYPE, Constants.TOOL_INCOMPLETE_ERROR);
             activeSpan.span().end();
         });
     }
 
-    private void closeStaleSpans() {
-        final var thresholdEpochMillis = System.currentTimeMillis() - maxActiveSpanDuration().toMillis();
-        runSpans.forEach((runId, activeSpan) -> {
-            if (activeSpan.startedAtEpochMillis() > thresholdEpochMillis) {
-                return;
-            }
-            if (!runSpans.remove(runId, activeSpan)) {
-                return;
-            }
-            activeSpan.span().setStatus(StatusCode.ERROR, "Run did not finish before span timeout");
-            activeSpan.span().setAttribute(Constants.ATTR_ERROR_TYPE, Constants.RUN_INCOMPLETE_ERROR);
-            activeSpan.span().end();
-            closeDanglingToolSpans(runId);
-        });
+    private void closeStaleCompactionSpan(ActiveSpan activeSpan) {
+        if (!compactionSpans.remove(activeSpan.runId(), activeSpan)) {
+            return;
+        }
+        activeSpan.span().setStatus(StatusCode.ERROR, "Compaction did not finish before span timeout");
+        activeSpan.span().setAttribute(Constants.ATTR_ERROR_TYPE, Constants.COMPACTION_INCOMPLETE_ERROR);
+        activeSpan.span().end();
+    }
 
-        toolSpans.forEach((toolKey, activeSpan) -> {
-            if (activeSpan.startedAtEpochMillis() > thresholdEpochMillis) {
-                return;
-            }
-            if (!toolSpans.remove(toolKey, activeSpan)) {
-                return;
-            }
-            activeSpan.span().setStatus(StatusCode.ERROR, "Tool call did not finish before span timeout");
-            activeSpan.span().setAttribute(Constants.ATTR_ERROR_TYPE, Constants.TOOL_INCOMPLETE_ERROR);
-            activeSpan.span().end();
-        });
+    private void closeStaleRunSpan(ActiveSpan activeSpan) {
+        if (!runSpans.remove(activeSpan.runId(), activeSpan)) {
+            return;
+        }
+        runEnded(activeSpan);
+        activeSpan.span().setStatus(StatusCode.ERROR, "Run did not finish before span timeout");
+        activeSpan.span().setAttribute(Constants.ATTR_ERROR_TYPE, Constants.RUN_INCOMPLETE_ERROR);
+        activeSpan.span().end();
+        closeDanglingToolSpans(activeSpan.runId());
+    }
+
+    private void closeStaleToolSpan(ActiveSpan activeSpan) {
+        if (removeToolSpan(activeSpan.runId(), activeSpan.toolCallId(), activeSpan) == null) {
+            return;
+        }
+        activeSpan.span().setStatus(StatusCode.ERROR, "Tool call did not finish before span timeout");
+        activeSpan.span().setAttribute(Constants.ATTR_ERROR_TYPE, Constants.TOOL_INCOMPLETE_ERROR);
+        activeSpan.span().end();
     }
 
     private Duration maxActiveSpanDuration() {
@@ -241,6 +379,50 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
         return setup.getMaxActiveSpanDuration();
     }
 
+    private void onCompactionCompleted(CompactionCompletedEvent event) {
+        metrics.recordCompaction(event.getAgentName(), event.getErrorType(), event.getUsageStats());
+        final var runId = event.getSessionId() == null ? null : runIdsBySession.get(event.getSessionId());
+        final var runModelCalls = runId == null ? null : modelCalls.get(runId);
+        if (runModelCalls != null) {
+            runModelCalls.compacted(event.getUsageStats());
+        }
+        final var activeSpan = compactionSpans.remove(event.getRunId());
+        if (activeSpan == null) {
+            return;
+        }
+        untrack(activeSpan);
+        final var span = activeSpan.span();
+        if (event.getErrorType() != null && !ErrorType.SUCCESS.equals(event.getErrorType())) {
+            setError(span, event.getErrorType());
+        }
+        setUsage(span, event.getUsageStats());
+        span.end(toEpochMillis(event), TimeUnit.MILLISECONDS);
+    }
+
+    private void onCompactionStarted(CompactionStartedEvent event) {
+        final var spanBuilder = tracer().spanBuilder(spanName(Constants.OPERATION_COMPACT, event.getAgentName()))
+                .setStartTimestamp(toEpochMillis(event), TimeUnit.MILLISECONDS)
+                .setAttribute(Constants.ATTR_OPERATION_NAME, Constants.OPERATION_COMPACT)
+                .setAttribute(Constants.ATTR_PROVIDER_NAME, providerName())
+                .setAttribute(Constants.ATTR_AGENT_NAME, event.getAgentName());
+        if (event.getSessionId() != null) {
+            spanBuilder.setAttribute(Constants.ATTR_CONVERSATION_ID, event.getSessionId());
+            final var runId = runIdsBySession.get(event.getSessionId());
+            final var runSpan = runId == null ? null : runSpans.get(runId);
+            if (runSpan != null) {
+                spanBuilder.setParent(runSpan.span().storeInContext(Context.current()));
+            }
+        }
+
+        final var activeSpan = activeSpan(SpanType.COMPACTION, event, null, spanBuilder.startSpan());
+        final var oldSpan = compactionSpans.put(event.getRunId(), activeSpan);
+        track(activeSpan);
+        if (oldSpan != null) {
+            untrack(oldSpan);
+            oldSpan.span().end();
+        }
+    }
+
     private void onInputReceived(InputReceivedAgentEvent event) {
         final var spanBuilder = tracer().spanBuilder(spanName(Constants.OPERATION_INVOKE_AGENT, event.getAgentName()))
                 .setStartTimestamp(toEpochMillis(event), TimeUnit.MILLISECONDS)
@@ -252,45 +434,113 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
             spanBuilder.setAttribute(Constants.ATTR_CONVERSATION_ID, event.getSessionId());
         }
 
-        final var span = spanBuilder.startSpan();
-        final var oldSpan = runSpans.put(event.getRunId(), new ActiveSpan(span, toEpochMillis(event)));
+        final var activeSpan = activeSpan(SpanType.RUN, event, null, spanBuilder.startSpan());
+        final var oldSpan = runSpans.put(event.getRunId(), activeSpan);
+        modelCalls.put(event.getRunId(), new ModelCallState());
+        if (event.getSessionId() != null) {
+            runIdsBySession.put(event.getSessionId(), event.getRunId());
+        }
+        track(activeSpan);
         if (oldSpan != null) {
+            untrack(oldSpan);
             oldSpan.span().end();
         }
     }
 
+    private void onMessageReceived(MessageReceivedAgentEvent event) {
+        final var runModelCalls = modelCalls.get(event.getRunId());
+        final var modelCall = runModelCalls == null ? null : runModelCalls.responseReceived(event.getUsage());
+        if (runModelCalls != null && modelCall == null) {
+            return;
+        }
+        metrics.recordModelCall(event.getAgentName(), event.getElapsedTime());
+        final var runSpan = runSpans.get(event.getRunId());
+        if (runSpan == null || modelCall == null) {
+            return;
+        }
+        final var endEpochMillis = toEpochMillis(event);
+        final var spanBuilder = tracer().spanBuilder(spanName(Constants.OPERATION_CHAT, requestModel()))
+                .setParent(runSpan.span().storeInContext(Context.current()))
+                .setStartTimestamp(endEpochMillis - event.getElapsedTime().toMillis(), TimeUnit.MILLISECONDS)
+                .setAttribute(Constants.ATTR_OPERATION_NAME, Constants.OPERATION_CHAT)
+                .setAttribute(Constants.ATTR_PROVIDER_NAME, providerName())
+                .setAttribute(Constants.ATTR_AGENT_NAME, event.getAgentName())
+                .setAttribute(Constants.ATTR_RESPONSE_FINISH_REASONS, List.of(finishReason(event.getNewMessages())));
+        if (requestModel() != null) {
+            spanBuilder.setAttribute(Constants.ATTR_REQUEST_MODEL, requestModel());
+        }
+        if (modelCall.retries() >= 0) {
+            spanBuilder.setAttribute(Constants.ATTR_RETRY_COUNT, (long) modelCall.retries());
+        }
+        if (modelCall.requestMessageCount() >= 0) {
+            spanBuilder.setAttribute(Constants.ATTR_REQUEST_MESSAGE_COUNT, (long) modelCall.requestMessageCount());
+        }
+        if (modelCall.inputTokens() >= 0) {
+            spanBuilder.setAttribute(Constants.ATTR_USAGE_INPUT_TOKENS, modelCall.inputTokens());
+            spanBuilder.setAttribute(Constants.ATTR_USAGE_OUTPUT_TOKENS, modelCall.outputTokens());
+        }
+        if (modelCall.inputMessages() != null) {
+            spanBuilder.setAttribute(Constants.ATTR_INPUT_MESSAGES, modelCall.inputMessages());
+        }
+        final var outputMessages = serialize(event.getNewMessages());
+        if (outputMessages != null) {
+            spanBuilder.setAttribute(Constants.ATTR_OUTPUT_MESSAGES, outputMessages);
+        }
+        spanBuilder.startSpan().end(endEpochMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void onMessageSent(MessageSentAgentEvent event) {
+        final var runModelCalls = modelCalls.get(event.getRunId());
+        if (runModelCalls == null) {
+            return;
+        }
+        runModelCalls.requestSent(event.getAllMessages().size(), serialize(event.getAllMessages()));
+    }
+
     private void onOutputError(OutputErrorAgentEvent event) {
+        metrics.recordRun(event.getAgentName(),
+                          event.getElapsedTime(),
+                          event.getErrorType() == null ? ErrorType.UNKNOWN : event.getErrorType(),
+                          event.getUsage(),
+                          modelCalls.get(event.getRunId()));
         final var activeSpan = runSpans.remove(event.getRunId());
         if (activeSpan == null) {
             return;
         }
+        untrack(activeSpan);
+        runEnded(activeSpan);
         final var span = activeSpan.span();
         setError(span, event.getErrorType());
-        if (event.getUsage() != null) {
-            span.setAttribute(Constants.ATTR_USAGE_INPUT_TOKENS, (long) event.getUsage().getRequestTokens());
-            span.setAttribute(Constants.ATTR_USAGE_OUTPUT_TOKENS, (long) event.getUsage().getResponseTokens());
-        }
+        setUsage(span, event.getUsage());
         span.end(toEpochMillis(event), TimeUnit.MILLISECONDS);
     }
 
     private void onOutputGenerated(OutputGeneratedAgentEvent event) {
+        metrics.recordRun(event.getAgentName(),
+                          event.getElapsedTime(),
+                          null,
+                          event.getUsage(),
+                          modelCalls.get(event.getRunId()));
         final var activeSpan = runSpans.remove(event.getRunId());
         if (activeSpan == null) {
             return;
         }
+        untrack(activeSpan);
+        runEnded(activeSpan);
         final var span = activeSpan.span();
-        if (event.getUsage() != null) {
-            span.setAttribute(Constants.ATTR_USAGE_INPUT_TOKENS, (long) event.getUsage().getRequestTokens());
-            span.setAttribute(Constants.ATTR_USAGE_OUTPUT_TOKENS, (long) event.getUsage().getResponseTokens());
-        }
+        setUsage(span, event.getUsage());
         span.end(toEpochMillis(event), TimeUnit.MILLISECONDS);
     }
 
     private void onToolCallApprovalDenied(ToolCallApprovalDeniedAgentEvent event) {
-        final var activeSpan = toolSpans.remove(toolSpanKey(event.getRunId(), event.getToolCallId()));
+        metrics.recordError(event.getAgentName(),
+                            Constants.OPERATION_EXECUTE_TOOL,
+                            Constants.TOOL_APPROVAL_DENIED_ERROR);
+        final var activeSpan = removeToolSpan(event.getRunId(), event.getToolCallId(), null);
         if (activeSpan == null) {
             return;
         }
+        untrack(activeSpan);
         final var span = activeSpan.span();
         span.setStatus(StatusCode.ERROR, "Tool call approval denied");
         span.setAttribute(Constants.ATTR_ERROR_TYPE, Constants.TOOL_APPROVAL_DENIED_ERROR);
@@ -298,10 +548,15 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
     }
 
     private void onToolCallCompleted(ToolCallCompletedAgentEvent event) {
-        final var activeSpan = toolSpans.remove(toolSpanKey(event.getRunId(), event.getToolCallId()));
+        metrics.recordToolCall(event.getAgentName(),
+                               event.getToolCallName(),
+                               event.getElapsedTime(),
+                               event.getErrorType());
+        final var activeSpan = removeToolSpan(event.getRunId(), event.getToolCallId(), null);
         if (activeSpan == null) {
             return;
         }
+        untrack(activeSpan);
         final var span = activeSpan.span();
         if (event.getErrorType() != null && !ErrorType.SUCCESS.equals(event.getErrorType())) {
             setError(span, event.getErrorType());
@@ -329,10 +584,11 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
             spanBuilder.setAttribute(Constants.ATTR_TOOL_CALL_ARGUMENTS, event.getArguments());
         }
 
-        final var span = spanBuilder.startSpan();
-        final var oldSpan = toolSpans.put(toolSpanKey(event.getRunId(), event.getToolCallId()),
-                                          new ActiveSpan(span, toEpochMillis(event)));
+        final var activeSpan = activeSpan(SpanType.TOOL, event, event.getToolCallId(), spanBuilder.startSpan());
+        final var oldSpan = putToolSpan(activeSpan);
+        track(activeSpan);
         if (oldSpan != null) {
+            untrack(oldSpan);
             oldSpan.span().end();
         }
     }
@@ -344,16 +600,97 @@ public class OpenTelemetryAgentExtension<R, T, A extends Agent<R, T, A>> impleme
         return setup.getProviderName();
     }
 
+    private ActiveSpan putToolSpan(ActiveSpan activeSpan) {
+        final var oldSpan = new AtomicReference<ActiveSpan>();
+        toolSpans.compute(activeSpan.runId(), (runId, spans) -> {
+            final var runToolSpans = spans == null ? new HashMap<String, ActiveSpan>() : spans;
+            oldSpan.set(runToolSpans.put(activeSpan.toolCallId(), activeSpan));
+            return runToolSpans;
+        });
+        return oldSpan.get();
+    }
+
+    /**
+     * Removes the tool span for the given call, only if it is the expected span when one is given.
+     */
+    private ActiveSpan removeToolSpan(String runId, String toolCallId, ActiveSpan expected) {
+        final var removed = new AtomicReference<ActiveSpan>();
+        toolSpans.computeIfPresent(runId, (key, spans) -> {
+            final var current = spans.get(toolCallId);
+            if (current != null && (expected == null || current == expected)) {
+                removed.set(spans.remove(toolCallId));
+            }
+            return spans.isEmpty() ? null : spans;
+        });
+        return removed.get();
+    }
+
     private void setError(Span span, ErrorType errorType) {
         final var type = errorType == null ? ErrorType.UNKNOWN : errorType;
         span.setStatus(StatusCode.ERROR, type.getMessage());
         span.setAttribute(Constants.ATTR_ERROR_TYPE, type.name());
     }
 
+    private void setUsage(Span span, ModelUsageStats usage) {
+        if (usage == null) {
+            return;
+        }
+        span.setAttribute(Constants.ATTR_USAGE_INPUT_TOKENS, (long) usage.getRequestTokens());
+        span.setAttribute(Constants.ATTR_USAGE_OUTPUT_TOKENS, (long) usage.getResponseTokens());
+    }
+
+    private Duration staleSpanReapInterval() {
+        if (setup == null || setup.getStaleSpanReapInterval() == null) {
+            return OpenTelemetryAgentExtensionSetup.DEFAULT_STALE_SPAN_REAP_INTERVAL;
+        }
+        return setup.getStaleSpanReapInterval();
+    }
+
+    private String requestModel() {
+        if (setup == null || setup.getRequestModel() == null || setup.getRequestModel().isBlank()) {
+            return null;
+        }
+        return setup.getRequestModel();
+    }
+
+    private void runEnded(ActiveSpan runSpan) {
+        modelCalls.remove(runSpan.runId());
+        if (runSpan.sessionId() != null) {
+            runIdsBySession.remove(runSpan.sessionId(), runSpan.runId());
+        }
+    }
+
+    /**
+     * Serializes messages for span attributes, only if capturing message content is enabled.
+     */
+    private String serialize(List<AgentMessage> messages) {
+        if (mapper == null) {
+            return null;
+        }
+        try {
+            return mapper.writeValueAsString(messages);
+        }
+        catch (Exception e) {
+            log.warn("Error serializing messages for OpenTelemetry span: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private Tracer tracer() {
-        if (setup == null || setup.getTracer() == null) {
-            throw new IllegalStateException("OpenTelemetryAgentExtension requires setup.tracer");
+        if (setup == null || (setup.getTracer() == null && setup.getMeter() == null)) {
+            throw new IllegalStateException("OpenTelemetryAgentExtension requires setup.tracer or setup.meter");
+        }
+        if (setup.getTracer() == null) {
+            return TracerProvider.noop().get(OpenTelemetryAgentExtension.class.getName());
         }
         return setup.getTracer();
     }
+
+    private void track(ActiveSpan activeSpan) {
+        activeSpansByStartTime.put(activeSpan, Boolean.TRUE);
+    }
+
+    private void untrack(ActiveSpan activeSpan) {
+        activeSpansByStartTime.remove(activeSpan);
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.phonepe.sentinelai.instrumentation.otel;
 
+import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.Tracer;
 
 import lombok.Builder;
@@ -33,18 +34,30 @@ import java.time.Duration;
 public class OpenTelemetryAgentExtensionSetup {
 
     public static final String DEFAULT_PROVIDER_NAME = "openai";
+    public static final Duration DEFAULT_STALE_SPAN_REAP_INTERVAL = Duration.ofSeconds(30);
 
     /**
      * Tracer used for emitting spans.
      */
     Tracer tracer;
 
+    /**
+     * Meter used for emitting run, model call, tool call, token, error and compaction metrics. Metrics are not
+     * emitted when this is not set.
+     */
+    Meter meter;
+
     /**
      * `gen_ai.provider.name` attribute value.
      */
     @Builder.Default
     String providerName = DEFAULT_PROVIDER_NAME;
 
+    /**
+     * `gen_ai.request.model` attribute value for metrics. Left out of metric attributes when not set.
+     */
+    String requestModel;
+
     /**
      * Whether to include tool call arguments (`gen_ai.tool.call.arguments`) in spans.
      */
@@ -57,9 +70,22 @@ public class OpenTelemetryAgentExtensionSetup {
     @Builder.Default
     boolean captureToolCallResult = false;
 
+    /**
+     * Whether to include serialized input and output messages (`gen_ai.input.messages`, `gen_ai.output.messages`) in
+     * model call spans.
+     */
+    @Builder.Default
+    boolean captureMessageContent = false;
+
     /**
      * Maximum time a run/tool span can stay active before being force-closed as incomplete.
      */
     @Builder.Default
     Duration maxActiveSpanDuration = Duration.ofMinutes(10);
+
+    /**
+     * How often the background reaper checks for spans that have exceeded {@link #maxActiveSpanDuration}.
+     */
+    @Builder.Default
+    Duration staleSpanReapInterval = DEFAULT_STALE_SPAN_REAP_INTERVAL;
 }
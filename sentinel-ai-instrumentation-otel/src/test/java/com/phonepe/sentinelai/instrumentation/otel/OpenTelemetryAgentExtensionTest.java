@@ -18,6 +18,10 @@ package com.phonepe.sentinelai.instrumentation.otel;
 
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
 import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.data.SpanData;
@@ -25,6 +29,7 @@ import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
 
@@ -36,14 +41,22 @@ import com.phonepe.sentinelai.core.agent.AgentSetup;
 import com.phonepe.sentinelai.core.agent.ApproveAllToolRuns;
 import com.phonepe.sentinelai.core.agent.ToolRunner;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
+import com.phonepe.sentinelai.core.agentmessages.requests.ToolCallResponse;
 import com.phonepe.sentinelai.core.agentmessages.responses.ToolCall;
 import com.phonepe.sentinelai.core.earlytermination.NeverTerminateEarlyStrategy;
 import com.phonepe.sentinelai.core.errorhandling.DefaultErrorHandler;
 import com.phonepe.sentinelai.core.errors.ErrorType;
 import com.phonepe.sentinelai.core.errors.SentinelError;
+import com.phonepe.sentinelai.core.events.AgentEvent;
+import com.phonepe.sentinelai.core.events.CompactionCompletedEvent;
+import com.phonepe.sentinelai.core.events.CompactionStartedEvent;
 import com.phonepe.sentinelai.core.events.InputReceivedAgentEvent;
+import com.phonepe.sentinelai.core.events.MessageReceivedAgentEvent;
 import com.phonepe.sentinelai.core.events.MessageSentAgentEvent;
+import com.phonepe.sentinelai.core.events.OutputErrorAgentEvent;
+import com.phonepe.sentinelai.core.events.OutputGeneratedAgentEvent;
 import com.phonepe.sentinelai.core.events.ToolCallApprovalDeniedAgentEvent;
+import com.phonepe.sentinelai.core.events.ToolCallCompletedAgentEvent;
 import com.phonepe.sentinelai.core.events.ToolCalledAgentEvent;
 import com.phonepe.sentinelai.core.model.Model;
 import com.phonepe.sentinelai.core.model.ModelOutput;
@@ -56,13 +69,21 @@ import com.phonepe.sentinelai.core.tools.ToolDefinition;
 import com.phonepe.sentinelai.core.tools.ToolRunApprovalSeeker;
 import com.phonepe.sentinelai.core.utils.JsonUtils;
 
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.WeakReference;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -70,6 +91,7 @@ import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+@Slf4j
 class OpenTelemetryAgentExtensionTest {
 
     private static final AttributeKey<String> ATTR_OPERATION_NAME = AttributeKey.stringKey("gen_ai.operation.name");
@@ -82,6 +104,17 @@ class OpenTelemetryAgentExtensionTest {
                                                                                                 "gen_ai.tool.call.arguments");
     private static final AttributeKey<String> ATTR_TOOL_CALL_RESULT = AttributeKey.stringKey("gen_ai.tool.call.result");
     private static final AttributeKey<String> ATTR_ERROR_TYPE = AttributeKey.stringKey("error.type");
+    private static final AttributeKey<String> ATTR_REQUEST_MODEL = AttributeKey.stringKey("gen_ai.request.model");
+    private static final AttributeKey<String> ATTR_TOKEN_TYPE = AttributeKey.stringKey("gen_ai.token.type");
+    private static final AttributeKey<Long> ATTR_INPUT_TOKENS = AttributeKey.longKey("gen_ai.usage.input_tokens");
+    private static final AttributeKey<Long> ATTR_OUTPUT_TOKENS = AttributeKey.longKey("gen_ai.usage.output_tokens");
+    private static final AttributeKey<List<String>> ATTR_FINISH_REASONS = AttributeKey.stringArrayKey(
+                                                                                                      "gen_ai.response.finish_reasons");
+    private static final AttributeKey<Long> ATTR_RETRY_COUNT = AttributeKey.longKey("sentinel.model.retry_count");
+    private static final AttributeKey<Long> ATTR_REQUEST_MESSAGE_COUNT = AttributeKey.longKey(
+                                                                                             "sentinel.request.message_count");
+    private static final AttributeKey<String> ATTR_INPUT_MESSAGES = AttributeKey.stringKey("gen_ai.input.messages");
+    private static final AttributeKey<String> ATTR_OUTPUT_MESSAGES = AttributeKey.stringKey("gen_ai.output.messages");
 
     private static final class DummyAgent extends Agent<String, String, DummyAgent> {
         DummyAgent(AgentSetup setup,
@@ -108,6 +141,9 @@ class OpenTelemetryAgentExtensionTest {
     private InMemorySpanExporter spanExporter;
     private SdkTracerProvider tracerProvider;
 
+    private InMemoryMetricReader metricReader;
+    private SdkMeterProvider meterProvider;
+
     private OpenTelemetrySdk openTelemetrySdk;
 
     @BeforeEach
@@ -116,17 +152,67 @@ class OpenTelemetryAgentExtensionTest {
         this.tracerProvider = SdkTracerProvider.builder()
                 .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
                 .build();
+        this.metricReader = InMemoryMetricReader.create();
+        this.meterProvider = SdkMeterProvider.builder()
+                .registerMetricReader(metricReader)
+                .build();
         this.openTelemetrySdk = OpenTelemetrySdk.builder()
                 .setTracerProvider(tracerProvider)
+                .setMeterProvider(meterProvider)
                 .build();
     }
 
     @Test
-    void shouldCloseStaleRunSpanOnlyWhenAnotherEventArrives() {
+    void shouldCaptureMessageContentOnChatSpanOnlyWhenEnabled() {
+        for (final var capture : List.of(false, true)) {
+            final var runId = "run-content-" + capture;
+            final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                    .setup(OpenTelemetryAgentExtensionSetup.builder()
+                            .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                            .captureMessageContent(capture)
+                            .build())
+                    .build();
+            final var toolCall = new ToolCall("session", runId, "call-1", "get-weather", "{\"city\":\"Paris\"}");
+
+            extension.consumeEvent(new InputReceivedAgentEvent("dummy", runId, "session", "user", "hello"));
+            extension.consumeEvent(new MessageSentAgentEvent("dummy",
+                                                             runId,
+                                                             "session",
+                                                             "user",
+                                                             List.of(toolCall),
+                                                             List.of(toolCall)));
+            extension.consumeEvent(new MessageReceivedAgentEvent("dummy",
+                                                                 runId,
+                                                                 "session",
+                                                                 "user",
+                                                                 List.of(toolCall),
+                                                                 List.of(toolCall),
+                                                                 Duration.ofMillis(10),
+                                                                 usage(1, 10, 5)));
+        }
+
+        final var chatSpans = spansByName("chat");
+        assertEquals(2, chatSpans.size());
+        final var withoutContent = chatSpans.stream()
+                .filter(span -> span.getAttributes().get(ATTR_INPUT_MESSAGES) == null)
+                .toList();
+        assertEquals(1, withoutContent.size());
+        assertNull(withoutContent.get(0).getAttributes().get(ATTR_OUTPUT_MESSAGES));
+        final var withContent = chatSpans.stream()
+                .filter(span -> span.getAttributes().get(ATTR_INPUT_MESSAGES) != null)
+                .findFirst()
+                .orElseThrow();
+        assertTrue(withContent.getAttributes().get(ATTR_INPUT_MESSAGES).contains("Paris"));
+        assertTrue(withContent.getAttributes().get(ATTR_OUTPUT_MESSAGES).contains("get-weather"));
+    }
+
+    @Test
+    void shouldCloseStaleRunSpanAndItsToolSpansInBackground() {
         final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
                 .setup(OpenTelemetryAgentExtensionSetup.builder()
                         .tracer(openTelemetrySdk.getTracer("sentinel.test"))
-                        .maxActiveSpanDuration(Duration.ZERO)
+                        .maxActiveSpanDuration(Duration.ofMillis(50))
+                        .staleSpanReapInterval(Duration.ofMillis(10))
                         .build())
                 .build();
 
@@ -135,18 +221,243 @@ class OpenTelemetryAgentExtensionTest {
                                                            "session-stale",
                                                            "user",
                                                            "hello"));
+        extension.consumeEvent(new ToolCalledAgentEvent("dummy",
+                                                        "run-stale",
+                                                        "session-stale",
+                                                        "user",
+                                                        "call-stale",
+                                                        "stale-tool",
+                                                        "{}"));
         assertEquals(0, finishedSpans().size());
 
+        final var runSpan = waitForSpanByName("invoke_agent dummy");
+        assertNotNull(runSpan);
+        assertEquals("run_incomplete", runSpan.getAttributes().get(ATTR_ERROR_TYPE));
+        final var toolSpan = waitForSpanByName("execute_tool stale-tool");
+        assertNotNull(toolSpan);
+        assertEquals("tool_call_incomplete", toolSpan.getAttributes().get(ATTR_ERROR_TYPE));
+        extension.close();
+    }
+
+    @Test
+    void shouldCountErrorsAndCompactions() {
+        final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                        .meter(openTelemetrySdk.getMeter("sentinel.test"))
+                        .build())
+                .build();
+
+        extension.consumeEvent(new InputReceivedAgentEvent("dummy", "run-6", "session-6", "user", "hello"));
+        extension.consumeEvent(new ToolCallCompletedAgentEvent("dummy",
+                                                               "run-6",
+                                                               "session-6",
+                                                               "user",
+                                                               "call-6",
+                                                               "lookup-order",
+                                                               ErrorType.TOOL_CALL_PERMANENT_FAILURE,
+                                                               "tool failed",
+                                                               Duration.ofMillis(10)));
+        extension.consumeEvent(new ToolCallApprovalDeniedAgentEvent("dummy",
+                                                                    "run-6",
+                                                                    "session-6",
+                                                                    "user",
+                                                                    "call-7",
+                                                                    "transfer-funds"));
+        extension.consumeEvent(new CompactionCompletedEvent("dummy",
+                                                            "run-6",
+                                                            "session-6",
+                                                            "user",
+                                                            ErrorType.SUCCESS,
+                                                            null,
+                                                            25,
+                                                            new ModelUsageStats().incrementRequestTokens(500)
+                                                                    .incrementResponseTokens(50),
+                                                            null));
+        extension.consumeEvent(new CompactionCompletedEvent("dummy",
+                                                            "run-6",
+                                                            "session-6",
+                                                            "user",
+                                                            ErrorType.GENERIC_MODEL_CALL_FAILURE,
+                                                            "failed",
+                                                            25,
+                                                            null,
+                                                            null));
+        extension.consumeEvent(new OutputErrorAgentEvent("dummy",
+                                                         "run-6",
+                                                         "session-6",
+                                                         "user",
+                                                         ErrorType.LENGTH_EXCEEDED,
+                                                         new ModelUsageStats(),
+                                                         "",
+                                                         Duration.ofMillis(200)));
+
+        final var errors = counterPoints("sentinel.agent.errors");
+        assertEquals(4, errors.stream().mapToLong(LongPointData::getValue).sum());
+        assertEquals(1, counterValue(errors, "TOOL_CALL_PERMANENT_FAILURE"));
+        assertEquals(1, counterValue(errors, "tool_call_approval_denied"));
+        assertEquals(1, counterValue(errors, "GENERIC_MODEL_CALL_FAILURE"));
+        assertEquals(1, counterValue(errors, "LENGTH_EXCEEDED"));
+
+        final var compactions = counterPoints("sentinel.agent.compactions");
+        assertEquals(2, compactions.stream().mapToLong(LongPointData::getValue).sum());
+        assertEquals(1, counterValue(compactions, "GENERIC_MODEL_CALL_FAILURE"));
+
+        final var runDurations = histogramPoints("sentinel.agent.run.duration");
+        assertEquals(1, runDurations.size());
+        assertEquals("LENGTH_EXCEEDED", runDurations.iterator().next().getAttributes().get(ATTR_ERROR_TYPE));
+    }
+
+    @Test
+    void shouldEmitChatSpanPerModelCallWithUsageOfThatCall() {
+        final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                        .meter(openTelemetrySdk.getMeter("sentinel.test"))
+                        .requestModel("gpt-4o")
+                        .build())
+                .build();
+        final var toolCall = new ToolCall("session-9", "run-9", "call-9", "get-weather", "{}");
+        final var toolResponse = new ToolCallResponse("session-9",
+                                                      "run-9",
+                                                      "call-9",
+                                                      "get-weather",
+                                                      ErrorType.SUCCESS,
+                                                      "{\"temp\":22}",
+                                                      LocalDateTime.now());
+
+        extension.consumeEvent(new InputReceivedAgentEvent("dummy", "run-9", "session-9", "user", "hello"));
+        extension.consumeEvent(new MessageSentAgentEvent("dummy", "run-9", "session-9", "user", List.of(), List.of()));
+        // Second request of the call, the first one failed and was retried
+        extension.consumeEvent(new MessageSentAgentEvent("dummy", "run-9", "session-9", "user", List.of(), List.of()));
+        extension.consumeEvent(new MessageReceivedAgentEvent("dummy",
+                                                             "run-9",
+                                                             "session-9",
+                                                             "user",
+                                                             List.of(toolCall),
+                                                             List.of(toolCall),
+                                                             Duration.ofMillis(150),
+                                                             usage(2, 100, 20)));
         extension.consumeEvent(new MessageSentAgentEvent("dummy",
-                                                         "run-other",
-                                                         "session-other",
+                                                         "run-9",
+                                                         "session-9",
+                                                         "user",
+                                                         List.of(toolCall, toolResponse),
+                                                         List.of(toolResponse)));
+        extension.consumeEvent(new MessageReceivedAgentEvent("dummy",
+                                                             "run-9",
+                                                             "session-9",
+                                                             "user",
+                                                             List.of(toolCall, toolResponse),
+                                                             List.of(),
+                                                             Duration.ofMillis(250),
+                                                             usage(3, 250, 50)));
+        // Output of the output extraction tool, raised again for the same model response
+        extension.consumeEvent(new MessageReceivedAgentEvent("dummy",
+                                                             "run-9",
+                                                             "session-9",
+                                                             "user",
+                                                             List.of(toolCall, toolResponse),
+                                                             List.of(),
+                                                             Duration.ofMillis(260),
+                                                             usage(3, 250, 50)));
+        extension.consumeEvent(new OutputGeneratedAgentEvent("dummy",
+                                                             "run-9",
+                                                             "session-9",
+                                                             "user",
+                                                             "{}",
+                                                             usage(3, 250, 50),
+                                                             Duration.ofMillis(500)));
+
+        final var runSpan = spanByName("invoke_agent dummy");
+        assertNotNull(runSpan);
+        final var chatSpans = spansByName("chat gpt-4o");
+        assertEquals(2, chatSpans.size());
+        chatSpans.forEach(span -> {
+            assertEquals(runSpan.getSpanId(), span.getParentSpanId());
+            assertEquals(runSpan.getTraceId(), span.getTraceId());
+            assertEquals("chat", span.getAttributes().get(ATTR_OPERATION_NAME));
+            assertEquals("gpt-4o", span.getAttributes().get(ATTR_REQUEST_MODEL));
+            assertNull(span.getAttributes().get(ATTR_INPUT_MESSAGES));
+            assertNull(span.getAttributes().get(ATTR_OUTPUT_MESSAGES));
+        });
+        final var toolCallRound = chatSpans.stream()
+                .filter(span -> span.getAttributes().get(ATTR_FINISH_REASONS).contains("tool_calls"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(150_000_000L, toolCallRound.getEndEpochNanos() - toolCallRound.getStartEpochNanos());
+        assertEquals(1L, toolCallRound.getAttributes().get(ATTR_RETRY_COUNT));
+        assertEquals(0L, toolCallRound.getAttributes().get(ATTR_REQUEST_MESSAGE_COUNT));
+        assertEquals(100L, toolCallRound.getAttributes().get(ATTR_INPUT_TOKENS));
+        assertEquals(20L, toolCallRound.getAttributes().get(ATTR_OUTPUT_TOKENS));
+        final var finalRound = chatSpans.stream()
+                .filter(span -> span.getAttributes().get(ATTR_FINISH_REASONS).contains("stop"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(0L, finalRound.getAttributes().get(ATTR_RETRY_COUNT));
+        assertEquals(2L, finalRound.getAttributes().get(ATTR_REQUEST_MESSAGE_COUNT));
+        assertEquals(150L, finalRound.getAttributes().get(ATTR_INPUT_TOKENS));
+        assertEquals(30L, finalRound.getAttributes().get(ATTR_OUTPUT_TOKENS));
+        assertEquals(2, histogramPoints("sentinel.agent.model.call.duration").iterator().next().getCount());
+    }
+
+    @Test
+    void shouldEmitCompactionSpanAsChildOfRunSpan() {
+        final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                        .build())
+                .build();
+
+        extension.consumeEvent(new InputReceivedAgentEvent("dummy", "run-10", "session-10", "user", "hello"));
+        extension.consumeEvent(new CompactionStartedEvent("dummy", "run-for-compaction-10", "session-10", "user"));
+        extension.consumeEvent(new CompactionCompletedEvent("dummy",
+                                                            "run-for-compaction-10",
+                                                            "session-10",
+                                                            "user",
+                                                            ErrorType.SUCCESS,
+                                                            null,
+                                                            80,
+                                                            usage(1, 300, 60),
+                                                            null));
+        extension.consumeEvent(new MessageSentAgentEvent("dummy",
+                                                         "run-10",
+                                                         "session-10",
                                                          "user",
                                                          List.of(),
                                                          List.of()));
+        extension.consumeEvent(new MessageReceivedAgentEvent("dummy",
+                                                             "run-10",
+                                                             "session-10",
+                                                             "user",
+                                                             List.of(),
+                                                             List.of(),
+                                                             Duration.ofMillis(100),
+                                                             usage(2, 400, 80)));
+        extension.consumeEvent(new OutputGeneratedAgentEvent("dummy",
+                                                             "run-10",
+                                                             "session-10",
+                                                             "user",
+                                                             "{}",
+                                                             usage(2, 400, 80),
+                                                             Duration.ofMillis(300)));
 
         final var runSpan = spanByName("invoke_agent dummy");
         assertNotNull(runSpan);
-        assertEquals("run_incomplete", runSpan.getAttributes().get(ATTR_ERROR_TYPE));
+        final var compactionSpan = spanByName("compact dummy");
+        assertNotNull(compactionSpan);
+        assertEquals(runSpan.getSpanId(), compactionSpan.getParentSpanId());
+        assertEquals("compact", compactionSpan.getAttributes().get(ATTR_OPERATION_NAME));
+        assertEquals("session-10", compactionSpan.getAttributes().get(ATTR_CONVERSATION_ID));
+        assertEquals(300L, compactionSpan.getAttributes().get(ATTR_INPUT_TOKENS));
+        assertEquals(60L, compactionSpan.getAttributes().get(ATTR_OUTPUT_TOKENS));
+        assertNull(compactionSpan.getAttributes().get(ATTR_ERROR_TYPE));
+        // Tokens used by compaction are not attributed to the next model call of the run
+        final var chatSpan = spanByName("chat");
+        assertNotNull(chatSpan);
+        assertEquals(0L, chatSpan.getAttributes().get(ATTR_RETRY_COUNT));
+        assertEquals(100L, chatSpan.getAttributes().get(ATTR_INPUT_TOKENS));
+        assertEquals(20L, chatSpan.getAttributes().get(ATTR_OUTPUT_TOKENS));
     }
 
     @Test
@@ -269,12 +580,26 @@ class OpenTelemetryAgentExtensionTest {
                                                          "user",
                                                          List.of(),
                                                          List.of()));
+        assertEquals(0, finishedSpans().size());
+        extension.reapStaleSpans();
 
         final var toolSpan = spanByName("execute_tool stale-tool");
         assertNotNull(toolSpan);
         assertEquals("tool_call_incomplete", toolSpan.getAttributes().get(ATTR_ERROR_TYPE));
     }
 
+    @Test
+    @Tag("benchmark")
+    void shouldHandleEventsAtConstantCostRegardlessOfActiveRuns() {
+        eventsPerSecond(1_000);
+        final var fewRuns = eventsPerSecond(100);
+        final var manyRuns = eventsPerSecond(10_000);
+        // Scanning every active span per event made this roughly 100x slower at 10k runs
+        log.info("events/s with 100 active runs: {}, with 10000 active runs: {}",
+                 Math.round(fewRuns),
+                 Math.round(manyRuns));
+    }
+
     @Test
     void shouldKeepRunSpanOpenWhenOutputEventsAreMissing() {
         final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
@@ -288,6 +613,43 @@ class OpenTelemetryAgentExtensionTest {
         assertEquals(0, finishedSpans().size());
     }
 
+    @Test
+    void shouldLeaveCompactionTokensOutOfRunTokenUsage() {
+        final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .meter(openTelemetrySdk.getMeter("sentinel.test"))
+                        .build())
+                .build();
+
+        extension.consumeEvent(new InputReceivedAgentEvent("dummy", "run-12", "session-12", "user", "hello"));
+        extension.consumeEvent(new CompactionCompletedEvent("dummy",
+                                                            "compaction-run-12",
+                                                            "session-12",
+                                                            "user",
+                                                            ErrorType.SUCCESS,
+                                                            null,
+                                                            25,
+                                                            usage(1, 500, 50),
+                                                            null));
+        // Run usage includes the usage of the compaction done during the run
+        extension.consumeEvent(new OutputGeneratedAgentEvent("dummy",
+                                                             "run-12",
+                                                             "session-12",
+                                                             "user",
+                                                             "{}",
+                                                             usage(2, 620, 90),
+                                                             Duration.ofMillis(400)));
+
+        assertEquals(120, tokenUsage("input").getSum());
+        assertEquals(40, tokenUsage("output").getSum());
+        final var compactionInput = histogramPoints("gen_ai.client.token.usage").stream()
+                .filter(point -> "compact".equals(point.getAttributes().get(ATTR_OPERATION_NAME)))
+                .filter(point -> "input".equals(point.getAttributes().get(ATTR_TOKEN_TYPE)))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(500, compactionInput.getSum());
+    }
+
     @Test
     void shouldMarkInvokeAgentSpanErrorWhenOutputFails() {
         final var model = mock(Model.class);
@@ -335,8 +697,145 @@ class OpenTelemetryAgentExtensionTest {
         assertEquals("tool_call_approval_denied", toolSpan.getAttributes().get(ATTR_ERROR_TYPE));
     }
 
+    @Test
+    @SuppressWarnings({
+            "BusyWait", "java:S2925"
+    })
+    void shouldNotKeepUnusedExtensionsReachableFromStaleSpanReaper() throws InterruptedException {
+        var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                        .staleSpanReapInterval(Duration.ofMillis(10))
+                        .build())
+                .build();
+        final var extensionRef = new WeakReference<>(extension);
+        extension = null;
+
+        final var deadline = System.currentTimeMillis() + 5_000;
+        while (extensionRef.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(extensionRef.get());
+    }
+
+    @Test
+    void shouldRecordMetricsWithoutTracer() {
+        final var model = mock(Model.class);
+        when(model.compute(any(), anyCollection(), anyList(), anyMap(), any(ToolRunner.class), any(), anyList()))
+                .thenAnswer(
+                            successfulOutput("hi",
+                                             120,
+                                             40));
+        final var agent = createAgent(model,
+                                      Map.of(),
+                                      OpenTelemetryAgentExtensionSetup.builder()
+                                              .meter(openTelemetrySdk.getMeter("sentinel.test"))
+                                              .build(),
+                                      new ApproveAllToolRuns<>());
+
+        agent.execute(agentInput("run-8", "session-8"));
+
+        assertEquals(0, finishedSpans().size());
+        final var runDurations = histogramPoints("sentinel.agent.run.duration");
+        assertEquals(1, runDurations.size());
+        final var runDuration = runDurations.iterator().next();
+        assertEquals(1, runDuration.getCount());
+        assertEquals("dummy", runDuration.getAttributes().get(ATTR_AGENT_NAME));
+        assertNull(runDuration.getAttributes().get(ATTR_ERROR_TYPE));
+        assertEquals(120, tokenUsage("input").getSum());
+        assertEquals(40, tokenUsage("output").getSum());
+    }
+
+    @Test
+    void shouldRecordRunModelToolAndTokenMetrics() {
+        final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                        .meter(openTelemetrySdk.getMeter("sentinel.test"))
+                        .requestModel("gpt-4o")
+                        .build())
+                .build();
+
+        for (var i = 0; i < 3; i++) {
+            final var runId = "run-7-" + i;
+            extension.consumeEvent(new InputReceivedAgentEvent("dummy", runId, "session-7", "user", "hello"));
+            extension.consumeEvent(new MessageReceivedAgentEvent("dummy",
+                                                                 runId,
+                                                                 "session-7",
+                                                                 "user",
+                                                                 List.of(),
+                                                                 List.of(),
+                                                                 Duration.ofMillis(150)));
+            extension.consumeEvent(new ToolCallCompletedAgentEvent("dummy",
+                                                                   runId,
+                                                                   "session-7",
+                                                                   "user",
+                                                                   "call-" + i,
+                                                                   "get-weather",
+                                                                   ErrorType.SUCCESS,
+                                                                   "{\"temp\":22}",
+                                                                   Duration.ofMillis(30)));
+            extension.consumeEvent(new OutputGeneratedAgentEvent("dummy",
+                                                                 runId,
+                                                                 "session-7",
+                                                                 "user",
+                                                                 "{}",
+                                                                 new ModelUsageStats().incrementRequestTokens(120)
+                                                                         .incrementResponseTokens(40),
+                                                                 Duration.ofMillis(400)));
+        }
+
+        final var runDuration = histogramPoints("sentinel.agent.run.duration").iterator().next();
+        assertEquals(3, runDuration.getCount());
+        assertEquals(1_200, runDuration.getSum());
+        assertEquals("dummy", runDuration.getAttributes().get(ATTR_AGENT_NAME));
+        assertEquals("gpt-4o", runDuration.getAttributes().get(ATTR_REQUEST_MODEL));
+        assertEquals("openai", runDuration.getAttributes().get(ATTR_PROVIDER_NAME));
+
+        final var modelCallDuration = histogramPoints("sentinel.agent.model.call.duration").iterator().next();
+        assertEquals(3, modelCallDuration.getCount());
+        assertEquals(450, modelCallDuration.getSum());
+        assertEquals("chat", modelCallDuration.getAttributes().get(ATTR_OPERATION_NAME));
+
+        final var toolCallDurations = histogramPoints("sentinel.agent.tool.call.duration");
+        assertEquals(1, toolCallDurations.size());
+        final var toolCallDuration = toolCallDurations.iterator().next();
+        assertEquals(3, toolCallDuration.getCount());
+        assertEquals(90, toolCallDuration.getSum());
+        assertEquals("get-weather", toolCallDuration.getAttributes().get(ATTR_TOOL_NAME));
+        assertNull(toolCallDuration.getAttributes().get(ATTR_TOOL_CALL_ID));
+        assertNull(toolCallDuration.getAttributes().get(ATTR_CONVERSATION_ID));
+
+        assertEquals(360, tokenUsage("input").getSum());
+        assertEquals(120, tokenUsage("output").getSum());
+        assertEquals("gpt-4o", tokenUsage("input").getAttributes().get(ATTR_REQUEST_MODEL));
+        assertEquals(0, counterPoints("sentinel.agent.errors").size());
+    }
+
+    @Test
+    void shouldShareOneStaleSpanReaperThreadBetweenExtensions() {
+        final var extensions = new ArrayList<OpenTelemetryAgentExtension<String, String, DummyAgent>>();
+        for (int i = 0; i < 10; i++) {
+            extensions.add(OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                    .setup(OpenTelemetryAgentExtensionSetup.builder()
+                            .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                            .build())
+                    .build());
+        }
+
+        final var reaperThreads = Thread.getAllStackTraces()
+                .keySet()
+                .stream()
+                .filter(thread -> thread.getName().startsWith("otel-stale-span-reaper-"))
+                .count();
+        assertEquals(1, reaperThreads);
+        extensions.forEach(OpenTelemetryAgentExtension::close);
+    }
+
     @AfterEach
     void tearDown() {
+        meterProvider.close();
         tracerProvider.close();
         openTelemetrySdk.close();
     }
@@ -352,6 +851,21 @@ class OpenTelemetryAgentExtensionTest {
                 .build();
     }
 
+    private Collection<LongPointData> counterPoints(String name) {
+        return metricReader.collectAllMetrics()
+                .stream()
+                .filter(metric -> name.equals(metric.getName()))
+                .flatMap(metric -> metric.getLongSumData().getPoints().stream())
+                .toList();
+    }
+
+    private long counterValue(Collection<LongPointData> points, String errorType) {
+        return points.stream()
+                .filter(point -> errorType.equals(point.getAttributes().get(ATTR_ERROR_TYPE)))
+                .mapToLong(LongPointData::getValue)
+                .sum();
+    }
+
     private DummyAgent createAgent(Model model,
                                    Map<String, ExecutableTool> tools,
                                    OpenTelemetryAgentExtensionSetup otelSetup,
@@ -367,6 +881,49 @@ class OpenTelemetryAgentExtensionTest {
         return new DummyAgent(setup, List.of(extension), tools, toolRunApprovalSeeker);
     }
 
+    /**
+     * Measures tool call events handled per second while the given number of runs (each with a pending tool call)
+     * stay active.
+     */
+    private double eventsPerSecond(int activeRuns) {
+        final var events = 100_000;
+        try (final var extension = OpenTelemetryAgentExtension.<String, String, DummyAgent>builder()
+                .setup(OpenTelemetryAgentExtensionSetup.builder()
+                        .tracer(openTelemetrySdk.getTracer("sentinel.test"))
+                        .build())
+                .build()) {
+            for (var i = 0; i < activeRuns; i++) {
+                extension.consumeEvent(new InputReceivedAgentEvent("dummy", "run-" + i, "session", "user", "hello"));
+                extension.consumeEvent(new ToolCalledAgentEvent("dummy",
+                                                                "run-" + i,
+                                                                "session",
+                                                                "user",
+                                                                "pending",
+                                                                "slow-tool",
+                                                                "{}"));
+            }
+            final var toolEvents = new ArrayList<AgentEvent>(events);
+            for (var i = 0; i < events / 2; i++) {
+                final var runId = "run-" + i % activeRuns;
+                toolEvents.add(new ToolCalledAgentEvent("dummy", runId, "session", "user", "call-" + i, "tool", "{}"));
+                toolEvents.add(new ToolCallCompletedAgentEvent("dummy",
+                                                               runId,
+                                                               "session",
+                                                               "user",
+                                                               "call-" + i,
+                                                               "tool",
+                                                               ErrorType.SUCCESS,
+                                                               "{}",
+                                                               Duration.ofMillis(1)));
+            }
+            final var start = System.nanoTime();
+            toolEvents.forEach(extension::consumeEvent);
+            final var elapsedNanos = System.nanoTime() - start;
+            spanExporter.reset();
+            return events * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
     private ExternalTool externalTool(String toolName,
                                       ExternalTool.ExternalToolResponse response) {
         final var definition = ToolDefinition.builder()
@@ -392,6 +949,14 @@ class OpenTelemetryAgentExtensionTest {
         return spanExporter.getFinishedSpanItems();
     }
 
+    private Collection<HistogramPointData> histogramPoints(String name) {
+        return metricReader.collectAllMetrics()
+                .stream()
+                .filter(metric -> name.equals(metric.getName()))
+                .flatMap(metric -> metric.getHistogramData().getPoints().stream())
+                .toList();
+    }
+
 
     private com.fasterxml.jackson.databind.JsonNode outputData(String value) {
         final var node = JsonUtils.createMapper().createObjectNode();
@@ -428,6 +993,12 @@ class OpenTelemetryAgentExtensionTest {
                 .orElse(null);
     }
 
+    private List<SpanData> spansByName(String name) {
+        return finishedSpans().stream()
+                .filter(span -> name.equals(span.getName()))
+                .toList();
+    }
+
     private Answer<CompletableFuture<ModelOutput>> successfulOutput(String output,
                                                                     int requestTokens,
                                                                     int responseTokens) {
@@ -443,9 +1014,24 @@ class OpenTelemetryAgentExtensionTest {
         };
     }
 
+    private HistogramPointData tokenUsage(String tokenType) {
+        return histogramPoints("gen_ai.client.token.usage").stream()
+                .filter(point -> tokenType.equals(point.getAttributes().get(ATTR_TOKEN_TYPE)))
+                .filter(point -> "invoke_agent".equals(point.getAttributes().get(ATTR_OPERATION_NAME)))
+                .findFirst()
+                .orElseThrow();
+    }
+
     @SuppressWarnings({
             "BusyWait", "java:S2925"
     })
+    private ModelUsageStats usage(int requests, int inputTokens, int outputTokens) {
+        return new ModelUsageStats()
+                .incrementRequestsForRun(requests)
+                .incrementRequestTokens(inputTokens)
+                .incrementResponseTokens(outputTokens);
+    }
+
     private SpanData waitForSpanByName(String name) {
         final var deadline = System.currentTimeMillis() + 1_000;
         while (System.currentTimeMillis() < deadline) {
@@ -40,6 +40,8 @@ import org.apache.commons.lang3.ClassUtils;
 import com.phonepe.sentinelai.core.agent.Agent;
 import com.phonepe.sentinelai.core.agent.AgentSetup;
 import com.phonepe.sentinelai.core.agent.ModelOutputDefinition;
+import com.phonepe.sentinelai.core.agent.PhaseTimings;
+import com.phonepe.sentinelai.core.agent.RunPhase;
 import com.phonepe.sentinelai.core.agent.StreamConsumer;
 import com.phonepe.sentinelai.core.agent.ToolRunner;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
@@ -243,7 +245,9 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
         return CompletableFuture.supplyAsync(() -> {
             ModelOutput output = null;
             var prevMessages = findPreviousRunMessages(context.getRunId(), oldMessages);
+            final var phaseTimings = context.getPhaseTimings();
             do {
+                final var preProcessingStarted = phaseTimings.start();
                 final var error = preProcessMessages(context,
                                                      oldMessages,
                                                      messagesPreProcessors,
@@ -252,6 +256,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                                                      newMessages,
                                                      openAiMessages).orElse(
                                                                             null);
+                phaseTimings.record(RunPhase.PRE_PROCESSING, preProcessingStarted);
 
                 if (error != null) {
                     output = error;
@@ -275,6 +280,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                 logModelRequest(request);
                 Chat completionResponse;
 
+                final var modelCallStarted = phaseTimings.start();
                 try {
                     completionResponse = openAIProviderFactory.get(modelName)
                             .chatCompletions()
@@ -282,11 +288,13 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                             .join();
                 }
                 catch (Exception e) {
+                    phaseTimings.record(RunPhase.MODEL_CALL, modelCallStarted);
                     return errorToModelOutput(context,
                                               e,
                                               newMessages,
                                               allMessages);
                 }
+                phaseTimings.record(RunPhase.MODEL_CALL, modelCallStarted);
                 logModelResponse(completionResponse);
                 mergeUsage(stats, completionResponse.getUsage());
                 final var response = extractResponse(completionResponse);
@@ -464,7 +472,9 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
         return CompletableFuture.supplyAsync(() -> {
             ModelOutput output = null;
             var prevMessages = findPreviousRunMessages(context.getRunId(), oldMessages);
+            final var phaseTimings = context.getPhaseTimings();
             do {
+                final var preProcessingStarted = phaseTimings.start();
                 final var error = preProcessMessages(context,
                                                      oldMessages,
                                                      messagesPreProcessors,
@@ -472,6 +482,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                                                      allMessages,
                                                      newMessages,
                                                      openAiMessages).orElse(null);
+                phaseTimings.record(RunPhase.PRE_PROCESSING, preProcessingStarted);
                 if (error != null) {
                     output = error;
                     break;
@@ -492,6 +503,8 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                 logModelRequest(request);
                 Stream<Chat> completionResponseStream;
                 raiseMessageSentEvent(context, prevMessages, allMessages);
+                //Model call time for streams runs till the finish reason arrives, tools are run after that
+                final var modelCallStarted = phaseTimings.start();
                 try {
                     completionResponseStream = openAIProviderFactory.get(modelName)
                             .chatCompletions()
@@ -499,6 +512,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                             .join();
                 }
                 catch (Exception e) {
+                    phaseTimings.record(RunPhase.MODEL_CALL, modelCallStarted);
                     return errorToModelOutput(context, e, newMessages, allMessages);
                 }
                 //We use the following to merge the pieces of response we get from stream into final output
@@ -544,6 +558,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                     if (!finishHandled.compareAndSet(false, true)) {
                         return null; //Already handled for this stream, continue to next chunk
                     }
+                    phaseTimings.record(RunPhase.MODEL_CALL, modelCallStarted);
                     //Model has stopped for some reason. Find out reason and handle
                     return switch (finishReason) {
                         case FinishReasons.STOP -> {
@@ -1138,7 +1153,8 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                         toolCalls,
                         agentMessages,
                         stats,
-                        stopwatch);
+                        stopwatch,
+                        context.getPhaseTimings());
         raiseMessageSentEvent(context,
                               prevMessages,
                               agentMessages.getAllMessages());
@@ -1155,7 +1171,8 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                                                                          List<io.github.sashirestela.openai.common.tool.ToolCall> toolCalls,
                                                                          AgentMessages agentMessages,
                                                                          ModelUsageStats stats,
-                                                                         Stopwatch stopwatch) {
+                                                                         Stopwatch stopwatch,
+                                                                         PhaseTimings phaseTimings) {
         final var seenToolCallIds = new HashSet<String>();
         final var toolCallMessages = toolCalls.stream()
                 .filter(toolCall -> !Strings.isNullOrEmpty(toolCall.getId()))
@@ -1167,6 +1184,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                                               toolCall.getFunction().getArguments()))
                 .toList();
 
+        final var eventStarted = phaseTimings.start();
         raiseMessageReceivedEvent(agentName,
                                   runId,
                                   sessionId,
@@ -1179,7 +1197,10 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                                           .addAll(agentMessages.getAllMessages())
                                           .addAll(toolCallMessages)
                                           .build(),
-                                  stopwatch);
+                                  stopwatch,
+                                  stats);
+        phaseTimings.record(RunPhase.EVENT_DISPATCH, eventStarted);
+        final var toolExecutionStarted = phaseTimings.start();
         final var jobs = toolCallMessages.stream()
                 .map(toolCallMessage -> CompletableFuture.supplyAsync(() -> {
                     final var toolCallResponse = callTool(sessionId,
@@ -1221,6 +1242,7 @@ public class SimpleOpenAIModel<M extends ChatCompletionServices> implements Mode
                     agentMessages.getNewMessages().add(toolCallResponse);
                     stats.incrementToolCallsForRun();
                 });
+        phaseTimings.record(RunPhase.TOOL_EXECUTION, toolExecutionStarted);
     }
 
     private static ToolCallResponse callTool(String sessionId,
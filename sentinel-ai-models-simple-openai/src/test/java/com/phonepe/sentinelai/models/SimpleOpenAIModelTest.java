@@ -41,6 +41,7 @@ import com.phonepe.sentinelai.core.agent.AgentOutput;
 import com.phonepe.sentinelai.core.agent.AgentRequestMetadata;
 import com.phonepe.sentinelai.core.agent.AgentSetup;
 import com.phonepe.sentinelai.core.agent.RetrySetup;
+import com.phonepe.sentinelai.core.agent.RunPhase;
 import com.phonepe.sentinelai.core.agentmessages.AgentGenericMessage;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessage;
 import com.phonepe.sentinelai.core.agentmessages.AgentMessageType;
@@ -68,6 +69,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
@@ -603,6 +605,26 @@ class SimpleOpenAIModelTest {
         assertFalse(response.getNewMessages().isEmpty());
     }
 
+    @Test
+    @SneakyThrows
+    void testPhaseTimings(final WireMockRuntimeInfo wiremock) {
+        final var runTimings = new CopyOnWriteArrayList<Map<RunPhase, Duration>>();
+        testInternal(wiremock,
+                     4,
+                     "tool-output",
+                     setup -> setup.phaseTimingsListener((agentName, runId, phaseTimings) -> runTimings
+                             .add(phaseTimings)));
+        assertEquals(2, runTimings.size());
+        final var firstRun = runTimings.get(0);
+        assertEquals(RunPhase.values().length, firstRun.size());
+        assertTrue(firstRun.get(RunPhase.SYSTEM_PROMPT).toNanos() > 0);
+        assertTrue(firstRun.get(RunPhase.PRE_PROCESSING).toNanos() > 0);
+        assertTrue(firstRun.get(RunPhase.MODEL_CALL).toNanos() > 0);
+        assertTrue(firstRun.get(RunPhase.TOOL_EXECUTION).toNanos() > 0);
+        assertTrue(firstRun.get(RunPhase.OUTPUT_VALIDATION).toNanos() > 0);
+        assertTrue(firstRun.get(RunPhase.EVENT_DISPATCH).toNanos() > 0);
+    }
+
     @ParameterizedTest
     @SneakyThrows
     @MethodSource("generateFaults")
@@ -19,7 +19,8 @@ package com.phonepe.sentinelai.storage.memory;
 import com.google.common.base.Strings;
 
 import com.phonepe.sentinelai.agentmemory.AgentMemory;
-import com.phonepe.sentinelai.agentmemory.AgentMemoryStore;
+import com.phonepe.sentinelai.agentmemory.compaction.CompactableAgentMemoryStore;
+import com.phonepe.sentinelai.agentmemory.compaction.EmbeddedAgentMemory;
 import com.phonepe.sentinelai.agentmemory.MemoryScope;
 import com.phonepe.sentinelai.agentmemory.MemoryType;
 import com.phonepe.sentinelai.embedding.EmbeddingModel;
@@ -27,9 +28,12 @@ import com.phonepe.sentinelai.storage.ESClient;
 
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.TermsQueryField;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.ingest.Processor;
 import co.elastic.clients.elasticsearch.ingest.SetProcessor;
 import co.elastic.clients.json.JsonData;
@@ -40,21 +44,28 @@ import lombok.extern.slf4j.Slf4j;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * An implementation of memory store that uses elasticsearch as the backend
  */
 @Slf4j
-public class ESAgentMemoryStorage implements AgentMemoryStore {
+public class ESAgentMemoryStorage implements CompactableAgentMemoryStore {
     private static final String MEMORIES_INDEX = "agent-memories";
+    private static final String SCOPES_AGGREGATION = "scopes";
+    private static final int SCOPES_PAGE_SIZE = 1_000;
     private static final String AUTO_UPDATE_PIPELINE = "update_agent_memories_created_updated";
 
     private final ESClient client;
     private final EmbeddingModel embeddingModel;
     private final String indexPrefix;
+    private final List<Consumer<List<AgentMemory>>> changeListeners = new CopyOnWriteArrayList<>();
 
     public ESAgentMemoryStorage(@NonNull ESClient client,
                                 @NonNull EmbeddingModel embeddingModel,
@@ -65,6 +76,47 @@ public class ESAgentMemoryStorage implements AgentMemoryStore {
         ensureIndex();
     }
 
+    private static String documentId(final AgentMemory agentMemory) {
+        return UUID.nameUUIDFromBytes("%s-%s-%s-%s".formatted(agentMemory.getAgentName(),
+                                                              agentMemory.getScope(),
+                                                              agentMemory.getScopeId(),
+                                                              agentMemory.getName())
+                .getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Listeners are only told about changes made through this instance. Changes made by other processes or nodes
+     * sharing the index are not reported, so in a multi-node deployment a cache that relies on these notifications,
+     * like the user facts cache of {@code AgentMemoryExtension}, can serve stale entries till they expire.
+     */
+    @Override
+    public void addChangeListener(Consumer<List<AgentMemory>> listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    @SneakyThrows
+    public int delete(List<AgentMemory> memories) {
+        if (memories.isEmpty()) {
+            return 0;
+        }
+        final var indexName = indexName();
+        final var bulkRequest = new BulkRequest.Builder().refresh(Refresh.True);
+        memories.forEach(memory -> bulkRequest.operations(op -> op.delete(d -> d.index(indexName)
+                .id(documentId(memory)))));
+        final var deletedIds = client.getElasticsearchClient()
+                .bulk(bulkRequest.build())
+                .items()
+                .stream()
+                .filter(item -> item.error() == null && "deleted".equals(item.result()))
+                .map(BulkResponseItem::id)
+                .collect(Collectors.toSet());
+        notifyChanged(memories.stream()
+                .filter(memory -> deletedIds.contains(documentId(memory)))
+                .toList());
+        return deletedIds.size();
+    }
+
     @Override
     @SneakyThrows
     public List<AgentMemory> findMemories(String scopeId,
@@ -137,10 +189,37 @@ public class ESAgentMemoryStorage implements AgentMemoryStore {
 
     }
 
+    @Override
+    @SneakyThrows
+    public List<EmbeddedAgentMemory> memoriesInScope(ScopeKey scopeKey, int limit) {
+        final var boolBuilder = new BoolQuery.Builder()
+                .filter(f -> f.term(m -> m.field(ESAgentMemoryDocument.Fields.scope)
+                        .value(scopeKey.scope().name())));
+        if (!Strings.isNullOrEmpty(scopeKey.scopeId())) {
+            boolBuilder.filter(f -> f.term(m -> m.field(ESAgentMemoryDocument.Fields.scopeId)
+                    .value(scopeKey.scopeId())));
+        }
+        return client.getElasticsearchClient()
+                .search(s -> s.index(indexName())
+                        .query(q -> q.bool(boolBuilder.build()))
+                        .size(limit), ESAgentMemoryDocument.class)
+                .hits()
+                .hits()
+                .stream()
+                .filter(hit -> null != hit.source())
+                .map(hit -> new EmbeddedAgentMemory(toWire(hit.source()), hit.source().getContentVector()))
+                .toList();
+    }
+
+    @Override
+    public void removeChangeListener(Consumer<List<AgentMemory>> listener) {
+        changeListeners.remove(listener);
+    }
+
     @Override
     @SneakyThrows
     public Optional<AgentMemory> save(AgentMemory agentMemory) {
-        final var stored = toStored(agentMemory);
+        final var stored = toStored(agentMemory, embeddingModel.getEmbedding(agentMemory.getContent()));
         final var indexName = indexName();
         final var result = client.getElasticsearchClient()
                 .update(u -> u.index(indexName)
@@ -155,11 +234,101 @@ public class ESAgentMemoryStorage implements AgentMemoryStore {
                 .get(g -> g.index(indexName).id(stored.getId()),
                      ESAgentMemoryDocument.class);
         if (doc.found() && doc.source() != null) {
-            return Optional.of(doc.source()).map(this::toWire);
+            final var saved = toWire(doc.source());
+            notifyChanged(List.of(saved));
+            return Optional.of(saved);
         }
         return Optional.empty();
     }
 
+    /**
+     * Saves a batch of memories. Contents are embedded in a single batched call and all documents are upserted
+     * through one bulk request with a single refresh.
+     */
+    @Override
+    @SneakyThrows
+    public List<AgentMemory> saveAll(List<AgentMemory> agentMemories) {
+        if (agentMemories.isEmpty()) {
+            return List.of();
+        }
+        final var vectors = embeddingModel.getEmbeddings(agentMemories.stream()
+                .map(AgentMemory::getContent)
+                .toList());
+        final var indexName = indexName();
+        final var bulkRequest = new BulkRequest.Builder().refresh(Refresh.True);
+        final var ids = new ArrayList<String>(agentMemories.size());
+        for (int i = 0; i < agentMemories.size(); i++) {
+            final var stored = toStored(agentMemories.get(i), vectors.get(i));
+            ids.add(stored.getId());
+            bulkRequest.operations(op -> op.update(u -> u.index(indexName)
+                    .id(stored.getId())
+                    .action(a -> a.doc(stored).docAsUpsert(true))));
+        }
+        final var elasticsearchClient = client.getElasticsearchClient();
+        final var response = elasticsearchClient.bulk(bulkRequest.build());
+        if (response.errors()) {
+            response.items()
+                    .stream()
+                    .filter(item -> item.error() != null)
+                    .forEach(item -> log.error("Error saving memory {}: {}",
+                                               item.id(),
+                                               item.error().reason()));
+        }
+        log.info("Bulk saved {} memories in {} ms", agentMemories.size(), response.took());
+        final var saved = elasticsearchClient.mget(m -> m.index(indexName).ids(ids), ESAgentMemoryDocument.class)
+                .docs()
+                .stream()
+                .filter(doc -> doc.isResult() && doc.result().found() && doc.result().source() != null)
+                .map(doc -> toWire(doc.result().source()))
+                .toList();
+        notifyChanged(saved);
+        return saved;
+    }
+
+    /**
+     * Lists distinct scope and scope id combinations using a paginated composite aggregation
+     */
+    @Override
+    @SneakyThrows
+    public List<ScopeKey> scopes() {
+        final var scopes = new ArrayList<ScopeKey>();
+        Map<String, FieldValue> afterKey = null;
+        do {
+            final var after = afterKey;
+            final var aggregation = client.getElasticsearchClient()
+                    .search(s -> s.index(indexName())
+                            .size(0)
+                            .aggregations(SCOPES_AGGREGATION, a -> a.composite(c -> {
+                                c.size(SCOPES_PAGE_SIZE)
+                                        .sources(List.of(Map.of(ESAgentMemoryDocument.Fields.scope,
+                                                                CompositeAggregationSource.of(cs -> cs.terms(t -> t
+                                                                        .field(ESAgentMemoryDocument.Fields.scope)))),
+                                                         Map.of(ESAgentMemoryDocument.Fields.scopeId,
+                                                                CompositeAggregationSource.of(cs -> cs.terms(t -> t
+                                                                        .field(ESAgentMemoryDocument.Fields.scopeId)
+                                                                        .missingBucket(true))))));
+                                if (after != null) {
+                                    c.after(after);
+                                }
+                                return c;
+                            })), Void.class)
+                    .aggregations()
+                    .get(SCOPES_AGGREGATION)
+                    .composite();
+            aggregation.buckets()
+                    .array()
+                    .forEach(bucket -> {
+                        final var scopeId = bucket.key().get(ESAgentMemoryDocument.Fields.scopeId);
+                        scopes.add(new ScopeKey(MemoryScope.valueOf(bucket.key()
+                                .get(ESAgentMemoryDocument.Fields.scope)
+                                .stringValue()),
+                                                scopeId == null || scopeId.isNull() ? null : scopeId.stringValue()));
+                    });
+            afterKey = aggregation.buckets().array().size() < SCOPES_PAGE_SIZE ? null : aggregation.afterKey();
+        } while (afterKey != null && !afterKey.isEmpty());
+        return scopes;
+    }
+
     @SneakyThrows
     private void ensureIndex() {
         final var elasticsearchClient = client.getElasticsearchClient();
@@ -244,25 +413,22 @@ public class ESAgentMemoryStorage implements AgentMemoryStore {
                 .formatted(indexPrefix, MEMORIES_INDEX);
     }
 
-    private ESAgentMemoryDocument toStored(final AgentMemory agentMemory) {
+    private void notifyChanged(List<AgentMemory> memories) {
+        if (!memories.isEmpty()) {
+            changeListeners.forEach(listener -> listener.accept(memories));
+        }
+    }
+
+    private ESAgentMemoryDocument toStored(final AgentMemory agentMemory, final float[] contentVector) {
         return ESAgentMemoryDocument.builder()
-                .id(UUID.nameUUIDFromBytes("%s-%s-%s-%s".formatted(agentMemory
-                        .getAgentName(),
-                                                                   agentMemory
-                                                                           .getScope(),
-                                                                   agentMemory
-                                                                           .getScopeId(),
-                                                                   agentMemory
-                                                                           .getName())
-                        .getBytes(StandardCharsets.UTF_8)).toString())
+                .id(documentId(agentMemory))
                 .agentName(agentMemory.getAgentName())
                 .scope(agentMemory.getScope())
                 .scopeId(agentMemory.getScopeId())
                 .memoryType(agentMemory.getMemoryType())
                 .name(agentMemory.getName())
                 .content(agentMemory.getContent())
-                .contentVector(embeddingModel.getEmbedding(agentMemory
-                        .getContent()))
+                .contentVector(contentVector)
                 .topics(agentMemory.getTopics())
                 .reusabilityScore(agentMemory.getReusabilityScore())
                 .build();
@@ -21,6 +21,8 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import com.phonepe.sentinelai.agentmemory.AgentMemory;
 import com.phonepe.sentinelai.agentmemory.MemoryScope;
+import com.phonepe.sentinelai.agentmemory.compaction.AgentMemoryCompactor;
+import com.phonepe.sentinelai.agentmemory.compaction.CompactableAgentMemoryStore.ScopeKey;
 import com.phonepe.sentinelai.core.utils.TestUtils;
 import com.phonepe.sentinelai.embedding.HuggingfaceEmbeddingModel;
 import com.phonepe.sentinelai.storage.ESClient;
@@ -31,8 +33,10 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.phonepe.sentinelai.agentmemory.MemoryType.SEMANTIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -91,4 +95,82 @@ class ESAgentMemoryStorageTest extends ESIntegrationTestBase {
 
     }
 
+    @Test
+    @SneakyThrows
+    void testCompaction() {
+        try (final var client = ESClient.builder()
+                .serverUrl(ELASTICSEARCH_CONTAINER.getHttpHostAddress())
+                .apiKey(TestUtils.getTestProperty("ES_API_KEY", "test"))
+                .build()) {
+
+            final var storage = new ESAgentMemoryStorage(client,
+                                                         new HuggingfaceEmbeddingModel(),
+                                                         indexPrefix(this) + "-compaction");
+            final var name = AgentMemory.builder()
+                    .scope(MemoryScope.ENTITY)
+                    .memoryType(SEMANTIC)
+                    .scopeId("TestUser")
+                    .name("UserName")
+                    .content("User's name is santanu")
+                    .topics(List.of("info"))
+                    .reusabilityScore(10)
+                    .build();
+            storage.saveAll(List.of(name,
+                                    name.withName("NameOfUser").withContent("user's name is Santanu "),
+                                    name.withName("UserLocation").withContent("User's location is bangalore"),
+                                    name.withScopeId("OtherUser")));
+            assertEquals(Set.of(new ScopeKey(MemoryScope.ENTITY, "TestUser"),
+                                new ScopeKey(MemoryScope.ENTITY, "OtherUser")),
+                         Set.copyOf(storage.scopes()));
+
+            final var result = AgentMemoryCompactor.builder()
+                    .store(storage)
+                    .build()
+                    .runOnce();
+
+            assertEquals(1, result.getEvicted());
+            assertEquals(2,
+                         storage.findMemories("TestUser", MemoryScope.ENTITY, null, List.of(), null, 0, 10)
+                                 .size());
+            assertEquals(1,
+                         storage.findMemories("OtherUser", MemoryScope.ENTITY, null, List.of(), null, 0, 10)
+                                 .size());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void testSaveAll() {
+        try (final var client = ESClient.builder()
+                .serverUrl(ELASTICSEARCH_CONTAINER.getHttpHostAddress())
+                .apiKey(TestUtils.getTestProperty("ES_API_KEY", "test"))
+                .build()) {
+
+            final var storage = new ESAgentMemoryStorage(client,
+                                                         new HuggingfaceEmbeddingModel(),
+                                                         indexPrefix(this) + "-bulk");
+            final var name = AgentMemory.builder()
+                    .scope(MemoryScope.ENTITY)
+                    .memoryType(SEMANTIC)
+                    .scopeId("TestUser")
+                    .name("UserName")
+                    .content("User's name is santanu")
+                    .topics(List.of("info"))
+                    .reusabilityScore(10)
+                    .build();
+            final var location = name.withName("UserLocation")
+                    .withContent("User's location is bangalore");
+            final var saved = storage.saveAll(List.of(name, location));
+            assertEquals(2, saved.size());
+            final var results = storage.findMemories("TestUser",
+                                                     MemoryScope.ENTITY,
+                                                     EnumSet.of(SEMANTIC),
+                                                     List.of(),
+                                                     "location",
+                                                     0,
+                                                     10);
+            assertEquals(2, results.size());
+        }
+    }
+
 }
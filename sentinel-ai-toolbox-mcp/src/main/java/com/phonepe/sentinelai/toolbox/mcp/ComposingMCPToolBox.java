@@ -17,7 +17,9 @@
 package com.phonepe.sentinelai.toolbox.mcp;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import io.modelcontextprotocol.client.McpSyncClient;
 
@@ -25,19 +27,33 @@ import com.phonepe.sentinelai.core.tools.ExecutableTool;
 import com.phonepe.sentinelai.core.tools.ToolBox;
 import com.phonepe.sentinelai.toolbox.mcp.config.MCPConfiguration;
 import com.phonepe.sentinelai.toolbox.mcp.config.MCPServerConfig;
+import com.phonepe.sentinelai.toolbox.mcp.config.MCPStartupConfig;
 
 import lombok.Builder;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+import static java.util.Objects.requireNonNullElse;
 import static java.util.stream.Collectors.toUnmodifiableMap;
 
 /**
@@ -46,6 +62,14 @@ import static java.util.stream.Collectors.toUnmodifiableMap;
  */
 @Slf4j
 public class ComposingMCPToolBox implements ToolBox {
+    private static final int DEFAULT_STARTUP_PARALLELISM = 4;
+    private static final int DEFAULT_SERVER_STARTUP_TIMEOUT = 30_000;
+
+    /**
+     * Merged view of the tools of all clients, valid as long as no client has published a new catalog since
+     */
+    private record ComposedTools(long generation, Map<String, ExecutableTool> tools) {
+    }
 
     private final String name;
 
@@ -53,6 +77,12 @@ public class ComposingMCPToolBox implements ToolBox {
 
     private final Map<String, SentinelMCPClient> mcpClients = new ConcurrentHashMap<>();
 
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile ComposedTools composed;
+
+    private volatile MCPStartupReport startupReport;
+
     /**
      * Create a new ComposingMCPToolBox with the provided ObjectMapper and name.
      * If name is not provided, a random UUID will be used as the name.
@@ -172,12 +202,11 @@ public class ComposingMCPToolBox implements ToolBox {
     public ComposingMCPToolBox registerExistingMCP(@NonNull String name,
                                                    @NonNull McpSyncClient client,
                                                    @NonNull Collection<String> exposedTools) {
-        mcpClients.put(name,
-                       new SentinelMCPClient(name,
-                                             client,
-                                             objectMapper,
-                                             Set.copyOf(exposedTools)));
-        return this;
+        return register(name,
+                        new SentinelMCPClient(name,
+                                              client,
+                                              objectMapper,
+                                              Set.copyOf(exposedTools)));
     }
 
     /**
@@ -208,16 +237,58 @@ public class ComposingMCPToolBox implements ToolBox {
      */
     public ComposingMCPToolBox registerMCP(@NonNull String name,
                                            @NonNull MCPServerConfig serverConfig) {
-        mcpClients.put(name,
-                       new SentinelMCPClient(name,
-                                             serverConfig,
-                                             objectMapper,
-                                             serverConfig.getExposedTools()));
+        return register(name,
+                        new SentinelMCPClient(name,
+                                              serverConfig,
+                                              objectMapper,
+                                              serverConfig.getExposedTools()));
+    }
+
+    /**
+     * Register a set of MCP servers to the toolbox. Servers are connected to, and if warm-up is enabled their tools
+     * listed, in parallel. The call returns once every server has either started or exceeded its timeout. Servers that
+     * time out keep starting in the background and are registered once they are ready.
+     *
+     * @param servers       Configuration for the servers, keyed by server name
+     * @param startupConfig Parallelism and timeouts for the startup. Defaults are used if null.
+     * @return itself
+     * @throws IllegalStateException if any server failed to start within its timeout. Servers still starting at that
+     *                               point are closed once they are up, and are not registered.
+     */
+    public ComposingMCPToolBox registerMCPServers(@NonNull Map<String, MCPServerConfig> servers,
+                                                  MCPStartupConfig startupConfig) {
+        final var clients = new HashMap<String, Supplier<SentinelMCPClient>>();
+        servers.forEach((serverName, serverConfig) -> clients.put(serverName,
+                                                                  () -> new SentinelMCPClient(serverName,
+                                                                                              serverConfig,
+                                                                                              objectMapper,
+                                                                                              serverConfig
+                                                                                                      .getExposedTools())));
+        startClients(clients, startupConfig);
         return this;
     }
 
+    /**
+     * @return Outcome of the last call to {@link #registerMCPServers(Map, MCPStartupConfig)}, null if there was none
+     */
+    public MCPStartupReport startupReport() {
+        return startupReport;
+    }
+
+    /**
+     * Returns the merged tools of all clients. The merged map is rebuilt only after a client publishes a new tool
+     * catalog or a client is registered; otherwise the previously built map is returned as is.
+     */
     @Override
     public Map<String, ExecutableTool> tools() {
+        final var current = composed;
+        if (null != current && current.generation() == generation.get()) {
+            return current.tools();
+        }
+        // Catalogs loaded on first use get published, which would otherwise invalidate the map built below right away
+        mcpClients.values().forEach(SentinelMCPClient::catalog);
+        // Read before building, so that a catalog published while building forces a rebuild on the next call
+        final var buildGeneration = generation.get();
         log.debug("Composing tools from MCP clients: {}", mcpClients.keySet());
         final var relevantTools = Map.copyOf(mcpClients.values()
                 .stream()
@@ -228,6 +299,117 @@ public class ComposingMCPToolBox implements ToolBox {
                   relevantTools.size(),
                   name,
                   relevantTools.keySet());
+        composed = new ComposedTools(buildGeneration, relevantTools);
         return relevantTools;
     }
+
+    @VisibleForTesting
+    SentinelMCPClient client(String name) {
+        return mcpClients.get(name);
+    }
+
+    /**
+     * Starts the clients created by the provided factories, at most {@code parallelism} at a time. A server that exceeds
+     * its timeout gives up its slot to the next server but keeps starting on its own thread.
+     */
+    @VisibleForTesting
+    @SneakyThrows
+    MCPStartupReport startClients(Map<String, Supplier<SentinelMCPClient>> clients, MCPStartupConfig startupConfig) {
+        final var config = Objects.requireNonNullElseGet(startupConfig, () -> MCPStartupConfig.builder().build());
+        final var parallelism = Math.max(1, requireNonNullElse(config.getParallelism(), DEFAULT_STARTUP_PARALLELISM));
+        final var timeoutMs = requireNonNullElse(config.getServerTimeout(), DEFAULT_SERVER_STARTUP_TIMEOUT);
+        final var warmUp = requireNonNullElse(config.getWarmUp(), true);
+        final var slots = new Semaphore(parallelism);
+        final var serverStartup = new ConcurrentHashMap<String, Duration>();
+        final var started = new HashMap<String, CompletableFuture<SentinelMCPClient>>();
+        final var timed = new HashMap<String, CompletableFuture<SentinelMCPClient>>();
+        // Servers still starting when startup fails must not join the toolbox later
+        final var registration = new Object();
+        final var abandoned = new AtomicBoolean();
+        // One thread per server, the semaphore bounds how many servers are started at a time
+        final var executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("mcp-startup-" + name + "-%d")
+                .build());
+        final var startTime = System.nanoTime();
+        try {
+            for (final var entry : clients.entrySet()) {
+                final var serverName = entry.getKey();
+                slots.acquire();
+                final var future = CompletableFuture.supplyAsync(() -> {
+                    final var serverStart = System.nanoTime();
+                    final var client = entry.getValue().get();
+                    try {
+                        if (warmUp) {
+                            client.catalog();
+                        }
+                    }
+                    catch (Exception e) {
+                        client.close();
+                        throw e;
+                    }
+                    synchronized (registration) {
+                        if (abandoned.get()) {
+                            log.info("Closing MCP server {} as it finished starting after startup failed",
+                                     serverName);
+                            client.close();
+                            return null;
+                        }
+                        register(serverName, client);
+                    }
+                    serverStartup.put(serverName, Duration.ofNanos(System.nanoTime() - serverStart));
+                    return client;
+                }, executor);
+                future.exceptionally(error -> {
+                    log.error("Error starting MCP server {}: {}", serverName, error.getMessage());
+                    return null;
+                });
+                final var withTimeout = future.copy().orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+                withTimeout.whenComplete((client, error) -> slots.release());
+                started.put(serverName, future);
+                timed.put(serverName, withTimeout);
+            }
+            CompletableFuture.allOf(timed.values().toArray(CompletableFuture[]::new))
+                    .handle((result, error) -> null)
+                    .join();
+        }
+        finally {
+            executor.shutdown();
+        }
+        final var coldStart = Duration.ofNanos(System.nanoTime() - startTime);
+        final var pending = new HashSet<String>();
+        final var failed = new HashMap<String, Throwable>();
+        started.forEach((serverName, future) -> {
+            if (!future.isDone()) {
+                pending.add(serverName);
+            }
+            else if (future.isCompletedExceptionally()) {
+                failed.put(serverName, future.handle((client, error) -> error).join());
+            }
+        });
+        final var report = new MCPStartupReport(coldStart, Map.copyOf(serverStartup), Set.copyOf(pending));
+        startupReport = report;
+        log.info("Started {} MCP servers for toolbox [{}] in {} ms. Server startup times: {}. Still starting: {}",
+                 serverStartup.size(),
+                 name,
+                 coldStart.toMillis(),
+                 serverStartup,
+                 pending);
+        if (!failed.isEmpty()) {
+            synchronized (registration) {
+                abandoned.set(true);
+            }
+            final var cause = failed.values().iterator().next();
+            throw new IllegalStateException("Error starting MCP servers: " + failed.keySet(),
+                                            cause instanceof CompletionException ? cause.getCause() : cause);
+        }
+        return report;
+    }
+
+    private ComposingMCPToolBox register(String name, SentinelMCPClient client) {
+        client.onCatalogChange(generation::incrementAndGet);
+        mcpClients.put(name, client);
+        generation.incrementAndGet();
+        return this;
+    }
 }
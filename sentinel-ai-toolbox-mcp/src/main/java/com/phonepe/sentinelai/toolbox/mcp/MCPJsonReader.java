@@ -67,14 +67,17 @@ public class MCPJsonReader {
     }
 
     /**
-     * Load MCP servers from the provided configuration into the toolbox.
+     * Load MCP servers from the provided configuration into the toolbox. Servers are started in parallel as per the
+     * startup configuration.
      *
      * @param config  MCP configuration containing server definitions
      * @param toolBox Toolbox to register the MCP clients
      */
     public static void loadServers(MCPConfiguration config,
                                    ComposingMCPToolBox toolBox) {
-        loadServers(config, toolBox::registerMCP);
+        toolBox.registerMCPServers(Objects.requireNonNullElseGet(config.getMcpServers(),
+                                                                 Map::<String, MCPServerConfig>of),
+                                   config.getStartup());
     }
 
 }
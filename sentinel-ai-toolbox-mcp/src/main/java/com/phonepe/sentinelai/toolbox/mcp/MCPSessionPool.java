@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.phonepe.sentinelai.toolbox.mcp.config.MCPSessionPoolConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNullElse;
+
+/**
+ * A pool of sessions to a single MCP server. Calls are routed to the healthy session with the fewest calls in flight.
+ * When a limit on in-flight calls is configured, callers wait for a slot in arrival order. Sessions that fail periodic
+ * health checks are taken out of rotation and, if the pool knows how to create sessions, replaced. A replaced session
+ * is closed once the calls in flight on it complete, or once the drain timeout passes.
+ *
+ * @param <S> Type of the session (client) object
+ */
+@Slf4j
+class MCPSessionPool<S> implements AutoCloseable {
+    private static final int DEFAULT_ACQUIRE_TIMEOUT = 30_000;
+    private static final int DEFAULT_DRAIN_TIMEOUT = 60_000;
+
+    private final class Session {
+        private final S client;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile boolean healthy = true;
+        private volatile boolean retired = false;
+        private volatile long retiredAt;
+
+        private Session(S client) {
+            this.client = client;
+        }
+    }
+
+    private final String name;
+    private final Supplier<S> sessionFactory;
+    private final Predicate<S> healthCheck;
+    private final Consumer<S> sessionCloser;
+    private final AtomicReferenceArray<Session> sessions;
+    /**
+     * Sessions that were replaced but still have calls in flight
+     */
+    private final Set<Session> retiredSessions = ConcurrentHashMap.newKeySet();
+    private final Semaphore slots;
+    private final long acquireTimeoutMs;
+    private final long drainTimeoutMs;
+    private final AtomicInteger nextSession = new AtomicInteger(0);
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * Creates a pool that opens the configured number of sessions using the provided factory
+     */
+    MCPSessionPool(String name,
+                   MCPSessionPoolConfig config,
+                   Supplier<S> sessionFactory,
+                   Predicate<S> healthCheck,
+                   Consumer<S> sessionCloser) {
+        this(name,
+             config,
+             createSessions(name, config, sessionFactory, sessionCloser),
+             sessionFactory,
+             healthCheck,
+             sessionCloser);
+    }
+
+    /**
+     * Creates a pool around a single externally created session. Such a pool cannot replace the session.
+     */
+    MCPSessionPool(String name,
+                   S session,
+                   Consumer<S> sessionCloser) {
+        this(name, MCPSessionPoolConfig.builder().build(), List.of(session), null, null, sessionCloser);
+    }
+
+    private MCPSessionPool(String name,
+                           MCPSessionPoolConfig config,
+                           List<S> clients,
+                           Supplier<S> sessionFactory,
+                           Predicate<S> healthCheck,
+                           Consumer<S> sessionCloser) {
+        this.name = name;
+        this.sessionFactory = sessionFactory;
+        this.healthCheck = healthCheck;
+        this.sessionCloser = sessionCloser;
+        this.sessions = new AtomicReferenceArray<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            sessions.set(i, new Session(clients.get(i)));
+        }
+        final var maxInFlight = requireNonNullElse(config.getMaxInFlight(), 0);
+        // Fair semaphore, so that waiting callers get slots in the order they arrived
+        this.slots = maxInFlight > 0 ? new Semaphore(maxInFlight, true) : null;
+        this.acquireTimeoutMs = requireNonNullElse(config.getAcquireTimeout(), DEFAULT_ACQUIRE_TIMEOUT);
+        this.drainTimeoutMs = requireNonNullElse(config.getDrainTimeout(), DEFAULT_DRAIN_TIMEOUT);
+        final var healthCheckInterval = requireNonNullElse(config.getHealthCheckInterval(), 0);
+        if (healthCheck != null && healthCheckInterval > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("mcp-health-" + name + "-%d")
+                    .build());
+            healthChecker.scheduleWithFixedDelay(this::checkHealth,
+                                                 healthCheckInterval,
+                                                 healthCheckInterval,
+                                                 TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.healthChecker = null;
+        }
+    }
+
+    private static <S> void closeSession(String name, S client, Consumer<S> sessionCloser) {
+        try {
+            sessionCloser.accept(client);
+        }
+        catch (Exception e) {
+            log.warn("Error closing session to MCP server {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the sessions in parallel, so that the pool is ready after roughly the time taken to open a single session.
+     * If any session fails to open, the ones that did open are closed.
+     */
+    private static <S> List<S> createSessions(String name,
+                                              MCPSessionPoolConfig config,
+                                              Supplier<S> sessionFactory,
+                                              Consumer<S> sessionCloser) {
+        final var size = Math.max(1, requireNonNullElse(config.getSize(), 1));
+        if (size == 1) {
+            return List.of(sessionFactory.get());
+        }
+        final var executor = Executors.newFixedThreadPool(size,
+                                                          new ThreadFactoryBuilder()
+                                                                  .setDaemon(true)
+                                                                  .setNameFormat("mcp-connect-" + name + "-%d")
+                                                                  .build());
+        try {
+            final var futures = new ArrayList<CompletableFuture<S>>(size);
+            for (int i = 0; i < size; i++) {
+                futures.add(CompletableFuture.supplyAsync(sessionFactory, executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            }
+            catch (CompletionException e) {
+                futures.stream()
+                        .filter(future -> !future.isCompletedExceptionally())
+                        .forEach(future -> closeSession(name, future.join(), sessionCloser));
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+            return futures.stream().map(CompletableFuture::join).toList();
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (int i = 0; i < sessions.length(); i++) {
+            closeOnce(sessions.get(i));
+        }
+        retiredSessions.forEach(this::closeOnce);
+    }
+
+    /**
+     * Runs an action on the least loaded healthy session
+     *
+     * @throws TimeoutException if no slot became free within the configured acquire timeout
+     */
+    <T> T call(Function<S, T> action) throws TimeoutException, InterruptedException {
+        final var session = acquire();
+        try {
+            return action.apply(session.client);
+        }
+        finally {
+            release(session);
+        }
+    }
+
+    /**
+     * Starts an asynchronous action on the least loaded healthy session. The session slot is held till the returned
+     * future completes or is cancelled.
+     *
+     * @throws TimeoutException if no slot became free within the configured acquire timeout
+     */
+    <T> CompletableFuture<T> callAsync(Function<S, CompletableFuture<T>> action)
+            throws TimeoutException, InterruptedException {
+        final var session = acquire();
+        final CompletableFuture<T> future;
+        try {
+            future = action.apply(session.client);
+        }
+        catch (RuntimeException e) {
+            release(session);
+            throw e;
+        }
+        future.whenComplete((result, error) -> release(session));
+        return future;
+    }
+
+    /**
+     * Pings every session. A session that fails is taken out of rotation and, if possible, replaced by a new one. The
+     * replaced session is closed once the calls in flight on it complete, so that they are not cut off.
+     */
+    void checkHealth() {
+        for (int i = 0; i < sessions.length(); i++) {
+            final var session = sessions.get(i);
+            if (isHealthy(session.client)) {
+                session.healthy = true;
+                continue;
+            }
+            session.healthy = false;
+            if (sessionFactory == null) {
+                log.warn("Session to MCP server {} failed health check and cannot be replaced", name);
+                continue;
+            }
+            log.warn("Session to MCP server {} failed health check. Replacing it", name);
+            try {
+                sessions.set(i, new Session(Objects.requireNonNull(sessionFactory.get())));
+                retire(session);
+            }
+            catch (Exception e) {
+                log.error("Error replacing session to MCP server {}: {}", name, e.getMessage());
+            }
+        }
+        final var now = System.currentTimeMillis();
+        for (final var session : retiredSessions) {
+            if (now - session.retiredAt >= drainTimeoutMs) {
+                log.warn("Closing replaced session to MCP server {} with {} calls still in flight",
+                         name,
+                         session.inFlight.get());
+                closeOnce(session);
+            }
+        }
+    }
+
+    /**
+     * @return Current clients of all sessions, healthy or not
+     */
+    List<S> clients() {
+        final var clients = new ArrayList<S>(sessions.length());
+        for (int i = 0; i < sessions.length(); i++) {
+            clients.add(sessions.get(i).client);
+        }
+        return clients;
+    }
+
+    int healthySessions() {
+        var healthy = 0;
+        for (int i = 0; i < sessions.length(); i++) {
+            if (sessions.get(i).healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * @return Calls in flight on all sessions, including replaced sessions that are still draining
+     */
+    int inFlight() {
+        var inFlight = retiredSessions.stream().mapToInt(session -> session.inFlight.get()).sum();
+        for (int i = 0; i < sessions.length(); i++) {
+            inFlight += sessions.get(i).inFlight.get();
+        }
+        return inFlight;
+    }
+
+    int size() {
+        return sessions.length();
+    }
+
+    private Session acquire() throws TimeoutException, InterruptedException {
+        if (slots != null && !slots.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timed out waiting for a free session to MCP server " + name);
+        }
+        while (true) {
+            final var session = select();
+            session.inFlight.incrementAndGet();
+            // Checked after counting the call, so that a session is never closed under a call that was routed to it
+            if (!session.retired) {
+                return session;
+            }
+            leave(session);
+        }
+    }
+
+    private void closeOnce(Session session) {
+        if (session.closed.compareAndSet(false, true)) {
+            retiredSessions.remove(session);
+            closeSession(name, session.client, sessionCloser);
+        }
+    }
+
+    private boolean isHealthy(S client) {
+        try {
+            return healthCheck.test(client);
+        }
+        catch (Exception e) {
+            log.debug("Health check failed for MCP server {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void leave(Session session) {
+        if (session.inFlight.decrementAndGet() == 0 && session.retired) {
+            closeOnce(session);
+        }
+    }
+
+    private void release(Session session) {
+        leave(session);
+        if (slots != null) {
+            slots.release();
+        }
+    }
+
+    private void retire(Session session) {
+        session.retiredAt = System.currentTimeMillis();
+        retiredSessions.add(session);
+        session.retired = true;
+        if (session.inFlight.get() == 0) {
+            closeOnce(session);
+        }
+    }
+
+    /**
+     * Picks the healthy session with the fewest calls in flight. Ties are broken round-robin so that sessions are
+     * used evenly under light load. Falls back to all sessions if none are healthy.
+     */
+    private Session select() {
+        final var size = sessions.length();
+        if (size == 1) {
+            return sessions.get(0);
+        }
+        final var start = Math.floorMod(nextSession.getAndIncrement(), size);
+        Session best = null;
+        Session leastLoaded = null;
+        for (int i = 0; i < size; i++) {
+            final var session = sessions.get((start + i) % size);
+            if (session.healthy && (best == null || session.inFlight.get() < best.inFlight.get())) {
+                best = session;
+            }
+            if (leastLoaded == null || session.inFlight.get() < leastLoaded.inFlight.get()) {
+                leastLoaded = session;
+            }
+        }
+        return best != null ? best : leastLoaded;
+    }
+}
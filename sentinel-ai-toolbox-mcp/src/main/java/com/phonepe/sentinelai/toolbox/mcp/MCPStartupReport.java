@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of starting a set of MCP servers in a {@link ComposingMCPToolBox}
+ *
+ * @param coldStart      Time from the start of the startup till the tools of all servers that did not time out were
+ *                       available
+ * @param serverStartup  Time taken by every server that started within its timeout, keyed by server name
+ * @param pendingServers Servers that did not start within their timeout. These are still being started in the
+ *                       background and get registered to the toolbox once they are ready.
+ */
+public record MCPStartupReport(
+        Duration coldStart,
+        Map<String, Duration> serverStartup,
+        Set<String> pendingServers
+) {
+}
@@ -33,6 +33,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MCPToolBox is a tool box that uses the Model Context Protocol (MCP) to manage tools.
@@ -52,15 +53,25 @@ public class MCPToolBox implements ToolBox {
                                                exposedTools);
     }
 
+    /**
+     * Creates a toolbox for the configured server. The server is connected to and its tools listed here, so that the
+     * first agent request does not pay for the server startup.
+     */
     @Builder(builderMethodName = "buildFromConfig", builderClassName = "MCPToolBoxBuilderFromConfig")
     public MCPToolBox(@NonNull final String name,
                       @NonNull final ObjectMapper mapper,
                       @NonNull final MCPServerConfig mcpServerConfig) {
+        final var start = System.nanoTime();
         this.mcpClient = new SentinelMCPClient(name,
                                                mcpServerConfig,
                                                mapper,
                                                mcpServerConfig
                                                        .getExposedTools());
+        final var catalog = mcpClient.catalog();
+        log.info("MCP server {} started with {} tools in {} ms",
+                 name,
+                 catalog.tools().size(),
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     public MCPToolBox exposeAllTools() {
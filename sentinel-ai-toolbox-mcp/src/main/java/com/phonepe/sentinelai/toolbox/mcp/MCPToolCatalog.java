@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import com.phonepe.sentinelai.core.tools.ExecutableTool;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the tools known from an MCP server. A new snapshot with a higher version is published whenever
+ * the server reports a change in its tools or the set of exposed tools is changed, so readers can hold on to a snapshot
+ * without it changing underneath them.
+ *
+ * @param version       Version of the snapshot, increases with every publication
+ * @param tools         All tools provided by the server, keyed by tool id
+ * @param exposedTools  Tools that are exposed to the agent, keyed by tool id
+ */
+public record MCPToolCatalog(
+        long version,
+        Map<String, ExecutableTool> tools,
+        Map<String, ExecutableTool> exposedTools
+) {
+}
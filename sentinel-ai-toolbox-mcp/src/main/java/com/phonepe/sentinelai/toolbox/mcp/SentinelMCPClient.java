@@ -19,6 +19,7 @@ package com.phonepe.sentinelai.toolbox.mcp;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 
+import io.modelcontextprotocol.client.McpAsyncClient;
 import io.modelcontextprotocol.client.McpClient;
 import io.modelcontextprotocol.client.McpSyncClient;
 import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
@@ -53,6 +54,7 @@ import com.phonepe.sentinelai.toolbox.mcp.config.MCPHttpServerConfig;
 import com.phonepe.sentinelai.toolbox.mcp.config.MCPSSEServerConfig;
 import com.phonepe.sentinelai.toolbox.mcp.config.MCPServerConfig;
 import com.phonepe.sentinelai.toolbox.mcp.config.MCPServerConfigVisitor;
+import com.phonepe.sentinelai.toolbox.mcp.config.MCPSessionPoolConfig;
 import com.phonepe.sentinelai.toolbox.mcp.config.MCPStdioServerConfig;
 
 import lombok.Getter;
@@ -60,6 +62,7 @@ import lombok.NonNull;
 import lombok.Singular;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -69,16 +72,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNullElse;
 import static java.util.Objects.requireNonNullElseGet;
 import static java.util.stream.Collectors.toMap;
 
 /**
- * An internal client for MCP server that exposes tools as {@link ExecutableTool}s.
+ * An internal client for MCP server that exposes tools as {@link ExecutableTool}s. Calls are spread over a pool of
+ * sessions to the server, see {@link MCPSessionPoolConfig}. Sessions use either the blocking SDK client or, when
+ * configured, the asynchronous one. With the asynchronous client, tool calls and sampling requests are composed as
+ * futures and a tool call whose caller is interrupted (for example by a tool timeout) is cancelled on the session.
+ * Agents call tools synchronously through {@link #runTool}, so only callers of {@link #runToolAsync} avoid parking a
+ * thread for the duration of the call.
  */
 @Slf4j
 public class SentinelMCPClient implements AutoCloseable {
@@ -87,11 +99,14 @@ public class SentinelMCPClient implements AutoCloseable {
 
     @Getter
     private final String name;
-    private final McpSyncClient mcpClient;
+    // Exactly one of these is set, depending on whether the client runs in async mode
+    private final MCPSessionPool<McpSyncClient> sessions;
+    private final MCPSessionPool<McpAsyncClient> asyncSessions;
     private final ObjectMapper mapper;
     private final JacksonMcpJsonMapper jacksonMapper;
     private final Set<String> exposedTools = new CopyOnWriteArraySet<>();
-    private final Map<String, ExecutableTool> knownTools = new ConcurrentHashMap<>();
+    private final AtomicReference<MCPToolCatalog> catalog = new AtomicReference<>();
+    private final List<Runnable> catalogListeners = new CopyOnWriteArrayList<>();
 
     private Agent<?, ?, ?> agent;
 
@@ -102,7 +117,61 @@ public class SentinelMCPClient implements AutoCloseable {
         this.name = name;
         this.mapper = mapper;
         this.jacksonMapper = new JacksonMcpJsonMapper(mapper);
-        this.mcpClient = createMcpClient(mcpServerConfig);
+        final var poolConfig = requireNonNullElseGet(mcpServerConfig.getSessionPool(),
+                                                     () -> MCPSessionPoolConfig.builder().build());
+        if (Boolean.TRUE.equals(poolConfig.getAsync())) {
+            this.sessions = null;
+            this.asyncSessions = new MCPSessionPool<>(name,
+                                                      poolConfig,
+                                                      () -> createAsyncMcpClient(mcpServerConfig),
+                                                      SentinelMCPClient::ping,
+                                                      McpAsyncClient::close);
+        }
+        else {
+            this.sessions = new MCPSessionPool<>(name,
+                                                 poolConfig,
+                                                 () -> createMcpClient(mcpServerConfig),
+                                                 SentinelMCPClient::ping,
+                                                 McpSyncClient::close);
+            this.asyncSessions = null;
+        }
+        this.exposeTools(exposedTools);
+    }
+
+    /**
+     * Creates a client with a pool of sessions obtained from the provided factory. Factory will be called again to
+     * replace sessions that fail health checks. Clients returned by the factory must already be initialized.
+     */
+    public SentinelMCPClient(@NonNull String name,
+                             @NonNull Supplier<McpSyncClient> clientFactory,
+                             @NonNull MCPSessionPoolConfig sessionPoolConfig,
+                             @NonNull ObjectMapper mapper,
+                             @Singular Set<String> exposedTools) {
+        this.name = name;
+        this.mapper = mapper;
+        this.jacksonMapper = new JacksonMcpJsonMapper(mapper);
+        this.sessions = new MCPSessionPool<>(name,
+                                             sessionPoolConfig,
+                                             clientFactory,
+                                             SentinelMCPClient::ping,
+                                             McpSyncClient::close);
+        this.asyncSessions = null;
+        this.exposeTools(exposedTools);
+    }
+
+    /**
+     * Creates a client running in async mode on an externally created and initialized asynchronous client. Sampling
+     * requests are handled only if the client was built with {@link #handleSamplingRequestAsync} as sampling handler.
+     */
+    public SentinelMCPClient(@NonNull String name,
+                             @NonNull McpAsyncClient mcpClient,
+                             @NonNull ObjectMapper mapper,
+                             @Singular Set<String> exposedTools) {
+        this.name = name;
+        this.sessions = null;
+        this.asyncSessions = new MCPSessionPool<>(name, mcpClient, McpAsyncClient::close);
+        this.mapper = mapper;
+        this.jacksonMapper = new JacksonMcpJsonMapper(mapper);
         this.exposeTools(exposedTools);
     }
 
@@ -111,29 +180,65 @@ public class SentinelMCPClient implements AutoCloseable {
                              @NonNull ObjectMapper mapper,
                              @Singular Set<String> exposedTools) {
         this.name = name;
-        this.mcpClient = mcpClient;
+        this.sessions = new MCPSessionPool<>(name, mcpClient, McpSyncClient::close);
+        this.asyncSessions = null;
         this.mapper = mapper;
         this.jacksonMapper = new JacksonMcpJsonMapper(mapper);
         this.exposeTools(exposedTools);
     }
 
+    private static boolean ping(McpAsyncClient client) {
+        client.ping().block();
+        return true;
+    }
+
+    private static boolean ping(McpSyncClient client) {
+        client.ping();
+        return true;
+    }
+
     @Override
     public void close() {
-        mcpClient.close();
+        if (asyncSessions != null) {
+            asyncSessions.close();
+        }
+        else {
+            sessions.close();
+        }
     }
 
     public SentinelMCPClient exposeAllTools() {
         exposedTools.clear();
+        republishCatalog();
         return this;
     }
 
     public SentinelMCPClient exposeTools(Collection<String> toolIds) {
         exposedTools.addAll(requireNonNullElseGet(toolIds, ArrayList::new));
+        republishCatalog();
         return this;
     }
 
     public SentinelMCPClient exposeTools(String... toolId) {
         exposedTools.addAll(Arrays.asList(toolId));
+        republishCatalog();
+        return this;
+    }
+
+    /**
+     * Returns the current tool catalog, loading it from the server on first use. Reading the catalog once it has been
+     * loaded does not allocate.
+     */
+    public MCPToolCatalog catalog() {
+        final var current = catalog.get();
+        return null != current ? current : loadCatalog();
+    }
+
+    /**
+     * Register a listener to be called after every publication of a new catalog
+     */
+    public SentinelMCPClient onCatalogChange(@NonNull Runnable listener) {
+        catalogListeners.add(listener);
         return this;
     }
 
@@ -141,55 +246,96 @@ public class SentinelMCPClient implements AutoCloseable {
         this.agent = agent;
     }
 
+    /**
+     * Calls a tool and waits for the response. This is what the {@link ExternalTool}s returned by {@link #tools()} run,
+     * so even in async mode the calling thread is parked until the server responds.
+     */
     @SneakyThrows
     public ExternalTool.ExternalToolResponse runTool(AgentRunContext<?> context,
                                                      String toolId,
                                                      String args) {
-        final var tool = knownTools.get(toolId);
+        if (asyncSessions != null) {
+            final var future = runToolAsync(context, toolId, args);
+            try {
+                return future.get();
+            }
+            catch (InterruptedException e) {
+                // Typically the tool call timeout kicking in. Release the session and let the server know
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                log.warn("Call to MCP tool {} was interrupted and has been cancelled", toolId);
+                return new ExternalTool.ExternalToolResponse("Tool call was cancelled",
+                                                             ErrorType.TOOL_CALL_TIMEOUT);
+            }
+        }
+        final var current = catalog.get();
+        final var tool = null == current ? null : current.tools().get(toolId);
         if (null == tool) {
-            return new ExternalTool.ExternalToolResponse("Invalid tool: %s"
-                    .formatted(toolId), ErrorType.TOOL_CALL_PERMANENT_FAILURE);
+            return invalidToolResponse(toolId);
         }
         log.debug("Calling MCP tool: {} with args: {}", toolId, args);
         try {
-            final var res = mcpClient.callTool(new McpSchema.CallToolRequest(
-                                                                             jacksonMapper,
-                                                                             tool.getToolDefinition()
-                                                                                     .getName(),
-                                                                             args));
-            return new ExternalTool.ExternalToolResponse(res.content(),
-                                                         Boolean.TRUE.equals(res
-                                                                 .isError())
-                                                                         ? ErrorType.TOOL_CALL_TEMPORARY_FAILURE
-                                                                         : ErrorType.SUCCESS);
+            final var request = new McpSchema.CallToolRequest(jacksonMapper,
+                                                              tool.getToolDefinition().getName(),
+                                                              args);
+            return toResponse(sessions.call(client -> client.callTool(request)));
+        }
+        catch (TimeoutException e) {
+            return timeoutResponse(toolId, e);
         }
         catch (Exception e) {
-            final var message = AgentUtils.rootCause(e).getMessage();
-            log.error("Error calling MCP tool {}: {}", toolId, message);
-            return new ExternalTool.ExternalToolResponse("Error processing request: " + message,
-                                                         ErrorType.GENERIC_MODEL_CALL_FAILURE);
+            return errorResponse(toolId, e);
         }
 
     }
 
-    public Map<String, ExecutableTool> tools() {
-        if (knownTools.isEmpty()) {
-            log.debug("Loading tools from MCP server: {}", name);
-            //The read happens independently and uses putAll to load values into the map in a threadsafe manner
-            knownTools.putAll(toolsList(mcpClient.listTools().tools()));
-            log.info("Loaded {} tools from MCP server {}: {}",
-                     knownTools.size(),
-                     name,
-                     knownTools.keySet());
+    /**
+     * Calls a tool. In async mode the calling thread is not blocked and cancelling the returned future cancels the
+     * request on the MCP session. In sync mode the call is made on the calling thread.
+     */
+    public CompletableFuture<ExternalTool.ExternalToolResponse> runToolAsync(AgentRunContext<?> context,
+                                                                             String toolId,
+                                                                             String args) {
+        if (asyncSessions == null) {
+            return CompletableFuture.completedFuture(runTool(context, toolId, args));
+        }
+        final var current = catalog.get();
+        final var tool = null == current ? null : current.tools().get(toolId);
+        if (null == tool) {
+            return CompletableFuture.completedFuture(invalidToolResponse(toolId));
+        }
+        log.debug("Calling MCP tool asynchronously: {} with args: {}", toolId, args);
+        final CompletableFuture<McpSchema.CallToolResult> call;
+        try {
+            final var request = new McpSchema.CallToolRequest(jacksonMapper,
+                                                              tool.getToolDefinition().getName(),
+                                                              args);
+            call = asyncSessions.callAsync(client -> client.callTool(request).toFuture());
+        }
+        catch (TimeoutException e) {
+            return CompletableFuture.completedFuture(timeoutResponse(toolId, e));
         }
-        final var mapToReturn = exposedTools.isEmpty() ? knownTools : knownTools
-                .entrySet()
-                .stream()
-                .filter(entry -> exposedTools.contains(entry.getValue()
-                        .getToolDefinition()
-                        .getName()))
-                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return Map.copyOf(mapToReturn);
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(errorResponse(toolId, e));
+        }
+        catch (Exception e) {
+            return CompletableFuture.completedFuture(errorResponse(toolId, e));
+        }
+        final var response = call.handle((result, error) -> null == error
+                ? toResponse(result)
+                : errorResponse(toolId, error));
+        // Cancellation of the composed future does not travel upstream on its own
+        response.whenComplete((result, error) -> {
+            if (response.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    public Map<String, ExecutableTool> tools() {
+        return catalog().exposedTools();
     }
 
     @VisibleForTesting
@@ -249,41 +395,49 @@ public class SentinelMCPClient implements AutoCloseable {
         }
     }
 
-    @VisibleForTesting
-    McpSchema.CreateMessageResult handleSamplingRequest(McpSchema.CreateMessageRequest createMessageRequest) {
+    /**
+     * Handles a sampling request from the MCP server using the model of the agent this client is registered with. The
+     * model call is composed as a future and no thread is blocked waiting for it.
+     */
+    public CompletableFuture<McpSchema.CreateMessageResult> handleSamplingRequestAsync(
+            McpSchema.CreateMessageRequest createMessageRequest) {
         if (null == agent) {
-            return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
-                                                     new McpSchema.TextContent("Sampling call failed. No agent is registered to handle the request"),
-                                                     "NoAgent",
-                                                     McpSchema.CreateMessageResult.StopReason.END_TURN);
+            return CompletableFuture.completedFuture(
+                    new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
+                                                      new McpSchema.TextContent("Sampling call failed. No agent is registered to handle the request"),
+                                                      "NoAgent",
+                                                      McpSchema.CreateMessageResult.StopReason.END_TURN));
         }
         log.debug("Handling sampling request: {}", createMessageRequest);
         final var agentSetup = agent.getSetup();
-        final var setup = agentSetup.getModelSettings()
-                .withMaxTokens(createMessageRequest.maxTokens())
-                .withTemperature(requireNonNullElse(createMessageRequest.temperature(), 0.0f).floatValue());
-        final var messages = new ArrayList<AgentMessage>();
-        final var runId = "sampling-" + UUID.randomUUID();
-        messages.add(new SystemPrompt(null,
-                                      runId,
-                                      createMessageRequest.systemPrompt(),
-                                      true,
-                                      null));
-        messages.addAll(convertFromSamplingToAgentMessages(null,
-                                                           runId,
-                                                           createMessageRequest.messages()));
-        final var modelRunContext = new ModelRunContext(agent.name(),
-                                                        runId,
-                                                        null,
-                                                        null,
-                                                        agentSetup.withModelSettings(setup),
-                                                        new ModelUsageStats(),
-                                                        ProcessingMode.DIRECT);
+        final var modelName = agentSetup.getModel()
+                .getClass()
+                .getSimpleName();
         try {
+            final var setup = agentSetup.getModelSettings()
+                    .withMaxTokens(createMessageRequest.maxTokens())
+                    .withTemperature(requireNonNullElse(createMessageRequest.temperature(), 0.0f).floatValue());
+            final var messages = new ArrayList<AgentMessage>();
+            final var runId = "sampling-" + UUID.randomUUID();
+            messages.add(new SystemPrompt(null,
+                                          runId,
+                                          createMessageRequest.systemPrompt(),
+                                          true,
+                                          null));
+            messages.addAll(convertFromSamplingToAgentMessages(null,
+                                                               runId,
+                                                               createMessageRequest.messages()));
+            final var modelRunContext = new ModelRunContext(agent.name(),
+                                                            runId,
+                                                            null,
+                                                            null,
+                                                            agentSetup.withModelSettings(setup),
+                                                            new ModelUsageStats(),
+                                                            ProcessingMode.DIRECT);
             final var model = agentSetup.getModel();
             final var coreRunner = new NonContextualDefaultExternalToolRunner(null, runId, mapper);
             final var toolRunner = new SafeToolRunner(coreRunner, agentSetup, model, null, runId);
-            final var response = model
+            return model
                     .compute(modelRunContext,
                              List.of(new ModelOutputDefinition(SAMPLING_OUTPUT_KEY,
                                                                "Response to sampling calls",
@@ -293,42 +447,48 @@ public class SentinelMCPClient implements AutoCloseable {
                              toolRunner,
                              new NeverTerminateEarlyStrategy(),
                              List.of())
-                    .join();
-
-            final var responseNode = response.getData()
-                    .get(SAMPLING_OUTPUT_KEY);
-            if (JsonUtils.empty(responseNode)) {
-                return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
-                                                         new McpSchema.TextContent("Sampling call failed. No content was generated"),
-                                                         agentSetup.getModel()
-                                                                 .getClass()
-                                                                 .getSimpleName(),
-                                                         McpSchema.CreateMessageResult.StopReason.END_TURN);
-            }
-            return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
-                                                     new McpSchema.TextContent(responseNode
-                                                             .asText()),
-                                                     agentSetup.getModel()
-                                                             .getClass()
-                                                             .getSimpleName(),
-                                                     toStopReason(response
-                                                             .getError()
-                                                             .getErrorType()));
+                    .thenApply(response -> {
+                        final var responseNode = response.getData()
+                                .get(SAMPLING_OUTPUT_KEY);
+                        if (JsonUtils.empty(responseNode)) {
+                            return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
+                                                                     new McpSchema.TextContent("Sampling call failed. No content was generated"),
+                                                                     modelName,
+                                                                     McpSchema.CreateMessageResult.StopReason.END_TURN);
+                        }
+                        return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
+                                                                 new McpSchema.TextContent(responseNode
+                                                                         .asText()),
+                                                                 modelName,
+                                                                 toStopReason(response
+                                                                         .getError()
+                                                                         .getErrorType()));
+                    })
+                    .exceptionally(e -> samplingFailure(modelName, e));
         }
         catch (Exception e) {
-            final var message = AgentUtils.rootCause(e).getMessage();
-            if (log.isDebugEnabled()) {
-                log.error("Error running sampling call: ", e);
-            }
-            return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
-                                                     new McpSchema.TextContent("Error processing request: " + message),
-                                                     agentSetup.getModel()
-                                                             .getClass()
-                                                             .getSimpleName(),
-                                                     toStopReason(ErrorType.GENERIC_MODEL_CALL_FAILURE));
+            return CompletableFuture.completedFuture(samplingFailure(modelName, e));
         }
     }
 
+    @VisibleForTesting
+    McpSchema.CreateMessageResult handleSamplingRequest(McpSchema.CreateMessageRequest createMessageRequest) {
+        return handleSamplingRequestAsync(createMessageRequest).join();
+    }
+
+    /**
+     * Publishes a new catalog built from the tool list sent along with a tools changed notification
+     */
+    @VisibleForTesting
+    void onToolsChanged(List<McpSchema.Tool> tools) {
+        final var published = publishCatalog(toolsList(tools));
+        log.info("Received tools change notification from MCP server: {}. Published tool catalog version {} with {} "
+                + "tools",
+                 name,
+                 published.version(),
+                 published.tools().size());
+    }
+
     @VisibleForTesting
     McpSchema.CreateMessageResult.StopReason toStopReason(ErrorType errorType) {
         return switch (errorType) {
@@ -357,8 +517,36 @@ public class SentinelMCPClient implements AutoCloseable {
         };
     }
 
+    private McpAsyncClient createAsyncMcpClient(MCPServerConfig serverConfig) {
+        final var client = McpClient.async(createTransport(serverConfig))
+                .clientInfo(new McpSchema.Implementation("sentinel-ai-toolbox-mcp",
+                                                         "X.X.X"))
+                .sampling(request -> Mono.fromFuture(() -> handleSamplingRequestAsync(request)))
+                .toolsChangeConsumer(tools -> Mono.fromRunnable(() -> onToolsChanged(tools)))
+                .build();
+        final var result = client.initialize().block();
+        log.debug("Initialized async MCP client for server: {} with result: {}",
+                  name,
+                  result);
+        return client;
+    }
+
     private McpSyncClient createMcpClient(MCPServerConfig serverConfig) {
-        final var transport = serverConfig.accept(new MCPServerConfigVisitor<McpClientTransport>() {
+        final var client = McpClient.sync(createTransport(serverConfig))
+                .clientInfo(new McpSchema.Implementation("sentinel-ai-toolbox-mcp",
+                                                         "X.X.X"))
+                .sampling(this::handleSamplingRequest)
+                .toolsChangeConsumer(this::onToolsChanged)
+                .build();
+        final var result = client.initialize();
+        log.debug("Initialized MCP client for server: {} with result: {}",
+                  name,
+                  result);
+        return client;
+    }
+
+    private McpClientTransport createTransport(MCPServerConfig serverConfig) {
+        return serverConfig.accept(new MCPServerConfigVisitor<McpClientTransport>() {
             @Override
             public McpClientTransport visit(MCPHttpServerConfig httpServerConfig) {
                 final int timeout = requireNonNullElse(httpServerConfig.getTimeout(), DEFAULT_TIMEOUT);
@@ -407,23 +595,99 @@ public class SentinelMCPClient implements AutoCloseable {
                 return stdioTransport;
             }
         });
+    }
 
-        final var client = McpClient.sync(transport)
-                .clientInfo(new McpSchema.Implementation("sentinel-ai-toolbox-mcp",
-                                                         "X.X.X"))
-                .sampling(this::handleSamplingRequest)
-                .toolsChangeConsumer(tools -> {
-                    knownTools.clear();
-                    log.info("Received tools change notification from MCP server: {}. "
-                            + "Will reload on next tools call",
-                             name);
-                })
-                .build();
-        final var result = client.initialize();
-        log.debug("Initialized MCP client for server: {} with result: {}",
-                  name,
-                  result);
-        return client;
+    private ExternalTool.ExternalToolResponse errorResponse(String toolId, Throwable e) {
+        final var message = AgentUtils.rootCause(e).getMessage();
+        log.error("Error calling MCP tool {}: {}", toolId, message);
+        return new ExternalTool.ExternalToolResponse("Error processing request: " + message,
+                                                     ErrorType.GENERIC_MODEL_CALL_FAILURE);
+    }
+
+    private MCPToolCatalog nextCatalog(MCPToolCatalog current, Map<String, ExecutableTool> tools) {
+        final var exposed = exposedTools.isEmpty()
+                ? tools
+                : tools.entrySet()
+                        .stream()
+                        .filter(entry -> exposedTools.contains(entry.getValue()
+                                .getToolDefinition()
+                                .getName()))
+                        .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return new MCPToolCatalog(null == current ? 1 : current.version() + 1,
+                                  Map.copyOf(tools),
+                                  Map.copyOf(exposed));
+    }
+
+    private ExternalTool.ExternalToolResponse invalidToolResponse(String toolId) {
+        return new ExternalTool.ExternalToolResponse("Invalid tool: %s"
+                .formatted(toolId), ErrorType.TOOL_CALL_PERMANENT_FAILURE);
+    }
+
+    @SneakyThrows
+    private synchronized MCPToolCatalog loadCatalog() {
+        final var current = catalog.get();
+        if (null != current) {
+            return current;
+        }
+        log.debug("Loading tools from MCP server: {}", name);
+        final var listed = asyncSessions != null
+                ? asyncSessions.call(client -> client.listTools().block())
+                : sessions.call(McpSyncClient::listTools);
+        final var loaded = nextCatalog(null, Map.copyOf(toolsList(listed.tools())));
+        // A tools changed notification received while listing carries a newer tool list, which must not be replaced
+        if (!catalog.compareAndSet(null, loaded)) {
+            return catalog.get();
+        }
+        catalogListeners.forEach(Runnable::run);
+        log.info("Loaded {} tools from MCP server {}: {}",
+                 loaded.tools().size(),
+                 name,
+                 loaded.tools().keySet());
+        return loaded;
+    }
+
+    private MCPToolCatalog publishCatalog(Map<String, ? extends ExecutableTool> tools) {
+        final var toolMap = Map.<String, ExecutableTool>copyOf(tools);
+        final var published = catalog.updateAndGet(current -> nextCatalog(current, toolMap));
+        catalogListeners.forEach(Runnable::run);
+        return published;
+    }
+
+    /**
+     * Re-applies the exposed tools filter to the current catalog, if one has been loaded. The tools are read inside
+     * the update so that a catalog published concurrently is filtered rather than replaced.
+     */
+    private void republishCatalog() {
+        final var published = catalog.updateAndGet(current -> null == current
+                ? null
+                : nextCatalog(current, current.tools()));
+        if (null != published) {
+            catalogListeners.forEach(Runnable::run);
+        }
+    }
+
+    private McpSchema.CreateMessageResult samplingFailure(String modelName, Throwable e) {
+        final var message = AgentUtils.rootCause(e).getMessage();
+        if (log.isDebugEnabled()) {
+            log.error("Error running sampling call: ", e);
+        }
+        return new McpSchema.CreateMessageResult(McpSchema.Role.ASSISTANT,
+                                                 new McpSchema.TextContent("Error processing request: " + message),
+                                                 modelName,
+                                                 toStopReason(ErrorType.GENERIC_MODEL_CALL_FAILURE));
+    }
+
+    private ExternalTool.ExternalToolResponse timeoutResponse(String toolId, TimeoutException e) {
+        log.error("Error calling MCP tool {}: {}", toolId, e.getMessage());
+        return new ExternalTool.ExternalToolResponse("Error processing request: " + e.getMessage(),
+                                                     ErrorType.TOOL_CALL_TIMEOUT);
+    }
+
+    private ExternalTool.ExternalToolResponse toResponse(McpSchema.CallToolResult result) {
+        return new ExternalTool.ExternalToolResponse(result.content(),
+                                                     Boolean.TRUE.equals(result.isError())
+                                                             ? ErrorType.TOOL_CALL_TEMPORARY_FAILURE
+                                                             : ErrorType.SUCCESS);
     }
 
     private Map<String, ExternalTool> toolsList(final List<McpSchema.Tool> tools) {
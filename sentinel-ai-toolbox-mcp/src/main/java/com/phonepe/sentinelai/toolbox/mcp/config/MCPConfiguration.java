@@ -32,4 +32,6 @@ public class MCPConfiguration {
     @Singular
     @NonNull
     Map<String, MCPServerConfig> mcpServers;
+
+    MCPStartupConfig startup;
 }
@@ -37,13 +37,21 @@ public class MCPHttpServerConfig extends MCPServerConfig {
     Map<String, String> headers; // Headers for the HTTP requests
     Integer timeout; //Timeout in millis (default 5 seconds)
 
+    public MCPHttpServerConfig(Set<String> exposedTools,
+                               @NonNull String url,
+                               Map<String, String> headers,
+                               Integer timeout) {
+        this(exposedTools, url, headers, timeout, null);
+    }
+
     @Builder
     @Jacksonized
     public MCPHttpServerConfig(Set<String> exposedTools,
                                @NonNull String url,
                                Map<String, String> headers,
-                               Integer timeout) {
-        super(MCPServerType.HTTP, exposedTools);
+                               Integer timeout,
+                               MCPSessionPoolConfig sessionPool) {
+        super(MCPServerType.HTTP, exposedTools, sessionPool);
         this.url = url;
         this.headers = headers;
         this.timeout = timeout;
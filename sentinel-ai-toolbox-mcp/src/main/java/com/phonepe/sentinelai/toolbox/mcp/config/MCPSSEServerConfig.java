@@ -34,12 +34,19 @@ public class MCPSSEServerConfig extends MCPServerConfig {
     String url; // Endpoint URL of the server (for http)
     Integer timeout; //Timeout in millis (default 5 seconds)
 
+    public MCPSSEServerConfig(Set<String> exposedTools,
+                              String url,
+                              Integer timeout) {
+        this(exposedTools, url, timeout, null);
+    }
+
     @Builder
     @Jacksonized
     public MCPSSEServerConfig(Set<String> exposedTools,
                               String url,
-                              Integer timeout) {
-        super(MCPServerType.SSE, exposedTools);
+                              Integer timeout,
+                              MCPSessionPoolConfig sessionPool) {
+        super(MCPServerType.SSE, exposedTools, sessionPool);
         this.url = url;
         this.timeout = timeout;
     }
@@ -39,6 +39,11 @@ public abstract class MCPServerConfig {
 
     private final MCPServerType type; // For example, "stdio" or "http"
     private final Set<String> exposedTools;
+    private final MCPSessionPoolConfig sessionPool;
+
+    public MCPServerConfig(MCPServerType type, Set<String> exposedTools) {
+        this(type, exposedTools, null);
+    }
 
     public abstract <T> T accept(final MCPServerConfigVisitor<T> visitor);
 }
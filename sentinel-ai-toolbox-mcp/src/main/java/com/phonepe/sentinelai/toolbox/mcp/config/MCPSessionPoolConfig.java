@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp.config;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Configuration for the pool of sessions opened to a single MCP server. For stdio servers every session is a separate
+ * server process.
+ */
+@Value
+@Builder
+@Jacksonized
+public class MCPSessionPoolConfig {
+    Integer size; // Number of sessions to open to the server (default 1)
+    Integer maxInFlight; // Max concurrent calls across all sessions, callers wait in arrival order (default unbounded)
+    Integer acquireTimeout; // Max time in millis a call waits for a free slot (default 30 seconds)
+    Integer healthCheckInterval; // Interval in millis between pings to each session (default no health checks)
+    Integer drainTimeout; // Max time in millis a replaced session stays open for calls in flight on it (default 60s)
+    Boolean async; // Use the non-blocking SDK client for runToolAsync and sampling (default false)
+}
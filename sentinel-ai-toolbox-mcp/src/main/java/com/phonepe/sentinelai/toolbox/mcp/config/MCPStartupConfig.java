@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp.config;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Configuration for starting the MCP servers of a {@link MCPConfiguration} when they are loaded into a toolbox
+ */
+@Value
+@Builder
+@Jacksonized
+public class MCPStartupConfig {
+    Integer parallelism; // Max number of servers being started at the same time (default 4)
+    Integer serverTimeout; // Max time in millis startup waits for a single server (default 30 seconds)
+    Boolean warmUp; // List tools from every server during startup (default true)
+}
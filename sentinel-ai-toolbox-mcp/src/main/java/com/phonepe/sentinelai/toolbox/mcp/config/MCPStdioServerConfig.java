@@ -38,13 +38,21 @@ public class MCPStdioServerConfig extends MCPServerConfig {
     List<String> args; // Arguments for the command
     Map<String, String> env; // Environment variables
 
+    public MCPStdioServerConfig(Set<String> exposedTools,
+                                @NonNull String command,
+                                List<String> args,
+                                Map<String, String> env) {
+        this(exposedTools, command, args, env, null);
+    }
+
     @Builder
     @Jacksonized
     public MCPStdioServerConfig(Set<String> exposedTools,
                                 @NonNull String command,
                                 List<String> args,
-                                Map<String, String> env) {
-        super(MCPServerType.STDIO, exposedTools);
+                                Map<String, String> env,
+                                MCPSessionPoolConfig sessionPool) {
+        super(MCPServerType.STDIO, exposedTools, sessionPool);
         this.command = command;
         this.args = args;
         this.env = env;
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+import com.phonepe.sentinelai.toolbox.mcp.config.MCPStartupConfig;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for parallel startup of MCP servers in {@link ComposingMCPToolBox}. Servers are simulated by clients that take
+ * a fixed time to start (process launch and initialize) and to list their tools.
+ */
+@Slf4j
+class ComposingMCPToolBoxStartupTest {
+    private static final int SERVERS = 8;
+    private static final long CONNECT_MS = 150;
+    private static final long LIST_TOOLS_MS = 50;
+
+    private static Supplier<SentinelMCPClient> slowServer(String name, long connectMs, AtomicInteger concurrent,
+                                                          AtomicInteger maxConcurrent) {
+        return () -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                sleep(connectMs);
+                final var client = Mockito.mock(McpSyncClient.class);
+                when(client.listTools()).thenAnswer(invocation -> {
+                    sleep(LIST_TOOLS_MS);
+                    return new McpSchema.ListToolsResult(List.of(McpSchema.Tool.builder()
+                            .name("tool")
+                            .description("Tool of " + name)
+                            .inputSchema(new McpSchema.JsonSchema("object",
+                                                                  Map.of(),
+                                                                  List.of(),
+                                                                  false,
+                                                                  Map.of(),
+                                                                  Map.of()))
+                            .build()), null);
+                });
+                return new SentinelMCPClient(name, client, JsonUtils.createMapper(), Set.of());
+            }
+            finally {
+                concurrent.decrementAndGet();
+            }
+        };
+    }
+
+    @SneakyThrows
+    private static void sleep(long millis) {
+        Thread.sleep(millis);
+    }
+
+    private static Map<String, Supplier<SentinelMCPClient>> servers(int count, AtomicInteger maxConcurrent) {
+        final var concurrent = new AtomicInteger();
+        final var servers = new HashMap<String, Supplier<SentinelMCPClient>>();
+        for (int i = 0; i < count; i++) {
+            servers.put("server" + i, slowServer("server" + i, CONNECT_MS, concurrent, maxConcurrent));
+        }
+        return servers;
+    }
+
+    private static Duration coldStart(int parallelism) {
+        final var maxConcurrent = new AtomicInteger();
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "startup");
+        final var report = toolBox.startClients(servers(SERVERS, maxConcurrent),
+                                                MCPStartupConfig.builder()
+                                                        .parallelism(parallelism)
+                                                        .build());
+        assertEquals(SERVERS, report.serverStartup().size());
+        assertTrue(report.pendingServers().isEmpty());
+        assertTrue(maxConcurrent.get() <= parallelism);
+        // Tools were listed during startup, so every server is already part of the catalog
+        assertEquals(SERVERS, toolBox.tools().size());
+        assertEquals(report, toolBox.startupReport());
+        return report.coldStart();
+    }
+
+    @Test
+    void testColdStartIsBounded() {
+        assertTrue(coldStart(1).toMillis() >= SERVERS * (CONNECT_MS + LIST_TOOLS_MS));
+        coldStart(4);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testColdStartIsParallel() {
+        final var serial = coldStart(1);
+        final var four = coldStart(4);
+        final var eight = coldStart(8);
+        log.info("{} servers, {} ms connect + {} ms tool listing each. Cold start: serial {} ms, parallelism 4 {} ms, "
+                         + "parallelism 8 {} ms",
+                 SERVERS,
+                 CONNECT_MS,
+                 LIST_TOOLS_MS,
+                 serial.toMillis(),
+                 four.toMillis(),
+                 eight.toMillis());
+    }
+
+    @Test
+    void testFailedServerFailsStartup() {
+        final var servers = servers(3, new AtomicInteger());
+        servers.put("broken", () -> {
+            throw new IllegalStateException("Could not launch server");
+        });
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "startup");
+        final var error = assertThrows(IllegalStateException.class,
+                                       () -> toolBox.startClients(servers, MCPStartupConfig.builder().build()));
+        assertEquals("Could not launch server", error.getCause().getMessage());
+        // Other servers are still usable
+        assertEquals(3, toolBox.tools().size());
+    }
+
+    @Test
+    void testFailedWarmUpClosesClient() {
+        final var mcpClient = Mockito.mock(McpSyncClient.class);
+        when(mcpClient.listTools()).thenThrow(new IllegalStateException("Could not list tools"));
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "startup");
+
+        final var error = assertThrows(IllegalStateException.class,
+                                       () -> toolBox.startClients(Map.of("broken",
+                                                                         () -> new SentinelMCPClient("broken",
+                                                                                                     mcpClient,
+                                                                                                     JsonUtils
+                                                                                                             .createMapper(),
+                                                                                                     Set.of())),
+                                                                  MCPStartupConfig.builder().build()));
+
+        assertEquals("Could not list tools", error.getCause().getMessage());
+        verify(mcpClient).close();
+        assertNull(toolBox.client("broken"));
+    }
+
+    @Test
+    void testPendingServersAreClosedWhenStartupFails() {
+        final var slowClient = new AtomicReference<SentinelMCPClient>();
+        final var servers = new HashMap<String, Supplier<SentinelMCPClient>>();
+        final var slow = slowServer("slow", 1_000, new AtomicInteger(), new AtomicInteger());
+        servers.put("slow", () -> {
+            final var client = Mockito.spy(slow.get());
+            slowClient.set(client);
+            return client;
+        });
+        servers.put("broken", () -> {
+            throw new IllegalStateException("Could not launch server");
+        });
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "startup");
+
+        assertThrows(IllegalStateException.class,
+                     () -> toolBox.startClients(servers,
+                                                MCPStartupConfig.builder()
+                                                        .serverTimeout(200)
+                                                        .build()));
+
+        // The slow server finishes starting after the failure, but is closed instead of joining the toolbox
+        await().atMost(Duration.ofSeconds(10)).until(() -> null != slowClient.get());
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> verify(slowClient.get()).close());
+        assertNull(toolBox.client("slow"));
+        assertEquals(0, toolBox.tools().size());
+    }
+
+    @Test
+    void testSlowServerDoesNotBlockOthers() {
+        final var servers = servers(SERVERS - 1, new AtomicInteger());
+        servers.put("slow", slowServer("slow", 2_000, new AtomicInteger(), new AtomicInteger()));
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "startup");
+
+        final var report = toolBox.startClients(servers,
+                                                MCPStartupConfig.builder()
+                                                        .parallelism(2)
+                                                        .serverTimeout(500)
+                                                        .build());
+
+        assertEquals(Set.of("slow"), report.pendingServers());
+        assertEquals(SERVERS - 1, report.serverStartup().size());
+        assertTrue(report.coldStart().toMillis() < 2_000, "Cold start took " + report.coldStart());
+        assertEquals(SERVERS - 1, toolBox.tools().size());
+        // The slow server joins the toolbox once it is up
+        await().atMost(Duration.ofSeconds(10)).until(() -> toolBox.tools().size() == SERVERS);
+    }
+
+    @Test
+    void testWarmUpCanBeDisabled() {
+        final var servers = servers(2, new AtomicInteger());
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "startup");
+        final var report = toolBox.startClients(servers,
+                                                MCPStartupConfig.builder()
+                                                        .warmUp(false)
+                                                        .build());
+        assertEquals(2, report.serverStartup().size());
+        assertEquals(2, toolBox.tools().size());
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.phonepe.sentinelai.core.tools.ExecutableTool;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link MCPToolCatalog} publication in {@link SentinelMCPClient} and {@link ComposingMCPToolBox}
+ */
+class MCPToolCatalogTest {
+    private static final int TOOLS_PER_SERVER = 16;
+    private static final int CHANGES = 2_000;
+    private static final int READERS = 4;
+
+    private static McpSyncClient mockServer() {
+        final var server = Mockito.mock(McpSyncClient.class);
+        when(server.listTools()).thenReturn(new McpSchema.ListToolsResult(toolList(0), null));
+        return server;
+    }
+
+    /**
+     * Every tool in a list carries the generation it was published in, so that a torn read is detectable
+     */
+    private static List<McpSchema.Tool> toolList(long generation) {
+        return IntStream.range(0, TOOLS_PER_SERVER)
+                .mapToObj(i -> McpSchema.Tool.builder()
+                        .name("g%d_tool%d".formatted(generation, i))
+                        .description("Tool %d of generation %d".formatted(i, generation))
+                        .inputSchema(new McpSchema.JsonSchema("object",
+                                                              Map.of(),
+                                                              List.of(),
+                                                              false,
+                                                              Map.of(),
+                                                              Map.of()))
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Generations of the tools from the given server found in the map. A consistent snapshot has exactly one.
+     */
+    private static Set<String> generations(Map<String, ExecutableTool> tools, String serverName) {
+        return tools.values()
+                .stream()
+                .map(ExecutableTool::getToolDefinition)
+                .filter(definition -> definition.getId().startsWith(serverName + "_"))
+                .map(definition -> definition.getName().substring(0, definition.getName().indexOf('_')))
+                .collect(Collectors.toSet());
+    }
+
+    @SneakyThrows
+    private static List<String> storm(List<Runnable> writers, Supplier<String> reader) {
+        final var executor = Executors.newFixedThreadPool(writers.size() + READERS);
+        final var done = new AtomicBoolean(false);
+        final var failures = new ConcurrentLinkedQueue<String>();
+        try {
+            final var readers = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(CompletableFuture.runAsync(() -> {
+                    while (!done.get()) {
+                        final var failure = reader.get();
+                        if (null != failure) {
+                            failures.add(failure);
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(writers.stream()
+                    .map(writer -> CompletableFuture.runAsync(writer, executor))
+                    .toArray(CompletableFuture[]::new))
+                    .get(60, TimeUnit.SECONDS);
+            done.set(true);
+            CompletableFuture.allOf(readers.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+            return List.copyOf(failures);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCatalogIsConsistentDuringChangeStorm() {
+        final var client = new SentinelMCPClient("storm", mockServer(), JsonUtils.createMapper(), Set.of());
+        final var initial = client.catalog();
+        final var lastVersion = ThreadLocal.withInitial(() -> new AtomicLong(initial.version()));
+
+        final var failures = storm(
+                List.of(() -> {
+                    for (int i = 1; i <= CHANGES; i++) {
+                        client.onToolsChanged(toolList(i));
+                    }
+                }),
+                () -> {
+                    final var catalog = client.catalog();
+                    if (catalog.version() < lastVersion.get().getAndSet(catalog.version())) {
+                        return "Version went back to " + catalog.version();
+                    }
+                    if (catalog.tools().size() != TOOLS_PER_SERVER
+                            || !catalog.exposedTools().equals(catalog.tools())
+                            || generations(catalog.tools(), "storm").size() != 1) {
+                        return "Inconsistent catalog at version " + catalog.version();
+                    }
+                    return null;
+                });
+
+        assertTrue(failures.isEmpty(), () -> String.join("\n", failures));
+        final var last = client.catalog();
+        assertEquals(initial.version() + CHANGES, last.version());
+        assertEquals(Set.of("g" + CHANGES), generations(last.tools(), "storm"));
+    }
+
+    @Test
+    void testComposedToolsAreConsistentDuringChangeStorm() {
+        final var servers = List.of("first", "second");
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "composed");
+        servers.forEach(server -> toolBox.registerExistingMCP(server, mockServer()));
+
+        final var failures = storm(
+                servers.stream()
+                        .<Runnable>map(server -> () -> {
+                            for (int i = 1; i <= CHANGES; i++) {
+                                toolBox.client(server).onToolsChanged(toolList(i));
+                            }
+                        })
+                        .toList(),
+                () -> {
+                    final var tools = toolBox.tools();
+                    if (tools.size() != servers.size() * TOOLS_PER_SERVER) {
+                        return "Found %d tools".formatted(tools.size());
+                    }
+                    return servers.stream()
+                            .filter(server -> generations(tools, server).size() != 1)
+                            .map("Torn tool list for server %s"::formatted)
+                            .findFirst()
+                            .orElse(null);
+                });
+
+        assertTrue(failures.isEmpty(), () -> String.join("\n", failures));
+        final var tools = toolBox.tools();
+        servers.forEach(server -> assertEquals(Set.of("g" + CHANGES), generations(tools, server)));
+    }
+
+    @Test
+    void testComposedToolsAreRebuiltOnlyOnChange() {
+        final var server = mockServer();
+        final var toolBox = new ComposingMCPToolBox(JsonUtils.createMapper(), "composed");
+        toolBox.registerExistingMCP("server", server);
+
+        final var first = toolBox.tools();
+        assertSame(first, toolBox.tools());
+        assertSame(first, toolBox.tools());
+
+        toolBox.client("server").onToolsChanged(toolList(1));
+        final var changed = toolBox.tools();
+        assertNotSame(first, changed);
+        assertSame(changed, toolBox.tools());
+        assertEquals(Set.of("g1"), generations(changed, "server"));
+
+        toolBox.exposeTools("server", "g1_tool0");
+        assertEquals(1, toolBox.tools().size());
+        verify(server, Mockito.times(1)).listTools();
+    }
+
+    @Test
+    void testExposureChangesDoNotRevertToolChanges() {
+        final var client = new SentinelMCPClient("expose", mockServer(), JsonUtils.createMapper(), Set.of());
+        client.catalog();
+
+        final var failures = storm(
+                List.of(() -> {
+                    for (int i = 1; i <= CHANGES; i++) {
+                        client.onToolsChanged(toolList(i));
+                    }
+                }, () -> {
+                    for (int i = 1; i <= CHANGES; i++) {
+                        client.exposeAllTools();
+                    }
+                }),
+                () -> null);
+
+        assertTrue(failures.isEmpty(), () -> String.join("\n", failures));
+        assertEquals(Set.of("g" + CHANGES), generations(client.catalog().tools(), "expose"));
+        assertEquals(1 + 2L * CHANGES, client.catalog().version());
+    }
+
+    @Test
+    void testInitialLoadDoesNotReplaceNotifiedCatalog() {
+        final var server = Mockito.mock(McpSyncClient.class);
+        final var clientRef = new AtomicReference<SentinelMCPClient>();
+        // The server notifies a tools change while the initial tool list is in flight
+        when(server.listTools()).thenAnswer(invocation -> {
+            clientRef.get().onToolsChanged(toolList(1));
+            return new McpSchema.ListToolsResult(toolList(0), null);
+        });
+        final var client = new SentinelMCPClient("slow", server, JsonUtils.createMapper(), Set.of());
+        clientRef.set(client);
+
+        final var catalog = client.catalog();
+        assertEquals(1, catalog.version());
+        assertEquals(Set.of("g1"), generations(catalog.tools(), "slow"));
+        assertSame(catalog, client.catalog());
+    }
+
+    @Test
+    void testReadsReturnSameSnapshotUntilChange() {
+        final var server = mockServer();
+        final var client = new SentinelMCPClient("snap", server, JsonUtils.createMapper(), Set.of());
+
+        final var catalog = client.catalog();
+        assertEquals(1, catalog.version());
+        assertSame(catalog, client.catalog());
+        assertSame(catalog.exposedTools(), client.tools());
+        assertSame(client.tools(), client.tools());
+
+        client.onToolsChanged(toolList(1));
+        final var changed = client.catalog();
+        assertEquals(2, changed.version());
+        assertEquals(Set.of("g1"), generations(changed.tools(), "snap"));
+        // The earlier snapshot is not modified by the change
+        assertEquals(Set.of("g0"), generations(catalog.tools(), "snap"));
+
+        client.exposeTools("g1_tool3");
+        assertEquals(3, client.catalog().version());
+        assertEquals(TOOLS_PER_SERVER, client.catalog().tools().size());
+        assertEquals(1, client.tools().size());
+        verify(server, Mockito.times(1)).listTools();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.tools.ExternalTool;
+import com.phonepe.sentinelai.core.utils.AgentUtils;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SentinelMCPClient} running on the asynchronous SDK client. The server is simulated in process: the
+ * async session answers through a reactor timer, the sync session sleeps on the calling thread.
+ */
+@Slf4j
+class SentinelMCPClientAsyncTest {
+    private static final String CLIENT_NAME = "async";
+    private static final String TOOL_NAME = "lookup";
+    private static final Duration CALL_LATENCY = Duration.ofMillis(20);
+    private static final String TOOL_ID = AgentUtils.id(CLIENT_NAME, TOOL_NAME);
+
+    private static McpSchema.CallToolResult callResult() {
+        return McpSchema.CallToolResult.builder().addTextContent("found").isError(false).build();
+    }
+
+    private static McpSchema.ListToolsResult listToolsResult() {
+        return new McpSchema.ListToolsResult(List.of(McpSchema.Tool.builder()
+                .name(TOOL_NAME)
+                .description("Lookup tool")
+                .inputSchema(new McpSchema.JsonSchema("object", Map.of(), List.of(), false, Map.of(), Map.of()))
+                .build()), null);
+    }
+
+    private static McpAsyncClient asyncServer() {
+        final var client = Mockito.mock(McpAsyncClient.class);
+        when(client.listTools()).thenReturn(Mono.just(listToolsResult()));
+        when(client.callTool(any())).thenAnswer(invocation -> Mono.delay(CALL_LATENCY).thenReturn(callResult()));
+        return client;
+    }
+
+    private static McpSyncClient syncServer() {
+        final var client = Mockito.mock(McpSyncClient.class);
+        when(client.listTools()).thenReturn(listToolsResult());
+        when(client.callTool(any())).thenAnswer(invocation -> {
+            Thread.sleep(CALL_LATENCY.toMillis());
+            return callResult();
+        });
+        return client;
+    }
+
+    private static ExternalTool tool(SentinelMCPClient client) {
+        return (ExternalTool) client.tools().get(TOOL_ID);
+    }
+
+    @SneakyThrows
+    private static long timeCalls(int calls,
+                                  int callerThreads,
+                                  Function<Executor, CompletableFuture<ExternalTool.ExternalToolResponse>> call) {
+        final var callers = Executors.newFixedThreadPool(callerThreads);
+        try {
+            final var start = System.nanoTime();
+            final var futures = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+            for (int i = 0; i < calls; i++) {
+                futures.add(call.apply(callers));
+            }
+            futures.forEach(future -> assertEquals(ErrorType.SUCCESS, future.join().error()));
+            return System.nanoTime() - start;
+        }
+        finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void agentToolCallsParkCallerThreadsInAsyncMode() {
+        final var calls = 200;
+        final var callerThreads = 8;
+        final var mapper = JsonUtils.createMapper();
+        final var syncClient = new SentinelMCPClient(CLIENT_NAME, syncServer(), mapper, Set.of());
+        final var asyncClient = new SentinelMCPClient(CLIENT_NAME, asyncServer(), mapper, Set.of());
+        // Agents run tools through the callable of the external tool, on a thread of the tool runner
+        final var syncTool = tool(syncClient);
+        final var asyncTool = tool(asyncClient);
+        final Function<Executor, CompletableFuture<ExternalTool.ExternalToolResponse>> syncAgentCall
+                = callers -> CompletableFuture.supplyAsync(() -> syncTool.getCallable().apply(null, TOOL_ID, "{}"),
+                                                           callers);
+        final Function<Executor, CompletableFuture<ExternalTool.ExternalToolResponse>> asyncAgentCall
+                = callers -> CompletableFuture.supplyAsync(() -> asyncTool.getCallable().apply(null, TOOL_ID, "{}"),
+                                                           callers);
+        final Function<Executor, CompletableFuture<ExternalTool.ExternalToolResponse>> runToolAsync
+                = callers -> CompletableFuture.supplyAsync(() -> asyncClient.runToolAsync(null, TOOL_ID, "{}"),
+                                                           callers)
+                        .thenCompose(Function.identity());
+
+        // warm up
+        timeCalls(calls, callerThreads, syncAgentCall);
+        timeCalls(calls, callerThreads, asyncAgentCall);
+        timeCalls(calls, callerThreads, runToolAsync);
+        final var syncAgentNs = timeCalls(calls, callerThreads, syncAgentCall);
+        final var asyncAgentNs = timeCalls(calls, callerThreads, asyncAgentCall);
+        final var runToolAsyncNs = timeCalls(calls, callerThreads, runToolAsync);
+        // Tool callables are bounded by callerThreads in flight in both modes, only runToolAsync is not
+        log.info("calls={} callerThreads={} latency={}ms: tool callable on sync client {} ms, tool callable on async "
+                         + "client {} ms, runToolAsync {} ms",
+                 calls,
+                 callerThreads,
+                 CALL_LATENCY.toMillis(),
+                 syncAgentNs / 1_000_000,
+                 asyncAgentNs / 1_000_000,
+                 runToolAsyncNs / 1_000_000);
+        syncClient.close();
+        asyncClient.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void interruptedCallIsCancelledOnTheSession() {
+        final var client = Mockito.mock(McpAsyncClient.class);
+        final var cancelled = new CountDownLatch(1);
+        final var started = new CountDownLatch(1);
+        when(client.listTools()).thenReturn(Mono.just(listToolsResult()));
+        when(client.callTool(any())).thenReturn(Mono.<McpSchema.CallToolResult>never()
+                .doOnSubscribe(subscription -> started.countDown())
+                .doOnCancel(cancelled::countDown));
+        final var mcpClient = new SentinelMCPClient(CLIENT_NAME, client, JsonUtils.createMapper(), Set.of());
+        mcpClient.tools();
+
+        final var response = new CompletableFuture<ErrorType>();
+        final var caller = new Thread(() -> response.complete(mcpClient.runTool(null, TOOL_ID, "{}").error()));
+        caller.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // This is what a tool call timeout does to the thread running the tool
+        caller.interrupt();
+
+        assertEquals(ErrorType.TOOL_CALL_TIMEOUT, response.get(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        mcpClient.close();
+        verify(client).close();
+    }
+
+    @Test
+    void runToolAsyncCancellationReachesTheSession() {
+        final var client = Mockito.mock(McpAsyncClient.class);
+        final var cancelled = new CountDownLatch(1);
+        when(client.listTools()).thenReturn(Mono.just(listToolsResult()));
+        when(client.callTool(any())).thenReturn(Mono.<McpSchema.CallToolResult>never()
+                .doOnCancel(cancelled::countDown));
+        final var mcpClient = new SentinelMCPClient(CLIENT_NAME, client, JsonUtils.createMapper(), Set.of());
+        mcpClient.tools();
+
+        final var future = mcpClient.runToolAsync(null, TOOL_ID, "{}");
+        future.cancel(true);
+        await().atMost(Duration.ofSeconds(5)).until(() -> cancelled.getCount() == 0);
+
+        // The session slot was released, so subsequent calls go through
+        when(client.callTool(any())).thenReturn(Mono.just(callResult()));
+        assertEquals(ErrorType.SUCCESS, mcpClient.runToolAsync(null, TOOL_ID, "{}").join().error());
+    }
+
+    @Test
+    void toolCallableRunsOnTheAsyncSession() {
+        final var client = asyncServer();
+        final var mcpClient = new SentinelMCPClient(CLIENT_NAME, client, JsonUtils.createMapper(), Set.of());
+
+        final var response = tool(mcpClient).getCallable().apply(null, TOOL_ID, "{}");
+
+        assertEquals(ErrorType.SUCCESS, response.error());
+        verify(client).callTool(any());
+        mcpClient.close();
+    }
+}
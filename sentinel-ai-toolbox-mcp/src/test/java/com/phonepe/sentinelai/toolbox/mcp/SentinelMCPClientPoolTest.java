@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.mcp;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.utils.AgentUtils;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+import com.phonepe.sentinelai.toolbox.mcp.config.MCPSessionPoolConfig;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for pooled sessions in {@link SentinelMCPClient}. Sessions are backed by a fake MCP server that, like a stdio
+ * server, processes the requests on a session one at a time.
+ */
+@Slf4j
+class SentinelMCPClientPoolTest {
+    private static final String CLIENT_NAME = "pooled";
+    private static final String TOOL_NAME = "slow";
+    private static final long CALL_LATENCY_MS = 20;
+
+    /**
+     * Fake MCP server. Every session created by {@link #newSession()} serves one call at a time.
+     */
+    private static final class FakeMcpServer {
+        private final AtomicInteger sessionsCreated = new AtomicInteger(0);
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicInteger maxInFlight = new AtomicInteger(0);
+        private final List<McpSyncClient> sessions = new ArrayList<>();
+        private final Set<McpSyncClient> brokenSessions = ConcurrentHashMap.newKeySet();
+
+        synchronized McpSyncClient newSession() {
+            final var session = Mockito.mock(McpSyncClient.class);
+            when(session.listTools()).thenReturn(listToolsResult());
+            when(session.ping()).thenAnswer(invocation -> {
+                if (brokenSessions.contains(session)) {
+                    throw new IllegalStateException("Session closed");
+                }
+                return Map.of();
+            });
+            when(session.callTool(any())).thenAnswer(invocation -> {
+                synchronized (session) {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(CALL_LATENCY_MS);
+                    }
+                    finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+                return McpSchema.CallToolResult.builder().addTextContent("done").isError(false).build();
+            });
+            sessionsCreated.incrementAndGet();
+            sessions.add(session);
+            return session;
+        }
+    }
+
+    private static McpSchema.ListToolsResult listToolsResult() {
+        return new McpSchema.ListToolsResult(List.of(McpSchema.Tool.builder()
+                .name(TOOL_NAME)
+                .description("Slow tool")
+                .inputSchema(new McpSchema.JsonSchema("object", Map.of(), List.of(), false, Map.of(), Map.of()))
+                .build()), null);
+    }
+
+    private static SentinelMCPClient pooledClient(FakeMcpServer server, MCPSessionPoolConfig config) {
+        final var client = new SentinelMCPClient(CLIENT_NAME,
+                                                 server::newSession,
+                                                 config,
+                                                 JsonUtils.createMapper(),
+                                                 Set.of());
+        assertEquals(1, client.tools().size());
+        return client;
+    }
+
+    @SneakyThrows
+    private static long runParallelCalls(SentinelMCPClient client, int calls) {
+        final var executor = Executors.newFixedThreadPool(calls);
+        try {
+            final var start = System.nanoTime();
+            final var futures = new ArrayList<CompletableFuture<ErrorType>>();
+            for (int i = 0; i < calls; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> client.runTool(null,
+                                                                               AgentUtils.id(CLIENT_NAME, TOOL_NAME),
+                                                                               "{}")
+                        .error(), executor));
+            }
+            futures.forEach(future -> assertEquals(ErrorType.SUCCESS, future.join()));
+            return System.nanoTime() - start;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedSessionsAreReplaced() {
+        final var server = new FakeMcpServer();
+        final var client = pooledClient(server,
+                                        MCPSessionPoolConfig.builder()
+                                                .size(2)
+                                                .healthCheckInterval(50)
+                                                .build());
+        final var broken = server.sessions.get(0);
+        server.brokenSessions.add(broken);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> server.sessionsCreated.get() == 3);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(broken).close());
+        assertEquals(ErrorType.SUCCESS,
+                     client.runTool(null, AgentUtils.id(CLIENT_NAME, TOOL_NAME), "{}").error());
+        client.close();
+        server.sessions.subList(1, 3).forEach(session -> verify(session).close());
+    }
+
+    @Test
+    @SneakyThrows
+    void inFlightLimitIsEnforcedAndWaitersTimeOut() {
+        final var server = new FakeMcpServer();
+        final var client = pooledClient(server,
+                                        MCPSessionPoolConfig.builder()
+                                                .size(4)
+                                                .maxInFlight(2)
+                                                .build());
+        runParallelCalls(client, 16);
+        assertEquals(2, server.maxInFlight.get());
+        client.close();
+
+        // A call that cannot get a slot in time fails with a timeout instead of queueing forever
+        final var blockingServer = new FakeMcpServer();
+        final var release = new CountDownLatch(1);
+        final var blocked = new SentinelMCPClient(CLIENT_NAME,
+                                                  () -> {
+                                                      final var session = blockingServer.newSession();
+                                                      when(session.callTool(any())).thenAnswer(invocation -> {
+                                                          release.await(5, TimeUnit.SECONDS);
+                                                          return McpSchema.CallToolResult.builder()
+                                                                  .addTextContent("done")
+                                                                  .build();
+                                                      });
+                                                      return session;
+                                                  },
+                                                  MCPSessionPoolConfig.builder()
+                                                          .maxInFlight(1)
+                                                          .acquireTimeout(100)
+                                                          .build(),
+                                                  JsonUtils.createMapper(),
+                                                  Set.of());
+        blocked.tools();
+        final var toolId = AgentUtils.id(CLIENT_NAME, TOOL_NAME);
+        final var first = CompletableFuture.supplyAsync(() -> blocked.runTool(null, toolId, "{}"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !Mockito.mockingDetails(blockingServer.sessions.get(0))
+                .getInvocations()
+                .stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("callTool"))
+                .toList()
+                .isEmpty());
+        assertEquals(ErrorType.TOOL_CALL_TIMEOUT, blocked.runTool(null, toolId, "{}").error());
+        release.countDown();
+        assertEquals(ErrorType.SUCCESS, first.join().error());
+        blocked.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void replacedSessionIsClosedOnceCallsInFlightComplete() {
+        final var server = new FakeMcpServer();
+        final var release = new CountDownLatch(1);
+        final var client = new SentinelMCPClient(CLIENT_NAME,
+                                                 () -> {
+                                                     final var session = server.newSession();
+                                                     when(session.callTool(any())).thenAnswer(invocation -> {
+                                                         release.await(5, TimeUnit.SECONDS);
+                                                         return McpSchema.CallToolResult.builder()
+                                                                 .addTextContent("done")
+                                                                 .build();
+                                                     });
+                                                     return session;
+                                                 },
+                                                 MCPSessionPoolConfig.builder()
+                                                         .healthCheckInterval(50)
+                                                         .build(),
+                                                 JsonUtils.createMapper(),
+                                                 Set.of());
+        client.tools();
+        final var toolId = AgentUtils.id(CLIENT_NAME, TOOL_NAME);
+        final var inFlight = CompletableFuture.supplyAsync(() -> client.runTool(null, toolId, "{}"));
+        final var broken = server.sessions.get(0);
+        await().atMost(Duration.ofSeconds(5)).until(() -> !Mockito.mockingDetails(broken)
+                .getInvocations()
+                .stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("callTool"))
+                .toList()
+                .isEmpty());
+        server.brokenSessions.add(broken);
+
+        // New calls go to the replacement while the call in flight keeps its session
+        await().atMost(Duration.ofSeconds(5)).until(() -> server.sessionsCreated.get() == 2);
+        verify(broken, never()).close();
+        final var next = CompletableFuture.supplyAsync(() -> client.runTool(null, toolId, "{}"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !Mockito.mockingDetails(server.sessions.get(1))
+                .getInvocations()
+                .stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("callTool"))
+                .toList()
+                .isEmpty());
+        verify(broken, never()).close();
+
+        release.countDown();
+        assertEquals(ErrorType.SUCCESS, inFlight.join().error());
+        assertEquals(ErrorType.SUCCESS, next.join().error());
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(broken).close());
+        client.close();
+        verify(server.sessions.get(1)).close();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void throughputScalesWithPoolSize() {
+        final var calls = 32;
+        for (final var size : List.of(1, 2, 4, 8)) {
+            final var server = new FakeMcpServer();
+            final var client = pooledClient(server, MCPSessionPoolConfig.builder().size(size).build());
+            runParallelCalls(client, calls); // warm up
+            final var elapsed = runParallelCalls(client, calls);
+            log.info("sessions={} calls={} latency={}ms: {} ms ({} calls/s)",
+                     size,
+                     calls,
+                     CALL_LATENCY_MS,
+                     elapsed / 1_000_000,
+                     Math.round(calls / (elapsed / 1_000_000_000.0)));
+            assertEquals(size, server.sessionsCreated.get());
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the calls made through the bulkhead of an {@link HttpToolBox}
+ */
+@ToString
+public class BulkheadStats {
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicInteger peakInFlight = new AtomicInteger(0);
+    private final AtomicInteger peakQueued = new AtomicInteger(0);
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong completed = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong started = new AtomicLong(0);
+    private final AtomicLong totalQueueWaitNs = new AtomicLong(0);
+    private final AtomicLong maxQueueWaitNs = new AtomicLong(0);
+
+    /**
+     * @return Average time calls spent waiting for a slot
+     */
+    public double getAverageQueueWaitMs() {
+        final var count = started.get();
+        return count == 0 ? 0 : totalQueueWaitNs.get() / (count * 1_000_000.0);
+    }
+
+    /**
+     * @return Number of calls that received a response from the upstream, successful or not
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * @return Number of calls that failed with an I/O error or were cancelled
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getMaxQueueWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNs.get());
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public int getPeakQueued() {
+        return peakQueued.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return Number of calls rejected because the queue was full
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    void recordCompleted() {
+        inFlight.decrementAndGet();
+        completed.incrementAndGet();
+    }
+
+    void recordDequeued() {
+        queued.decrementAndGet();
+    }
+
+    void recordEnqueued() {
+        peakQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+    }
+
+    void recordFailed() {
+        inFlight.decrementAndGet();
+        failed.incrementAndGet();
+    }
+
+    void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    void recordStarted(long queueWaitNs) {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        started.incrementAndGet();
+        totalQueueWaitNs.addAndGet(queueWaitNs);
+        maxQueueWaitNs.accumulateAndGet(queueWaitNs, Math::max);
+    }
+
+    void recordSubmitted() {
+        submitted.incrementAndGet();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Point in time status of an endpoint managed by {@link LoadBalancingUpstreamResolver}
+ */
+@Value
+@Builder
+public class EndpointStatus {
+    String endpoint;
+    boolean healthy; // As per active health checks
+    boolean ejected; // By passive outlier detection
+    int inFlight;
+    double latencyMs; // Exponentially weighted moving average of call latency
+    long calls;
+    long failures;
+    long ejections;
+}
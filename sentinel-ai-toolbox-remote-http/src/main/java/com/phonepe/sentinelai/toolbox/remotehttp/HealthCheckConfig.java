@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Active health checks for {@link LoadBalancingUpstreamResolver}. Every endpoint is probed periodically with a GET on
+ * the configured path; any 2xx response counts as healthy.
+ */
+@Value
+@Builder
+@Jacksonized
+public class HealthCheckConfig {
+    @NonNull
+    String path; // Path appended to the endpoint for the check. Example: /health
+    Long interval; // Millis between checks (default 10 seconds)
+    Long timeout; // Millis after which a check is considered failed (default 2 seconds)
+    Integer unhealthyThreshold; // Failed checks in a row after which an endpoint is marked unhealthy (default 2)
+    Integer healthyThreshold; // Passed checks in a row after which an unhealthy endpoint is used again (default 1)
+}
@@ -49,4 +49,9 @@ public class HttpCallSpec {
     String contentType;
 
     UnaryOperator<String> responseTransformer;
+
+    /**
+     * Caching for responses of this call. Responses are not cached if null.
+     */
+    ResponseCacheConfig responseCache;
 }
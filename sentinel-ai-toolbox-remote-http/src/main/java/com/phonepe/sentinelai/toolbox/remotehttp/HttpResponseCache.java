@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.phonepe.sentinelai.core.tools.ExternalTool;
+
+import lombok.Builder;
+import lombok.Getter;
+import okhttp3.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A size bounded cache for responses of tools that have opted in to caching using {@link ResponseCacheConfig}.
+ * Identical calls that arrive while a call is in flight wait for it instead of calling the upstream again. A cache can
+ * be shared across {@link HttpToolBox} instances, entries are keyed by upstream.
+ */
+public class HttpResponseCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    // Rough size of the cache node, entry and response objects held for every cached response
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * A response from the upstream and the duration it can be cached for. A ttl of zero means it is not cacheable.
+     */
+    record CacheableResponse(ExternalTool.ExternalToolResponse response, long ttl) {
+    }
+
+    private record Entry(ExternalTool.ExternalToolResponse response, long expiresAt, int weight) {
+    }
+
+    /**
+     * A call to the upstream along with the callers waiting on it. The call is cancelled when all of them cancel.
+     */
+    private static final class InFlight {
+        private final CompletableFuture<ExternalTool.ExternalToolResponse> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile CompletableFuture<CacheableResponse> call;
+
+        private boolean join() {
+            return waiters.getAndUpdate(count -> count > 0 ? count + 1 : count) > 0;
+        }
+
+        private void leave() {
+            if (waiters.decrementAndGet() == 0) {
+                result.cancel(true);
+                final var upstreamCall = call;
+                if (null != upstreamCall) {
+                    upstreamCall.cancel(true);
+                }
+            }
+        }
+
+        private void start(CompletableFuture<CacheableResponse> upstreamCall) {
+            this.call = upstreamCall;
+            if (result.isCancelled()) {
+                upstreamCall.cancel(true);
+            }
+        }
+
+        private CompletableFuture<ExternalTool.ExternalToolResponse> waiter() {
+            final var waiter = result.copy();
+            waiter.whenComplete((response, error) -> {
+                if (waiter.isCancelled()) {
+                    leave();
+                }
+            });
+            return waiter;
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    @Getter
+    private final ResponseCacheStats stats = new ResponseCacheStats();
+
+    public HttpResponseCache() {
+        this(null);
+    }
+
+    /**
+     * @param maxBytes Approximate max size in bytes of the responses kept in the cache. Defaults to
+     *                 {@link #DEFAULT_MAX_BYTES}.
+     */
+    @Builder
+    public HttpResponseCache(Long maxBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(Objects.requireNonNullElse(maxBytes, DEFAULT_MAX_BYTES))
+                .<String, Entry>weigher((key, entry) -> entry.weight())
+                .removalListener(notification -> {
+                    final var entry = Objects.requireNonNull(notification.getValue());
+                    stats.recordRemoved(entry.weight());
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        stats.recordEvicted();
+                    }
+                })
+                .build();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (null == value) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
+    }
+
+    private static int weight(String key, ExternalTool.ExternalToolResponse response) {
+        return (key.length() + Objects.toString(response.response(), "").length()) * Character.BYTES
+                + ENTRY_OVERHEAD_BYTES;
+    }
+
+    /**
+     * Computes the key for a call. The resolved endpoint is not part of the key, so responses are shared across all
+     * endpoints of an upstream.
+     *
+     * @param upstream Upstream the call is made to
+     * @param toolName Tool being called. Part of the key as tools can transform responses differently.
+     * @param spec     The fully expanded call
+     * @return SHA-256 of the call
+     */
+    public static String key(String upstream, String toolName, HttpCallSpec spec) {
+        final var hasher = Hashing.sha256().newHasher();
+        putString(hasher, upstream);
+        putString(hasher, toolName);
+        putString(hasher, spec.getMethod().name());
+        putString(hasher, spec.getPath());
+        final var headers = new TreeMap<>(Objects.requireNonNullElse(spec.getHeaders(),
+                                                                     Map.<String, List<String>>of()));
+        hasher.putInt(headers.size());
+        headers.forEach((name, values) -> {
+            putString(hasher, name);
+            hasher.putInt(values.size());
+            values.forEach(value -> putString(hasher, value));
+        });
+        putString(hasher, spec.getContentType());
+        putString(hasher, spec.getBody());
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Computes the duration a successful response can be cached for. With cache headers respected, no-store and
+     * no-cache disable caching, while max-age and Expires can only shorten the configured ttl.
+     *
+     * @param config   Cache config for the tool
+     * @param response Response received from the upstream
+     * @return Millis the response can be cached for, zero if it should not be cached
+     */
+    public static long ttl(ResponseCacheConfig config, Response response) {
+        final var ttl = Math.max(0, Objects.requireNonNullElse(config.getTtl(), DEFAULT_TTL));
+        if (!Objects.requireNonNullElse(config.getRespectCacheHeaders(), true)) {
+            return ttl;
+        }
+        final var cacheControl = response.cacheControl();
+        if (cacheControl.noStore() || cacheControl.noCache()) {
+            return 0;
+        }
+        if (cacheControl.maxAgeSeconds() >= 0) {
+            return Math.min(ttl, TimeUnit.SECONDS.toMillis(cacheControl.maxAgeSeconds()));
+        }
+        final var expires = response.headers().getDate("Expires");
+        if (null != expires) {
+            final var date = Objects.requireNonNullElseGet(response.headers().getDate("Date"), Date::new);
+            return Math.max(0, Math.min(ttl, expires.getTime() - date.getTime()));
+        }
+        return ttl;
+    }
+
+    /**
+     * Serves a response from cache if available, else joins an identical call in flight or makes a new one
+     *
+     * @param key    Key for the call, see {@link #key(String, String, HttpCallSpec)}
+     * @param loader Makes the call to the upstream
+     * @return Future for the response. Cancelling it cancels the upstream call once no other caller is waiting for it.
+     */
+    CompletableFuture<ExternalTool.ExternalToolResponse> get(String key,
+                                                             Supplier<CompletableFuture<CacheableResponse>> loader) {
+        final var cached = cache.getIfPresent(key);
+        if (null != cached) {
+            if (cached.expiresAt() - System.nanoTime() > 0) {
+                stats.recordHit();
+                return CompletableFuture.completedFuture(cached.response());
+            }
+            if (cache.asMap().remove(key, cached)) {
+                stats.recordExpired();
+            }
+        }
+        final var fresh = new InFlight();
+        final var flight = inFlight.compute(key,
+                                            (k, existing) -> null != existing && existing.join() ? existing : fresh);
+        if (flight != fresh) {
+            stats.recordCoalesced();
+            return flight.waiter();
+        }
+        final var raced = cache.getIfPresent(key);
+        if (null != raced && raced.expiresAt() - System.nanoTime() > 0) {
+            //The previous call for this key got cached after the lookup above
+            inFlight.remove(key, fresh);
+            fresh.result.complete(raced.response());
+            stats.recordHit();
+            return CompletableFuture.completedFuture(raced.response());
+        }
+        stats.recordMiss();
+        final var waiter = fresh.waiter();
+        final var call = loader.get();
+        fresh.start(call);
+        call.whenComplete((response, error) -> {
+            //Cached before the call stops being in flight, so that an identical call always finds one of the two
+            if (null == error && response.ttl() > 0) {
+                final var entry = new Entry(response.response(),
+                                            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(response.ttl()),
+                                            weight(key, response.response()));
+                //Counted here and not in the weigher, which guava may call more than once per entry. Counted before
+                //the put, as an entry larger than the cache is removed again within the put
+                stats.recordAdded(entry.weight());
+                cache.put(key, entry);
+                stats.recordStored();
+            }
+            inFlight.remove(key, fresh);
+            if (null != error) {
+                fresh.result.completeExceptionally(error);
+                return;
+            }
+            fresh.result.complete(response.response());
+        });
+        return waiter;
+    }
+}
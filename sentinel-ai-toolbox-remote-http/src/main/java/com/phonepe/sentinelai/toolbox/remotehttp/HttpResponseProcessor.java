@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+import lombok.Builder;
+import lombok.Getter;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts the body of an upstream response to the text passed on to the model. The body is read as a stream and the
+ * text is built in a single pass, without first buffering the raw payload:
+ * <ul>
+ *     <li>Runs of whitespace are collapsed to a single space and leading and trailing whitespace is dropped</li>
+ *     <li>If JSON compaction is enabled, JSON bodies are re-emitted without insignificant whitespace. Whitespace inside
+ *     string values is left as is.</li>
+ *     <li>If a maximum response size is set, reading stops with a {@link ResponseTooLargeException} as soon as the
+ *     body exceeds it</li>
+ * </ul>
+ */
+@Getter
+public class HttpResponseProcessor {
+    /**
+     * Thrown when the body of a response exceeds the configured maximum size
+     */
+    public static class ResponseTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public ResponseTooLargeException(long maxResponseSize) {
+            super("Response exceeds the maximum allowed size of %d bytes".formatted(maxResponseSize));
+        }
+    }
+
+    /**
+     * Input stream that fails once more than the allowed number of bytes have been read from it
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long bytesRead;
+
+        private SizeLimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var value = super.read();
+            if (value != -1) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final var read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws ResponseTooLargeException {
+            bytesRead += read;
+            if (bytesRead > maxBytes) {
+                throw new ResponseTooLargeException(maxBytes);
+            }
+        }
+    }
+
+    public static final HttpResponseProcessor DEFAULT = new HttpResponseProcessor(0, false);
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_INITIAL_CAPACITY = 1 << 20;
+    // Size of the payload is bounded by maxResponseSize, so string values are not limited separately
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder()
+                    .maxStringLength(Integer.MAX_VALUE)
+                    .build())
+            .build();
+
+    /**
+     * Max number of bytes read from a response body. Zero or negative means no limit.
+     */
+    private final long maxResponseSize;
+    /**
+     * Compact bodies of responses with a JSON content type instead of only normalizing whitespace
+     */
+    private final boolean compactJson;
+
+    @Builder
+    public HttpResponseProcessor(long maxResponseSize, boolean compactJson) {
+        this.maxResponseSize = maxResponseSize;
+        this.compactJson = compactJson;
+    }
+
+    private static boolean isJson(MediaType mediaType) {
+        return null != mediaType
+                && (mediaType.subtype().equalsIgnoreCase("json") || mediaType.subtype().endsWith("+json"));
+    }
+
+    // Same set of characters as \s in java regular expressions
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Re-emits the JSON read from the reader without insignificant whitespace
+     */
+    static String compact(Reader reader, int initialCapacity) throws IOException {
+        final var out = new StringWriter(initialCapacity);
+        try (final var parser = JSON_FACTORY.createParser(reader);
+             final var generator = JSON_FACTORY.createGenerator(out)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads text from the reader, collapsing every run of whitespace to a single space and dropping leading and
+     * trailing whitespace
+     */
+    static String normalizeWhitespace(Reader reader, int initialCapacity) throws IOException {
+        final var out = new StringBuilder(initialCapacity);
+        final var buffer = new char[BUFFER_SIZE];
+        var pendingSpace = false;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            var runStart = -1;
+            for (int i = 0; i < read; i++) {
+                if (isWhitespace(buffer[i])) {
+                    if (runStart != -1) {
+                        out.append(buffer, runStart, i - runStart);
+                        runStart = -1;
+                    }
+                    pendingSpace = !out.isEmpty();
+                }
+                else if (runStart == -1) {
+                    if (pendingSpace) {
+                        out.append(' ');
+                        pendingSpace = false;
+                    }
+                    runStart = i;
+                }
+            }
+            if (runStart != -1) {
+                out.append(buffer, runStart, read - runStart);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads and processes the body of a response
+     *
+     * @param body Body of the response
+     * @return Text to be passed on to the model
+     * @throws ResponseTooLargeException if the body exceeds the maximum response size
+     * @throws IOException               on error reading the body or if a JSON body is malformed and JSON compaction is
+     *                                   enabled
+     */
+    public String process(ResponseBody body) throws IOException {
+        final var contentLength = body.contentLength();
+        final var limited = maxResponseSize > 0;
+        if (limited && contentLength > maxResponseSize) {
+            throw new ResponseTooLargeException(maxResponseSize);
+        }
+        final var contentType = body.contentType();
+        final var charset = null != contentType
+                ? contentType.charset(StandardCharsets.UTF_8)
+                : StandardCharsets.UTF_8;
+        final var initialCapacity = (int) Math.min(Math.max(contentLength, 16), MAX_INITIAL_CAPACITY);
+        final var stream = limited
+                ? new SizeLimitedInputStream(body.byteStream(), maxResponseSize)
+                : body.byteStream();
+        try (final var reader = new InputStreamReader(stream, charset)) {
+            return compactJson && isJson(contentType)
+                    ? compact(reader, initialCapacity)
+                    : normalizeWhitespace(reader, initialCapacity);
+        }
+    }
+}
@@ -27,10 +27,10 @@ import com.phonepe.sentinelai.core.tools.ToolBox;
 import com.phonepe.sentinelai.core.tools.ToolDefinition;
 import com.phonepe.sentinelai.core.utils.AgentUtils;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -43,8 +43,12 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
@@ -54,17 +58,97 @@ import static com.phonepe.sentinelai.core.utils.JsonUtils.schema;
 /**
  * A toolbox that exposes tools to make remote http calls using configuration
  */
-@AllArgsConstructor
-@Builder
 @Slf4j
 public class HttpToolBox implements ToolBox {
+    /**
+     * Endpoint a request was resolved to, attached to the request as a tag
+     */
+    private record ResolvedEndpoint(String endpoint) {
+    }
+
+    /**
+     * Reports the outcome of every call to the {@link UpstreamResolver}, so that it can balance load across endpoints
+     */
+    private record EndpointFeedback(String upstream, UpstreamResolver resolver) implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final var request = chain.request();
+            final var resolved = request.tag(ResolvedEndpoint.class);
+            if (null == resolved) {
+                return chain.proceed(request);
+            }
+            final var endpoint = resolved.endpoint();
+            resolver.onCallStarted(upstream, endpoint);
+            final var start = System.nanoTime();
+            try {
+                final var response = chain.proceed(request);
+                resolver.onCallCompleted(upstream,
+                                         endpoint,
+                                         response.code() >= 500
+                                                 ? UpstreamResolver.CallOutcome.FAILURE
+                                                 : UpstreamResolver.CallOutcome.SUCCESS,
+                                         System.nanoTime() - start);
+                return response;
+            }
+            catch (IOException | RuntimeException e) {
+                resolver.onCallCompleted(upstream,
+                                         endpoint,
+                                         chain.call().isCanceled()
+                                                 ? UpstreamResolver.CallOutcome.CANCELLED
+                                                 : UpstreamResolver.CallOutcome.FAILURE,
+                                         System.nanoTime() - start);
+                throw e;
+            }
+        }
+    }
+
     private final String upstream;
-    private final OkHttpClient httpClient;
     private final HttpToolSource<?, ?> httpToolSource;
     private final ObjectMapper mapper;
     private final UpstreamResolver upstreamResolver;
+    private final HttpResponseProcessor responseProcessor;
+    private final UpstreamBulkhead bulkhead;
+    private final HttpResponseCache responseCache;
     private final Map<String, ExecutableTool> knownTools = new ConcurrentHashMap<>();
 
+    public HttpToolBox(String upstream,
+                       OkHttpClient httpClient,
+                       HttpToolSource<?, ?> httpToolSource,
+                       ObjectMapper mapper,
+                       UpstreamResolver upstreamResolver) {
+        this(upstream, httpClient, httpToolSource, mapper, upstreamResolver, null, null, null);
+    }
+
+    /**
+     * @param httpClient        Base client for calls. Calls are dispatched asynchronously on a dispatcher owned by this
+     *                          toolbox, so clients can be shared across toolboxes without sharing their limits.
+     * @param responseProcessor Converts response bodies to tool output. Defaults to
+     *                          {@link HttpResponseProcessor#DEFAULT}, which only normalizes whitespace.
+     * @param upstreamConfig    Concurrency limits and connection settings for the upstream. Defaults are used if null.
+     * @param responseCache     Cache for responses of tools that have opted in to caching. Can be shared across
+     *                          toolboxes. A cache with default bounds is created if null.
+     */
+    @Builder
+    public HttpToolBox(String upstream,
+                       OkHttpClient httpClient,
+                       HttpToolSource<?, ?> httpToolSource,
+                       ObjectMapper mapper,
+                       UpstreamResolver upstreamResolver,
+                       HttpResponseProcessor responseProcessor,
+                       UpstreamConfig upstreamConfig,
+                       HttpResponseCache responseCache) {
+        this.upstream = upstream;
+        this.httpToolSource = httpToolSource;
+        this.mapper = mapper;
+        this.upstreamResolver = upstreamResolver;
+        this.responseProcessor = Objects.requireNonNullElse(responseProcessor, HttpResponseProcessor.DEFAULT);
+        this.bulkhead = new UpstreamBulkhead(AgentUtils.id(upstream),
+                                             Objects.requireNonNull(httpClient, "httpClient cannot be null"),
+                                             new EndpointFeedback(upstream, upstreamResolver),
+                                             upstreamConfig);
+        this.responseCache = Objects.requireNonNullElseGet(responseCache, HttpResponseCache::new);
+    }
+
     public HttpToolBox(String upstream,
                        OkHttpClient httpClient,
                        HttpToolSource<?, ?> httpToolSource,
@@ -91,18 +175,53 @@ public class HttpToolBox implements ToolBox {
     }
 
     @SneakyThrows
-    private static String body(HttpCallSpec spec, Response response) {
-        final var responseBody = response.body();
-        if (null == responseBody) {
-            return response.isSuccessful() ? "Successful" : "Failure";
+    private static ExternalTool.ExternalToolResponse awaitResponse(
+            CompletableFuture<ExternalTool.ExternalToolResponse> future) {
+        try {
+            return future.get();
         }
-        final var bodyStr = response.body()
-                .string()
-                .trim()
-                .replaceAll("\\s+", " ");
-        final var transformer = Objects.requireNonNullElseGet(spec
-                .getResponseTransformer(), UnaryOperator::<String>identity);
-        return transformer.apply(bodyStr);
+        catch (InterruptedException e) {
+            // Tool timeouts interrupt the calling thread, the call is not needed anymore
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return new ExternalTool.ExternalToolResponse("Tool call was interrupted", ErrorType.TOOL_CALL_TIMEOUT);
+        }
+        catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Cancels the source when the derived future is cancelled
+     */
+    private static <T, R> CompletableFuture<R> cancelling(CompletableFuture<T> source, CompletableFuture<R> derived) {
+        derived.whenComplete((result, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    private static ExternalTool.ExternalToolResponse errorResponse(Throwable error) {
+        final var cause = error instanceof CompletionException && null != error.getCause() ? error.getCause() : error;
+        if (cause instanceof HttpResponseProcessor.ResponseTooLargeException) {
+            return new ExternalTool.ExternalToolResponse("Error running tool: " + cause.getMessage(),
+                                                         ErrorType.TOOL_CALL_PERMANENT_FAILURE);
+        }
+        if (cause instanceof UpstreamBulkhead.BulkheadFullException) {
+            return new ExternalTool.ExternalToolResponse("Error running tool: " + cause.getMessage(),
+                                                         ErrorType.TOOL_CALL_TEMPORARY_FAILURE);
+        }
+        return new ExternalTool.ExternalToolResponse("Error running tool: " + rootCause(cause),
+                                                     ErrorType.TOOL_CALL_TEMPORARY_FAILURE);
+    }
+
+    /**
+     * @return Counters for the calls made to the upstream
+     */
+    public BulkheadStats bulkheadStats() {
+        return bulkhead.getStats();
     }
 
     @Override
@@ -110,6 +229,51 @@ public class HttpToolBox implements ToolBox {
         return AgentUtils.id(upstream);
     }
 
+    /**
+     * @return Counters for the response cache used by this toolbox
+     */
+    public ResponseCacheStats responseCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * Calls a tool without blocking the calling thread. Calls wait for a free slot in the bulkhead of the upstream and
+     * fail immediately if its queue is full. Cancelling the returned future cancels the call. For tools with response
+     * caching enabled, cached responses are returned without a call and identical calls in flight are shared.
+     * Agents do not call this directly: the tools returned by {@link #tools()} wait for the response, so the tool
+     * runner thread of the agent stays parked for the duration of the call.
+     *
+     * @param toolId    ID of the tool
+     * @param arguments Arguments for the tool as generated by the model
+     * @return Future for the response. The future does not fail; errors are converted to failure responses.
+     */
+    public CompletableFuture<ExternalTool.ExternalToolResponse> runToolAsync(String toolId, String arguments) {
+        final var toolDef = knownTools.get(toolId);
+        if (null == toolDef) {
+            return CompletableFuture.completedFuture(new ExternalTool.ExternalToolResponse(
+                    "Unknown tool %s".formatted(toolId), ErrorType.TOOL_CALL_PERMANENT_FAILURE));
+        }
+        final var toolName = toolDef.getToolDefinition().getName();
+        final HttpCallSpec resolved;
+        try {
+            resolved = httpToolSource.resolve(upstream, toolName, arguments);
+        }
+        catch (Exception e) {
+            log.error("Error resolving call to tool {}: {}", toolId, rootCause(e));
+            // The same arguments would fail again
+            return CompletableFuture.completedFuture(new ExternalTool.ExternalToolResponse(
+                    "Error running tool: " + rootCause(e), ErrorType.TOOL_CALL_PERMANENT_FAILURE));
+        }
+        final var cacheConfig = resolved.getResponseCache();
+        if (null == cacheConfig) {
+            final var call = makeHttpCall(resolved, response -> 0L);
+            return cancelling(call, call.thenApply(HttpResponseCache.CacheableResponse::response));
+        }
+        return responseCache.get(HttpResponseCache.key(upstream, toolName, resolved),
+                                 () -> makeHttpCall(resolved, response -> HttpResponseCache.ttl(cacheConfig,
+                                                                                                response)));
+    }
+
     @Override
     public Map<String, ExecutableTool> tools() {
         if (!knownTools.isEmpty()) {
@@ -148,18 +312,8 @@ public class HttpToolBox implements ToolBox {
                     .terminal(false)
                     .retries(ToolDefinition.NO_RETRY) // Let model retry based on error response
                     .timeoutSeconds(ToolDefinition.NO_TIMEOUT) // Can be set at okhttp level if needed
-                    .build(), paramNodes, (context, toolId, arguments) -> {
-                        final var toolDef = knownTools.get(toolId);
-                        if (null == toolDef) {
-                            throw new IllegalArgumentException("Unknown tool %s"
-                                    .formatted(toolId));
-                        }
-                        final var resolved = httpToolSource.resolve(upstream,
-                                                                    toolDef.getToolDefinition()
-                                                                            .getName(),
-                                                                    arguments);
-                        return makeHttpCall(resolved);
-                    });
+                    .build(), paramNodes, (context, toolId, arguments) -> awaitResponse(runToolAsync(toolId,
+                                                                                                     arguments)));
         })
                 .collect(Collectors.toMap(tool -> tool.getToolDefinition()
                         .getId(), Function.identity())));
@@ -169,34 +323,51 @@ public class HttpToolBox implements ToolBox {
         return knownTools;
     }
 
+    private String body(HttpCallSpec spec, Response response) throws IOException {
+        final var responseBody = response.body();
+        if (null == responseBody) {
+            return response.isSuccessful() ? "Successful" : "Failure";
+        }
+        final var bodyStr = responseProcessor.process(responseBody);
+        final var transformer = Objects.requireNonNullElseGet(spec
+                .getResponseTransformer(), UnaryOperator::<String>identity);
+        return transformer.apply(bodyStr);
+    }
+
+    private CompletableFuture<HttpResponseCache.CacheableResponse> makeHttpCall(final HttpCallSpec spec,
+                                                                                 final ToLongFunction<Response> ttl) {
+        final var call = bulkhead.submit(() -> request(spec), response -> {
+            final var successful = response.isSuccessful();
+            return new HttpResponseCache.CacheableResponse(
+                    new ExternalTool.ExternalToolResponse(body(spec, response),
+                                                          successful
+                                                                  ? ErrorType.SUCCESS
+                                                                  : ErrorType.TOOL_CALL_TEMPORARY_FAILURE),
+                    successful ? ttl.applyAsLong(response) : 0);
+        });
+        return cancelling(call, call.handle((response, error) -> null == error
+                ? response
+                : new HttpResponseCache.CacheableResponse(errorResponse(error), 0)));
+    }
+
     @SneakyThrows
-    private ExternalTool.ExternalToolResponse makeHttpCall(final HttpCallSpec spec) {
+    private Request request(final HttpCallSpec spec) {
         final var endpoint = upstreamResolver.resolve(upstream);
         final var requestBuilder = new Request.Builder().url(URI.create("%s%s"
-                .formatted(endpoint, spec.getPath())).toURL());
+                .formatted(endpoint, spec.getPath())).toURL())
+                .tag(ResolvedEndpoint.class, new ResolvedEndpoint(endpoint));
         Objects.requireNonNullElse(spec.getHeaders(),
                                    Map.<String, List<String>>of())
                 .forEach((name, values) -> values.forEach(
                                                           value -> requestBuilder
                                                                   .header(name,
                                                                           value)));
-        final var request = switch (spec.getMethod()) {
+        return switch (spec.getMethod()) {
             case GET -> requestBuilder.get().build();
             case PUT -> requestBuilder.put(body(spec)).build();
             case POST -> requestBuilder.post(body(spec)).build();
             case HEAD -> requestBuilder.head().build();
             case DELETE -> requestBuilder.delete().build();
         };
-        try (final var response = httpClient.newCall(request).execute()) {
-            return new ExternalTool.ExternalToolResponse(body(spec, response),
-                                                         !response
-                                                                 .isSuccessful()
-                                                                         ? ErrorType.TOOL_CALL_TEMPORARY_FAILURE
-                                                                         : ErrorType.SUCCESS);
-        }
-        catch (IOException e) {
-            return new ExternalTool.ExternalToolResponse("Error running tool: " + rootCause(e),
-                                                         ErrorType.TOOL_CALL_TEMPORARY_FAILURE);
-        }
     }
 }
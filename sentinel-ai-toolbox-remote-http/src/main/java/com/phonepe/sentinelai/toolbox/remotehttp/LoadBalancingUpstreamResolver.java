@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNullElse;
+
+/**
+ * An {@link UpstreamResolver} that spreads calls across multiple endpoints of an upstream. Endpoints that fail
+ * repeatedly are ejected for a while (passive outlier detection) and endpoints that fail health checks are skipped
+ * (active health checks). If no endpoint is available, calls are spread across all endpoints of the upstream rather
+ * than failing outright.
+ */
+@Slf4j
+public class LoadBalancingUpstreamResolver implements UpstreamResolver, AutoCloseable {
+    private static final double EWMA_ALPHA = 0.3;
+    private static final int DEFAULT_CONSECUTIVE_FAILURES = 5;
+    private static final long DEFAULT_EJECTION_TIME = 30_000;
+    private static final int DEFAULT_MAX_EJECTION_PERCENT = 50;
+    private static final long DEFAULT_HEALTH_CHECK_INTERVAL = 10_000;
+    private static final long DEFAULT_HEALTH_CHECK_TIMEOUT = 2_000;
+    private static final int DEFAULT_UNHEALTHY_THRESHOLD = 2;
+    private static final int DEFAULT_HEALTHY_THRESHOLD = 1;
+
+    /**
+     * How an endpoint is selected among the available endpoints of an upstream
+     */
+    public enum Strategy {
+        /**
+         * Endpoints are used in turn
+         */
+        ROUND_ROBIN,
+        /**
+         * Endpoint with the least calls in flight is used
+         */
+        LEAST_IN_FLIGHT,
+        /**
+         * Endpoint with the lowest moving average of latency, weighed by calls in flight, is used. Endpoints without
+         * any completed call are tried first.
+         */
+        EWMA
+    }
+
+    private static final class Endpoint {
+        private final String url;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+        private final AtomicInteger healthCheckFailures = new AtomicInteger(0);
+        private final AtomicInteger healthCheckSuccesses = new AtomicInteger(0);
+        private final AtomicLong calls = new AtomicLong(0);
+        private final AtomicLong failures = new AtomicLong(0);
+        private final AtomicLong ejections = new AtomicLong(0);
+        private volatile double latencyNanos;
+        private volatile long ejectedUntil;
+        private volatile boolean ejected;
+        private volatile boolean healthy = true;
+
+        private Endpoint(String url) {
+            this.url = url;
+        }
+
+        private boolean isAvailable(long now) {
+            if (ejected && now - ejectedUntil >= 0) {
+                ejected = false;
+                consecutiveFailures.set(0);
+                log.info("Endpoint {} returned to rotation after ejection", url);
+            }
+            return healthy && !ejected;
+        }
+
+        private synchronized void recordLatency(long sampleNanos) {
+            latencyNanos = latencyNanos == 0
+                    ? sampleNanos
+                    : EWMA_ALPHA * sampleNanos + (1 - EWMA_ALPHA) * latencyNanos;
+        }
+
+        private EndpointStatus status() {
+            return EndpointStatus.builder()
+                    .endpoint(url)
+                    .healthy(healthy)
+                    .ejected(ejected)
+                    .inFlight(inFlight.get())
+                    .latencyMs(latencyNanos / 1_000_000.0)
+                    .calls(calls.get())
+                    .failures(failures.get())
+                    .ejections(ejections.get())
+                    .build();
+        }
+    }
+
+    private record Pool(List<Endpoint> endpoints, Map<String, Endpoint> byUrl, AtomicInteger next) {
+    }
+
+    private final Map<String, Pool> pools;
+    private final Strategy strategy;
+    private final int consecutiveFailures;
+    private final long ejectionTimeNanos;
+    private final int maxEjectionPercent;
+    private final HealthCheckConfig healthCheck;
+    private final int healthyThreshold;
+    private final int unhealthyThreshold;
+    private final OkHttpClient healthCheckClient;
+    private final boolean ownsHealthCheckClient;
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * @param endpoints         Base URLs of the endpoints for every upstream
+     * @param strategy          Endpoint selection strategy. Defaults to {@link Strategy#ROUND_ROBIN}.
+     * @param outlierDetection  Passive outlier detection. Enabled with defaults if null.
+     * @param healthCheck       Active health checks. Disabled if null.
+     * @param healthCheckClient Client used for health checks. A new client is created if null.
+     */
+    @Builder
+    public LoadBalancingUpstreamResolver(@NonNull Map<String, List<String>> endpoints,
+                                         Strategy strategy,
+                                         OutlierDetectionConfig outlierDetection,
+                                         HealthCheckConfig healthCheck,
+                                         OkHttpClient healthCheckClient) {
+        this.pools = endpoints.entrySet()
+                .stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> pool(entry.getKey(),
+                                                                                        entry.getValue())));
+        this.strategy = requireNonNullElse(strategy, Strategy.ROUND_ROBIN);
+        final var detection = Objects.requireNonNullElseGet(outlierDetection,
+                                                            () -> OutlierDetectionConfig.builder().build());
+        this.consecutiveFailures = requireNonNullElse(detection.getConsecutiveFailures(),
+                                                      DEFAULT_CONSECUTIVE_FAILURES);
+        this.ejectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(requireNonNullElse(detection.getEjectionTime(),
+                                                                                  DEFAULT_EJECTION_TIME));
+        this.maxEjectionPercent = requireNonNullElse(detection.getMaxEjectionPercent(), DEFAULT_MAX_EJECTION_PERCENT);
+        this.healthCheck = healthCheck;
+        if (null == healthCheck) {
+            this.healthyThreshold = 0;
+            this.unhealthyThreshold = 0;
+            this.healthCheckClient = null;
+            this.ownsHealthCheckClient = false;
+            this.healthChecker = null;
+            return;
+        }
+        this.healthyThreshold = requireNonNullElse(healthCheck.getHealthyThreshold(), DEFAULT_HEALTHY_THRESHOLD);
+        this.unhealthyThreshold = requireNonNullElse(healthCheck.getUnhealthyThreshold(), DEFAULT_UNHEALTHY_THRESHOLD);
+        this.ownsHealthCheckClient = null == healthCheckClient;
+        this.healthCheckClient = Objects.requireNonNullElseGet(healthCheckClient, OkHttpClient::new)
+                .newBuilder()
+                .callTimeout(requireNonNullElse(healthCheck.getTimeout(), DEFAULT_HEALTH_CHECK_TIMEOUT),
+                             TimeUnit.MILLISECONDS)
+                .build();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("upstream-health-check-%d")
+                .build());
+        final var interval = requireNonNullElse(healthCheck.getInterval(), DEFAULT_HEALTH_CHECK_INTERVAL);
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static Pool pool(String upstream, List<String> urls) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("No endpoints provided for upstream " + upstream);
+        }
+        final var endpoints = urls.stream().distinct().map(Endpoint::new).toList();
+        return new Pool(endpoints,
+                        endpoints.stream().collect(Collectors.toUnmodifiableMap(e -> e.url, e -> e)),
+                        new AtomicInteger(0));
+    }
+
+    /**
+     * Picks the endpoint with the lowest cost. Scanning starts at a rotating offset so that ties are spread evenly.
+     */
+    private static Endpoint select(List<Endpoint> choices, int offset, ToDoubleFunction<Endpoint> cost) {
+        Endpoint selected = null;
+        var lowest = Double.MAX_VALUE;
+        for (int i = 0; i < choices.size(); i++) {
+            final var endpoint = choices.get((offset + i) % choices.size());
+            final var endpointCost = cost.applyAsDouble(endpoint);
+            if (endpointCost < lowest) {
+                lowest = endpointCost;
+                selected = endpoint;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void close() {
+        if (null != healthChecker) {
+            healthChecker.shutdownNow();
+        }
+        if (ownsHealthCheckClient) {
+            healthCheckClient.dispatcher().executorService().shutdown();
+            healthCheckClient.connectionPool().evictAll();
+        }
+    }
+
+    @Override
+    public void onCallCompleted(String upstream, String endpoint, CallOutcome outcome, long latencyNanos) {
+        final var pool = pools.get(upstream);
+        final var target = null == pool ? null : pool.byUrl().get(endpoint);
+        if (null == target) {
+            return;
+        }
+        target.inFlight.decrementAndGet();
+        switch (outcome) {
+            case SUCCESS -> {
+                target.consecutiveFailures.set(0);
+                target.recordLatency(latencyNanos);
+            }
+            case FAILURE -> {
+                target.failures.incrementAndGet();
+                // Failures are slow as far as selection goes, so that a failing endpoint does not attract calls
+                target.recordLatency(Math.max(latencyNanos, (long) target.latencyNanos * 2));
+                if (consecutiveFailures > 0 && target.consecutiveFailures.incrementAndGet() >= consecutiveFailures) {
+                    eject(upstream, pool, target);
+                }
+            }
+            case CANCELLED -> {
+                // Says nothing about the endpoint
+            }
+        }
+    }
+
+    @Override
+    public void onCallStarted(String upstream, String endpoint) {
+        final var pool = pools.get(upstream);
+        final var target = null == pool ? null : pool.byUrl().get(endpoint);
+        if (null != target) {
+            target.calls.incrementAndGet();
+            target.inFlight.incrementAndGet();
+        }
+    }
+
+    @Override
+    public String resolve(String upstream) {
+        final var pool = pools.get(upstream);
+        if (null == pool) {
+            throw new IllegalArgumentException("No endpoints configured for upstream " + upstream);
+        }
+        final var now = System.nanoTime();
+        final var endpoints = pool.endpoints();
+        var choices = new ArrayList<Endpoint>(endpoints.size());
+        for (final var endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                choices.add(endpoint);
+            }
+        }
+        if (choices.isEmpty()) {
+            log.debug("No endpoint available for upstream {}, using all endpoints", upstream);
+            choices = new ArrayList<>(endpoints);
+        }
+        final var offset = Math.floorMod(pool.next().getAndIncrement(), choices.size());
+        return switch (strategy) {
+            case ROUND_ROBIN -> choices.get(offset).url;
+            case LEAST_IN_FLIGHT -> select(choices, offset, endpoint -> endpoint.inFlight.get()).url;
+            case EWMA -> select(choices,
+                                offset,
+                                endpoint -> (endpoint.latencyNanos + 1) * (endpoint.inFlight.get() + 1)).url;
+        };
+    }
+
+    /**
+     * @param upstream Upstream identifier
+     * @return Status of all endpoints of the upstream
+     */
+    public List<EndpointStatus> status(String upstream) {
+        final var pool = pools.get(upstream);
+        if (null == pool) {
+            return List.of();
+        }
+        final var now = System.nanoTime();
+        pool.endpoints().forEach(endpoint -> endpoint.isAvailable(now));
+        return pool.endpoints().stream().map(Endpoint::status).toList();
+    }
+
+    private void checkHealth() {
+        pools.values()
+                .stream()
+                .flatMap(pool -> pool.endpoints().stream())
+                .forEach(endpoint -> healthCheckClient.newCall(new Request.Builder()
+                        .url(endpoint.url + healthCheck.getPath())
+                        .get()
+                        .build())
+                        .enqueue(new Callback() {
+                            @Override
+                            public void onFailure(Call call, IOException e) {
+                                recordHealthCheck(endpoint, false);
+                            }
+
+                            @Override
+                            public void onResponse(Call call, Response response) {
+                                try (response) {
+                                    recordHealthCheck(endpoint, response.isSuccessful());
+                                }
+                            }
+                        }));
+    }
+
+    private void eject(String upstream, Pool pool, Endpoint endpoint) {
+        synchronized (pool) {
+            if (endpoint.ejected) {
+                return;
+            }
+            final var ejected = pool.endpoints().stream().filter(e -> e.ejected).count();
+            if ((ejected + 1) * 100 > (long) maxEjectionPercent * pool.endpoints().size()) {
+                log.debug("Not ejecting endpoint {} of upstream {} as too many endpoints are ejected already",
+                          endpoint.url,
+                          upstream);
+                return;
+            }
+            endpoint.ejectedUntil = System.nanoTime() + ejectionTimeNanos;
+            endpoint.ejected = true;
+            endpoint.ejections.incrementAndGet();
+        }
+        log.warn("Ejected endpoint {} of upstream {} after {} consecutive failures",
+                 endpoint.url,
+                 upstream,
+                 consecutiveFailures);
+    }
+
+    private void recordHealthCheck(Endpoint endpoint, boolean passed) {
+        if (passed) {
+            endpoint.healthCheckFailures.set(0);
+            if (!endpoint.healthy && endpoint.healthCheckSuccesses.incrementAndGet() >= healthyThreshold) {
+                endpoint.healthy = true;
+                log.info("Endpoint {} passed health checks, marking healthy", endpoint.url);
+            }
+            return;
+        }
+        endpoint.healthCheckSuccesses.set(0);
+        if (endpoint.healthy && endpoint.healthCheckFailures.incrementAndGet() >= unhealthyThreshold) {
+            endpoint.healthy = false;
+            log.warn("Endpoint {} failed health checks, marking unhealthy", endpoint.url);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Passive outlier detection for {@link LoadBalancingUpstreamResolver}. Endpoints that fail repeatedly are taken out of
+ * rotation for a while, based on the outcome of regular calls.
+ */
+@Value
+@Builder
+@Jacksonized
+public class OutlierDetectionConfig {
+    Integer consecutiveFailures; // Failures in a row after which an endpoint is ejected, 0 to disable (default 5)
+    Long ejectionTime; // Millis an ejected endpoint is kept out of rotation for (default 30 seconds)
+    Integer maxEjectionPercent; // Max percentage of endpoints of an upstream that can be ejected at a time (default 50)
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Opt-in response caching for a tool. Only successful responses are cached, keyed on the fully expanded request.
+ * Enable this only for idempotent lookups.
+ */
+@Value
+@Builder
+@Jacksonized
+public class ResponseCacheConfig {
+    Long ttl; // Millis a response is served from cache for (default 1 minute)
+    Boolean respectCacheHeaders; // Honour Cache-Control and Expires from the upstream, within the ttl (default true)
+}
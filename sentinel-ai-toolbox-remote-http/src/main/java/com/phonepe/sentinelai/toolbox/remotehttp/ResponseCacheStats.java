@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.ToString;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for a {@link HttpResponseCache}
+ */
+@ToString
+public class ResponseCacheStats {
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong coalesced = new AtomicLong(0);
+    private final AtomicLong stored = new AtomicLong(0);
+    private final AtomicLong expired = new AtomicLong(0);
+    private final AtomicLong evicted = new AtomicLong(0);
+    private final AtomicLong entries = new AtomicLong(0);
+    private final AtomicLong bytes = new AtomicLong(0);
+
+    /**
+     * @return Number of calls that joined an identical call already in flight instead of calling the upstream
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return Number of responses currently cached
+     */
+    public long getEntries() {
+        return entries.get();
+    }
+
+    /**
+     * @return Number of responses dropped to keep the cache within its size bound
+     */
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * @return Number of cached responses found to be past their ttl
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of calls that went to the upstream
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of responses that were cacheable and got stored
+     */
+    public long getStored() {
+        return stored.get();
+    }
+
+    /**
+     * @return Approximate size in bytes of the responses currently cached
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    void recordAdded(int entryBytes) {
+        entries.incrementAndGet();
+        bytes.addAndGet(entryBytes);
+    }
+
+    void recordCoalesced() {
+        coalesced.incrementAndGet();
+    }
+
+    void recordEvicted() {
+        evicted.incrementAndGet();
+    }
+
+    void recordExpired() {
+        expired.incrementAndGet();
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    void recordRemoved(int entryBytes) {
+        entries.decrementAndGet();
+        bytes.addAndGet(-entryBytes);
+    }
+
+    void recordStored() {
+        stored.incrementAndGet();
+    }
+}
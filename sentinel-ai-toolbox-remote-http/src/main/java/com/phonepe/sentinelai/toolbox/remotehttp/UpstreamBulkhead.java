@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNullElse;
+import static java.util.Objects.requireNonNullElseGet;
+
+/**
+ * Dispatches calls to a single upstream asynchronously. At most {@code maxInFlight} calls are running at a time, each
+ * on a thread of the upstream's own dispatcher; further calls wait in arrival order without holding a thread. Once the
+ * queue is full, calls are rejected immediately.
+ */
+@Slf4j
+class UpstreamBulkhead {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private static final int DEFAULT_KEEP_ALIVE = 300_000;
+
+    /**
+     * Converts the response to the result of the call. Runs on the dispatcher thread while the call holds its slot.
+     */
+    @FunctionalInterface
+    interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    /**
+     * Thrown when a call is rejected because the queue of the upstream is full
+     */
+    static class BulkheadFullException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BulkheadFullException(String upstream, int maxQueued) {
+            super("Too many calls pending for upstream %s. Max queued calls: %d".formatted(upstream, maxQueued));
+        }
+    }
+
+    private final class PendingCall<T> implements Callback {
+        private final Supplier<Request> request;
+        private final ResponseHandler<T> handler;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+        private volatile Call call;
+
+        private PendingCall(Supplier<Request> request, ResponseHandler<T> handler) {
+            this.request = request;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            stats.recordFailed();
+            release();
+            result.completeExceptionally(e);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            final T value;
+            try (response) {
+                value = handler.handle(response);
+            }
+            catch (IOException | RuntimeException e) {
+                onFailure(call, e instanceof IOException ioException ? ioException : new IOException(e));
+                return;
+            }
+            stats.recordCompleted();
+            // Slot is released before completing, so that callbacks chained on the result do not delay the next call
+            release();
+            result.complete(value);
+        }
+    }
+
+    private final String upstream;
+    // Derived from the base client on the first call, so that creating a toolbox does not touch the client
+    private final Supplier<OkHttpClient> client;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Deque<PendingCall<?>> waiting = new ArrayDeque<>();
+    @Getter
+    private final BulkheadStats stats = new BulkheadStats();
+    private int inFlight; // Guarded by this
+
+    UpstreamBulkhead(String upstream,
+                     OkHttpClient httpClient,
+                     Interceptor interceptor,
+                     UpstreamConfig upstreamConfig) {
+        final var config = requireNonNullElseGet(upstreamConfig, () -> UpstreamConfig.builder().build());
+        this.upstream = upstream;
+        this.maxInFlight = Math.max(1, requireNonNullElse(config.getMaxInFlight(), DEFAULT_MAX_IN_FLIGHT));
+        this.maxQueued = requireNonNullElse(config.getMaxQueued(), 0);
+        // Capped at maxInFlight threads. A finishing call hands its slot to the next one before its thread is free, so
+        // with the okhttp default (unbounded pool on a synchronous queue) this would spin up extra threads.
+        final var executor = new ThreadPoolExecutor(maxInFlight,
+                                                    maxInFlight,
+                                                    60,
+                                                    TimeUnit.SECONDS,
+                                                    new LinkedBlockingQueue<>(),
+                                                    new ThreadFactoryBuilder()
+                                                            .setDaemon(true)
+                                                            .setNameFormat("http-" + upstream + "-%d")
+                                                            .build());
+        executor.allowCoreThreadTimeOut(true);
+        this.client = Suppliers.memoize(() -> {
+            final var dispatcher = new Dispatcher(executor);
+            dispatcher.setMaxRequests(maxInFlight);
+            dispatcher.setMaxRequestsPerHost(maxInFlight);
+            final var builder = httpClient.newBuilder()
+                    .dispatcher(dispatcher)
+                    .addInterceptor(interceptor);
+            if (null != config.getMaxIdleConnections()) {
+                builder.connectionPool(new ConnectionPool(config.getMaxIdleConnections(),
+                                                          requireNonNullElse(config.getKeepAlive(),
+                                                                             DEFAULT_KEEP_ALIVE),
+                                                          TimeUnit.MILLISECONDS));
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * Submits a call to the upstream. Cancelling the returned future cancels the call.
+     *
+     * @param request Builds the request to send. Invoked only when the call gets a slot, so that endpoints are resolved
+     *                at the time the call is made and not when it was queued.
+     * @param handler Converts the response to the result of the call
+     * @return Future for the result. Fails with {@link BulkheadFullException} if the call was rejected, or with the
+     *         {@link IOException} raised by the call or the handler.
+     */
+    <T> CompletableFuture<T> submit(Supplier<Request> request, ResponseHandler<T> handler) {
+        stats.recordSubmitted();
+        final var pending = new PendingCall<>(request, handler);
+        pending.result.whenComplete((value, error) -> {
+            final var call = pending.call;
+            if (pending.result.isCancelled() && null != call) {
+                call.cancel();
+            }
+        });
+        final boolean start;
+        synchronized (this) {
+            if (inFlight < maxInFlight) {
+                inFlight++;
+                start = true;
+            }
+            else if (maxQueued > 0 && waiting.size() >= maxQueued) {
+                stats.recordRejected();
+                pending.result.completeExceptionally(new BulkheadFullException(upstream, maxQueued));
+                return pending.result;
+            }
+            else {
+                waiting.add(pending);
+                stats.recordEnqueued();
+                start = false;
+            }
+        }
+        if (start && !start(pending)) {
+            release();
+        }
+        return pending.result;
+    }
+
+    /**
+     * Hands the slot of a finished call to the next waiting call that has not been cancelled in the meantime
+     */
+    private void release() {
+        while (true) {
+            PendingCall<?> next;
+            synchronized (this) {
+                do {
+                    next = waiting.poll();
+                    if (null != next) {
+                        stats.recordDequeued();
+                    }
+                } while (null != next && next.result.isDone());
+                if (null == next) {
+                    inFlight--;
+                    return;
+                }
+            }
+            if (start(next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Builds and enqueues the call. Returns false without taking up the slot if the request could not be built or the
+     * call got cancelled in the meantime.
+     */
+    private boolean start(PendingCall<?> pending) {
+        stats.recordStarted(System.nanoTime() - pending.queuedAt);
+        final Call call;
+        try {
+            call = client.get().newCall(pending.request.get());
+        }
+        catch (Exception e) {
+            stats.recordFailed();
+            pending.result.completeExceptionally(e instanceof IOException ioException ? ioException : new IOException(e));
+            return false;
+        }
+        pending.call = call;
+        if (pending.result.isCancelled()) {
+            stats.recordFailed();
+            return false;
+        }
+        call.enqueue(pending);
+        return true;
+    }
+}
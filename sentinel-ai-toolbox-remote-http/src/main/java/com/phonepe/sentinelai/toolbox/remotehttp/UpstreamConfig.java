@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Limits and connection settings applied to the calls made by an {@link HttpToolBox} to its upstream. Every toolbox
+ * gets its own bulkhead, so a slow upstream cannot take up the threads or connections used for other upstreams.
+ */
+@Value
+@Builder
+@Jacksonized
+public class UpstreamConfig {
+    Integer maxInFlight; // Max concurrent calls to the upstream, further calls wait in arrival order (default 64)
+    Integer maxQueued; // Max calls waiting for a slot, further calls fail immediately (default unbounded)
+    Integer maxIdleConnections; // Idle connections kept for the upstream (default shared pool of the http client)
+    Integer keepAlive; // Millis an idle connection is kept for when maxIdleConnections is set (default 5 minutes)
+}
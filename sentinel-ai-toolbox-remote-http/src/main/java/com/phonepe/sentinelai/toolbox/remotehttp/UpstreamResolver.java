@@ -26,6 +26,24 @@ import com.google.common.base.Strings;
  */
 @FunctionalInterface
 public interface UpstreamResolver {
+    /**
+     * Outcome of a call made to an endpoint returned by {@link #resolve(String)}
+     */
+    enum CallOutcome {
+        /**
+         * A response was received from the endpoint. Client errors (4xx) count as success.
+         */
+        SUCCESS,
+        /**
+         * The call failed with an I/O error or the endpoint responded with a server error (5xx)
+         */
+        FAILURE,
+        /**
+         * The call was cancelled by the caller
+         */
+        CANCELLED
+    }
+
     /**
      * Creates a direct upstream resolver that returns the given URL for an upstream identifier.
      * This is useful when you want to use a fixed URL for a given upstream.
@@ -42,5 +60,28 @@ public interface UpstreamResolver {
         };
     }
 
+    /**
+     * Called by {@link HttpToolBox} when a call to an endpoint returned by {@link #resolve(String)} completes.
+     * Resolvers that balance load across endpoints can use this to track latency and failures.
+     *
+     * @param upstream     Upstream identifier
+     * @param endpoint     Endpoint the call was made to
+     * @param outcome      Outcome of the call
+     * @param latencyNanos Time taken to receive response headers, or to fail
+     */
+    default void onCallCompleted(String upstream, String endpoint, CallOutcome outcome, long latencyNanos) {
+        // Nothing to track by default
+    }
+
+    /**
+     * Called by {@link HttpToolBox} when a call to an endpoint returned by {@link #resolve(String)} starts executing
+     *
+     * @param upstream Upstream identifier
+     * @param endpoint Endpoint the call is being made to
+     */
+    default void onCallStarted(String upstream, String endpoint) {
+        // Nothing to track by default
+    }
+
     String resolve(String upstream);
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp.templating;
+
+import com.phonepe.sentinelai.toolbox.remotehttp.HttpCallSpec;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * A {@link HttpCallTemplate} whose path, headers and body have already been compiled by the relevant templating
+ * engines. Expanding it into a {@link HttpCallSpec} only renders the templates and does not parse them again.
+ */
+@Value
+@Slf4j
+public class CompiledHttpCallTemplate {
+    @NonNull
+    HttpCallTemplate source;
+    @NonNull
+    CompiledTemplate path;
+    @NonNull
+    Map<String, List<CompiledTemplate>> headers;
+    CompiledTemplate body;
+    @Getter(AccessLevel.NONE)
+    boolean dynamic;
+
+    public CompiledHttpCallTemplate(@NonNull HttpCallTemplate source,
+                                    @NonNull CompiledTemplate path,
+                                    @NonNull Map<String, List<CompiledTemplate>> headers,
+                                    CompiledTemplate body) {
+        this.source = source;
+        this.path = path;
+        this.headers = headers;
+        this.body = body;
+        this.dynamic = Stream.concat(Stream.of(path, body),
+                                     headers.values().stream().flatMap(List::stream))
+                .anyMatch(t -> null != t && t.usesContext());
+    }
+
+    /**
+     * Expands the compiled template to a {@link HttpCallSpec}
+     *
+     * @param context the context to use for rendering the templates
+     * @return the expanded {@link HttpCallSpec}
+     */
+    public HttpCallSpec expand(Map<String, Object> context) {
+        final var expandedPath = path.render(context);
+        final var expandedHeaders = headers.entrySet()
+                .stream()
+                .collect(toMap(Map.Entry::getKey,
+                               entry -> entry.getValue()
+                                       .stream()
+                                       .map(t -> t.render(context))
+                                       .toList()));
+        final var expandedBody = null == body ? null : body.render(context);
+        log.debug("Expanding spec: path: {}, method: {}, headers: {}, body: {}",
+                  expandedPath,
+                  source.getMethod(),
+                  expandedHeaders,
+                  expandedBody);
+        return HttpCallSpec.builder()
+                .method(source.getMethod())
+                .path(expandedPath)
+                .headers(expandedHeaders)
+                .body(expandedBody)
+                .contentType(source.getContentType())
+                .build();
+    }
+
+    /**
+     * @return true if any of the compiled templates needs the tool arguments to render
+     */
+    public boolean usesContext() {
+        return dynamic;
+    }
+}
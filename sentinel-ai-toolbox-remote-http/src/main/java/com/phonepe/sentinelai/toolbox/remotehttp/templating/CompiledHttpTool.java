@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp.templating;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A {@link TemplatizedHttpTool} along with its compiled call template and response transformer. Created once when
+ * the tool is registered in a {@link TemplatizedHttpToolSource} and reused for every call to the tool.
+ */
+@Value
+public class CompiledHttpTool {
+    @NonNull
+    TemplatizedHttpTool tool;
+    @NonNull
+    CompiledHttpCallTemplate template;
+    UnaryOperator<String> responseTransformer;
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp.templating;
+
+import java.util.Map;
+
+/**
+ * A {@link HttpCallTemplate.Template} that has been parsed once by a {@link HttpCallTemplatingEngine} and can be
+ * rendered repeatedly with different contexts.
+ */
+@FunctionalInterface
+public interface CompiledTemplate {
+
+    /**
+     * Creates a template that always renders to the same content, irrespective of the context
+     *
+     * @param content the content to render
+     * @return a constant compiled template
+     */
+    static CompiledTemplate constant(final String content) {
+        return new CompiledTemplate() {
+            @Override
+            public String render(Map<String, Object> context) {
+                return content;
+            }
+
+            @Override
+            public boolean usesContext() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Renders the template using the provided context
+     *
+     * @param context variables available to the template
+     * @return the rendered string
+     */
+    String render(Map<String, Object> context);
+
+    /**
+     * @return true if rendering depends on the context. Callers can skip building a context when this is false.
+     */
+    default boolean usesContext() {
+        return true;
+    }
+}
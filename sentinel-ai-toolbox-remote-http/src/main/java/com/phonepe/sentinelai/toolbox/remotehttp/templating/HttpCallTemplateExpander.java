@@ -22,19 +22,17 @@ import com.phonepe.sentinelai.toolbox.remotehttp.templating.engines.TextSubstitu
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.engines.handlebar.HandlebarHttpCallTemplatingEngine;
 
 import lombok.AllArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toUnmodifiableMap;
 
 /**
  * A class that expands a {@link HttpCallTemplate} to a {@link HttpCallSpec}.
  */
 @AllArgsConstructor
-@Slf4j
 public class HttpCallTemplateExpander {
     private final Map<HttpCallTemplate.TemplateType, HttpCallTemplatingEngine> templatingEngines;
 
@@ -47,6 +45,29 @@ public class HttpCallTemplateExpander {
                     new HandlebarHttpCallTemplatingEngine()));
     }
 
+    /**
+     * Compiles all parts of a {@link HttpCallTemplate} using the relevant templating engines. The result can be
+     * expanded multiple times without parsing the templates again.
+     *
+     * @param template the template to compile
+     * @return the compiled template
+     */
+    public CompiledHttpCallTemplate compile(final HttpCallTemplate template) {
+        final var headers = Objects.requireNonNullElseGet(template.getHeaders(),
+                                                          Map::<String, List<HttpCallTemplate.Template>>of)
+                .entrySet()
+                .stream()
+                .collect(toUnmodifiableMap(Map.Entry::getKey,
+                                           entry -> entry.getValue()
+                                                   .stream()
+                                                   .map(this::compile)
+                                                   .toList()));
+        return new CompiledHttpCallTemplate(template,
+                                            compile(template.getPath()),
+                                            headers,
+                                            compile(template.getBody()));
+    }
+
     /**
      * Converts a {@link HttpCallTemplate} to a {@link HttpCallSpec}.
      *
@@ -56,42 +77,16 @@ public class HttpCallTemplateExpander {
      */
     public HttpCallSpec convert(final HttpCallTemplate template,
                                 Map<String, Object> context) {
-        final var path = convert(template.getPath(), context);
-        final var method = template.getMethod();
-        final var headers = Objects.requireNonNullElseGet(template.getHeaders(),
-                                                          Map::<String, List<HttpCallTemplate.Template>>of)
-                .entrySet()
-                .stream()
-                .collect(toMap(Map.Entry::getKey,
-                               entry -> entry.getValue()
-                                       .stream()
-                                       .map(t -> convert(t, context))
-                                       .toList()));
-        final var body = convert(template.getBody(), context);
-        final var contentType = template.getContentType();
-        log.debug("Expanding spec: path: {}, method: {}, headers: {}, body: {}",
-                  path,
-                  method,
-                  headers,
-                  body);
-        return HttpCallSpec.builder()
-                .method(method)
-                .path(path)
-                .headers(headers)
-                .body(body)
-                .contentType(contentType)
-
-                .build();
+        return compile(template).expand(context);
     }
 
-    private String convert(final HttpCallTemplate.Template template,
-                           Map<String, Object> context) {
+    private CompiledTemplate compile(final HttpCallTemplate.Template template) {
         if (null == template) {
             return null;
         }
         return Objects.requireNonNull(templatingEngines.get(template.getType()),
                                       "No templating engine found for type: " + template
                                               .getType())
-                .convert(template, context);
+                .compile(template);
     }
 }
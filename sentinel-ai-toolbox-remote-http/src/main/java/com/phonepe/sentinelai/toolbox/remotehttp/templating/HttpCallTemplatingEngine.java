@@ -22,6 +22,18 @@ import java.util.Map;
  * Interface for converting {@link HttpCallTemplate.Template} to a string representation.
  */
 public interface HttpCallTemplatingEngine {
+    /**
+     * Compiles the template so that it can be rendered multiple times without being parsed again. Engines that
+     * have a compilation step should override this. The default implementation converts the template on every
+     * render.
+     *
+     * @param template the template to compile
+     * @return the compiled template
+     */
+    default CompiledTemplate compile(final HttpCallTemplate.Template template) {
+        return context -> convert(template, context);
+    }
+
     String convert(final HttpCallTemplate.Template template,
                    Map<String, Object> context);
 }
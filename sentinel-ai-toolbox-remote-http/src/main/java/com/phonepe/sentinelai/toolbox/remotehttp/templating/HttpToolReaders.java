@@ -21,6 +21,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolMetadata;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolSource;
+import com.phonepe.sentinelai.toolbox.remotehttp.ResponseCacheConfig;
 
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
@@ -57,7 +58,8 @@ public class HttpToolReaders {
                                                                                         .map(tool -> new TemplatizedHttpTool(tool
                                                                                                 .metadata(),
                                                                                                                              tool.definition(),
-                                                                                                                             tool.transformer()))
+                                                                                                                             tool.transformer(),
+                                                                                                                             tool.cache()))
                                                                                         .toList())));
     }
 
@@ -65,7 +67,8 @@ public class HttpToolReaders {
     public record ConfiguredHttpTool(
             HttpToolMetadata metadata,
             HttpCallTemplate definition,
-            ResponseTransformerConfig transformer
+            ResponseTransformerConfig transformer,
+            ResponseCacheConfig cache
     ) {
     }
 
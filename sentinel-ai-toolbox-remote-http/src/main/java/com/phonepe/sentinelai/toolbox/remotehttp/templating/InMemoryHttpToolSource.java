@@ -17,10 +17,10 @@
 package com.phonepe.sentinelai.toolbox.remotehttp.templating;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
 
 import com.phonepe.sentinelai.core.utils.JsonUtils;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpCallSpec;
-import com.phonepe.sentinelai.toolbox.remotehttp.HttpTool;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolMetadata;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolSource;
 
@@ -29,6 +29,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
@@ -40,7 +41,7 @@ import java.util.stream.Collectors;
 @Slf4j
 public class InMemoryHttpToolSource extends TemplatizedHttpToolSource<InMemoryHttpToolSource> {
 
-    private final Map<String, Map<String, TemplatizedHttpTool>> tools = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, CompiledHttpTool>> tools = new ConcurrentHashMap<>();
 
     public InMemoryHttpToolSource() {
         this(new HttpCallTemplateExpander(), JsonUtils.createMapper());
@@ -57,7 +58,7 @@ public class InMemoryHttpToolSource extends TemplatizedHttpToolSource<InMemoryHt
         return tools.getOrDefault(upstream, Map.of())
                 .values()
                 .stream()
-                .map(HttpTool::getMetadata)
+                .map(compiled -> compiled.getTool().getMetadata())
                 .toList();
     }
 
@@ -68,15 +69,17 @@ public class InMemoryHttpToolSource extends TemplatizedHttpToolSource<InMemoryHt
             log.warn("No tool provided for upstream {}", upstream);
             return this;
         }
+        final var toolMap = tool.stream()
+                .collect(Collectors.toUnmodifiableMap(t -> t.getMetadata()
+                        .getName(), Function.identity()));
         tools.compute(upstream, (u, existing) -> {
-            final var toolMap = tool.stream()
-                    .collect(Collectors.toUnmodifiableMap(t -> t.getMetadata()
-                            .getName(), Function.identity()));
-            if (existing == null) {
-                return new ConcurrentHashMap<>(toolMap);
-            }
-            existing.putAll(toolMap);
-            return existing;
+            final var compiledTools = Objects.requireNonNullElseGet(existing,
+                                                                    ConcurrentHashMap<String, CompiledHttpTool>::new);
+            // Templates are compiled only for new tools or tools whose definition has changed
+            toolMap.forEach((name, t) -> compiledTools.compute(name,
+                                                               (n, current) -> null != current && current.getTool()
+                                                                       .equals(t) ? current : compile(t)));
+            return compiledTools;
         });
         return this;
     }
@@ -97,4 +100,9 @@ public class InMemoryHttpToolSource extends TemplatizedHttpToolSource<InMemoryHt
         return List.copyOf(tools.keySet());
     }
 
+    @VisibleForTesting
+    CompiledHttpTool compiled(String upstream, String toolName) {
+        return tools.getOrDefault(upstream, Map.of()).get(toolName);
+    }
+
 }
@@ -18,6 +18,7 @@ package com.phonepe.sentinelai.toolbox.remotehttp.templating;
 
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpTool;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolMetadata;
+import com.phonepe.sentinelai.toolbox.remotehttp.ResponseCacheConfig;
 
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -37,14 +38,17 @@ public class TemplatizedHttpTool extends HttpTool {
     @NonNull
     HttpCallTemplate template;
     ResponseTransformerConfig responseTransformations;
+    ResponseCacheConfig responseCache;
 
     @Builder
     @Jacksonized
     public TemplatizedHttpTool(@NonNull HttpToolMetadata metadata,
                                @NonNull HttpCallTemplate template,
-                               ResponseTransformerConfig responseTransformations) {
+                               ResponseTransformerConfig responseTransformations,
+                               ResponseCacheConfig responseCache) {
         super(metadata);
         this.template = template;
         this.responseTransformations = responseTransformations;
+        this.responseCache = responseCache;
     }
 }
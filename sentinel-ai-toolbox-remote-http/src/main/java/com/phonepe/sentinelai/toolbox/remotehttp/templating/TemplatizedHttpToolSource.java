@@ -19,6 +19,7 @@ package com.phonepe.sentinelai.toolbox.remotehttp.templating;
 import com.bazaarvoice.jolt.Chainr;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import com.phonepe.sentinelai.core.utils.JsonUtils;
 import com.phonepe.sentinelai.toolbox.remotehttp.HttpCallSpec;
@@ -27,6 +28,7 @@ import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolSource;
 import lombok.SneakyThrows;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.UnaryOperator;
 
@@ -61,31 +63,61 @@ public abstract class TemplatizedHttpToolSource<S extends HttpToolSource<Templat
 
     protected final ObjectMapper mapper;
 
+    private final ObjectReader argumentsReader;
+
     protected TemplatizedHttpToolSource(HttpCallTemplateExpander expander,
                                         ObjectMapper mapper) {
         this.expander = Objects.requireNonNullElseGet(expander,
                                                       HttpCallTemplateExpander::new);
         this.mapper = Objects.requireNonNullElseGet(mapper,
                                                     JsonUtils::createMapper);
+        this.argumentsReader = this.mapper.readerFor(new TypeReference<Map<String, Object>>() {
+        });
     }
 
-    @SneakyThrows
-    protected HttpCallSpec expandTemplate(String arguments,
-                                          TemplatizedHttpTool tool) {
-        final var spec = expander.convert(tool.getTemplate(),
-                                          mapper.readValue(arguments,
-                                                           new TypeReference<>() {
-                                                           }));
+    /**
+     * Compiles the call template and response transformations of a tool. Sources are expected to call this once
+     * when a tool is registered or its definition changes, and use
+     * {@link #expandTemplate(String, CompiledHttpTool)} for every call to the tool.
+     *
+     * @param tool the tool to compile
+     * @return the compiled tool
+     */
+    protected CompiledHttpTool compile(TemplatizedHttpTool tool) {
         final var transformation = tool.getResponseTransformations();
+        UnaryOperator<String> responseTransformer = null;
         if (transformation != null) {
-            return switch (transformation.getType()) {
-                case JOLT -> spec.withResponseTransformer(new JoltTransformer(
-                                                                              transformation
-                                                                                      .getConfig(),
-                                                                              mapper));
+            responseTransformer = switch (transformation.getType()) {
+                case JOLT -> new JoltTransformer(transformation.getConfig(), mapper);
             };
         }
-        return spec;
+        return new CompiledHttpTool(tool,
+                                    expander.compile(tool.getTemplate()),
+                                    responseTransformer);
+    }
+
+    @SneakyThrows
+    protected HttpCallSpec expandTemplate(String arguments,
+                                          CompiledHttpTool tool) {
+        final var template = tool.getTemplate();
+        final Map<String, Object> context = template.usesContext()
+                ? argumentsReader.readValue(arguments)
+                : Map.of();
+        final var spec = template.expand(context)
+                .withResponseCache(tool.getTool().getResponseCache());
+        final var responseTransformer = tool.getResponseTransformer();
+        return null == responseTransformer
+                ? spec
+                : spec.withResponseTransformer(responseTransformer);
+    }
+
+    /**
+     * Compiles the tool and expands it. Prefer {@link #expandTemplate(String, CompiledHttpTool)} with a tool
+     * compiled at registration time.
+     */
+    protected HttpCallSpec expandTemplate(String arguments,
+                                          TemplatizedHttpTool tool) {
+        return expandTemplate(arguments, compile(tool));
     }
 
 }
@@ -16,6 +16,7 @@
 
 package com.phonepe.sentinelai.toolbox.remotehttp.templating.engines;
 
+import com.phonepe.sentinelai.toolbox.remotehttp.templating.CompiledTemplate;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.HttpCallTemplate;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.HttpCallTemplatingEngine;
 
@@ -25,6 +26,11 @@ import java.util.Map;
  * This is a simple templating engine that does not do any templating.
  */
 public class TextHttpCallTemplatingEngine implements HttpCallTemplatingEngine {
+    @Override
+    public CompiledTemplate compile(HttpCallTemplate.Template template) {
+        return CompiledTemplate.constant(template.getContent());
+    }
+
     @Override
     public String convert(HttpCallTemplate.Template template,
                           Map<String, Object> context) {
@@ -18,6 +18,7 @@ package com.phonepe.sentinelai.toolbox.remotehttp.templating.engines;
 
 import org.apache.commons.text.StringSubstitutor;
 
+import com.phonepe.sentinelai.toolbox.remotehttp.templating.CompiledTemplate;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.HttpCallTemplate;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.HttpCallTemplatingEngine;
 
@@ -29,6 +30,18 @@ import java.util.Map;
 
 public class TextSubstitutorHttpCallTemplatingEngine implements HttpCallTemplatingEngine {
 
+    /**
+     * Content without any variable reference is rendered as is, without scanning it on every call.
+     */
+    @Override
+    public CompiledTemplate compile(HttpCallTemplate.Template template) {
+        final var content = template.getContent();
+        if (!content.contains("${")) {
+            return CompiledTemplate.constant(content);
+        }
+        return context -> StringSubstitutor.replace(content, context);
+    }
+
     @Override
     public String convert(HttpCallTemplate.Template template,
                           Map<String, Object> context) {
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp.templating.engines.handlebar;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Bounds for the caches of compiled handlebars templates maintained by {@link HandlebarUtil}. Templates are weighed by
+ * the approximate size in bytes of their content, so the bound holds irrespective of how many templates are generated.
+ */
+@Value
+@Builder
+public class HandlebarCacheConfig {
+    Long maxBytes; // Approximate max bytes of template content kept compiled per cache (default 32MB)
+    Long expireAfterAccess; // Millis after which an unused compiled template is dropped (default 1 hour)
+}
@@ -16,6 +16,7 @@
 
 package com.phonepe.sentinelai.toolbox.remotehttp.templating.engines.handlebar;
 
+import com.phonepe.sentinelai.toolbox.remotehttp.templating.CompiledTemplate;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.HttpCallTemplate;
 import com.phonepe.sentinelai.toolbox.remotehttp.templating.HttpCallTemplatingEngine;
 
@@ -25,6 +26,13 @@ import java.util.Map;
 
 public class HandlebarHttpCallTemplatingEngine implements HttpCallTemplatingEngine {
 
+    @Override
+    @SneakyThrows
+    public CompiledTemplate compile(HttpCallTemplate.Template template) {
+        final var compiled = HandlebarUtil.compile(template.getContent());
+        return context -> HandlebarUtil.apply(compiled, context);
+    }
+
     @Override
     @SneakyThrows
     public String convert(HttpCallTemplate.Template template,
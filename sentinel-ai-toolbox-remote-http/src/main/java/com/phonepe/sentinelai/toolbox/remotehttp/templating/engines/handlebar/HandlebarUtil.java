@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 
+
 package com.phonepe.sentinelai.toolbox.remotehttp.templating.engines.handlebar;
 
 import com.github.jknack.handlebars.Handlebars;
@@ -23,42 +24,152 @@ import com.github.jknack.handlebars.cache.GuavaTemplateCache;
 import com.github.jknack.handlebars.io.TemplateSource;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 
+import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
 
 @UtilityClass
 public class HandlebarUtil {
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    // Rough size of the cache node and template objects held for every cached template
+    static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final long DEFAULT_EXPIRE_AFTER_ACCESS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * A guava cache bounded by the size of its entries in bytes. Handlebars populates the template cache itself, so the
+     * total size is computed from the entries present when stats are asked for rather than tracked on insertion.
+     */
+    private static final class WeightedCache<K, V> {
+        private final Cache<K, V> cache;
+        private final ToIntBiFunction<K, V> weigher;
+
+        private WeightedCache(HandlebarCacheConfig config, ToIntBiFunction<K, V> weigher) {
+            this.weigher = weigher;
+            this.cache = CacheBuilder.newBuilder()
+                    .maximumWeight(Objects.requireNonNullElse(config.getMaxBytes(), DEFAULT_MAX_BYTES))
+                    .weigher(weigher::applyAsInt)
+                    .expireAfterAccess(Objects.requireNonNullElse(config.getExpireAfterAccess(),
+                                                                  DEFAULT_EXPIRE_AFTER_ACCESS),
+                                       TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+        }
+
+        private HandlebarCacheStats stats() {
+            final var stats = cache.stats();
+            return HandlebarCacheStats.builder()
+                    .hits(stats.hitCount())
+                    .misses(stats.missCount())
+                    .evictions(stats.evictionCount())
+                    .totalBytes(cache.asMap()
+                            .entrySet()
+                            .stream()
+                            .mapToLong(entry -> weigher.applyAsInt(entry.getKey(), entry.getValue()))
+                            .sum())
+                    .size(cache.size())
+                    .build();
+        }
+    }
+
+    private record CompiledEntry(Template template, int bytes) {
+    }
+
+    private static final Handlebars handlebars = new Handlebars();
+
     /**
      * For use by Handlebars.java internally.
      */
-    private static final Cache<TemplateSource, Template> templateCache = CacheBuilder
-            .newBuilder()
-            .build();
-
-    private static final LoadingCache<String, Template> compilationCache = CacheBuilder
-            .newBuilder()
-            .build(new CacheLoader<>() {
-                @Override
-                public Template load(String input) throws Exception {
-                    return handlebars.compileInline(input);
-                }
-            });
-
-    private static final Handlebars handlebars = new Handlebars().with(
-                                                                       new GuavaTemplateCache(templateCache));
+    private static volatile WeightedCache<TemplateSource, Template> templateCache;
+
+    /**
+     * Compiled templates keyed by the hash of their content, so that the cache does not hold on to the content
+     */
+    private static volatile WeightedCache<HashCode, CompiledEntry> compilationCache;
+
+    static {
+        configure(HandlebarCacheConfig.builder().build());
+    }
+
+    /**
+     * Renders an already compiled template
+     *
+     * @param template the compiled template
+     * @param context  variables available to the template
+     * @return the rendered string
+     */
+    @SneakyThrows
+    public String apply(final Template template, final Map<String, Object> context) {
+        return template.apply(context);
+    }
+
+    /**
+     * Compiles the template content, reusing an earlier compilation of the same content if available
+     *
+     * @param content the template content
+     * @return the compiled template
+     */
+    public Template compile(final String content) throws ExecutionException {
+        return compilationCache.cache
+                .get(Hashing.sha256().hashString(content, StandardCharsets.UTF_8),
+                     () -> new CompiledEntry(handlebars.compileInline(content), bytes(content)))
+                .template();
+    }
+
+    /**
+     * @return Stats for the cache of templates compiled through {@link #compile(String)}
+     */
+    public HandlebarCacheStats compilationCacheStats() {
+        return compilationCache.stats();
+    }
+
+    /**
+     * Replaces the template caches with new ones bounded as per the provided config. Already compiled templates are
+     * dropped. Registered helpers are retained.
+     *
+     * @param config bounds for the caches
+     */
+    public synchronized void configure(final HandlebarCacheConfig config) {
+        templateCache = new WeightedCache<>(config, (source, template) -> contentBytes(source));
+        compilationCache = new WeightedCache<>(config, (hash, compiled) -> compiled.bytes());
+        handlebars.with(new GuavaTemplateCache(templateCache.cache));
+    }
 
     public String convert(final String content,
                           final Map<String, Object> context) throws ExecutionException, IOException {
-        return compilationCache.get(content).apply(context);
+        return compile(content).apply(context);
     }
 
     public <H> void registerHelper(String name, Helper<H> helper) {
         handlebars.registerHelper(name, helper);
     }
+
+    /**
+     * @return Stats for the cache used by handlebars internally for template sources, including partials
+     */
+    public HandlebarCacheStats templateCacheStats() {
+        return templateCache.stats();
+    }
+
+    private static int bytes(String content) {
+        return content.length() * Character.BYTES + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private static int contentBytes(TemplateSource source) {
+        try {
+            return bytes(source.content(StandardCharsets.UTF_8));
+        }
+        catch (IOException e) {
+            return ENTRY_OVERHEAD_BYTES;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link HttpResponseProcessor}
+ */
+@Slf4j
+@WireMockTest
+class HttpResponseProcessorTest {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final MediaType TEXT = MediaType.get("text/plain");
+
+    private static String jsonPayload(int size) {
+        final var payload = new StringBuilder(size + 256).append("{\n  \"items\" : [\n");
+        var i = 0;
+        while (payload.length() < size) {
+            payload.append(i == 0 ? "" : ",\n")
+                    .append("    {\n      \"id\" : ")
+                    .append(i)
+                    .append(",\n      \"name\" : \"Item  ")
+                    .append(i)
+                    .append("\",\n      \"tags\" : [ \"a\", \"b\" ]\n    }");
+            i++;
+        }
+        return payload.append("\n  ]\n}\n").toString();
+    }
+
+    private static String legacy(ResponseBody body) throws IOException {
+        return body.string().trim().replaceAll("\\s+", " ");
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    @SneakyThrows
+    private static String process(String text, MediaType mediaType, HttpResponseProcessor processor) {
+        return processor.process(ResponseBody.create(text, mediaType));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @SneakyThrows
+    void testBenchmark(final WireMockRuntimeInfo wiremock) {
+        final var client = new OkHttpClient.Builder()
+                .readTimeout(60, TimeUnit.SECONDS)
+                .build();
+        final var compacting = HttpResponseProcessor.builder().compactJson(true).build();
+        final var report = new StringBuilder("Response processing, best run per mode\n");
+        for (final var size : List.of(1 << 10, 1 << 20, 20 << 20)) {
+            final var path = "/payload/" + size;
+            final var payload = jsonPayload(size);
+            stubFor(get(urlEqualTo(path)).willReturn(aResponse()
+                    .withHeader("Content-Type", JSON.toString())
+                    .withBody(payload)));
+            final var request = new Request.Builder().url(wiremock.getHttpBaseUrl() + path).build();
+            final var iterations = size > 1 << 20 ? 5 : 20;
+            final var expected = payload.trim().replaceAll("\\s+", " ");
+            report.append("  %,11d bytes:".formatted(payload.length()));
+            for (final var mode : List.of("regex", "stream", "compact")) {
+                var bestNs = Long.MAX_VALUE;
+                var bestAllocated = Long.MAX_VALUE;
+                var length = 0;
+                for (int i = 0; i < iterations; i++) {
+                    try (final var response = client.newCall(request).execute()) {
+                        final var allocatedBefore = allocatedBytes();
+                        final var start = System.nanoTime();
+                        final var body = response.body();
+                        final var output = switch (mode) {
+                            case "regex" -> legacy(body);
+                            case "stream" -> HttpResponseProcessor.DEFAULT.process(body);
+                            default -> compacting.process(body);
+                        };
+                        bestNs = Math.min(bestNs, System.nanoTime() - start);
+                        bestAllocated = Math.min(bestAllocated, allocatedBytes() - allocatedBefore);
+                        length = output.length();
+                        if (!mode.equals("compact")) {
+                            assertEquals(expected, output);
+                        }
+                    }
+                }
+                report.append("  %s %,8.2f ms %,11d bytes allocated (%,d chars)".formatted(mode,
+                                                                                         bestNs / 1_000_000.0,
+                                                                                         bestAllocated,
+                                                                                         length));
+            }
+            report.append('\n');
+        }
+        log.info("{}", report);
+    }
+
+    @Test
+    void testJsonCompaction() {
+        final var processor = HttpResponseProcessor.builder().compactJson(true).build();
+        assertEquals("{\"name\":\"Santanu  Sinha\",\"list\":[1,2,{\"a\":null}]}",
+                     process("""
+                             {
+                                 "name" : "Santanu  Sinha",
+                                 "list" : [ 1, 2, { "a" : null } ]
+                             }
+                             """, JSON, processor));
+        // Only responses declared as JSON are compacted
+        assertEquals("{ \"a\" : 1 }", process(" {\n \"a\" :  1 }\n", TEXT, processor));
+        assertEquals("{\"a\":1}", process("{ \"a\" : 1 }", MediaType.get("application/problem+json"), processor));
+        assertThrows(IOException.class, () -> processor.process(ResponseBody.create("{ \"a\" : ", JSON)));
+    }
+
+    @Test
+    @SneakyThrows
+    void testMaxResponseSize(final WireMockRuntimeInfo wiremock) {
+        final var processor = HttpResponseProcessor.builder().maxResponseSize(1024).build();
+        assertEquals("small", process("small", TEXT, processor));
+        // Rejected upfront from the content length
+        assertThrows(HttpResponseProcessor.ResponseTooLargeException.class,
+                     () -> processor.process(ResponseBody.create("x".repeat(2048), TEXT)));
+        // Rejected while reading a chunked response without a content length
+        stubFor(get(urlEqualTo("/chunked")).willReturn(aResponse()
+                .withHeader("Content-Type", TEXT.toString())
+                .withHeader("Transfer-Encoding", "chunked")
+                .withBody("y".repeat(4096))));
+        final var client = new OkHttpClient.Builder().build();
+        try (final var response = client.newCall(new Request.Builder()
+                .url(wiremock.getHttpBaseUrl() + "/chunked")
+                .build()).execute()) {
+            assertEquals(-1, response.body().contentLength());
+            assertThrows(HttpResponseProcessor.ResponseTooLargeException.class,
+                         () -> processor.process(response.body()));
+        }
+    }
+
+    @Test
+    void testWhitespaceNormalizationMatchesRegex() {
+        final var inputs = List.of("",
+                                   "   ",
+                                   "plain",
+                                   "  leading and trailing \n",
+                                   "tabs\t\tand\r\nnewlines\u000B\fmixed",
+                                   "x".repeat(10_000) + " \n " + "y".repeat(10_000),
+                                   jsonPayload(100_000));
+        for (final var input : inputs) {
+            assertEquals(input.trim().replaceAll("\\s+", " "),
+                         process(input, TEXT, HttpResponseProcessor.DEFAULT));
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.tools.ExternalTool;
+import com.phonepe.sentinelai.core.utils.AgentUtils;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for asynchronous dispatch of calls through the bulkhead of {@link HttpToolBox}, against a local slow server
+ */
+@Slf4j
+@WireMockTest
+class HttpToolBoxBulkheadTest {
+    private static final int DELAY_MS = 50;
+    private static final int MAX_IN_FLIGHT = 8;
+
+    /**
+     * Samples the number of live threads while a load runs
+     */
+    private static final class ThreadSampler implements AutoCloseable {
+        private final String prefix;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final AtomicInteger peakThreads = new AtomicInteger();
+        private final AtomicInteger peakPrefixedThreads = new AtomicInteger();
+        private final Thread sampler;
+
+        private ThreadSampler(String prefix) {
+            this.prefix = prefix;
+            this.sampler = new Thread(this::sample);
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+
+        @Override
+        @SneakyThrows
+        public void close() {
+            running.set(false);
+            sampler.join();
+        }
+
+        @SneakyThrows
+        private void sample() {
+            final var threadBean = ManagementFactory.getThreadMXBean();
+            while (running.get()) {
+                peakThreads.accumulateAndGet(threadBean.getThreadCount(), Math::max);
+                peakPrefixedThreads.accumulateAndGet((int) Thread.getAllStackTraces()
+                        .keySet()
+                        .stream()
+                        .filter(thread -> thread.getName().startsWith(prefix))
+                        .count(), Math::max);
+                Thread.sleep(2);
+            }
+        }
+    }
+
+    private static HttpToolSource<?, ?> toolSource() {
+        return new HttpToolSource() {
+            @Override
+            public List<HttpToolMetadata> list(String upstream) {
+                return List.of(tool("slow"), tool("fast"));
+            }
+
+            @Override
+            public HttpToolSource register(String upstream, List tool) {
+                return this;
+            }
+
+            @Override
+            public HttpCallSpec resolve(String upstream, String toolName, String arguments) {
+                if (!arguments.equals("{}")) {
+                    throw new IllegalArgumentException("Unexpected arguments: " + arguments);
+                }
+                return HttpCallSpec.builder()
+                        .method(HttpCallSpec.HttpMethod.GET)
+                        .path("/api/" + toolName)
+                        .build();
+            }
+
+            @Override
+            public List<String> upstreams() {
+                return List.of("slowServer");
+            }
+        };
+    }
+
+    private static HttpToolMetadata tool(String name) {
+        return HttpToolMetadata.builder()
+                .name(name)
+                .description("Calls the %s api".formatted(name))
+                .build();
+    }
+
+    private static HttpToolBox toolBox(String upstream,
+                                       OkHttpClient client,
+                                       WireMockRuntimeInfo wiremock,
+                                       UpstreamConfig config) {
+        final var toolBox = HttpToolBox.builder()
+                .upstream(upstream)
+                .httpClient(client)
+                .httpToolSource(toolSource())
+                .mapper(JsonUtils.createMapper())
+                .upstreamResolver(UpstreamResolver.direct(wiremock.getHttpBaseUrl()))
+                .upstreamConfig(config)
+                .build();
+        assertEquals(2, toolBox.tools().size());
+        return toolBox;
+    }
+
+    private static void stubApis(int slowDelayMs) {
+        stubFor(get(urlEqualTo("/api/slow")).willReturn(aResponse()
+                .withFixedDelay(slowDelayMs)
+                .withBody("slow response")));
+        stubFor(get(urlEqualTo("/api/fast")).willReturn(aResponse().withBody("fast response")));
+    }
+
+    @Test
+    void testCancelledCallFreesSlot(final WireMockRuntimeInfo wiremock) {
+        stubApis(10_000);
+        final var toolBox = toolBox("cancelling",
+                                    new OkHttpClient.Builder().build(),
+                                    wiremock,
+                                    UpstreamConfig.builder().maxInFlight(1).build());
+        final var slow = toolBox.runToolAsync(AgentUtils.id("cancelling", "slow"), "{}");
+        final var fast = toolBox.runToolAsync(AgentUtils.id("cancelling", "fast"), "{}");
+        assertEquals(1, toolBox.bulkheadStats().getQueued());
+
+        slow.cancel(true);
+        final var response = fast.orTimeout(5, TimeUnit.SECONDS).join();
+        assertEquals(ErrorType.SUCCESS, response.error());
+        assertEquals("fast response", response.response());
+        await().atMost(Duration.ofSeconds(5)).until(() -> toolBox.bulkheadStats().getInFlight() == 0);
+        assertEquals(1, toolBox.bulkheadStats().getFailed());
+        assertEquals(1, toolBox.bulkheadStats().getCompleted());
+    }
+
+    @Test
+    void testFullQueueRejectsCalls(final WireMockRuntimeInfo wiremock) {
+        stubApis(300);
+        final var toolBox = toolBox("rejecting",
+                                    new OkHttpClient.Builder().build(),
+                                    wiremock,
+                                    UpstreamConfig.builder()
+                                            .maxInFlight(2)
+                                            .maxQueued(2)
+                                            .build());
+        final var calls = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+        for (int i = 0; i < 10; i++) {
+            calls.add(toolBox.runToolAsync(AgentUtils.id("rejecting", "slow"), "{}"));
+        }
+        final var responses = calls.stream().map(CompletableFuture::join).toList();
+
+        assertEquals(4, responses.stream().filter(response -> response.error() == ErrorType.SUCCESS).count());
+        final var rejected = responses.stream()
+                .filter(response -> response.error() == ErrorType.TOOL_CALL_TEMPORARY_FAILURE)
+                .toList();
+        assertEquals(6, rejected.size());
+        assertTrue(rejected.get(0).response().toString().contains("Too many calls pending"));
+        final var stats = toolBox.bulkheadStats();
+        assertEquals(10, stats.getSubmitted());
+        assertEquals(6, stats.getRejected());
+        assertEquals(2, stats.getPeakInFlight());
+        assertEquals(2, stats.getPeakQueued());
+    }
+
+    @Test
+    void testInvalidCallsReturnFailureResponses(final WireMockRuntimeInfo wiremock) {
+        final var toolBox = toolBox("invalid",
+                                    new OkHttpClient.Builder().build(),
+                                    wiremock,
+                                    UpstreamConfig.builder().build());
+
+        final var unknown = toolBox.runToolAsync(AgentUtils.id("invalid", "missing"), "{}").join();
+        assertEquals(ErrorType.TOOL_CALL_PERMANENT_FAILURE, unknown.error());
+        assertTrue(unknown.response().toString().contains("Unknown tool"));
+
+        final var tool = (ExternalTool) toolBox.tools().get(AgentUtils.id("invalid", "fast"));
+        final var unresolved = tool.getCallable().apply(null, AgentUtils.id("invalid", "fast"), "{\"a\": 1}");
+        assertEquals(ErrorType.TOOL_CALL_PERMANENT_FAILURE, unresolved.error());
+        assertTrue(unresolved.response().toString().contains("Unexpected arguments"));
+        assertEquals(0, toolBox.bulkheadStats().getSubmitted());
+    }
+
+    @Test
+    void testSlowUpstreamDoesNotAffectOthers(final WireMockRuntimeInfo wiremock) {
+        stubApis(1_000);
+        // Both toolboxes share the same http client, limits are per toolbox
+        final var client = new OkHttpClient.Builder().build();
+        final var slowToolBox = toolBox("saturated", client, wiremock, UpstreamConfig.builder().maxInFlight(2).build());
+        final var fastToolBox = toolBox("healthy", client, wiremock, UpstreamConfig.builder().maxInFlight(2).build());
+        final var slowCalls = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+        for (int i = 0; i < 6; i++) {
+            slowCalls.add(slowToolBox.runToolAsync(AgentUtils.id("saturated", "slow"), "{}"));
+        }
+        final var response = fastToolBox.runToolAsync(AgentUtils.id("healthy", "fast"), "{}").join();
+        assertEquals(ErrorType.SUCCESS, response.error());
+        assertTrue(slowCalls.stream().noneMatch(CompletableFuture::isDone));
+        assertEquals(4, slowToolBox.bulkheadStats().getQueued());
+        slowCalls.forEach(call -> assertEquals(ErrorType.SUCCESS, call.join().error()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @SneakyThrows
+    void testThreadUsageStaysFlat(final WireMockRuntimeInfo wiremock) {
+        stubApis(DELAY_MS);
+        final var client = new OkHttpClient.Builder()
+                .readTimeout(60, TimeUnit.SECONDS)
+                .build();
+        final var report = new StringBuilder("%d ms upstream, max in flight %d%n"
+                .formatted(DELAY_MS, MAX_IN_FLIGHT));
+        for (final var concurrency : List.of(16, 64, 256)) {
+            final var upstream = "load" + concurrency;
+            final var toolBox = toolBox(upstream,
+                                        client,
+                                        wiremock,
+                                        UpstreamConfig.builder().maxInFlight(MAX_IN_FLIGHT).build());
+            final var toolId = AgentUtils.id(upstream, "slow");
+            final var baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+            final long elapsedNs;
+            final ThreadSampler sampler;
+            try (final var threads = new ThreadSampler("http-" + toolBox.name() + "-")) {
+                sampler = threads;
+                final var start = System.nanoTime();
+                final var calls = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+                for (int i = 0; i < concurrency; i++) {
+                    calls.add(toolBox.runToolAsync(toolId, "{}"));
+                }
+                calls.forEach(call -> assertEquals(ErrorType.SUCCESS, call.join().error()));
+                elapsedNs = System.nanoTime() - start;
+            }
+            final var stats = toolBox.bulkheadStats();
+            assertTrue(sampler.peakPrefixedThreads.get() <= MAX_IN_FLIGHT,
+                       "Upstream threads: " + sampler.peakPrefixedThreads.get());
+            assertEquals(MAX_IN_FLIGHT, stats.getPeakInFlight());
+            assertEquals((long) concurrency, stats.getCompleted());
+
+            // Agents run the tool callable, which waits for the response: a thread per concurrent call
+            final var agentPeak = toolCallablePeakThreads((ExternalTool) toolBox.tools().get(toolId),
+                                                          toolId,
+                                                          concurrency);
+            report.append(("  concurrency %3d: async %,6d ms, upstream threads %d, jvm threads +%d, avg queue wait %,.0f ms"
+                    + " | tool callable: jvm threads +%d%n").formatted(concurrency,
+                                                                        TimeUnit.NANOSECONDS.toMillis(elapsedNs),
+                                                                        sampler.peakPrefixedThreads.get(),
+                                                                        sampler.peakThreads.get() - baselineThreads,
+                                                                        stats.getAverageQueueWaitMs(),
+                                                                        agentPeak - baselineThreads));
+        }
+        log.info("{}", report);
+    }
+
+    @SneakyThrows
+    private int toolCallablePeakThreads(ExternalTool tool, String toolId, int concurrency) {
+        final var executor = Executors.newFixedThreadPool(concurrency);
+        try (final var sampler = new ThreadSampler("pool-")) {
+            final var calls = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+            for (int i = 0; i < concurrency; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> tool.getCallable().apply(null, toolId, "{}"), executor));
+            }
+            calls.forEach(call -> assertEquals(ErrorType.SUCCESS, call.join().error()));
+            sampler.close();
+            return sampler.peakThreads.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.tools.ExternalTool;
+import com.phonepe.sentinelai.core.utils.AgentUtils;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import lombok.SneakyThrows;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for response caching in {@link HttpToolBox}, against a local mock server
+ */
+@WireMockTest
+class HttpToolBoxCacheTest {
+    private static final String UPSTREAM = "cachingServer";
+
+    private static final Map<String, ResponseCacheConfig> CACHE_CONFIGS = Map.of(
+            "cached", ResponseCacheConfig.builder().build(),
+            "shortLived", ResponseCacheConfig.builder().ttl(200L).build(),
+            "ignoringHeaders", ResponseCacheConfig.builder().respectCacheHeaders(false).build());
+
+    private static String call(HttpToolBox toolBox, String tool, String arguments) {
+        final var response = toolBox.runToolAsync(AgentUtils.id(UPSTREAM, tool), arguments)
+                .orTimeout(10, TimeUnit.SECONDS)
+                .join();
+        return response.error() + ":" + response.response();
+    }
+
+    private static HttpToolMetadata tool(String name) {
+        return HttpToolMetadata.builder()
+                .name(name)
+                .description("Calls the %s api".formatted(name))
+                .build();
+    }
+
+    private static HttpToolBox toolBox(WireMockRuntimeInfo wiremock, HttpResponseCache cache) {
+        final var toolBox = HttpToolBox.builder()
+                .upstream(UPSTREAM)
+                .httpClient(new OkHttpClient.Builder().build())
+                .httpToolSource(toolSource())
+                .mapper(JsonUtils.createMapper())
+                .upstreamResolver(UpstreamResolver.direct(wiremock.getHttpBaseUrl()))
+                .responseCache(cache)
+                .build();
+        assertEquals(4, toolBox.tools().size());
+        return toolBox;
+    }
+
+    private static HttpToolSource<?, ?> toolSource() {
+        return new HttpToolSource() {
+            @Override
+            public List<HttpToolMetadata> list(String upstream) {
+                return List.of(tool("cached"), tool("shortLived"), tool("ignoringHeaders"), tool("uncached"));
+            }
+
+            @Override
+            public HttpToolSource register(String upstream, List tool) {
+                return this;
+            }
+
+            @Override
+            public HttpCallSpec resolve(String upstream, String toolName, String arguments) {
+                // Arguments are used as is in the path to keep things simple
+                return HttpCallSpec.builder()
+                        .method(HttpCallSpec.HttpMethod.GET)
+                        .path("/api/" + arguments)
+                        .responseCache(CACHE_CONFIGS.get(toolName))
+                        .build();
+            }
+
+            @Override
+            public List<String> upstreams() {
+                return List.of(UPSTREAM);
+            }
+        };
+    }
+
+    @Test
+    void testCacheHeadersAreHonoured(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlEqualTo("/api/noStore")).willReturn(aResponse()
+                .withHeader("Cache-Control", "no-store")
+                .withBody("no store")));
+        stubFor(get(urlEqualTo("/api/expired")).willReturn(aResponse()
+                .withHeader("Cache-Control", "max-age=0")
+                .withBody("expired")));
+        stubFor(get(urlEqualTo("/api/maxAge")).willReturn(aResponse()
+                .withHeader("Cache-Control", "max-age=600")
+                .withBody("max age")));
+        final var toolBox = toolBox(wiremock, null);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("SUCCESS:no store", call(toolBox, "cached", "noStore"));
+            assertEquals("SUCCESS:expired", call(toolBox, "cached", "expired"));
+            assertEquals("SUCCESS:max age", call(toolBox, "cached", "maxAge"));
+        }
+        verify(3, getRequestedFor(urlEqualTo("/api/noStore")));
+        verify(3, getRequestedFor(urlEqualTo("/api/expired")));
+        verify(1, getRequestedFor(urlEqualTo("/api/maxAge")));
+
+        // Tools can choose to ignore cache headers
+        call(toolBox, "ignoringHeaders", "noStore");
+        call(toolBox, "ignoringHeaders", "noStore");
+        verify(4, getRequestedFor(urlEqualTo("/api/noStore")));
+    }
+
+    @Test
+    void testCacheIsBoundedBySize(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlPathMatching("/api/item/.*")).willReturn(aResponse().withBody("x".repeat(100))));
+        final var cache = HttpResponseCache.builder().maxBytes(4_000L).build();
+        final var toolBox = toolBox(wiremock, cache);
+
+        for (int i = 0; i < 100; i++) {
+            call(toolBox, "cached", "item/" + i);
+        }
+        final var stats = toolBox.responseCacheStats();
+        assertEquals(100, stats.getStored());
+        assertTrue(stats.getBytes() <= 4_000, "Bytes: " + stats.getBytes());
+        // Every entry is a 64 character key and a 100 character response, counted once however often it is weighed
+        assertEquals(stats.getEntries() * ((64 + 100) * Character.BYTES + 128), stats.getBytes());
+        assertTrue(stats.getEntries() < 20, "Entries: " + stats.getEntries());
+        assertEquals(100 - stats.getEntries(), stats.getEvicted());
+    }
+
+    @Test
+    @SneakyThrows
+    void testCancellingAllWaitersCancelsUpstreamCall(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlEqualTo("/api/slow")).willReturn(aResponse().withFixedDelay(10_000).withBody("slow")));
+        final var toolBox = toolBox(wiremock, null);
+        final var first = toolBox.runToolAsync(AgentUtils.id(UPSTREAM, "cached"), "slow");
+        final var second = toolBox.runToolAsync(AgentUtils.id(UPSTREAM, "cached"), "slow");
+        await().atMost(Duration.ofSeconds(5)).until(() -> toolBox.bulkheadStats().getInFlight() == 1);
+
+        first.cancel(true);
+        Thread.sleep(100);
+        // The other caller is still waiting
+        assertEquals(1, toolBox.bulkheadStats().getInFlight());
+        second.cancel(true);
+        await().atMost(Duration.ofSeconds(5)).until(() -> toolBox.bulkheadStats().getInFlight() == 0);
+        assertEquals(0, toolBox.responseCacheStats().getStored());
+    }
+
+    @Test
+    void testConcurrentIdenticalCallsAreCoalesced(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlEqualTo("/api/slow")).willReturn(aResponse().withFixedDelay(300).withBody("slow")));
+        final var toolBox = toolBox(wiremock, null);
+
+        final var calls = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(toolBox.runToolAsync(AgentUtils.id(UPSTREAM, "cached"), "slow"));
+        }
+        final var responses = calls.stream().map(CompletableFuture::join).toList();
+
+        assertTrue(responses.stream().allMatch(response -> "slow".equals(response.response())));
+        verify(1, getRequestedFor(urlEqualTo("/api/slow")));
+        final var stats = toolBox.responseCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(19, stats.getCoalesced());
+        assertEquals(1, stats.getStored());
+        assertEquals("SUCCESS:slow", call(toolBox, "cached", "slow"));
+        assertEquals(1, toolBox.responseCacheStats().getHits());
+    }
+
+    @Test
+    void testFailuresAreNotCached(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlEqualTo("/api/broken")).willReturn(aResponse().withStatus(500).withBody("broken")));
+        final var toolBox = toolBox(wiremock, null);
+
+        assertEquals("TOOL_CALL_TEMPORARY_FAILURE:broken", call(toolBox, "cached", "broken"));
+        assertEquals("TOOL_CALL_TEMPORARY_FAILURE:broken", call(toolBox, "cached", "broken"));
+        verify(2, getRequestedFor(urlEqualTo("/api/broken")));
+        assertEquals(0, toolBox.responseCacheStats().getStored());
+    }
+
+    @Test
+    void testIdenticalCallsAfterCompletionAreNotRepeated() {
+        final var cache = new HttpResponseCache();
+        final var upstreamCalls = new AtomicInteger();
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 500; round++) {
+                final var key = "key-" + round;
+                final var start = new CountDownLatch(1);
+                final var calls = IntStream.range(0, 8)
+                        .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                            Uninterruptibles.awaitUninterruptibly(start);
+                            return cache.get(key, () -> {
+                                upstreamCalls.incrementAndGet();
+                                return CompletableFuture.completedFuture(new HttpResponseCache.CacheableResponse(
+                                        new ExternalTool.ExternalToolResponse(key, ErrorType.SUCCESS),
+                                        60_000));
+                            }).join();
+                        }, executor))
+                        .toList();
+                start.countDown();
+                calls.forEach(call -> assertEquals(key, call.join().response()));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        // Every call either joined the call in flight or found its response in the cache
+        assertEquals(500, upstreamCalls.get());
+    }
+
+    @Test
+    void testIdenticalCallsAreServedFromCache(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlEqualTo("/api/user/1")).willReturn(aResponse().withBody("santanu")));
+        stubFor(get(urlEqualTo("/api/user/2")).willReturn(aResponse().withBody("vinod")));
+        final var toolBox = toolBox(wiremock, null);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("SUCCESS:santanu", call(toolBox, "cached", "user/1"));
+        }
+        assertEquals("SUCCESS:vinod", call(toolBox, "cached", "user/2"));
+        // Tools without caching always call the upstream
+        assertEquals("SUCCESS:santanu", call(toolBox, "uncached", "user/1"));
+        // Same request from another tool is cached separately
+        assertEquals("SUCCESS:santanu", call(toolBox, "ignoringHeaders", "user/1"));
+
+        verify(3, getRequestedFor(urlEqualTo("/api/user/1")));
+        verify(1, getRequestedFor(urlEqualTo("/api/user/2")));
+        final var stats = toolBox.responseCacheStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(3, stats.getStored());
+        assertEquals(3, stats.getEntries());
+    }
+
+    @Test
+    @SneakyThrows
+    void testResponsesExpireAfterTtl(final WireMockRuntimeInfo wiremock) {
+        stubFor(get(urlEqualTo("/api/user/1")).willReturn(aResponse().withBody("santanu")));
+        final var toolBox = toolBox(wiremock, null);
+
+        call(toolBox, "shortLived", "user/1");
+        call(toolBox, "shortLived", "user/1");
+        verify(1, getRequestedFor(urlEqualTo("/api/user/1")));
+        Thread.sleep(300);
+        call(toolBox, "shortLived", "user/1");
+        verify(2, getRequestedFor(urlEqualTo("/api/user/1")));
+        assertEquals(1, toolBox.responseCacheStats().getExpired());
+    }
+}
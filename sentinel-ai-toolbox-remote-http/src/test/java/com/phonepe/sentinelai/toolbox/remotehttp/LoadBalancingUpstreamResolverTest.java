@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.errors.ErrorType;
+import com.phonepe.sentinelai.core.tools.ExternalTool;
+import com.phonepe.sentinelai.core.utils.AgentUtils;
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link LoadBalancingUpstreamResolver} against several local servers with injected latency and failures
+ */
+class LoadBalancingUpstreamResolverTest {
+    private static final String UPSTREAM = "balancedServer";
+    private static final int SERVERS = 3;
+
+    private final List<WireMockServer> servers = new ArrayList<>();
+    private LoadBalancingUpstreamResolver resolver;
+
+    private static HttpToolSource<?, ?> toolSource() {
+        return new HttpToolSource() {
+            @Override
+            public List<HttpToolMetadata> list(String upstream) {
+                return List.of(HttpToolMetadata.builder()
+                        .name("data")
+                        .description("Fetches data")
+                        .build());
+            }
+
+            @Override
+            public HttpToolSource register(String upstream, List tool) {
+                return this;
+            }
+
+            @Override
+            public HttpCallSpec resolve(String upstream, String toolName, String arguments) {
+                return HttpCallSpec.builder()
+                        .method(HttpCallSpec.HttpMethod.GET)
+                        .path("/api/data")
+                        .build();
+            }
+
+            @Override
+            public List<String> upstreams() {
+                return List.of(UPSTREAM);
+            }
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < SERVERS; i++) {
+            final var server = new WireMockServer(options().dynamicPort());
+            server.start();
+            stub(server, 0, 200);
+            server.stubFor(get(urlEqualTo("/health")).willReturn(aResponse().withStatus(200)));
+            servers.add(server);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (null != resolver) {
+            resolver.close();
+        }
+        servers.forEach(WireMockServer::stop);
+    }
+
+    @Test
+    void testEwmaPrefersLowLatencyEndpoint() {
+        stub(servers.get(0), 200, 200);
+        stub(servers.get(1), 10, 200);
+        stub(servers.get(2), 10, 200);
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.EWMA, null, null);
+        final var toolBox = toolBox(64);
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals(ErrorType.SUCCESS, call(toolBox).error());
+        }
+        // The slow endpoint gets probed, but is avoided once its latency is known
+        assertTrue(calls(0) <= 2, "Slow endpoint got %d calls".formatted(calls(0)));
+        assertEquals(40, calls(0) + calls(1) + calls(2));
+        assertTrue(resolver.status(UPSTREAM).get(0).getLatencyMs() >= 200);
+    }
+
+    @Test
+    void testEjectionIsCapped() {
+        servers.forEach(server -> stub(server, 0, 500));
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.ROUND_ROBIN,
+                            OutlierDetectionConfig.builder()
+                                    .consecutiveFailures(2)
+                                    .ejectionTime(60_000L)
+                                    .maxEjectionPercent(50)
+                                    .build(),
+                            null);
+        final var toolBox = toolBox(64);
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ErrorType.TOOL_CALL_TEMPORARY_FAILURE, call(toolBox).error());
+        }
+        assertEquals(1, resolver.status(UPSTREAM).stream().filter(EndpointStatus::isEjected).count());
+    }
+
+    @Test
+    void testFailingEndpointIsEjected() {
+        stub(servers.get(0), 0, 500);
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.ROUND_ROBIN,
+                            OutlierDetectionConfig.builder()
+                                    .consecutiveFailures(3)
+                                    .ejectionTime(500L)
+                                    .build(),
+                            null);
+        final var toolBox = toolBox(64);
+
+        final var failed = countFailures(toolBox, 30);
+        assertEquals(3, calls(0));
+        assertEquals(3, failed);
+        final var status = resolver.status(UPSTREAM).get(0);
+        assertTrue(status.isEjected());
+        assertEquals(1, status.getEjections());
+        assertEquals(3, status.getFailures());
+
+        // Endpoint returns to rotation once the ejection time is over
+        stub(servers.get(0), 0, 200);
+        await().pollDelay(Duration.ofMillis(600))
+                .atMost(Duration.ofSeconds(5))
+                .until(() -> !resolver.status(UPSTREAM).get(0).isEjected());
+        assertEquals(0, countFailures(toolBox, 30));
+        assertEquals(13, calls(0));
+    }
+
+    @Test
+    void testFallsBackToAllEndpointsWhenNoneIsAvailable() {
+        servers.forEach(server -> server.stubFor(get(urlEqualTo("/health"))
+                .willReturn(aResponse().withStatus(503))));
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.ROUND_ROBIN, null, healthCheck());
+        final var toolBox = toolBox(64);
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> resolver.status(UPSTREAM).stream().noneMatch(EndpointStatus::isHealthy));
+
+        assertEquals(0, countFailures(toolBox, 30));
+        for (int i = 0; i < SERVERS; i++) {
+            assertEquals(10, calls(i));
+        }
+    }
+
+    @Test
+    void testLeastInFlightAvoidsSlowEndpoint() {
+        stub(servers.get(0), 500, 200);
+        stub(servers.get(1), 5, 200);
+        stub(servers.get(2), 5, 200);
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.LEAST_IN_FLIGHT, null, null);
+        final var toolBox = toolBox(6);
+
+        final var calls = new ArrayList<CompletableFuture<ExternalTool.ExternalToolResponse>>();
+        for (int i = 0; i < 90; i++) {
+            calls.add(toolBox.runToolAsync(AgentUtils.id(UPSTREAM, "data"), "{}"));
+        }
+        calls.forEach(call -> assertEquals(ErrorType.SUCCESS, call.orTimeout(30, TimeUnit.SECONDS).join().error()));
+
+        // Round robin would have sent 30 calls to the slow endpoint
+        assertTrue(calls(0) < 10, "Slow endpoint got %d calls".formatted(calls(0)));
+        assertEquals(90, calls(0) + calls(1) + calls(2));
+        assertTrue(resolver.status(UPSTREAM).stream().allMatch(status -> status.getInFlight() == 0));
+    }
+
+    @Test
+    void testRoundRobinSpreadsCallsEvenly() {
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.ROUND_ROBIN, null, null);
+        final var toolBox = toolBox(64);
+
+        assertEquals(0, countFailures(toolBox, 30));
+        final var status = resolver.status(UPSTREAM);
+        for (int i = 0; i < SERVERS; i++) {
+            assertEquals(10, calls(i));
+            assertEquals(10, status.get(i).getCalls());
+            assertEquals(0, status.get(i).getInFlight());
+        }
+    }
+
+    @Test
+    void testUnhealthyEndpointIsSkipped() {
+        servers.get(0).stubFor(get(urlEqualTo("/health")).willReturn(aResponse().withStatus(503)));
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.ROUND_ROBIN, null, healthCheck());
+        final var toolBox = toolBox(64);
+        await().atMost(Duration.ofSeconds(5)).until(() -> !resolver.status(UPSTREAM).get(0).isHealthy());
+
+        assertEquals(0, countFailures(toolBox, 20));
+        assertEquals(0, calls(0));
+
+        servers.get(0).stubFor(get(urlEqualTo("/health")).willReturn(aResponse().withStatus(200)));
+        await().atMost(Duration.ofSeconds(5)).until(() -> resolver.status(UPSTREAM).get(0).isHealthy());
+        assertEquals(0, countFailures(toolBox, 30));
+        assertEquals(10, calls(0));
+    }
+
+    @Test
+    void testUnreachableEndpointIsEjected() {
+        resolver = resolver(LoadBalancingUpstreamResolver.Strategy.ROUND_ROBIN,
+                            OutlierDetectionConfig.builder()
+                                    .consecutiveFailures(2)
+                                    .build(),
+                            null);
+        servers.get(2).stop();
+        final var toolBox = toolBox(64);
+
+        assertEquals(2, countFailures(toolBox, 30));
+        final var status = resolver.status(UPSTREAM).get(2);
+        assertTrue(status.isEjected());
+        assertEquals(2, status.getFailures());
+        assertEquals(28, calls(0) + calls(1));
+    }
+
+    private ExternalTool.ExternalToolResponse call(HttpToolBox toolBox) {
+        return toolBox.runToolAsync(AgentUtils.id(UPSTREAM, "data"), "{}")
+                .orTimeout(10, TimeUnit.SECONDS)
+                .join();
+    }
+
+    private int calls(int server) {
+        return servers.get(server).findAll(getRequestedFor(urlEqualTo("/api/data"))).size();
+    }
+
+    private long countFailures(HttpToolBox toolBox, int count) {
+        long failures = 0;
+        for (int i = 0; i < count; i++) {
+            if (call(toolBox).error() != ErrorType.SUCCESS) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private HealthCheckConfig healthCheck() {
+        return HealthCheckConfig.builder()
+                .path("/health")
+                .interval(50L)
+                .unhealthyThreshold(1)
+                .build();
+    }
+
+    private LoadBalancingUpstreamResolver resolver(LoadBalancingUpstreamResolver.Strategy strategy,
+                                                   OutlierDetectionConfig outlierDetection,
+                                                   HealthCheckConfig healthCheck) {
+        return LoadBalancingUpstreamResolver.builder()
+                .endpoints(Map.of(UPSTREAM, servers.stream().map(WireMockServer::baseUrl).toList()))
+                .strategy(strategy)
+                .outlierDetection(outlierDetection)
+                .healthCheck(healthCheck)
+                .build();
+    }
+
+    private void stub(WireMockServer server, int delayMs, int status) {
+        server.stubFor(get(urlEqualTo("/api/data")).willReturn(aResponse()
+                .withStatus(status)
+                .withFixedDelay(delayMs)
+                .withBody("data from " + server.port())));
+    }
+
+    private HttpToolBox toolBox(int maxInFlight) {
+        final var toolBox = HttpToolBox.builder()
+                .upstream(UPSTREAM)
+                .httpClient(new OkHttpClient.Builder().build())
+                .httpToolSource(toolSource())
+                .mapper(JsonUtils.createMapper())
+                .upstreamResolver(resolver)
+                .upstreamConfig(UpstreamConfig.builder().maxInFlight(maxInFlight).build())
+                .build();
+        assertEquals(1, toolBox.tools().size());
+        return toolBox;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp.templating;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.phonepe.sentinelai.core.utils.JsonUtils;
+import com.phonepe.sentinelai.toolbox.remotehttp.HttpCallSpec;
+import com.phonepe.sentinelai.toolbox.remotehttp.HttpToolMetadata;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.phonepe.sentinelai.toolbox.remotehttp.HttpToolParameterType.STRING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests compilation of templates in {@link TemplatizedHttpToolSource}
+ */
+@Slf4j
+class TemplatizedHttpToolSourceTest {
+    private static final String UPSTREAM = "http://localhost:8080";
+    private static final String ARGUMENTS = """
+            {
+                "name" : "santanu",
+                "city" : "Bangalore"
+            }
+            """;
+    private static final String JOLT_SPEC = """
+            [
+              {
+                 "operation": "shift",
+                 "spec": {
+                    "location": "userLocation"
+                 }
+              }
+            ]
+            """;
+
+    private static void benchmark(HttpCallTemplate.TemplateType type, int iterations) {
+        final var source = new InMemoryHttpToolSource();
+        final var tool = tool(type, "name");
+        source.register(UPSTREAM, tool);
+
+        final var uncompiledNs = time(iterations, () -> source.expandTemplate(ARGUMENTS, tool));
+        final var compiledNs = time(iterations, () -> source.resolve(UPSTREAM, "getLocation", ARGUMENTS));
+        log.info("{}: {} expansions, compile per call {} ms, compiled at registration {} ms",
+                 type,
+                 iterations,
+                 uncompiledNs / 1_000_000,
+                 compiledNs / 1_000_000);
+    }
+
+    private static HttpCallTemplate.Template template(HttpCallTemplate.TemplateType type, String variable) {
+        return switch (type) {
+            case TEXT -> HttpCallTemplate.Template.text("santanu");
+            case TEXT_SUBSTITUTOR -> HttpCallTemplate.Template.textSubstitutor("${" + variable + "}");
+            case HANDLEBARS -> HttpCallTemplate.Template.handlebars("{{" + variable + "}}");
+        };
+    }
+
+    private static long time(int iterations, Runnable runnable) {
+        for (int i = 0; i < iterations; i++) {
+            runnable.run();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            runnable.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static TemplatizedHttpTool tool(HttpCallTemplate.TemplateType type, String bodyVariable) {
+        return TemplatizedHttpTool.builder()
+                .metadata(HttpToolMetadata.builder()
+                        .name("getLocation")
+                        .description("Get location of the user")
+                        .parameters(Map.of("name",
+                                           new HttpToolMetadata.HttpToolParameterMeta("Name of the user", STRING)))
+                        .build())
+                .template(HttpCallTemplate.builder()
+                        .method(HttpCallSpec.HttpMethod.POST)
+                        .path(template(type, "city"))
+                        .headers(Map.of("X-User", List.of(template(type, "name"))))
+                        .body(template(type, bodyVariable))
+                        .build())
+                .responseTransformations(ResponseTransformerConfig.builder()
+                        .type(ResponseTransformerConfig.Type.JOLT)
+                        .config(JOLT_SPEC)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Compares expansion with templates compiled once at registration against compiling them on every call, for
+     * every templating engine
+     */
+    @Test
+    @Tag("benchmark")
+    void compiledExpansionIsFaster() {
+        for (final var type : HttpCallTemplate.TemplateType.values()) {
+            benchmark(type, 5_000);
+        }
+    }
+
+    @Test
+    void compiledExpansionMatchesPerCallCompilation() {
+        for (final var type : HttpCallTemplate.TemplateType.values()) {
+            final var source = new InMemoryHttpToolSource();
+            final var tool = tool(type, "name");
+            source.register(UPSTREAM, tool);
+
+            final var compiled = source.resolve(UPSTREAM, "getLocation", ARGUMENTS);
+            final var uncompiled = source.expandTemplate(ARGUMENTS, tool);
+            assertEquals(uncompiled.getPath(), compiled.getPath());
+            assertEquals(uncompiled.getHeaders(), compiled.getHeaders());
+            assertEquals(uncompiled.getBody(), compiled.getBody());
+            assertEquals("{\"userLocation\":\"Bangalore\"}",
+                         compiled.getResponseTransformer().apply("{\"location\":\"Bangalore\"}"));
+        }
+    }
+
+    @Test
+    void recompilesOnlyWhenDefinitionChanges() {
+        final var source = new InMemoryHttpToolSource(null, JsonUtils.createMapper());
+        source.register(UPSTREAM, tool(HttpCallTemplate.TemplateType.TEXT_SUBSTITUTOR, "name"));
+        final var first = source.compiled(UPSTREAM, "getLocation");
+
+        source.register(UPSTREAM, tool(HttpCallTemplate.TemplateType.TEXT_SUBSTITUTOR, "name"));
+        assertSame(first, source.compiled(UPSTREAM, "getLocation"));
+
+        source.register(UPSTREAM, tool(HttpCallTemplate.TemplateType.TEXT_SUBSTITUTOR, "city"));
+        final var changed = source.compiled(UPSTREAM, "getLocation");
+        assertNotSame(first, changed);
+        assertEquals("Bangalore", source.resolve(UPSTREAM, "getLocation", ARGUMENTS).getBody());
+    }
+
+    @Test
+    void staticTemplatesSkipArgumentParsing() {
+        final var source = new InMemoryHttpToolSource();
+        source.register(UPSTREAM, tool(HttpCallTemplate.TemplateType.TEXT, "name"));
+        assertFalse(source.compiled(UPSTREAM, "getLocation").getTemplate().usesContext());
+        // Arguments are never parsed, so even invalid json expands fine
+        assertEquals("santanu", source.resolve(UPSTREAM, "getLocation", "not json").getBody());
+    }
+}
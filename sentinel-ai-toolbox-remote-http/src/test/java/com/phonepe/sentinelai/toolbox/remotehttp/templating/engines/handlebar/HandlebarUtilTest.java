@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025 Original Author(s), PhonePe India Pvt. Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.phonepe.sentinelai.toolbox.remotehttp.templating.engines.handlebar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the bounded template caches in {@link HandlebarUtil}
+ */
+@Slf4j
+class HandlebarUtilTest {
+    private static final long MAX_BYTES = 512 * 1024;
+
+    @SneakyThrows
+    private static void convertDistinctTemplates(int from, int to) {
+        final var padding = "x".repeat(200);
+        for (int i = from; i < to; i++) {
+            // Every tenant gets a distinct template
+            final var template = "{\"tenant\": \"" + i + "\", \"name\": \"{{name}}\", \"padding\": \"" + padding
+                    + "\"}";
+            final var rendered = HandlebarUtil.convert(template, Map.of("name", "santanu"));
+            assertTrue(rendered.contains("\"tenant\": \"" + i + "\""));
+        }
+    }
+
+    @SneakyThrows
+    private static long usedHeap() {
+        final var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        HandlebarUtil.configure(HandlebarCacheConfig.builder().build());
+    }
+
+    @Test
+    void cachesAreBoundedUnderTemplateChurn() {
+        HandlebarUtil.configure(HandlebarCacheConfig.builder()
+                .maxBytes(MAX_BYTES)
+                .build());
+        final var total = 20_000;
+        convertDistinctTemplates(0, total);
+        final var compilation = HandlebarUtil.compilationCacheStats();
+        final var templates = HandlebarUtil.templateCacheStats();
+
+        // Other test classes share the caches and may compile templates concurrently
+        assertTrue(compilation.getMisses() >= total);
+        assertTrue(compilation.getTotalBytes() <= MAX_BYTES);
+        assertTrue(templates.getTotalBytes() <= MAX_BYTES);
+        assertTrue(compilation.getEvictions() >= total - compilation.getSize());
+        assertTrue(compilation.getSize() < total / 10);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void heapStaysFlatUnderTemplateChurn() {
+        HandlebarUtil.configure(HandlebarCacheConfig.builder()
+                .maxBytes(MAX_BYTES)
+                .build());
+        final var total = 100_000;
+        convertDistinctTemplates(0, total / 10);
+        final var heapAtWarmup = usedHeap();
+        convertDistinctTemplates(total / 10, total);
+        final var heapAtEnd = usedHeap();
+        log.info("{} distinct templates: heap after {}: {} KB, at end: {} KB, compilation cache: {}, template cache: {}",
+                 total,
+                 total / 10,
+                 heapAtWarmup / 1024,
+                 heapAtEnd / 1024,
+                 HandlebarUtil.compilationCacheStats(),
+                 HandlebarUtil.templateCacheStats());
+    }
+
+    @Test
+    @SneakyThrows
+    void sameContentIsCompiledOnce() {
+        final var content = "Hello {{name}}";
+        final var first = HandlebarUtil.compile(content);
+        assertSame(first, HandlebarUtil.compile(new String(content.toCharArray())));
+        assertEquals("Hello santanu", HandlebarUtil.apply(first, Map.of("name", "santanu")));
+        final var stats = HandlebarUtil.compilationCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getHits());
+        assertEquals(content.length() * Character.BYTES + HandlebarUtil.ENTRY_OVERHEAD_BYTES, stats.getTotalBytes());
+        assertEquals(1, stats.getSize());
+    }
+}